@@ -0,0 +1,265 @@
+package gr.unipi.meallab.api.client;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.LongSupplier;
+
+/**
+ * Concurrency limit for upstream calls that adapts to how the server is doing (AIMD).
+ *
+ * Instead of a fixed number of parallel requests, the limit moves with the
+ * observed latency and error rate:
+ * - Additive increase: every fast, successful call raises the limit by 1/limit,
+ *   i.e., roughly +1 per "window" of calls
+ * - Multiplicative decrease: a failed call, or a slow call while the limit is
+ *   nearly used up, multiplies the limit by backoffRatio (at most once per
+ *   smoothed round trip, so one burst of slow calls counts as a single signal)
+ *
+ * What counts as slow:
+ * - The baseline is a moving average of successful latencies (weight 5%),
+ *   so single fast or slow samples barely move it
+ * - A call is slow if it takes longer than baseline * latencyTolerance plus
+ *   an absolute slack of 5 ms, so ordinary jitter on fast (e.g. local) calls
+ *   is not mistaken for congestion
+ * - Latency only counts while at least half the limit is in use: with few
+ *   calls in flight, a slow call is not caused by our concurrency
+ *
+ * Callers that find the limit reached are queued (FIFO) and granted a permit
+ * when one is released; nothing blocks a thread unless the blocking
+ * UpstreamThrottle.execute() is used.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    /** Limit to start from. */
+    public static final int DEFAULT_INITIAL_LIMIT = 8;
+
+    /** Never go below this many parallel calls. */
+    public static final int DEFAULT_MIN_LIMIT = 1;
+
+    /** Never go above this many parallel calls. */
+    public static final int DEFAULT_MAX_LIMIT = 32;
+
+    private static final double DEFAULT_BACKOFF_RATIO = 0.5;
+    private static final double DEFAULT_LATENCY_TOLERANCE = 2.0;
+    private static final double BASELINE_WEIGHT = 0.05;
+    private static final double ROUND_TRIP_WEIGHT = 0.125;
+    private static final long LATENCY_SLACK_NANOS = 5_000_000L;
+    private static final double NEAR_LIMIT_RATIO = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+    private final LongSupplier clock;
+
+    // All guarded by this
+    private double limit;
+    private int inFlight;
+    private double baselineNanos = -1;
+    private double roundTripNanos = -1;
+    private long lastDecreaseAt;
+    private long decreases;
+    private final ArrayDeque<CompletableFuture<Permit>> waiters = new ArrayDeque<>();
+
+    /**
+     * Create a limiter with the default bounds (8 to start, 1..32).
+     */
+    public AdaptiveConcurrencyLimiter() {
+        this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+    }
+
+    /**
+     * Create a limiter.
+     *
+     * @param initialLimit starting limit
+     * @param minLimit lower bound (>= 1)
+     * @param maxLimit upper bound (>= minLimit)
+     */
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+        this(initialLimit, minLimit, maxLimit, DEFAULT_BACKOFF_RATIO, DEFAULT_LATENCY_TOLERANCE, System::nanoTime);
+    }
+
+    /**
+     * Create a limiter with explicit tuning (for tests).
+     *
+     * @param initialLimit starting limit
+     * @param minLimit lower bound (>= 1)
+     * @param maxLimit upper bound (>= minLimit)
+     * @param backoffRatio multiplier applied on a congestion signal (0 < r < 1)
+     * @param latencyTolerance a call slower than baseline * tolerance (+ 5 ms) is a congestion signal
+     * @param clock nanosecond time source
+     */
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit,
+                               double backoffRatio, double latencyTolerance, LongSupplier clock) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Require 1 <= minLimit <= maxLimit");
+        }
+        if (!(backoffRatio > 0 && backoffRatio < 1)) {
+            throw new IllegalArgumentException("backoffRatio must be in (0, 1)");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.clock = clock;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.lastDecreaseAt = clock.getAsLong();
+    }
+
+    /**
+     * Ask for a permit. The future completes immediately if the limit allows,
+     * otherwise when an earlier permit is released. Cancelling the future
+     * before it completes gives up the place in the queue.
+     *
+     * @return future of the permit (must be released exactly once)
+     */
+    public CompletableFuture<Permit> acquireAsync() {
+        CompletableFuture<Permit> waiter = new CompletableFuture<>();
+        synchronized (this) {
+            waiters.add(waiter);
+        }
+        // Always go through the queue: keeps FIFO order, and skips over
+        // cancelled waiters that would otherwise hold up the line
+        grantWaiting();
+        return waiter;
+    }
+
+    /**
+     * @return current limit (whole calls)
+     */
+    public synchronized int getLimit() {
+        return currentLimit();
+    }
+
+    /**
+     * @return permits currently held
+     */
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return callers waiting for a permit (may include cancelled ones not yet skipped)
+     */
+    public synchronized int getQueued() {
+        return waiters.size();
+    }
+
+    /**
+     * @return how many times the limit was cut because of errors or slow calls
+     */
+    public synchronized long getDecreases() {
+        return decreases;
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private void release(Permit permit, boolean success, boolean sample) {
+        long now = clock.getAsLong();
+        synchronized (this) {
+            if (sample) {
+                adjust(now - permit.grantedAt, success, inFlight, now);
+            }
+            inFlight--;
+        }
+        grantWaiting();
+    }
+
+    // Called with the lock held; busy = permits in use, including this one
+    private void adjust(long latency, boolean success, int busy, long now) {
+        roundTripNanos = roundTripNanos < 0 ? latency
+                : roundTripNanos + (latency - roundTripNanos) * ROUND_TRIP_WEIGHT;
+        boolean slow = false;
+        if (success) {
+            slow = baselineNanos >= 0 && busy >= currentLimit() * NEAR_LIMIT_RATIO
+                    && latency > baselineNanos * latencyTolerance + LATENCY_SLACK_NANOS;
+            baselineNanos = baselineNanos < 0 ? latency
+                    : baselineNanos + (latency - baselineNanos) * BASELINE_WEIGHT;
+        }
+
+        if (success && !slow) {
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+            return;
+        }
+
+        // One decrease per round trip: calls that were already in flight when
+        // the limit was cut would otherwise cut it again
+        if (now - lastDecreaseAt >= roundTripNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            lastDecreaseAt = now;
+            decreases++;
+        }
+    }
+
+    /**
+     * Hand freed slots to queued callers (outside the lock: completing a
+     * future runs its dependent stages).
+     */
+    private void grantWaiting() {
+        while (true) {
+            CompletableFuture<Permit> next;
+            Permit permit;
+            synchronized (this) {
+                if (waiters.isEmpty() || inFlight >= currentLimit()) {
+                    return;
+                }
+                next = waiters.poll();
+                if (next.isDone()) {
+                    // Cancelled while queued
+                    continue;
+                }
+                inFlight++;
+                permit = new Permit(clock.getAsLong());
+            }
+            if (!next.complete(permit)) {
+                // Lost a race with cancel(): give the slot back without a latency sample
+                permit.abandon();
+            }
+        }
+    }
+
+    /**
+     * The right to make one upstream call. Release it when the response
+     * (or the failure) arrives; the elapsed time feeds the limit.
+     */
+    public final class Permit {
+
+        private final long grantedAt;
+        private boolean released;
+
+        private Permit(long grantedAt) {
+            this.grantedAt = grantedAt;
+        }
+
+        /**
+         * Release after the call finished.
+         *
+         * @param success false for failures that indicate server trouble
+         *                (network errors, timeouts, 5xx)
+         */
+        public void release(boolean success) {
+            if (markReleased()) {
+                AdaptiveConcurrencyLimiter.this.release(this, success, true);
+            }
+        }
+
+        /**
+         * Release without recording a sample (the call never reached the server).
+         */
+        public void abandon() {
+            if (markReleased()) {
+                AdaptiveConcurrencyLimiter.this.release(this, true, false);
+            }
+        }
+
+        private synchronized boolean markReleased() {
+            if (released) {
+                return false;
+            }
+            released = true;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.LookupResult;
+import gr.unipi.meallab.api.model.MealDetails;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * One bulk lookup: fans out single-ID lookups with a sliding window.
+ *
+ * - At most maxConcurrency lookups are in flight at any time; each completion
+ *   starts the next ID (scheduled on the executor, so long inputs never
+ *   recurse on the stack)
+ * - Results are stored by input position, so the final list is in input order
+ * - Failures become LookupResult.failure(...) instead of failing the whole batch
+ * - onResult (optional) sees every result as soon as it arrives, in completion order
+ * - Cancelling the returned future stops launching new lookups and cancels
+ *   the ones in flight
+ */
+final class BulkLookup {
+
+    private final List<String> ids;
+    private final Function<String, CompletableFuture<MealDetails>> lookup;
+    private final Executor executor;
+    private final Consumer<LookupResult> onResult;
+
+    private final LookupResult[] results;
+    private final AtomicReferenceArray<CompletableFuture<?>> inFlight;
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    private final CompletableFuture<List<LookupResult>> done = new CompletableFuture<>();
+
+    private BulkLookup(Collection<String> ids,
+                       Function<String, CompletableFuture<MealDetails>> lookup,
+                       Executor executor, Consumer<LookupResult> onResult) {
+        this.ids = new ArrayList<>(ids);
+        this.lookup = lookup;
+        this.executor = executor;
+        this.onResult = onResult;
+        this.results = new LookupResult[this.ids.size()];
+        this.inFlight = new AtomicReferenceArray<>(this.ids.size());
+        this.remaining = new AtomicInteger(this.ids.size());
+    }
+
+    /**
+     * Start a bulk lookup.
+     *
+     * @param ids meal IDs in the desired result order (duplicates allowed)
+     * @param maxConcurrency max lookups in flight (>= 1)
+     * @param lookup single-ID async lookup
+     * @param executor where completions schedule the next lookup
+     * @param onResult per-result callback, or null
+     * @return future of all results in input order
+     */
+    static CompletableFuture<List<LookupResult>> start(Collection<String> ids, int maxConcurrency,
+                                                       Function<String, CompletableFuture<MealDetails>> lookup,
+                                                       Executor executor, Consumer<LookupResult> onResult) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be >= 1");
+        }
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+
+        BulkLookup bulk = new BulkLookup(ids, lookup, executor, onResult);
+        bulk.done.whenComplete((value, error) -> {
+            if (bulk.done.isCancelled()) {
+                bulk.cancelInFlight();
+            }
+        });
+
+        int initial = Math.min(maxConcurrency, bulk.ids.size());
+        for (int i = 0; i < initial; i++) {
+            bulk.launchNext();
+        }
+        return bulk.done;
+    }
+
+    private void launchNext() {
+        int i = next.getAndIncrement();
+        if (i >= ids.size() || done.isDone()) {
+            return;
+        }
+
+        String id = ids.get(i);
+        CompletableFuture<MealDetails> future;
+        try {
+            future = lookup.apply(id);
+        } catch (RuntimeException e) {
+            future = CompletableFuture.failedFuture(e);
+        }
+        inFlight.set(i, future);
+        future.whenComplete((meal, error) -> complete(i, id, meal, error));
+    }
+
+    private void complete(int i, String id, MealDetails meal, Throwable error) {
+        inFlight.set(i, null);
+        LookupResult result = (error == null)
+                ? LookupResult.success(i, id, meal)
+                : LookupResult.failure(i, id, toMealLabException(id, error));
+        results[i] = result;
+
+        if (onResult != null) {
+            try {
+                onResult.accept(result);
+            } catch (RuntimeException ignored) {
+                // A faulty callback must not stall the batch
+            }
+        }
+
+        if (remaining.decrementAndGet() == 0) {
+            done.complete(Collections.unmodifiableList(Arrays.asList(results)));
+        } else if (next.get() < ids.size()) {
+            // Hop to the executor: a lookup that completes synchronously (e.g., cached)
+            // would otherwise recurse once per remaining ID
+            try {
+                executor.execute(this::launchNext);
+            } catch (RuntimeException e) {
+                done.completeExceptionally(e);
+            }
+        }
+    }
+
+    private void cancelInFlight() {
+        for (int i = 0; i < inFlight.length(); i++) {
+            CompletableFuture<?> f = inFlight.get(i);
+            if (f != null) {
+                f.cancel(true);
+            }
+        }
+    }
+
+    private static MealLabException toMealLabException(String id, Throwable error) {
+        Throwable cause = (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+        if (cause instanceof MealLabException) {
+            return (MealLabException) cause;
+        }
+        return new MealLabException(MealLabException.kindOf(cause), "Lookup failed for id=" + id, cause);
+    }
+}
@@ -0,0 +1,215 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.CircuitOpenException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for the API: stop calling an upstream that keeps failing.
+ *
+ * States:
+ * - CLOSED: calls go through; consecutive transient failures are counted
+ *   (any success or non-transient outcome, e.g. "not found", resets the count)
+ * - OPEN: after failureThreshold consecutive transient failures every call
+ *   fails immediately with CircuitOpenException, for openDuration
+ * - HALF_OPEN: once openDuration has passed, a single trial call is let
+ *   through (others still fail fast). Success closes the circuit; failure
+ *   opens it again for another openDuration
+ *
+ * "Transient" uses the same classification as RetryPolicy.isTransient().
+ * A CircuitOpenException is not transient, so the retry layer does not
+ * retry calls the breaker rejected.
+ */
+public class CircuitBreaker {
+
+    /** Consecutive transient failures that open the circuit. */
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+    /** How long the circuit stays open before a trial call. */
+    public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+    /** Breaker state. */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * Create a breaker with the defaults (5 failures, 30 s open).
+     */
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+    }
+
+    /**
+     * Create a breaker.
+     *
+     * @param failureThreshold consecutive transient failures that open the circuit (>= 1)
+     * @param openDuration how long to fail fast before a trial call
+     */
+    public CircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    /**
+     * Create a breaker with a custom clock (for tests).
+     *
+     * @param failureThreshold consecutive transient failures that open the circuit (>= 1)
+     * @param openDuration how long to fail fast before a trial call
+     * @param clock nanosecond time source
+     */
+    CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("failureThreshold must be >= 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * Run a blocking call through the breaker.
+     *
+     * @param call the call
+     * @param <T> result type
+     * @return the call's result
+     * @throws CircuitOpenException if the circuit is open
+     */
+    public <T> T execute(Supplier<T> call) {
+        acquire();
+        T value;
+        try {
+            value = call.get();
+        } catch (RuntimeException | Error e) {
+            onOutcome(e);
+            throw e;
+        }
+        onOutcome(null);
+        return value;
+    }
+
+    /**
+     * Start an async call through the breaker.
+     *
+     * @param call starts the call
+     * @param <T> result type
+     * @return future of the call's result; fails with CircuitOpenException if the circuit is open
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        try {
+            acquire();
+        } catch (CircuitOpenException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        CompletableFuture<T> running;
+        try {
+            running = call.get();
+        } catch (RuntimeException e) {
+            onOutcome(e);
+            return CompletableFuture.failedFuture(e);
+        }
+        running.whenComplete((value, error) -> {
+            if (running.isCancelled()) {
+                onCancelled();
+            } else {
+                onOutcome(error);
+            }
+        });
+        return running;
+    }
+
+    /**
+     * Current state (OPEN turns into HALF_OPEN lazily, on the next call).
+     *
+     * @return the state
+     */
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return calls rejected because the circuit was open
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return how many times the circuit opened
+     */
+    public long getTimesOpened() {
+        return opened.sum();
+    }
+
+    private synchronized void acquire() {
+        if (state == State.OPEN) {
+            long remaining = openNanos - (clock.getAsLong() - openedAt);
+            if (remaining > 0) {
+                rejected.increment();
+                throw new CircuitOpenException(
+                        "API unavailable, failing fast for another " + (remaining / 1_000_000) + " ms");
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                rejected.increment();
+                throw new CircuitOpenException("API unavailable, waiting for a trial call to finish");
+            }
+            trialInFlight = true;
+        }
+    }
+
+    private synchronized void onOutcome(Throwable error) {
+        boolean failed = error != null && RetryPolicy.isTransient(unwrap(error));
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+            if (failed) {
+                open();
+            } else {
+                state = State.CLOSED;
+                consecutiveFailures = 0;
+            }
+            return;
+        }
+        if (!failed) {
+            consecutiveFailures = 0;
+        } else if (state == State.CLOSED && ++consecutiveFailures >= failureThreshold) {
+            open();
+        }
+    }
+
+    private synchronized void onCancelled() {
+        // A cancelled trial says nothing about the upstream: let another call try
+        if (state == State.HALF_OPEN) {
+            trialInFlight = false;
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        consecutiveFailures = 0;
+        opened.increment();
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+}
@@ -0,0 +1,880 @@
+package gr.unipi.meallab.api.client;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Persistent HTTP response cache for HttpTransport (private, single-user cache).
+ *
+ * Why?
+ * - Every start of the CLI or the GUI used to begin cold; with this cache,
+ *   meals seen in earlier runs are served from disk without a round trip
+ *
+ * HTTP semantics (RFC 9111, the parts that matter for GET-only JSON):
+ * - Only 200 responses are stored; "Cache-Control: no-store" is never stored
+ * - Freshness: Cache-Control max-age (minus Age), else Expires (relative to Date),
+ *   else 10% of (Date - Last-Modified), capped at defaultMaxAge (RFC 9111 §4.2.2),
+ *   else the configured lifetime of its endpoint (see below);
+ *   a response with none of these is stale at once
+ * - A response that is stale at once and has no validator (ETag / Last-Modified)
+ *   could never be served, so it is not stored
+ * - random.php is never stored: it is meant to answer differently every time
+ *
+ * Endpoint lifetimes:
+ * - TheMealDB sends no Cache-Control, Expires, ETag or Last-Modified at all, so
+ *   by the rules above nothing it returns could ever be reused
+ * - Endpoints whose answers rarely change are therefore given a default
+ *   freshness lifetime, used only when the response has no freshness of its
+ *   own: DEFAULT_ENDPOINT_LIFETIMES (lookup.php and filter.php 1 day,
+ *   list.php 7 days), configurable per cache
+ * - Other endpoints (search.php, random.php) get none
+ * - "no-cache" (or "Pragma: no-cache") entries are stored but revalidated on every use
+ * - Stale entries with an ETag / Last-Modified are revalidated with a conditional
+ *   GET (If-None-Match / If-Modified-Since); a 304 refreshes the stored metadata
+ *   and the stored body is served
+ *
+ * On disk (one file per URL, named by SHA-256 of the URL):
+ *   meallab-cache 1
+ *   url: https://...
+ *   stored-at: <epoch millis>
+ *   fresh-until: <epoch millis>
+ *   etag: "..."              (optional)
+ *   last-modified: ...       (optional)
+ *   no-cache: true           (optional)
+ *   <empty line>
+ *   <response body bytes>
+ *
+ * Crash safety:
+ * - Entries are written to a ".tmp" file, fsync'ed, then atomically renamed
+ *   into place, so a reader sees either the old entry or the new one, never half
+ * - Leftover ".tmp" files from a crash are deleted when the cache is first used
+ * - Unreadable or corrupt entries are deleted and treated as misses
+ *
+ * Size bound:
+ * - When the total size exceeds maxBytes, least recently used entries (by file
+ *   modification time, which hits refresh) are deleted down to 90% of maxBytes
+ *
+ * All failures of the cache itself are swallowed: the cache is an optimization,
+ * and a broken disk must never break a request.
+ */
+public class DiskResponseCache {
+
+    /** Default size bound for all cached responses. */
+    public static final long DEFAULT_MAX_BYTES = 50L * 1024 * 1024;
+
+    /** Cap for heuristic lifetimes (responses with Last-Modified but no Cache-Control/Expires). */
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofHours(1);
+
+    /**
+     * Default freshness lifetime per endpoint (last path segment), for
+     * responses that carry no freshness information of their own.
+     */
+    public static final Map<String, Duration> DEFAULT_ENDPOINT_LIFETIMES = Map.of(
+            "lookup.php", Duration.ofDays(1),
+            "filter.php", Duration.ofDays(1),
+            "list.php", Duration.ofDays(7));
+
+    private static final String MAGIC = "meallab-cache 1";
+    private static final String ENTRY_SUFFIX = ".entry";
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    // Endpoint whose answers must never be reused
+    private static final String NEVER_STORED = "random.php";
+
+    // Never hold more than this much of a single body while teeing it to disk
+    private static final long MAX_ENTRY_FRACTION = 8;
+
+    private final Path dir;
+    private final long maxBytes;
+    private final long defaultMaxAgeMillis;
+    private final Map<String, Duration> endpointLifetimes;
+    private final Clock clock;
+
+    private final AtomicLong totalBytes = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    // Set once the directory has been created and scanned (see ensureOpen())
+    private volatile boolean opened;
+
+    /**
+     * Create a cache in the given directory with default limits.
+     * Nothing is read or created on disk until the cache is first used.
+     *
+     * @param dir cache directory (created if missing)
+     */
+    public DiskResponseCache(Path dir) {
+        this(dir, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE);
+    }
+
+    /**
+     * Create a cache; the directory is opened on first use.
+     *
+     * @param dir cache directory (created if missing)
+     * @param maxBytes size bound for all entries (>= 1)
+     * @param defaultMaxAge cap for heuristic lifetimes (derived from Last-Modified)
+     */
+    public DiskResponseCache(Path dir, long maxBytes, Duration defaultMaxAge) {
+        this(dir, maxBytes, defaultMaxAge, DEFAULT_ENDPOINT_LIFETIMES);
+    }
+
+    /**
+     * Create a cache with custom endpoint lifetimes; the directory is opened on first use.
+     *
+     * @param dir cache directory (created if missing)
+     * @param maxBytes size bound for all entries (>= 1)
+     * @param defaultMaxAge cap for heuristic lifetimes (derived from Last-Modified)
+     * @param endpointLifetimes lifetime per endpoint (e.g., "lookup.php") for responses
+     *        without freshness information; empty = strict HTTP caching only
+     */
+    public DiskResponseCache(Path dir, long maxBytes, Duration defaultMaxAge,
+                             Map<String, Duration> endpointLifetimes) {
+        this(dir, maxBytes, defaultMaxAge, endpointLifetimes, Clock.systemUTC());
+    }
+
+    /**
+     * Create a cache with the default endpoint lifetimes and a custom clock (for tests).
+     */
+    DiskResponseCache(Path dir, long maxBytes, Duration defaultMaxAge, Clock clock) {
+        this(dir, maxBytes, defaultMaxAge, DEFAULT_ENDPOINT_LIFETIMES, clock);
+    }
+
+    /**
+     * Create a cache with a custom clock (for tests).
+     *
+     * @param dir cache directory (created if missing)
+     * @param maxBytes size bound for all entries (>= 1)
+     * @param defaultMaxAge cap for heuristic lifetimes (derived from Last-Modified)
+     * @param endpointLifetimes lifetime per endpoint for responses without freshness information
+     * @param clock wall clock (entries outlive the process, so not nanoTime)
+     */
+    DiskResponseCache(Path dir, long maxBytes, Duration defaultMaxAge, Map<String, Duration> endpointLifetimes,
+                      Clock clock) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("maxBytes must be >= 1");
+        }
+        if (endpointLifetimes.containsKey(NEVER_STORED)) {
+            throw new IllegalArgumentException(NEVER_STORED + " is never stored");
+        }
+        this.dir = dir;
+        this.maxBytes = maxBytes;
+        this.defaultMaxAgeMillis = defaultMaxAge.toMillis();
+        this.endpointLifetimes = Map.copyOf(endpointLifetimes);
+        this.clock = clock;
+    }
+
+    /**
+     * Default location: ~/.meallab/cache (next to MealStorage's files).
+     *
+     * @return the default cache directory
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".meallab", "cache");
+    }
+
+    /**
+     * Look up a stored response.
+     *
+     * @param url the request URL
+     * @return the entry (fresh or stale), or null if none
+     */
+    public Entry get(String url) {
+        ensureOpen();
+        Path file = entryFile(url);
+        Entry entry = read(file, url);
+        if (entry == null) {
+            misses.increment();
+        }
+        return entry;
+    }
+
+    /**
+     * Whether an entry may be served without contacting the server.
+     * Counts a hit when it can.
+     *
+     * @param entry the entry
+     * @return true if fresh and not marked no-cache
+     */
+    public boolean isFresh(Entry entry) {
+        boolean fresh = !entry.noCache && clock.millis() < entry.freshUntil;
+        if (fresh) {
+            hits.increment();
+            touch(entryFile(entry.url));
+        }
+        return fresh;
+    }
+
+    /**
+     * Add conditional headers for revalidating a stale entry.
+     *
+     * @param entry the stale entry (may be null)
+     * @param request the request being built
+     */
+    public void addConditionalHeaders(Entry entry, HttpRequest.Builder request) {
+        if (entry == null) {
+            return;
+        }
+        if (entry.etag != null) {
+            request.header("If-None-Match", entry.etag);
+        }
+        if (entry.lastModified != null) {
+            request.header("If-Modified-Since", entry.lastModified);
+        }
+    }
+
+    /**
+     * Handle a 304 Not Modified: keep the body, refresh the metadata.
+     *
+     * @param entry the entry that was revalidated
+     * @param headers the 304 response headers
+     * @return the refreshed entry (serve its body)
+     */
+    public Entry revalidated(Entry entry, HttpHeaders headers) {
+        revalidations.increment();
+        Entry refreshed = entry.withMetadata(metadataFrom(entry.url, headers, entry));
+        write(refreshed.url, refreshed.metadata, refreshed.body);
+        return refreshed;
+    }
+
+    /**
+     * Store a complete 200 response body.
+     *
+     * @param url the request URL
+     * @param headers the response headers
+     * @param body the body
+     */
+    public void put(String url, HttpHeaders headers, byte[] body) {
+        ensureOpen();
+        Map<String, String> metadata = storableMetadata(url, headers);
+        if (metadata != null && body.length <= maxBytes / MAX_ENTRY_FRACTION) {
+            write(url, metadata, body);
+        }
+    }
+
+    /**
+     * Wrap a 200 response body so it is stored while the caller streams it.
+     * The entry is committed when the stream is closed after the whole body was
+     * read (the remainder is drained on close); otherwise it is discarded.
+     *
+     * @param url the request URL
+     * @param headers the response headers
+     * @param body the live response body
+     * @return a stream to read instead of body
+     */
+    public InputStream putWhileReading(String url, HttpHeaders headers, InputStream body) {
+        ensureOpen();
+        Map<String, String> metadata = storableMetadata(url, headers);
+        if (metadata == null) {
+            return body;
+        }
+        return new TeeInputStream(body, url, metadata, maxBytes / MAX_ENTRY_FRACTION);
+    }
+
+    /**
+     * Remove a stored response (e.g., it could not be decoded).
+     *
+     * @param url the request URL
+     */
+    public void invalidate(String url) {
+        ensureOpen();
+        delete(entryFile(url));
+    }
+
+    /**
+     * @return responses served from disk without contacting the server
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return stale responses confirmed by a 304 and then served from disk
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    /**
+     * @return lookups that found no entry
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return responses written to disk
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * @return entries deleted to respect maxBytes
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return approximate bytes on disk
+     */
+    public long getSizeBytes() {
+        ensureOpen();
+        return totalBytes.get();
+    }
+
+    // --- Freshness ---
+
+    /**
+     * Metadata for a new 200 response, or null if it must not be stored.
+     */
+    private Map<String, String> storableMetadata(String url, HttpHeaders headers) {
+        Map<String, String> cacheControl = cacheControl(headers);
+        if (cacheControl.containsKey("no-store") || isNeverStored(url)) {
+            return null;
+        }
+        Map<String, String> metadata = metadataFrom(url, headers, null);
+        boolean staleAtOnce = parseLong(metadata.get("fresh-until")) <= parseLong(metadata.get("stored-at"));
+        if (staleAtOnce && !metadata.containsKey("etag") && !metadata.containsKey("last-modified")) {
+            return null;
+        }
+        return metadata;
+    }
+
+    private static boolean isNeverStored(String url) {
+        return endpoint(url).equals(NEVER_STORED);
+    }
+
+    /**
+     * Last path segment of a URL, e.g. "lookup.php".
+     */
+    private static String endpoint(String url) {
+        int query = url.indexOf('?');
+        String path = query < 0 ? url : url.substring(0, query);
+        return path.substring(path.lastIndexOf('/') + 1);
+    }
+
+    private Map<String, String> metadataFrom(String url, HttpHeaders headers, Entry previous) {
+        long now = clock.millis();
+        Map<String, String> cacheControl = cacheControl(headers);
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        metadata.put("url", url);
+        metadata.put("stored-at", Long.toString(now));
+        metadata.put("fresh-until", Long.toString(now + freshnessLifetime(url, headers, cacheControl)));
+
+        // A 304 may omit validators it did not change
+        String etag = headers.firstValue("ETag").orElse(previous == null ? null : previous.etag);
+        String lastModified = headers.firstValue("Last-Modified").orElse(previous == null ? null : previous.lastModified);
+        if (etag != null) {
+            metadata.put("etag", etag);
+        }
+        if (lastModified != null) {
+            metadata.put("last-modified", lastModified);
+        }
+        boolean pragmaNoCache = cacheControl.isEmpty()
+                && headers.firstValue("Pragma").map(p -> p.toLowerCase(Locale.ROOT).contains("no-cache")).orElse(false);
+        if (cacheControl.containsKey("no-cache") || pragmaNoCache) {
+            metadata.put("no-cache", "true");
+        }
+        return metadata;
+    }
+
+    private long freshnessLifetime(String url, HttpHeaders headers, Map<String, String> cacheControl) {
+        long age = headers.firstValue("Age").map(DiskResponseCache::parseLong).orElse(0L) * 1000;
+
+        String maxAge = cacheControl.get("max-age");
+        if (maxAge != null) {
+            return Math.max(0, parseLong(maxAge) * 1000 - age);
+        }
+
+        Optional<Long> date = headers.firstValue("Date").map(DiskResponseCache::parseHttpDate);
+        Optional<Long> expires = headers.firstValue("Expires").map(DiskResponseCache::parseHttpDate);
+        if (expires.isPresent()) {
+            long base = date.filter(d -> d >= 0).orElse(clock.millis());
+            return Math.max(0, expires.get() - base - age);
+        }
+
+        Optional<Long> lastModified = headers.firstValue("Last-Modified").map(DiskResponseCache::parseHttpDate);
+        if (date.isPresent() && lastModified.isPresent() && date.get() >= 0 && lastModified.get() >= 0) {
+            return Math.min(defaultMaxAgeMillis, Math.max(0, (date.get() - lastModified.get()) / 10));
+        }
+
+        Duration configured = endpointLifetimes.get(endpoint(url));
+        if (configured != null) {
+            return Math.max(0, configured.toMillis() - age);
+        }
+        // No explicit, heuristic or configured freshness: revalidate (if possible) on every use
+        return 0;
+    }
+
+    private static Map<String, String> cacheControl(HttpHeaders headers) {
+        Map<String, String> directives = new LinkedHashMap<>();
+        for (String value : headers.allValues("Cache-Control")) {
+            for (String part : value.split(",")) {
+                String directive = part.trim().toLowerCase(Locale.ROOT);
+                if (directive.isEmpty()) {
+                    continue;
+                }
+                int eq = directive.indexOf('=');
+                if (eq < 0) {
+                    directives.put(directive, "");
+                } else {
+                    directives.put(directive.substring(0, eq).trim(),
+                            directive.substring(eq + 1).trim().replace("\"", ""));
+                }
+            }
+        }
+        return directives;
+    }
+
+    private static long parseLong(String s) {
+        try {
+            return Long.parseLong(s.trim());
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return epoch millis, or -1 if unparseable (an invalid Expires means "already expired")
+     */
+    private static long parseHttpDate(String s) {
+        try {
+            return ZonedDateTime.parse(s.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return -1;
+        }
+    }
+
+    // --- Files ---
+
+    /**
+     * Create and scan the directory on first use, so constructing a cache
+     * (e.g., in MealLabService's default constructor) does no I/O.
+     */
+    private void ensureOpen() {
+        if (!opened) {
+            synchronized (this) {
+                if (!opened) {
+                    open();
+                    opened = true;
+                }
+            }
+        }
+    }
+
+    private void open() {
+        try {
+            Files.createDirectories(dir);
+            long total = 0;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    if (name.endsWith(TEMP_SUFFIX)) {
+                        // Interrupted write from an earlier run
+                        Files.deleteIfExists(file);
+                    } else if (name.endsWith(ENTRY_SUFFIX)) {
+                        total += Files.size(file);
+                    }
+                }
+            }
+            totalBytes.set(total);
+        } catch (IOException e) {
+            System.out.println("Warning: response cache disabled at " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private Path entryFile(String url) {
+        return dir.resolve(sha256(url) + ENTRY_SUFFIX);
+    }
+
+    private Entry read(Path file, String url) {
+        byte[] data;
+        try {
+            data = Files.readAllBytes(file);
+        } catch (IOException e) {
+            return null;
+        }
+
+        Entry entry = parse(data);
+        if (entry == null || !entry.url.equals(url)) {
+            delete(file);
+            return null;
+        }
+        return entry;
+    }
+
+    private static Entry parse(byte[] data) {
+        int headerEnd = indexOf(data, "\n\n".getBytes(StandardCharsets.US_ASCII));
+        if (headerEnd < 0) {
+            return null;
+        }
+        String[] lines = new String(data, 0, headerEnd, StandardCharsets.UTF_8).split("\n");
+        if (lines.length == 0 || !lines[0].equals(MAGIC)) {
+            return null;
+        }
+
+        Map<String, String> metadata = new LinkedHashMap<>();
+        for (int i = 1; i < lines.length; i++) {
+            int colon = lines[i].indexOf(": ");
+            if (colon > 0) {
+                metadata.put(lines[i].substring(0, colon), lines[i].substring(colon + 2));
+            }
+        }
+        if (!metadata.containsKey("url") || !metadata.containsKey("fresh-until")) {
+            return null;
+        }
+
+        byte[] body = new byte[data.length - headerEnd - 2];
+        System.arraycopy(data, headerEnd + 2, body, 0, body.length);
+        return new Entry(metadata, body);
+    }
+
+    private void write(String url, Map<String, String> metadata, byte[] body) {
+        Path temp = null;
+        try {
+            temp = Files.createTempFile(dir, "entry-", TEMP_SUFFIX);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                 OutputStream out = Channels.newOutputStream(channel)) {
+                out.write(header(metadata));
+                out.write(body);
+                out.flush();
+                channel.force(true);
+            }
+            commit(temp, url);
+        } catch (IOException e) {
+            if (temp != null) {
+                delete(temp);
+            }
+        }
+    }
+
+    private void commit(Path temp, String url) throws IOException {
+        Path target = entryFile(url);
+        long oldSize = Files.exists(target) ? Files.size(target) : 0;
+        long newSize = Files.size(temp);
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        stores.increment();
+        if (totalBytes.addAndGet(newSize - oldSize) > maxBytes) {
+            evict();
+        }
+    }
+
+    private static byte[] header(Map<String, String> metadata) {
+        StringBuilder sb = new StringBuilder(MAGIC).append('\n');
+        for (Map.Entry<String, String> e : metadata.entrySet()) {
+            // Header values come from the server: never let them break the line format
+            String value = e.getValue().replace('\n', ' ').replace('\r', ' ');
+            sb.append(e.getKey()).append(": ").append(value).append('\n');
+        }
+        sb.append('\n');
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Delete least recently used entries until the cache is at 90% of maxBytes.
+     * Also resynchronizes the size counter with what is really on disk.
+     */
+    private synchronized void evict() {
+        List<Path> entries = new ArrayList<>();
+        long total = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + ENTRY_SUFFIX)) {
+            for (Path file : files) {
+                entries.add(file);
+                total += Files.size(file);
+            }
+        } catch (IOException e) {
+            return;
+        }
+
+        entries.sort(Comparator.comparingLong(DiskResponseCache::lastModified));
+        long target = maxBytes - maxBytes / 10;
+        for (Path file : entries) {
+            if (total <= target) {
+                break;
+            }
+            try {
+                long size = Files.size(file);
+                if (Files.deleteIfExists(file)) {
+                    total -= size;
+                    evictions.increment();
+                }
+            } catch (IOException ignored) {
+                // Deleted concurrently or unreadable: skip
+            }
+        }
+        totalBytes.set(total);
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    private void touch(Path file) {
+        try {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(clock.millis()));
+        } catch (IOException ignored) {
+            // LRU order is best effort
+        }
+    }
+
+    private void delete(Path file) {
+        try {
+            long size = Files.exists(file) ? Files.size(file) : 0;
+            if (Files.deleteIfExists(file) && file.getFileName().toString().endsWith(ENTRY_SUFFIX)) {
+                totalBytes.addAndGet(-size);
+            }
+        } catch (IOException ignored) {
+            // Nothing else to do
+        }
+    }
+
+    private static int indexOf(byte[] data, byte[] pattern) {
+        outer:
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (data[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    private static String sha256(String s) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(s.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * One stored response.
+     */
+    public static final class Entry {
+        private final Map<String, String> metadata;
+        private final String url;
+        private final long freshUntil;
+        private final String etag;
+        private final String lastModified;
+        private final boolean noCache;
+        private final byte[] body;
+
+        Entry(Map<String, String> metadata, byte[] body) {
+            this.metadata = metadata;
+            this.url = metadata.get("url");
+            this.freshUntil = parseLong(metadata.get("fresh-until"));
+            this.etag = metadata.get("etag");
+            this.lastModified = metadata.get("last-modified");
+            this.noCache = "true".equals(metadata.get("no-cache"));
+            this.body = body;
+        }
+
+        Entry withMetadata(Map<String, String> newMetadata) {
+            return new Entry(newMetadata, body);
+        }
+
+        /**
+         * @return true if a conditional GET can revalidate this entry
+         */
+        public boolean hasValidators() {
+            return etag != null || lastModified != null;
+        }
+
+        /**
+         * @return the stored body (do not modify)
+         */
+        public byte[] getBody() {
+            return body;
+        }
+    }
+
+    /**
+     * Copies everything the caller reads into a temp file, and commits it as
+     * an entry on close() if the whole body was read.
+     *
+     * The body is never held in memory: bytes go straight to the temp file,
+     * which is created on the first read and deleted if the body turns out to
+     * be too big, the copy fails, or the caller closes before the end.
+     */
+    private final class TeeInputStream extends FilterInputStream {
+        private final String url;
+        private final Map<String, String> metadata;
+        private final long limit;
+        private Path temp;
+        private FileChannel channel;
+        private OutputStream copy;
+        private long copied;
+        private boolean copying = true;
+        private boolean eof;
+        private boolean closed;
+
+        TeeInputStream(InputStream in, String url, Map<String, String> metadata, long limit) {
+            super(in);
+            this.url = url;
+            this.metadata = metadata;
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b < 0) {
+                eof = true;
+            } else {
+                copy(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n < 0) {
+                eof = true;
+            } else if (n > 0) {
+                copy(buf, off, n);
+            }
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                // Decoders stop at the end of the JSON value; read the rest (usually
+                // a newline) so the entry can be committed and the connection reused
+                byte[] buf = new byte[512];
+                long drained = 0;
+                while (!eof && copying && drained < 64 * 1024) {
+                    int n = read(buf, 0, buf.length);
+                    drained += Math.max(n, 0);
+                }
+            } catch (IOException ignored) {
+                // Incomplete body: not stored
+            } finally {
+                super.close();
+            }
+            if (eof && copying) {
+                commitCopy();
+            } else {
+                abandon();
+            }
+        }
+
+        private void copy(byte[] buf, int off, int len) {
+            if (!copying) {
+                return;
+            }
+            copied += len;
+            if (copied > limit) {
+                // Too big to cache: keep streaming, stop copying
+                abandon();
+                return;
+            }
+            try {
+                if (copy == null) {
+                    temp = Files.createTempFile(dir, "entry-", TEMP_SUFFIX);
+                    channel = FileChannel.open(temp, StandardOpenOption.WRITE);
+                    copy = new BufferedOutputStream(Channels.newOutputStream(channel));
+                    copy.write(header(metadata));
+                }
+                copy.write(buf, off, len);
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        private void commitCopy() {
+            if (copy == null) {
+                // Empty body: nothing was read, so nothing was written yet
+                copy(new byte[0], 0, 0);
+                if (!copying) {
+                    return;
+                }
+            }
+            try {
+                copy.flush();
+                channel.force(true);
+                copy.close();
+                copy = null;
+                commit(temp, url);
+                temp = null;
+            } catch (IOException e) {
+                abandon();
+            }
+        }
+
+        /**
+         * Stop copying and delete whatever was written so far.
+         */
+        private void abandon() {
+            copying = false;
+            if (copy != null) {
+                try {
+                    copy.close();
+                } catch (IOException ignored) {
+                    // Deleted below anyway
+                }
+                copy = null;
+            }
+            if (temp != null) {
+                delete(temp);
+                temp = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package gr.unipi.meallab.api.client;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * CompletableFuture helpers shared by the client classes.
+ */
+final class Futures {
+
+    private Futures() {
+    }
+
+    /**
+     * Like first.thenCompose(next), except that cancelling (or timing out) the
+     * returned future also cancels first, or the future next started, so a
+     * cancelled call still aborts its HTTP exchange and frees its permits.
+     *
+     * @param first the first stage
+     * @param next starts the second stage from first's result
+     * @param <A> first result type
+     * @param <B> result type
+     * @return future of the second stage's result
+     */
+    static <A, B> CompletableFuture<B> thenComposeCancellable(CompletableFuture<A> first,
+                                                             Function<A, CompletableFuture<B>> next) {
+        CompletableFuture<B> result = new CompletableFuture<>();
+        first.whenComplete((value, error) -> {
+            if (error != null) {
+                result.completeExceptionally(unwrap(error));
+                return;
+            }
+            CompletableFuture<B> second;
+            try {
+                second = next.apply(value);
+            } catch (RuntimeException e) {
+                second = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<B> started = second;
+            started.whenComplete((secondValue, secondError) -> {
+                if (secondError != null) {
+                    result.completeExceptionally(unwrap(secondError));
+                } else {
+                    result.complete(secondValue);
+                }
+            });
+            result.whenComplete((ignored, resultError) -> {
+                if (resultError != null) {
+                    started.cancel(true);
+                }
+            });
+        });
+        result.whenComplete((ignored, error) -> {
+            if (error != null) {
+                first.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+}
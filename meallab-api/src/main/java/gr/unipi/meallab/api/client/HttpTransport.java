@@ -0,0 +1,376 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shared HTTP transport for MealLabClient, built on one java.net.http.HttpClient.
+ * The default Transport implementation.
+ *
+ * Why one shared client?
+ * - HttpClient keeps connections alive in its own pool and reuses them,
+ *   with a bounded number of concurrent exchanges and a configurable executor
+ *   (HttpURLConnection relied on the JVM-wide keep-alive cache: 5 idle sockets per host)
+ * - HTTP/2 is negotiated when the server supports it (falls back to HTTP/1.1),
+ *   so concurrent calls share one TLS connection
+ * - It offers a non-blocking, cancellable send path
+ *
+ * Connection pool:
+ * - maxConnections bounds the number of in-flight get() exchanges: a permit
+ *   is taken before the request is sent and only given back when the caller
+ *   closes the returned body stream (or the exchange fails), so it also bounds
+ *   the connections blocking calls keep busy at once
+ * - The JDK pool itself is tuned with system properties, read once per JVM:
+ *   -Djdk.httpclient.connectionPoolSize=N
+ *   -Djdk.httpclient.keepalive.timeout=SECONDS
+ *
+ * Async:
+ * - getAsync() never blocks the caller; the body is received by the HttpClient,
+ *   and the cache lookup runs on the executor (the common pool by default)
+ * - Cancelling (or timing out) the returned future aborts the HTTP exchange
+ * - maxConnections only bounds blocking get() calls
+ *
+ * Response cache (optional, see DiskResponseCache):
+ * - Fresh stored responses are returned without touching the network
+ *   (and without taking a connection permit); lookup() lets MealLabClient
+ *   serve them before its retry / circuit breaker / throttle layers
+ * - Stale ones are revalidated with a conditional GET; 304 serves the stored body
+ * - get() stores the body while the caller streams it; getAsync() stores the
+ *   received byte array
+ * - Each call reads the stored entry once; get(url, stored) / getAsync(url, stored)
+ *   take an entry already looked up
+ *
+ * Thread safety:
+ * - Instances are immutable and safe to share between threads and clients.
+ *   Use shared() unless you need a different executor or limits.
+ */
+public class HttpTransport implements Transport {
+
+    /** Default connect timeout (same as the old HttpURLConnection setting). */
+    public static final Duration DEFAULT_CONNECT_TIMEOUT = Duration.ofSeconds(8);
+
+    /** Default per-request timeout (same as the old read timeout). */
+    public static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(12);
+
+    /** Default upper bound on concurrent exchanges. */
+    public static final int DEFAULT_MAX_CONNECTIONS = 16;
+
+    private final HttpClient httpClient;
+    private final Duration requestTimeout;
+    private final Semaphore permits;
+    private final DiskResponseCache cache;
+    private final Executor lookupExecutor;
+
+    /**
+     * Create a transport with default timeouts and pool size.
+     * The HttpClient uses its own default executor.
+     */
+    public HttpTransport() {
+        this(null, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Create a transport with a custom executor and limits.
+     *
+     * @param executor executor for the HttpClient's async work (null = client default)
+     * @param maxConnections max concurrent exchanges (must be >= 1)
+     * @param connectTimeout TCP/TLS connect timeout
+     * @param requestTimeout timeout for a whole request (headers received)
+     */
+    public HttpTransport(Executor executor, int maxConnections, Duration connectTimeout, Duration requestTimeout) {
+        this(executor, maxConnections, connectTimeout, requestTimeout, null);
+    }
+
+    /**
+     * Create a transport with a custom executor, limits and a response cache.
+     *
+     * @param executor executor for the HttpClient's async work (null = client default)
+     * @param maxConnections max concurrent exchanges (must be >= 1)
+     * @param connectTimeout TCP/TLS connect timeout
+     * @param requestTimeout timeout for a whole request (headers received)
+     * @param cache persistent response cache (null = none)
+     */
+    public HttpTransport(Executor executor, int maxConnections, Duration connectTimeout, Duration requestTimeout,
+                         DiskResponseCache cache) {
+        if (maxConnections < 1) {
+            throw new IllegalArgumentException("maxConnections must be >= 1");
+        }
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .connectTimeout(connectTimeout);
+        if (executor != null) {
+            builder.executor(executor);
+        }
+
+        this.httpClient = builder.build();
+        this.requestTimeout = requestTimeout;
+        this.permits = new Semaphore(maxConnections);
+        this.cache = cache;
+        this.lookupExecutor = executor != null ? executor : ForkJoinPool.commonPool();
+    }
+
+    /**
+     * Create a transport with default timeouts and pool size and a response cache.
+     *
+     * @param cache persistent response cache
+     * @return a new transport
+     */
+    public static HttpTransport withCache(DiskResponseCache cache) {
+        return new HttpTransport(null, DEFAULT_MAX_CONNECTIONS, DEFAULT_CONNECT_TIMEOUT, DEFAULT_REQUEST_TIMEOUT, cache);
+    }
+
+    /**
+     * Get the process-wide shared transport.
+     * Created lazily on first use; all default MealLabClient instances share it.
+     *
+     * @return the shared transport
+     */
+    public static HttpTransport shared() {
+        return Holder.SHARED;
+    }
+
+    /**
+     * Perform a GET request and return the response body as a stream.
+     *
+     * The caller MUST close the returned stream; closing it (after reading it fully)
+     * hands the connection back to the pool for reuse.
+     *
+     * @param url the absolute URL to fetch
+     * @return the response body stream
+     * @throws MealLabException if the request fails or the status is not 2xx
+     */
+    @Override
+    public InputStream get(String url) {
+        return get(url, lookup(url));
+    }
+
+    /**
+     * get() for a URL already looked up (see lookup()).
+     *
+     * @param url the absolute URL to fetch
+     * @param stored the stored response, or null
+     * @return the response body stream
+     * @throws MealLabException if the request fails or the status is not 2xx
+     */
+    @Override
+    public InputStream get(String url, StoredResponse stored) {
+        if (stored != null && stored.isFresh()) {
+            return stored.openBody();
+        }
+        DiskResponseCache.Entry cached = stored == null ? null : stored.getEntry();
+        HttpRequest request = newRequest(url, cached);
+
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MealLabException(MealLabException.Kind.OTHER, "Interrupted while waiting for a connection: " + url, e);
+        }
+
+        boolean handedOff = false;
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+            int status = response.statusCode();
+            if (status == 304 && cached != null) {
+                response.body().close();
+                return new ByteArrayInputStream(cache.revalidated(cached, response.headers()).getBody());
+            }
+            if (status < 200 || status >= 300) {
+                // Drain so the connection can still be reused
+                try (InputStream body = response.body()) {
+                    body.readAllBytes();
+                }
+                throw httpError(url, status);
+            }
+            InputStream body = (cache != null && status == 200)
+                    ? cache.putWhileReading(url, response.headers(), response.body())
+                    : response.body();
+            handedOff = true;
+            return new PermitReleasingInputStream(body, permits);
+        } catch (IOException e) {
+            throw new MealLabException("API call failed: " + url, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MealLabException(MealLabException.Kind.OTHER, "Interrupted during API call: " + url, e);
+        } finally {
+            if (!handedOff) {
+                permits.release();
+            }
+        }
+    }
+
+    /**
+     * Perform a non-blocking GET request.
+     *
+     * The body is fully received by the HttpClient before the future completes,
+     * so no thread waits on the network. Cancelling the returned future (directly,
+     * or via orTimeout()) cancels the in-flight exchange.
+     *
+     * @param url the absolute URL to fetch
+     * @return future of the response body; fails with MealLabException on error
+     */
+    @Override
+    public CompletableFuture<InputStream> getAsync(String url) {
+        if (cache == null) {
+            return getAsync(url, null);
+        }
+        // The lookup reads the disk (and opens the cache on first use): not on the caller's thread
+        return Futures.thenComposeCancellable(CompletableFuture.supplyAsync(() -> lookup(url), lookupExecutor),
+                stored -> getAsync(url, stored));
+    }
+
+    /**
+     * getAsync() for a URL already looked up (see lookup()); does no disk I/O
+     * on the caller's thread (a 304 refreshes the entry on the HttpClient's executor).
+     *
+     * @param url the absolute URL to fetch
+     * @param stored the stored response, or null
+     * @return future of the response body
+     */
+    @Override
+    public CompletableFuture<InputStream> getAsync(String url, StoredResponse stored) {
+        if (stored != null && stored.isFresh()) {
+            return CompletableFuture.completedFuture(stored.openBody());
+        }
+        DiskResponseCache.Entry cached = stored == null ? null : stored.getEntry();
+        CompletableFuture<HttpResponse<byte[]>> exchange =
+                httpClient.sendAsync(newRequest(url, cached), HttpResponse.BodyHandlers.ofByteArray());
+
+        CompletableFuture<InputStream> body = exchange.handle((response, error) -> {
+            if (error != null) {
+                throw new CompletionException(new MealLabException("API call failed: " + url, unwrap(error)));
+            }
+            int status = response.statusCode();
+            if (status == 304 && cached != null) {
+                return new ByteArrayInputStream(cache.revalidated(cached, response.headers()).getBody());
+            }
+            if (status < 200 || status >= 300) {
+                throw new CompletionException(httpError(url, status));
+            }
+            if (cache != null && status == 200) {
+                cache.put(url, response.headers(), response.body());
+            }
+            return new ByteArrayInputStream(response.body());
+        });
+
+        // Propagate cancellation/timeouts back to the HTTP exchange
+        body.whenComplete((value, error) -> {
+            if (error != null) {
+                exchange.cancel(true);
+            }
+        });
+        return body;
+    }
+
+    /**
+     * Get the underlying HttpClient.
+     * Useful for callers that want to issue their own requests on the same pool.
+     *
+     * @return the shared HttpClient
+     */
+    public HttpClient getHttpClient() {
+        return httpClient;
+    }
+
+    /**
+     * Get the response cache.
+     *
+     * @return the cache, or null if this transport has none
+     */
+    public DiskResponseCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Read what the response cache holds for a URL (a small local file read;
+     * the first call also opens the cache directory).
+     *
+     * @param url the absolute URL
+     * @return the stored response, or null if there is no cache or no entry
+     */
+    @Override
+    public StoredResponse lookup(String url) {
+        if (cache == null) {
+            return null;
+        }
+        DiskResponseCache.Entry entry = cache.get(url);
+        return entry == null ? null : new StoredResponse(entry, cache.isFresh(entry));
+    }
+
+    /**
+     * Drop the stored response for a URL, e.g. because its body could not be decoded.
+     *
+     * @param url the absolute URL
+     */
+    @Override
+    public void invalidateCached(String url) {
+        if (cache != null) {
+            cache.invalidate(url);
+        }
+    }
+
+    private HttpRequest newRequest(String url, DiskResponseCache.Entry cached) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url))
+                .timeout(requestTimeout)
+                .header("Accept", "application/json")
+                .GET();
+        if (cache != null) {
+            cache.addConditionalHeaders(cached, builder);
+        }
+        return builder.build();
+    }
+
+    private static MealLabException httpError(String url, int status) {
+        return MealLabException.httpStatus(url, status);
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+
+    /**
+     * Body stream that gives its connection permit back when closed (once).
+     */
+    private static final class PermitReleasingInputStream extends FilterInputStream {
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        PermitReleasingInputStream(InputStream in, Semaphore permits) {
+            super(in);
+            this.permits = permits;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                super.close();
+            } finally {
+                if (released.compareAndSet(false, true)) {
+                    permits.release();
+                }
+            }
+        }
+    }
+
+    // Lazy holder idiom: the shared client is only built when first needed
+    private static final class Holder {
+        private static final HttpTransport SHARED = new HttpTransport();
+    }
+}
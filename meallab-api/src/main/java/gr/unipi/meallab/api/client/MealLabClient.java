@@ -2,38 +2,250 @@ package gr.unipi.meallab.api.client;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.MalformedJsonException;
 import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.LookupResult;
 import gr.unipi.meallab.api.model.MealDetails;
 import gr.unipi.meallab.api.model.MealListItem;
 import gr.unipi.meallab.api.model.MealsResponse;
 
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.lang.reflect.Type;
-import java.net.HttpURLConnection;
-import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 /**
  * HTTP client for TheMealDB API (https://www.themealdb.com).
  * 
- * Provides methods to search meals by ingredient/name, lookup by ID, and fetch random meals.
- * All network requests are synchronous; callers should run on background threads if needed.
+ * Provides methods to search meals by ingredient/name/first letter, filter them by category/area,
+ * lookup by ID, fetch random meals, and list the category, area and ingredient names.
+ * The plain methods are synchronous; callers should run them on background threads if needed.
+ * Each one has an *Async variant that returns a CompletableFuture instead:
+ * - The HTTP exchange is non-blocking; JSON decoding runs on the given Executor
+ *   (ForkJoinPool.commonPool() when none is given)
+ * - Timeouts: use future.orTimeout(...) / completeOnTimeout(...)
+ * - Cancelling the future (or timing out) aborts the in-flight HTTP exchange
+ * - Failures complete the future exceptionally with a MealLabException
+ * 
+ * Transport:
+ * - Requests go through a Transport; by default the shared HttpTransport
+ *   (one java.net.http.HttpClient) and TheMealDB's public base URL
+ * - Both are configurable, e.g. to point tests at an in-process
+ *   StubMealDbServer (gr.unipi.meallab.api.stub) so they run offline
+ * - RecordingTransport captures a session to a file; ReplayTransport serves it
+ *   back (at recorded speed or as fast as possible) for repeatable benchmarks
+ * - Connections are kept alive and reused, so repeated calls skip the TCP/TLS handshake
+ * - With a DiskResponseCache (HttpTransport.withCache()), responses survive restarts
+ *   and are revalidated with conditional GETs; bodies that fail to decode are dropped
+ * 
+ * Throttling:
+ * - Every HTTP call passes an UpstreamThrottle first: an optional RateLimiter
+ *   (e.g., TokenBucketRateLimiter) paces request starts, and an
+ *   AdaptiveConcurrencyLimiter caps calls in flight, shrinking the cap when
+ *   the server gets slow or fails and growing it back when it recovers
+ * - By default there is no rate limit and the adaptive cap starts at 8
+ * - getThrottleStats() reports queueing time and permits in use
+ * 
+ * Retries and circuit breaker:
+ * - Transient failures (network errors, timeouts, HTTP 408/429/5xx) are retried
+ *   with jittered exponential backoff (RetryPolicy, default 3 attempts within 15 s)
+ * - After repeated transient failures a CircuitBreaker opens and calls fail fast
+ *   with CircuitOpenException instead of waiting for timeouts; a single trial
+ *   call after the open period decides whether to close it again
+ * - Layering per call: retry -> circuit breaker -> throttle -> HTTP
+ * - Fresh DiskResponseCache hits are served before all of these: they take no
+ *   permit, are never retried and do not count toward the breaker or the limiter
+ * - The cache is looked up once per call; async calls look it up on their
+ *   executor, so the caller's (e.g., the JavaFX) thread never touches the disk
+ * 
+ * Bulk lookups:
+ * - TheMealDB has no batch endpoint; lookupByIds() fans out single lookups with
+ *   a bounded number in flight and returns results in input order
+ * - Per-ID failures are reported as LookupResult failures, not thrown
+ * 
+ * Request coalescing:
+ * - Identical concurrent calls (same endpoint + trimmed, case-folded query) share
+ *   one in-flight HTTP call and receive the same result objects or the same exception;
+ *   treat returned lists as read-only
+ * - randomMeal() is never coalesced (every call should return a new random meal)
+ * - Async callers can cancel independently; the shared exchange is aborted only
+ *   when all of them have cancelled
  * 
  * Exception handling:
  * - Network errors, parsing errors, and "not found" responses throw MealLabException
+ * - getKind() tells them apart: NETWORK, TIMEOUT, HTTP_STATUS, DECODE, NOT_FOUND,
+ *   UNAVAILABLE (CircuitOpenException, while the circuit breaker is open)
+ * - NOT_FOUND exceptions carry no stack trace (they are an expected answer)
  * - All exceptions include descriptive messages for debugging
  * 
  * JSON parsing:
  * - Uses Google Gson for type-safe deserialization
+ * - Decodes straight off the response stream with a JsonReader
+ *   (no intermediate byte[] or String copy of the body)
+ * - Bodies larger than maxBodyBytes are rejected with a MealLabException
  * - Handles null checks for empty meal lists
  */
 public class MealLabClient {
 
-    private static final String BASE_URL = "https://www.themealdb.com/api/json/v1/1";
+    /** TheMealDB's public API (free test key "1"). */
+    public static final String DEFAULT_BASE_URL = "https://www.themealdb.com/api/json/v1/1";
+
+    /** Default cap on a response body (the largest real filter.php result is well under 1 MB). */
+    public static final int DEFAULT_MAX_BODY_BYTES = 8 * 1024 * 1024;
+
+    /** Default number of lookups a bulk lookup keeps in flight. */
+    public static final int DEFAULT_BULK_CONCURRENCY = 4;
+
+    // Gson types are immutable; build them once instead of on every call
+    private static final Type LIST_ITEMS_TYPE = new TypeToken<MealsResponse<MealListItem>>() {}.getType();
+    private static final Type DETAILS_TYPE = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
+    private static final Type NAMES_TYPE = new TypeToken<MealsResponse<Map<String, String>>>() {}.getType();
+
     private final Gson gson = new Gson();
+    private final Transport transport;
+    private final String baseUrl;
+    private final int maxBodyBytes;
+    private final UpstreamThrottle throttle;
+    private final RetryPolicy retryPolicy;
+    private final CircuitBreaker circuitBreaker;
+
+    // In-flight calls per endpoint + normalized query (one map per result type)
+    private final SingleFlight<String, List<MealListItem>> listFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<MealDetails>> searchFlights = new SingleFlight<>();
+    private final SingleFlight<String, MealDetails> lookupFlights = new SingleFlight<>();
+    private final SingleFlight<String, List<String>> namesFlights = new SingleFlight<>();
+
+    /**
+     * Create a client that uses the process-wide shared transport.
+     */
+    public MealLabClient() {
+        this(HttpTransport.shared());
+    }
+
+    /**
+     * Create a client with a custom transport (e.g., different executor or pool size).
+     * 
+     * @param transport the HTTP transport to send requests through
+     */
+    public MealLabClient(Transport transport) {
+        this(transport, DEFAULT_MAX_BODY_BYTES);
+    }
+
+    /**
+     * Create a client for another server speaking TheMealDB's API
+     * (e.g., a StubMealDbServer in tests, or a paid API key).
+     * 
+     * @param transport the HTTP transport to send requests through
+     * @param baseUrl API root up to and including the key, e.g. "http://127.0.0.1:8080/api/json/v1/1"
+     */
+    public MealLabClient(Transport transport, String baseUrl) {
+        this(transport, baseUrl, DEFAULT_MAX_BODY_BYTES, new UpstreamThrottle(), new RetryPolicy(), new CircuitBreaker());
+    }
+
+    /**
+     * Create a client with a custom transport and response size limit.
+     * 
+     * @param transport the HTTP transport to send requests through
+     * @param maxBodyBytes maximum accepted response body size in bytes (must be >= 1)
+     */
+    public MealLabClient(Transport transport, int maxBodyBytes) {
+        this(transport, maxBodyBytes, new UpstreamThrottle());
+    }
+
+    /**
+     * Create a client with a custom transport, response size limit and throttle.
+     * 
+     * Example (TheMealDB asks for moderation: 5 requests/s, bursts of 10):
+     *   new MealLabClient(HttpTransport.shared(), MealLabClient.DEFAULT_MAX_BODY_BYTES,
+     *           new UpstreamThrottle(new TokenBucketRateLimiter(5, 10), new AdaptiveConcurrencyLimiter()));
+     * 
+     * @param transport the HTTP transport to send requests through
+     * @param maxBodyBytes maximum accepted response body size in bytes (must be >= 1)
+     * @param throttle rate and concurrency limits for upstream calls
+     */
+    public MealLabClient(Transport transport, int maxBodyBytes, UpstreamThrottle throttle) {
+        this(transport, maxBodyBytes, throttle, new RetryPolicy(), new CircuitBreaker());
+    }
+
+    /**
+     * Create a fully configured client.
+     * 
+     * @param transport the HTTP transport to send requests through
+     * @param maxBodyBytes maximum accepted response body size in bytes (must be >= 1)
+     * @param throttle rate and concurrency limits for upstream calls
+     * @param retryPolicy retries for transient failures (RetryPolicy.none() to disable)
+     * @param circuitBreaker fails fast while the API is down
+     */
+    public MealLabClient(Transport transport, int maxBodyBytes, UpstreamThrottle throttle,
+                         RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        this(transport, DEFAULT_BASE_URL, maxBodyBytes, throttle, retryPolicy, circuitBreaker);
+    }
+
+    /**
+     * Create a fully configured client for any server speaking TheMealDB's API.
+     * 
+     * @param transport the HTTP transport to send requests through
+     * @param baseUrl API root up to and including the key (a trailing "/" is ignored)
+     * @param maxBodyBytes maximum accepted response body size in bytes (must be >= 1)
+     * @param throttle rate and concurrency limits for upstream calls
+     * @param retryPolicy retries for transient failures (RetryPolicy.none() to disable)
+     * @param circuitBreaker fails fast while the API is down
+     */
+    public MealLabClient(Transport transport, String baseUrl, int maxBodyBytes, UpstreamThrottle throttle,
+                         RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        if (maxBodyBytes < 1) {
+            throw new IllegalArgumentException("maxBodyBytes must be >= 1");
+        }
+        this.transport = transport;
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.maxBodyBytes = maxBodyBytes;
+        this.throttle = throttle;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+    }
+
+    /**
+     * API root this client sends requests to.
+     * 
+     * @return base URL without a trailing "/"
+     */
+    public String getBaseUrl() {
+        return baseUrl;
+    }
+
+    /**
+     * Current circuit breaker state (e.g., to show "API unavailable" in the UI).
+     * 
+     * @return CLOSED, OPEN or HALF_OPEN
+     */
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    /**
+     * Snapshot of the throttle: time spent waiting for the rate/concurrency
+     * limits, permits in use and the current adaptive limit.
+     * 
+     * @return immutable statistics
+     */
+    public ThrottleStats getThrottleStats() {
+        return throttle.stats();
+    }
 
     /**
      * Search for meals by ingredient name.
@@ -43,12 +255,72 @@ public class MealLabClient {
      * @throws MealLabException if API call fails
      */
     public List<MealListItem> searchByIngredient(String ingredient) {
-        String url = BASE_URL + "/filter.php?i=" + encode(ingredient);
+        return filter("i", ingredient);
+    }
 
-        Type type = new TypeToken<MealsResponse<MealListItem>>() {}.getType();
-        MealsResponse<MealListItem> response = get(url, type);
+    /**
+     * Async variant of searchByIngredient(String), decoding on the common pool.
+     * 
+     * @param ingredient the ingredient to search for (e.g., "chicken")
+     * @return future list of meals containing this ingredient
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientAsync(String ingredient) {
+        return searchByIngredientAsync(ingredient, ForkJoinPool.commonPool());
+    }
 
-        return response.getMeals() == null ? Collections.emptyList() : response.getMeals();
+    /**
+     * Async variant of searchByIngredient(String).
+     * 
+     * @param ingredient the ingredient to search for (e.g., "chicken")
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of meals containing this ingredient
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientAsync(String ingredient, Executor executor) {
+        return filterAsync("i", ingredient, executor);
+    }
+
+    /**
+     * Filter meals by category (filter.php?c=).
+     * 
+     * @param category the category (e.g., "Seafood"; see listCategories())
+     * @return meals in this category (id + name + thumbnail only)
+     * @throws MealLabException if API call fails
+     */
+    public List<MealListItem> filterByCategory(String category) {
+        return filter("c", category);
+    }
+
+    /**
+     * Async variant of filterByCategory(String).
+     * 
+     * @param category the category (e.g., "Seafood")
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of meals in this category
+     */
+    public CompletableFuture<List<MealListItem>> filterByCategoryAsync(String category, Executor executor) {
+        return filterAsync("c", category, executor);
+    }
+
+    /**
+     * Filter meals by area, i.e. cuisine (filter.php?a=).
+     * 
+     * @param area the area (e.g., "Greek"; see listAreas())
+     * @return meals from this area (id + name + thumbnail only)
+     * @throws MealLabException if API call fails
+     */
+    public List<MealListItem> filterByArea(String area) {
+        return filter("a", area);
+    }
+
+    /**
+     * Async variant of filterByArea(String).
+     * 
+     * @param area the area (e.g., "Greek")
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of meals from this area
+     */
+    public CompletableFuture<List<MealListItem>> filterByAreaAsync(String area, Executor executor) {
+        return filterAsync("a", area, executor);
     }
 
     /**
@@ -59,12 +331,130 @@ public class MealLabClient {
      * @throws MealLabException if API call fails
      */
     public List<MealDetails> searchByName(String name) {
-        String url = BASE_URL + "/search.php?s=" + encode(name);
+        String query = normalizeQuery(name);
+        String url = baseUrl + "/search.php?s=" + encode(query);
+        return searchFlights.execute("search.php?s=" + query, () -> {
+            MealsResponse<MealDetails> response = get(url, DETAILS_TYPE);
+            return mealsOrEmpty(response);
+        });
+    }
+
+    /**
+     * Async variant of searchByName(String), decoding on the common pool.
+     * 
+     * @param name the meal name or partial name to search for
+     * @return future list of meals matching this name
+     */
+    public CompletableFuture<List<MealDetails>> searchByNameAsync(String name) {
+        return searchByNameAsync(name, ForkJoinPool.commonPool());
+    }
 
-        Type type = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
-        MealsResponse<MealDetails> response = get(url, type);
+    /**
+     * Async variant of searchByName(String).
+     * 
+     * @param name the meal name or partial name to search for
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of meals matching this name
+     */
+    public CompletableFuture<List<MealDetails>> searchByNameAsync(String name, Executor executor) {
+        String query = normalizeQuery(name);
+        String url = baseUrl + "/search.php?s=" + encode(query);
+        return searchFlights.executeAsync("search.php?s=" + query, () -> getAsync(url, DETAILS_TYPE, executor,
+                (MealsResponse<MealDetails> response) -> mealsOrEmpty(response)));
+    }
 
-        return response.getMeals() == null ? Collections.emptyList() : response.getMeals();
+    /**
+     * List every meal whose name starts with the given letter or digit.
+     * 
+     * Together, the 36 letters and digits cover the whole catalog, which is how
+     * a local mirror crawls it (TheMealDB has no "list all" endpoint).
+     * 
+     * @param letter one letter or digit (e.g., "a")
+     * @return the meals in that shard (full details; empty if none)
+     * @throws MealLabException if API call fails
+     */
+    public List<MealDetails> searchByFirstLetter(String letter) {
+        String query = normalizeQuery(letter);
+        String url = baseUrl + "/search.php?f=" + encode(query);
+        return searchFlights.execute("search.php?f=" + query, () -> {
+            MealsResponse<MealDetails> response = get(url, DETAILS_TYPE);
+            return mealsOrEmpty(response);
+        });
+    }
+
+    /**
+     * Async variant of searchByFirstLetter(String).
+     * 
+     * @param letter one letter or digit (e.g., "a")
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of the meals in that shard
+     */
+    public CompletableFuture<List<MealDetails>> searchByFirstLetterAsync(String letter, Executor executor) {
+        String query = normalizeQuery(letter);
+        String url = baseUrl + "/search.php?f=" + encode(query);
+        return searchFlights.executeAsync("search.php?f=" + query, () -> getAsync(url, DETAILS_TYPE, executor,
+                (MealsResponse<MealDetails> response) -> mealsOrEmpty(response)));
+    }
+
+    /**
+     * List every category name (list.php?c=list).
+     * 
+     * @return category names, e.g. "Beef", "Dessert" (in the API's order)
+     * @throws MealLabException if API call fails
+     */
+    public List<String> listCategories() {
+        return listNames("c", "strCategory");
+    }
+
+    /**
+     * Async variant of listCategories().
+     * 
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of category names
+     */
+    public CompletableFuture<List<String>> listCategoriesAsync(Executor executor) {
+        return listNamesAsync("c", "strCategory", executor);
+    }
+
+    /**
+     * List every area (cuisine) name (list.php?a=list).
+     * 
+     * @return area names, e.g. "Greek", "Japanese" (in the API's order)
+     * @throws MealLabException if API call fails
+     */
+    public List<String> listAreas() {
+        return listNames("a", "strArea");
+    }
+
+    /**
+     * Async variant of listAreas().
+     * 
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of area names
+     */
+    public CompletableFuture<List<String>> listAreasAsync(Executor executor) {
+        return listNamesAsync("a", "strArea", executor);
+    }
+
+    /**
+     * List every ingredient name (list.php?i=list).
+     * The descriptions that come with them are dropped.
+     * 
+     * @return ingredient names, e.g. "Chicken", "Soy Sauce" (in the API's order)
+     * @throws MealLabException if API call fails
+     */
+    public List<String> listIngredients() {
+        return listNames("i", "strIngredient");
+    }
+
+    /**
+     * Async variant of listIngredients().
+     * 
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future list of ingredient names
+     */
+    public CompletableFuture<List<String>> listIngredientsAsync(Executor executor) {
+        return listNamesAsync("i", "strIngredient", executor);
     }
 
     /**
@@ -75,15 +465,87 @@ public class MealLabClient {
      * @throws MealLabException if meal not found or API call fails
      */
     public MealDetails lookupById(String idMeal) {
-        String url = BASE_URL + "/lookup.php?i=" + encode(idMeal);
+        String id = normalizeQuery(idMeal);
+        String url = baseUrl + "/lookup.php?i=" + encode(id);
+        return lookupFlights.execute("lookup.php?i=" + id, () -> {
+            MealsResponse<MealDetails> response = get(url, DETAILS_TYPE);
+            return firstMeal(response, "No meal found for id=" + id);
+        });
+    }
 
-        Type type = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
-        MealsResponse<MealDetails> response = get(url, type);
+    /**
+     * Async variant of lookupById(String), decoding on the common pool.
+     * 
+     * @param idMeal the meal ID (e.g., "52772")
+     * @return future meal details; fails with MealLabException if not found
+     */
+    public CompletableFuture<MealDetails> lookupByIdAsync(String idMeal) {
+        return lookupByIdAsync(idMeal, ForkJoinPool.commonPool());
+    }
 
-        if (response.getMeals() == null || response.getMeals().isEmpty()) {
-            throw new MealLabException("No meal found for id=" + idMeal);
-        }
-        return response.getMeals().get(0);
+    /**
+     * Async variant of lookupById(String).
+     * 
+     * @param idMeal the meal ID (e.g., "52772")
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future meal details; fails with MealLabException if not found
+     */
+    public CompletableFuture<MealDetails> lookupByIdAsync(String idMeal, Executor executor) {
+        String id = normalizeQuery(idMeal);
+        String url = baseUrl + "/lookup.php?i=" + encode(id);
+        return lookupFlights.executeAsync("lookup.php?i=" + id, () -> getAsync(url, DETAILS_TYPE, executor,
+                (MealsResponse<MealDetails> response) -> firstMeal(response, "No meal found for id=" + id)));
+    }
+
+    /**
+     * Look up many meals by ID.
+     * 
+     * Uses DEFAULT_BULK_CONCURRENCY lookups in flight. Blocks until all IDs are resolved.
+     * 
+     * @param ids meal IDs (duplicates allowed; each gets its own result)
+     * @return one result per ID, in input order; failures are reported per ID
+     */
+    public List<LookupResult> lookupByIds(Collection<String> ids) {
+        return lookupByIds(ids, DEFAULT_BULK_CONCURRENCY);
+    }
+
+    /**
+     * Look up many meals by ID with a custom concurrency limit.
+     * 
+     * @param ids meal IDs (duplicates allowed; each gets its own result)
+     * @param maxConcurrency max lookups in flight (>= 1)
+     * @return one result per ID, in input order; failures are reported per ID
+     */
+    public List<LookupResult> lookupByIds(Collection<String> ids, int maxConcurrency) {
+        return lookupByIdsAsync(ids, maxConcurrency, ForkJoinPool.commonPool(), null).join();
+    }
+
+    /**
+     * Async bulk lookup that also streams each result as soon as it arrives.
+     * 
+     * @param ids meal IDs (duplicates allowed; each gets its own result)
+     * @param maxConcurrency max lookups in flight (>= 1)
+     * @param onResult called once per ID in completion order (may be null);
+     *                 runs on HTTP/decoder threads, so keep it short
+     * @return future of all results in input order; cancelling it cancels the batch
+     */
+    public CompletableFuture<List<LookupResult>> lookupByIdsAsync(Collection<String> ids, int maxConcurrency,
+                                                                  Consumer<LookupResult> onResult) {
+        return lookupByIdsAsync(ids, maxConcurrency, ForkJoinPool.commonPool(), onResult);
+    }
+
+    /**
+     * Async bulk lookup with a caller-supplied executor.
+     * 
+     * @param ids meal IDs (duplicates allowed; each gets its own result)
+     * @param maxConcurrency max lookups in flight (>= 1)
+     * @param executor executor for decoding and scheduling the next lookup
+     * @param onResult called once per ID in completion order (may be null)
+     * @return future of all results in input order; cancelling it cancels the batch
+     */
+    public CompletableFuture<List<LookupResult>> lookupByIdsAsync(Collection<String> ids, int maxConcurrency,
+                                                                  Executor executor, Consumer<LookupResult> onResult) {
+        return BulkLookup.start(ids, maxConcurrency, id -> lookupByIdAsync(id, executor), executor, onResult);
     }
 
     /**
@@ -93,15 +555,30 @@ public class MealLabClient {
      * @throws MealLabException if API call fails
      */
     public MealDetails randomMeal() {
-        String url = BASE_URL + "/random.php";
+        String url = baseUrl + "/random.php";
+        MealsResponse<MealDetails> response = get(url, DETAILS_TYPE);
+        return firstMeal(response, "No random meal returned");
+    }
 
-        Type type = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
-        MealsResponse<MealDetails> response = get(url, type);
+    /**
+     * Async variant of randomMeal(), decoding on the common pool.
+     * 
+     * @return future random meal with full details
+     */
+    public CompletableFuture<MealDetails> randomMealAsync() {
+        return randomMealAsync(ForkJoinPool.commonPool());
+    }
 
-        if (response.getMeals() == null || response.getMeals().isEmpty()) {
-            throw new MealLabException("No random meal returned");
-        }
-        return response.getMeals().get(0);
+    /**
+     * Async variant of randomMeal().
+     * 
+     * @param executor executor that decodes the response and runs dependent stages
+     * @return future random meal with full details
+     */
+    public CompletableFuture<MealDetails> randomMealAsync(Executor executor) {
+        String url = baseUrl + "/random.php";
+        return getAsync(url, DETAILS_TYPE, executor,
+                (MealsResponse<MealDetails> response) -> firstMeal(response, "No random meal returned"));
     }
 
     /**
@@ -114,24 +591,188 @@ public class MealLabClient {
      * @throws MealLabException if network or parsing fails
      */
     private <T> T get(String urlStr, Type type) {
-        HttpURLConnection conn = null;
-        try {
-            conn = (HttpURLConnection) URI.create(urlStr).toURL().openConnection();
-            conn.setRequestMethod("GET");
-            conn.setConnectTimeout(8000);
-            conn.setReadTimeout(12000);
-
-            try (InputStream is = conn.getInputStream()) {
-                String json = new String(is.readAllBytes(), StandardCharsets.UTF_8);
-                return gson.fromJson(json, type);
-            }
+        StoredResponse stored = transport.lookup(urlStr);
+        if (stored != null && stored.isFresh()) {
+            // Local hit: nothing to retry, trip or throttle
+            return read(urlStr, stored.openBody(), type);
+        }
+        return retryPolicy.execute(() -> circuitBreaker.execute(() -> throttle.execute(
+                () -> read(urlStr, transport.get(urlStr, stored), type))));
+    }
+
+    /**
+     * Decode a response body and close it; a body that cannot be decoded is
+     * dropped from the response cache.
+     */
+    private <T> T read(String urlStr, InputStream body, Type type) {
+        try (InputStream is = body) {
+            return decode(urlStr, is, type);
+        } catch (MealLabException e) {
+            throw uncacheIfUndecodable(urlStr, e);
         } catch (Exception e) {
-            throw new MealLabException("API call failed: " + urlStr, e);
-        } finally {
-            if (conn != null) {
-                conn.disconnect();
+            throw uncacheIfUndecodable(urlStr, decodeFailure(urlStr, e));
+        }
+    }
+
+    /**
+     * Generic non-blocking HTTP GET with JSON parsing on the given executor.
+     * 
+     * The mapper runs on the same stage as the decoding, so the returned future is
+     * the one wired to the HTTP exchange: cancelling it cancels the request too
+     * (or drops it from the throttle queue if it has not been sent yet).
+     * 
+     * @param urlStr the API endpoint URL
+     * @param type the Gson type for deserialization
+     * @param executor executor that runs the decoding and mapping
+     * @param mapper converts the parsed response to the result (may throw MealLabException)
+     * @param <T> the type to deserialize to
+     * @param <R> the result type
+     * @return future of the mapped result
+     */
+    private <T, R> CompletableFuture<R> getAsync(String urlStr, Type type, Executor executor, Function<T, R> mapper) {
+        // The cache lookup may read the disk: on the executor, never on the caller's thread
+        CompletableFuture<StoredResponse> lookup = CompletableFuture.supplyAsync(
+                () -> transport.lookup(urlStr), executor);
+        CompletableFuture<InputStream> body = Futures.thenComposeCancellable(lookup, stored -> stored != null
+                && stored.isFresh()
+                ? CompletableFuture.completedFuture(stored.openBody())
+                : retryPolicy.executeAsync(() -> circuitBreaker.executeAsync(
+                        () -> throttle.executeAsync(() -> transport.getAsync(urlStr, stored)))));
+        CompletableFuture<R> result = body.thenApplyAsync(
+                is -> mapper.apply(this.<T>read(urlStr, is, type)), executor);
+
+        // Cancelling/timing out the result must reach the HTTP exchange
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                body.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Decode a JSON response body as it streams in.
+     * 
+     * Gson reads tokens directly from the stream, so the payload is never
+     * materialized as a byte[] or String on the heap.
+     * 
+     * @param urlStr the URL (for error messages)
+     * @param is the response body
+     * @param type the Gson type for deserialization
+     * @param <T> the type to deserialize to
+     * @return parsed response object
+     * @throws Exception if reading or parsing fails, or the body is too large
+     */
+    private <T> T decode(String urlStr, InputStream is, Type type) throws Exception {
+        InputStream limited = new LimitedInputStream(is, maxBodyBytes, urlStr);
+        JsonReader reader = new JsonReader(new InputStreamReader(limited, StandardCharsets.UTF_8));
+        T result = gson.fromJson(reader, type);
+        if (result == null) {
+            throw new MealLabException(MealLabException.Kind.DECODE, "Empty response body from " + urlStr);
+        }
+        return result;
+    }
+
+    private List<MealListItem> filter(String param, String value) {
+        String query = normalizeQuery(value);
+        String url = baseUrl + "/filter.php?" + param + "=" + encode(query);
+        return listFlights.execute("filter.php?" + param + "=" + query, () -> {
+            MealsResponse<MealListItem> response = get(url, LIST_ITEMS_TYPE);
+            return mealsOrEmpty(response);
+        });
+    }
+
+    private CompletableFuture<List<MealListItem>> filterAsync(String param, String value, Executor executor) {
+        String query = normalizeQuery(value);
+        String url = baseUrl + "/filter.php?" + param + "=" + encode(query);
+        return listFlights.executeAsync("filter.php?" + param + "=" + query, () -> getAsync(url, LIST_ITEMS_TYPE,
+                executor, (MealsResponse<MealListItem> response) -> mealsOrEmpty(response)));
+    }
+
+    private List<String> listNames(String param, String field) {
+        String url = baseUrl + "/list.php?" + param + "=list";
+        return namesFlights.execute("list.php?" + param, () -> {
+            MealsResponse<Map<String, String>> response = get(url, NAMES_TYPE);
+            return names(response, field);
+        });
+    }
+
+    private CompletableFuture<List<String>> listNamesAsync(String param, String field, Executor executor) {
+        String url = baseUrl + "/list.php?" + param + "=list";
+        return namesFlights.executeAsync("list.php?" + param, () -> getAsync(url, NAMES_TYPE, executor,
+                (MealsResponse<Map<String, String>> response) -> names(response, field)));
+    }
+
+    /**
+     * The non-blank values of one field of a list.php answer, trimmed.
+     */
+    private static List<String> names(MealsResponse<Map<String, String>> response, String field) {
+        List<String> names = new ArrayList<>();
+        for (Map<String, String> entry : mealsOrEmpty(response)) {
+            String name = entry.get(field);
+            if (name != null && !name.isBlank()) {
+                names.add(name.trim());
+            }
+        }
+        return names;
+    }
+
+    /**
+     * Return the meals list, or an empty list when the API returned "meals": null.
+     */
+    private static <T> List<T> mealsOrEmpty(MealsResponse<T> response) {
+        return response.getMeals() == null ? Collections.emptyList() : response.getMeals();
+    }
+
+    /**
+     * Classify a failure while reading/parsing a body.
+     * 
+     * Gson reports I/O errors from the underlying stream as JsonSyntaxException /
+     * JsonIOException, so a connection that dies mid-body would look like bad JSON;
+     * walk the causes to tell the two apart.
+     */
+    private static MealLabException decodeFailure(String urlStr, Exception e) {
+        for (Throwable t = e; t != null; t = t.getCause()) {
+            if (t instanceof MalformedJsonException || t instanceof BodyTooLargeException) {
+                break;
+            }
+            if (t instanceof IOException) {
+                return new MealLabException("API call failed: " + urlStr, t);
             }
         }
+        return new MealLabException(MealLabException.Kind.DECODE, "Invalid response from " + urlStr, e);
+    }
+
+    /**
+     * A body that could not be decoded must not be served again from the response cache.
+     */
+    private MealLabException uncacheIfUndecodable(String urlStr, MealLabException e) {
+        if (e.getKind() == MealLabException.Kind.DECODE) {
+            transport.invalidateCached(urlStr);
+        }
+        return e;
+    }
+
+    /**
+     * Return the first meal of a response, or throw if there is none.
+     * "Not found" is an expected answer, so the exception is stackless.
+     */
+    private static MealDetails firstMeal(MealsResponse<MealDetails> response, String notFoundMessage) {
+        if (response.getMeals() == null || response.getMeals().isEmpty()) {
+            throw MealLabException.notFound(notFoundMessage);
+        }
+        return response.getMeals().get(0);
+    }
+
+    /**
+     * Normalize a query for coalescing: trim and case-fold.
+     * TheMealDB matches case-insensitively, so "Chicken" and "chicken " are the same request.
+     * 
+     * @param s the raw query (may be null)
+     * @return normalized query (empty string if input is null)
+     */
+    private static String normalizeQuery(String s) {
+        return s == null ? "" : s.trim().toLowerCase(Locale.ROOT);
     }
 
     /**
@@ -144,4 +785,56 @@ public class MealLabClient {
     private static String encode(String s) {
         return URLEncoder.encode(s == null ? "" : s, StandardCharsets.UTF_8);
     }
-}
\ No newline at end of file
+
+    /**
+     * InputStream wrapper that fails once more than maxBytes have been read.
+     * Protects the decoder from unbounded or malicious responses.
+     */
+    private static final class LimitedInputStream extends FilterInputStream {
+        private final long maxBytes;
+        private final String url;
+        private long count;
+
+        LimitedInputStream(InputStream in, long maxBytes, String url) {
+            super(in);
+            this.maxBytes = maxBytes;
+            this.url = url;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buf, int off, int len) throws IOException {
+            int n = super.read(buf, off, len);
+            if (n > 0) {
+                count(n);
+            }
+            return n;
+        }
+
+        private void count(int n) throws IOException {
+            count += n;
+            if (count > maxBytes) {
+                throw new BodyTooLargeException("Response body exceeds " + maxBytes + " bytes: " + url);
+            }
+        }
+    }
+
+    /**
+     * Thrown by LimitedInputStream; a DECODE failure, not a network one.
+     */
+    private static final class BodyTooLargeException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        BodyTooLargeException(String message) {
+            super(message);
+        }
+    }
+}
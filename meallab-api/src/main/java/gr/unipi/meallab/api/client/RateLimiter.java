@@ -0,0 +1,31 @@
+package gr.unipi.meallab.api.client;
+
+/**
+ * Pluggable pacing for upstream calls made by MealLabClient.
+ *
+ * Reservation style: reserve() claims the right to send one request and says
+ * how long the caller must wait before sending it. Blocking callers sleep for
+ * that long; async callers schedule the request with a delayed executor, so
+ * no thread is parked while waiting.
+ *
+ * Implementations must be thread-safe.
+ */
+@FunctionalInterface
+public interface RateLimiter {
+
+    /**
+     * Reserve one request.
+     *
+     * @return nanoseconds to wait before sending it (0 = send now)
+     */
+    long reserve();
+
+    /**
+     * A limiter that never delays anything.
+     *
+     * @return the no-op limiter
+     */
+    static RateLimiter unlimited() {
+        return () -> 0L;
+    }
+}
@@ -0,0 +1,189 @@
+package gr.unipi.meallab.api.client;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import gr.unipi.meallab.api.exception.MealLabException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One request/response pair captured by RecordingTransport.
+ *
+ * File format (JSON Lines, one object per line, append-only):
+ *   {"session":1700000000000}                        start of a recording session
+ *   {"at":0,"url":"...","latencyNanos":81234567,"status":200,"body":"{\"meals\":[...]}"}
+ *   {"at":5000000,"url":"...","latencyNanos":12000,"status":503,"error":"HTTP_STATUS","message":"..."}
+ *
+ * - at: when the request started, in nanoseconds since the session started
+ * - latencyNanos: until the whole body was received (or the failure was seen)
+ * - status: HTTP status, or -1 for failures without one (network, timeout)
+ * - error: MealLabException kind of a failed exchange
+ *
+ * A torn last line (the recorder was killed mid-write) is skipped when reading.
+ */
+public final class RecordedExchange {
+
+    private final int session;
+    private final long atNanos;
+    private final String url;
+    private final long latencyNanos;
+    private final int status;
+    private final String body;
+    private final MealLabException.Kind error;
+    private final String message;
+
+    private RecordedExchange(int session, long atNanos, String url, long latencyNanos, int status, String body,
+                             MealLabException.Kind error, String message) {
+        this.session = session;
+        this.atNanos = atNanos;
+        this.url = url;
+        this.latencyNanos = latencyNanos;
+        this.status = status;
+        this.body = body;
+        this.error = error;
+        this.message = message;
+    }
+
+    static RecordedExchange success(long atNanos, String url, long latencyNanos, String body) {
+        return new RecordedExchange(0, atNanos, url, latencyNanos, 200, body, null, null);
+    }
+
+    static RecordedExchange failure(long atNanos, String url, long latencyNanos, MealLabException e) {
+        return new RecordedExchange(0, atNanos, url, latencyNanos, e.getStatusCode(), null, e.getKind(), e.getMessage());
+    }
+
+    /**
+     * Read every exchange of a recording, in file order.
+     *
+     * @param file the recording
+     * @return the exchanges (sessions numbered from 1)
+     * @throws IOException if the file cannot be read
+     */
+    public static List<RecordedExchange> readAll(Path file) throws IOException {
+        List<RecordedExchange> exchanges = new ArrayList<>();
+        int session = 0;
+        try (BufferedReader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                JsonObject json;
+                try {
+                    json = JsonParser.parseString(line).getAsJsonObject();
+                } catch (JsonSyntaxException | IllegalStateException e) {
+                    // Torn write at the end of an interrupted recording
+                    continue;
+                }
+                if (json.has("session")) {
+                    session++;
+                    continue;
+                }
+                exchanges.add(new RecordedExchange(
+                        Math.max(session, 1),
+                        json.get("at").getAsLong(),
+                        json.get("url").getAsString(),
+                        json.get("latencyNanos").getAsLong(),
+                        json.get("status").getAsInt(),
+                        json.has("body") ? json.get("body").getAsString() : null,
+                        json.has("error") ? MealLabException.Kind.valueOf(json.get("error").getAsString()) : null,
+                        json.has("message") ? json.get("message").getAsString() : null));
+            }
+        }
+        return Collections.unmodifiableList(exchanges);
+    }
+
+    /**
+     * @return the line to append to a recording (without the newline)
+     */
+    String toJsonLine() {
+        JsonObject json = new JsonObject();
+        json.addProperty("at", atNanos);
+        json.addProperty("url", url);
+        json.addProperty("latencyNanos", latencyNanos);
+        json.addProperty("status", status);
+        if (body != null) {
+            json.addProperty("body", body);
+        }
+        if (error != null) {
+            json.addProperty("error", error.name());
+            json.addProperty("message", message);
+        }
+        return json.toString();
+    }
+
+    static String sessionLine(long epochMillis) {
+        JsonObject json = new JsonObject();
+        json.addProperty("session", epochMillis);
+        return json.toString();
+    }
+
+    /**
+     * Recreate the failure this exchange ended with.
+     *
+     * @return the exception to throw on replay
+     */
+    MealLabException toException() {
+        if (error == MealLabException.Kind.HTTP_STATUS && status > 0) {
+            return MealLabException.httpStatus(url, status);
+        }
+        return new MealLabException(error, message);
+    }
+
+    /**
+     * @return recording session this exchange belongs to (1 = first in the file)
+     */
+    public int getSession() {
+        return session;
+    }
+
+    /**
+     * @return request start, in nanoseconds since its session started
+     */
+    public long getAtNanos() {
+        return atNanos;
+    }
+
+    /**
+     * @return the requested URL
+     */
+    public String getUrl() {
+        return url;
+    }
+
+    /**
+     * @return time until the response was complete
+     */
+    public long getLatencyNanos() {
+        return latencyNanos;
+    }
+
+    /**
+     * @return HTTP status (-1 if the request failed without one)
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * @return true if a body was recorded
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the response body, or null for failures
+     */
+    public String getBody() {
+        return body;
+    }
+}
@@ -0,0 +1,156 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport decorator that records every exchange to an append-only file,
+ * for replaying the same traffic later with ReplayTransport.
+ *
+ * Usage (record a real session once):
+ *   try (RecordingTransport recorder = new RecordingTransport(HttpTransport.shared(), Path.of("session.jsonl"))) {
+ *       MealLabClient client = new MealLabClient(recorder);
+ *       ...
+ *   }
+ *
+ * Recording:
+ * - Each exchange is one JSON line (see RecordedExchange): URL, start offset,
+ *   latency, status, and the body or the failure
+ * - Lines are appended and flushed one by one, so a crash loses at most the
+ *   exchange being written; a new session line separates runs in one file
+ * - Bodies are buffered in memory to be written in one piece; recording is
+ *   for capturing sessions, not for production traffic
+ * - Failures are recorded too, then rethrown unchanged
+ */
+public class RecordingTransport implements Transport, AutoCloseable {
+
+    private final Transport delegate;
+    private final Writer out;
+    private final long sessionStart = System.nanoTime();
+    private final LongAdder recorded = new LongAdder();
+
+    /**
+     * Start recording (appends a new session to the file, creating it if needed).
+     *
+     * @param delegate the transport that performs the requests
+     * @param file the recording
+     * @throws UncheckedIOException if the file cannot be opened
+     */
+    public RecordingTransport(Transport delegate, Path file) {
+        this.delegate = delegate;
+        try {
+            this.out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+            writeLine(RecordedExchange.sessionLine(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open recording " + file, e);
+        }
+    }
+
+    @Override
+    public InputStream get(String url) {
+        long start = System.nanoTime();
+        byte[] body;
+        try (InputStream in = delegate.get(url)) {
+            body = in.readAllBytes();
+        } catch (MealLabException e) {
+            record(RecordedExchange.failure(start - sessionStart, url, System.nanoTime() - start, e));
+            throw e;
+        } catch (IOException e) {
+            MealLabException failure = new MealLabException("API call failed: " + url, e);
+            record(RecordedExchange.failure(start - sessionStart, url, System.nanoTime() - start, failure));
+            throw failure;
+        }
+        record(RecordedExchange.success(start - sessionStart, url, System.nanoTime() - start,
+                new String(body, StandardCharsets.UTF_8)));
+        return new ByteArrayInputStream(body);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> getAsync(String url) {
+        long start = System.nanoTime();
+        CompletableFuture<InputStream> exchange = delegate.getAsync(url);
+        CompletableFuture<InputStream> result = exchange.handle((in, error) -> {
+            long latency = System.nanoTime() - start;
+            if (error != null) {
+                Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                        ? error.getCause() : error;
+                if (cause instanceof MealLabException) {
+                    record(RecordedExchange.failure(start - sessionStart, url, latency, (MealLabException) cause));
+                }
+                throw (error instanceof CompletionException) ? (CompletionException) error : new CompletionException(error);
+            }
+            try (InputStream body = in) {
+                byte[] bytes = body.readAllBytes();
+                record(RecordedExchange.success(start - sessionStart, url, latency,
+                        new String(bytes, StandardCharsets.UTF_8)));
+                return new ByteArrayInputStream(bytes);
+            } catch (IOException e) {
+                throw new CompletionException(new MealLabException("API call failed: " + url, e));
+            }
+        });
+        // Cancelling the result must still abort the real exchange
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                exchange.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public void invalidateCached(String url) {
+        delegate.invalidateCached(url);
+    }
+
+    /**
+     * @return exchanges written so far in this session
+     */
+    public long getRecorded() {
+        return recorded.sum();
+    }
+
+    /**
+     * Flush and close the recording. The delegate is not closed.
+     */
+    @Override
+    public void close() {
+        try {
+            synchronized (out) {
+                out.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Warning: could not close recording: " + e.getMessage());
+        }
+    }
+
+    private void record(RecordedExchange exchange) {
+        try {
+            writeLine(exchange.toJsonLine());
+            recorded.increment();
+        } catch (IOException e) {
+            // Never fail the real request because the recording could not be written
+            System.out.println("Warning: could not record " + exchange.getUrl() + ": " + e.getMessage());
+        }
+    }
+
+    private void writeLine(String line) throws IOException {
+        synchronized (out) {
+            out.write(line);
+            out.write('\n');
+            out.flush();
+        }
+    }
+}
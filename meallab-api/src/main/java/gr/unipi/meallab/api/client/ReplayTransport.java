@@ -0,0 +1,164 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transport that answers from a recording made by RecordingTransport,
+ * without any network: the same workload can be replayed many times to
+ * compare caching or parallelism changes on identical traffic.
+ *
+ * Matching:
+ * - Requests are matched by exact URL (so use the same base URL as when recording)
+ * - Repeated requests for one URL get its recorded responses in order, and
+ *   start over from the first when they run out
+ * - Recorded failures are replayed as the same MealLabException kind/status
+ * - A URL that was never recorded fails with kind OTHER ("No recorded
+ *   response"), so it is neither retried nor cached as "not found";
+ *   getMisses() counts these
+ *
+ * Pacing:
+ * - RECORDED: every response is delayed by its recorded latency
+ *   (get() sleeps; getAsync() completes later on a delayed executor)
+ * - AS_FAST_AS_POSSIBLE: responses are returned immediately, which measures
+ *   the client's own overhead
+ *
+ * getExchanges() exposes the recording (URLs and start offsets) for
+ * benchmarks that want to re-issue the requests with the original arrival times.
+ */
+public class ReplayTransport implements Transport {
+
+    /** How fast recorded responses are served. */
+    public enum Pacing {
+        /** Wait the recorded latency before each response. */
+        RECORDED,
+        /** No waiting. */
+        AS_FAST_AS_POSSIBLE
+    }
+
+    private final List<RecordedExchange> exchanges;
+    private final Map<String, List<RecordedExchange>> byUrl = new HashMap<>();
+    private final Map<String, AtomicInteger> cursors = new HashMap<>();
+    private final Pacing pacing;
+
+    private final LongAdder replayed = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Load a recording.
+     *
+     * @param file the recording (all sessions in it are used)
+     * @param pacing RECORDED or AS_FAST_AS_POSSIBLE
+     * @throws IOException if the file cannot be read
+     */
+    public ReplayTransport(Path file, Pacing pacing) throws IOException {
+        this(RecordedExchange.readAll(file), pacing);
+    }
+
+    /**
+     * Replay already loaded exchanges.
+     *
+     * @param exchanges the exchanges, in recorded order
+     * @param pacing RECORDED or AS_FAST_AS_POSSIBLE
+     */
+    public ReplayTransport(List<RecordedExchange> exchanges, Pacing pacing) {
+        this.exchanges = List.copyOf(exchanges);
+        this.pacing = pacing;
+        for (RecordedExchange exchange : this.exchanges) {
+            byUrl.computeIfAbsent(exchange.getUrl(), k -> new ArrayList<>()).add(exchange);
+            cursors.putIfAbsent(exchange.getUrl(), new AtomicInteger());
+        }
+    }
+
+    @Override
+    public InputStream get(String url) {
+        RecordedExchange exchange = next(url);
+        if (pacing == Pacing.RECORDED && exchange.getLatencyNanos() > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(exchange.getLatencyNanos());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new MealLabException(MealLabException.Kind.OTHER, "Interrupted during replay: " + url, e);
+            }
+        }
+        return respond(exchange);
+    }
+
+    @Override
+    public CompletableFuture<InputStream> getAsync(String url) {
+        RecordedExchange exchange;
+        try {
+            exchange = next(url);
+        } catch (MealLabException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (pacing == Pacing.AS_FAST_AS_POSSIBLE || exchange.getLatencyNanos() <= 0) {
+            try {
+                return CompletableFuture.completedFuture(respond(exchange));
+            } catch (MealLabException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        CompletableFuture<InputStream> result = new CompletableFuture<>();
+        CompletableFuture.delayedExecutor(exchange.getLatencyNanos(), TimeUnit.NANOSECONDS).execute(() -> {
+            try {
+                result.complete(respond(exchange));
+            } catch (MealLabException e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return every recorded exchange, in file order
+     */
+    public List<RecordedExchange> getExchanges() {
+        return exchanges;
+    }
+
+    /**
+     * @return responses served from the recording
+     */
+    public long getReplayed() {
+        return replayed.sum();
+    }
+
+    /**
+     * @return requests for URLs that were never recorded
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    private RecordedExchange next(String url) {
+        List<RecordedExchange> recorded = byUrl.get(url);
+        if (recorded == null) {
+            misses.increment();
+            throw new MealLabException(MealLabException.Kind.OTHER, "No recorded response for " + url);
+        }
+        int i = cursors.get(url).getAndIncrement();
+        return recorded.get(Math.floorMod(i, recorded.size()));
+    }
+
+    private InputStream respond(RecordedExchange exchange) {
+        replayed.increment();
+        if (!exchange.isSuccess()) {
+            throw exchange.toException();
+        }
+        return new ByteArrayInputStream(exchange.getBody().getBytes(StandardCharsets.UTF_8));
+    }
+}
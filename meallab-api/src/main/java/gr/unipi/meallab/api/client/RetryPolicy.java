@@ -0,0 +1,244 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Retries for idempotent API calls (every MealLabClient call is a GET).
+ *
+ * Only transient failures are retried (see isTransient()): network errors,
+ * timeouts, HTTP 408/429/5xx. "Not found", bad JSON and 4xx responses fail
+ * on the first attempt because retrying cannot change the outcome.
+ *
+ * Backoff is exponential with "full jitter": before retry n the caller waits
+ * a random time in [0, min(maxDelay, baseDelay * 2^(n-1))]. The randomness
+ * keeps many clients that failed at the same moment from retrying in lockstep.
+ *
+ * maxElapsed bounds the whole call: no retry is started if its backoff would
+ * end after that budget, so a dead upstream costs at most one extra timeout
+ * instead of maxAttempts of them.
+ *
+ * Blocking callers (execute) sleep between attempts; async callers
+ * (executeAsync) are rescheduled on a delayed executor. Cancelling an async
+ * call cancels the running attempt and any scheduled retry.
+ */
+public class RetryPolicy {
+
+    /** Attempts per call, including the first one. */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    /** Backoff cap before the first retry. */
+    public static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(200);
+
+    /** Upper bound on any single backoff. */
+    public static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(2);
+
+    /** Time budget for all attempts of one call. */
+    public static final Duration DEFAULT_MAX_ELAPSED = Duration.ofSeconds(15);
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final long maxElapsedNanos;
+    private final DoubleSupplier random;
+    private final LongSupplier clock;
+
+    private final LongAdder retries = new LongAdder();
+
+    /**
+     * Create a policy with the defaults (3 attempts, 200 ms base, 2 s cap, 15 s budget).
+     */
+    public RetryPolicy() {
+        this(DEFAULT_MAX_ATTEMPTS, DEFAULT_BASE_DELAY, DEFAULT_MAX_DELAY, DEFAULT_MAX_ELAPSED);
+    }
+
+    /**
+     * Create a policy.
+     *
+     * @param maxAttempts attempts per call including the first (1 = no retries)
+     * @param baseDelay backoff cap before the first retry
+     * @param maxDelay upper bound on any single backoff
+     * @param maxElapsed time budget for all attempts of one call
+     */
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration maxElapsed) {
+        this(maxAttempts, baseDelay, maxDelay, maxElapsed,
+                () -> ThreadLocalRandom.current().nextDouble(), System::nanoTime);
+    }
+
+    /**
+     * Create a policy with a custom random source and clock (for tests).
+     *
+     * @param maxAttempts attempts per call including the first (1 = no retries)
+     * @param baseDelay backoff cap before the first retry
+     * @param maxDelay upper bound on any single backoff
+     * @param maxElapsed time budget for all attempts of one call
+     * @param random source of values in [0, 1)
+     * @param clock nanosecond time source
+     */
+    RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration maxElapsed,
+                DoubleSupplier random, LongSupplier clock) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("maxAttempts must be >= 1");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelay.toNanos();
+        this.maxDelayNanos = maxDelay.toNanos();
+        this.maxElapsedNanos = maxElapsed.toNanos();
+        this.random = random;
+        this.clock = clock;
+    }
+
+    /**
+     * A policy that never retries.
+     *
+     * @return single-attempt policy
+     */
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    /**
+     * Decide whether a failure is worth retrying.
+     *
+     * @param error the failure (CompletionException wrappers are looked through)
+     * @return true for network errors, timeouts and HTTP 408/429/5xx
+     *         (see MealLabException.isTransient())
+     */
+    public static boolean isTransient(Throwable error) {
+        Throwable e = unwrap(error);
+        if (e instanceof MealLabException) {
+            return ((MealLabException) e).isTransient();
+        }
+        // Decoding errors, interrupts, bugs: retrying will not help
+        return false;
+    }
+
+    /**
+     * Run a blocking call, retrying transient failures.
+     *
+     * @param call the call
+     * @param <T> result type
+     * @return the first successful result
+     * @throws RuntimeException the last failure once attempts or budget run out
+     */
+    public <T> T execute(Supplier<T> call) {
+        long start = clock.getAsLong();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.get();
+            } catch (RuntimeException e) {
+                long delay = nextDelay(attempt, start, e);
+                if (delay < 0) {
+                    throw e;
+                }
+                sleep(delay, e);
+            }
+        }
+    }
+
+    /**
+     * Start an async call, retrying transient failures.
+     *
+     * @param call starts one attempt
+     * @param <T> result type
+     * @return future of the first successful result, or the last failure
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        AtomicReference<CompletableFuture<T>> current = new AtomicReference<>();
+        result.whenComplete((value, error) -> {
+            CompletableFuture<T> running = current.get();
+            if (result.isCancelled() && running != null) {
+                running.cancel(true);
+            }
+        });
+        attempt(call, result, current, 1, clock.getAsLong());
+        return result;
+    }
+
+    /**
+     * Number of retries performed so far (attempts after the first).
+     *
+     * @return retry count
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    private <T> void attempt(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result,
+                             AtomicReference<CompletableFuture<T>> current, int attempt, long start) {
+        if (result.isDone()) {
+            return;
+        }
+        CompletableFuture<T> running;
+        try {
+            running = call.get();
+        } catch (RuntimeException e) {
+            running = CompletableFuture.failedFuture(e);
+        }
+        current.set(running);
+        if (result.isCancelled()) {
+            // Cancelled while this attempt was being started
+            running.cancel(true);
+            return;
+        }
+
+        running.whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = unwrap(error);
+            long delay = nextDelay(attempt, start, cause);
+            if (delay < 0 || result.isDone()) {
+                result.completeExceptionally(cause);
+                return;
+            }
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS)
+                    .execute(() -> attempt(call, result, current, attempt + 1, start));
+        });
+    }
+
+    /**
+     * Backoff before the next attempt, or -1 to give up.
+     */
+    long nextDelay(int attempt, long start, Throwable error) {
+        if (attempt >= maxAttempts || !isTransient(error)) {
+            return -1;
+        }
+        long cap = baseDelayNanos << Math.min(attempt - 1, 30);
+        if (cap < 0 || cap > maxDelayNanos) {
+            cap = maxDelayNanos;
+        }
+        long delay = (long) (random.getAsDouble() * cap);
+        if (clock.getAsLong() - start + delay > maxElapsedNanos) {
+            return -1;
+        }
+        retries.increment();
+        return delay;
+    }
+
+    private static void sleep(long nanos, RuntimeException pending) {
+        try {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.addSuppressed(e);
+            throw pending;
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+}
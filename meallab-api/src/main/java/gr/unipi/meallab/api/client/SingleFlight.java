@@ -0,0 +1,180 @@
+package gr.unipi.meallab.api.client;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Request coalescing ("single flight") for identical concurrent calls.
+ *
+ * While a call for a key is in flight, every other caller asking for the same
+ * key waits for that call instead of starting its own, and receives the same
+ * result object or the same exception. Once the call completes the key is
+ * forgotten, so later callers trigger a fresh call (this is not a cache).
+ *
+ * Blocking and async callers share the same in-flight call:
+ * - execute(): the first caller runs the call on its own thread, others wait
+ * - executeAsync(): each caller gets its own future; cancelling one only
+ *   detaches that caller. The underlying call is cancelled once every async
+ *   caller has cancelled and no blocking caller is waiting.
+ *
+ * @param <K> key type (must implement equals/hashCode)
+ * @param <V> result type
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+
+    /**
+     * Run a blocking call, or join the identical one already in flight.
+     *
+     * @param key identifies identical calls
+     * @param call the blocking call (run only by the first caller)
+     * @return the shared result
+     * @throws RuntimeException the same exception instance the call threw
+     */
+    V execute(K key, Supplier<V> call) {
+        Joined<V> joined = join(key);
+        if (!joined.leader) {
+            return await(joined.call.promise);
+        }
+
+        try {
+            V value = call.get();
+            joined.call.promise.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            joined.call.promise.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, joined.call);
+        }
+    }
+
+    /**
+     * Start an async call, or attach to the identical one already in flight.
+     *
+     * @param key identifies identical calls
+     * @param call starts the async call (invoked only by the first caller)
+     * @return a per-caller future completing with the shared result
+     */
+    CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> call) {
+        Joined<V> joined = join(key);
+        Call<V> shared = joined.call;
+
+        if (joined.leader) {
+            CompletableFuture<V> real;
+            try {
+                real = call.get();
+            } catch (RuntimeException e) {
+                real = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<V> started = real;
+            started.whenComplete((value, error) -> {
+                calls.remove(key, shared);
+                if (error != null) {
+                    shared.promise.completeExceptionally(unwrap(error));
+                } else {
+                    shared.promise.complete(value);
+                }
+            });
+            // All callers gone: abort the real call as well
+            shared.promise.whenComplete((value, error) -> {
+                if (shared.promise.isCancelled()) {
+                    started.cancel(true);
+                }
+            });
+        }
+
+        CompletableFuture<V> mine = shared.promise.copy();
+        mine.whenComplete((value, error) -> {
+            if (mine.isCancelled()) {
+                detach(key, shared);
+            }
+        });
+        return mine;
+    }
+
+    /**
+     * Number of distinct calls currently in flight (for tests and metrics).
+     *
+     * @return in-flight key count
+     */
+    int inFlight() {
+        return calls.size();
+    }
+
+    /**
+     * Register a caller for the key, creating the call if none is running.
+     * Per-key updates are serialized by ConcurrentHashMap.compute().
+     */
+    private Joined<V> join(K key) {
+        boolean[] created = new boolean[1];
+        Call<V> call = calls.compute(key, (k, existing) -> {
+            if (existing == null || existing.promise.isDone()) {
+                existing = new Call<>();
+                created[0] = true;
+            }
+            existing.waiters++;
+            return existing;
+        });
+        return new Joined<>(call, created[0]);
+    }
+
+    /**
+     * An async caller cancelled: drop it, and cancel the call if it was the last one.
+     */
+    private void detach(K key, Call<V> call) {
+        calls.computeIfPresent(key, (k, current) -> {
+            if (current != call) {
+                return current;
+            }
+            if (--current.waiters == 0) {
+                current.promise.cancel(true);
+                return null;
+            }
+            return current;
+        });
+    }
+
+    private static <V> V await(CompletableFuture<V> promise) {
+        try {
+            return promise.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for an in-flight call");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new CompletionException(cause);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+
+    private static final class Call<V> {
+        final CompletableFuture<V> promise = new CompletableFuture<>();
+        // Only read/written inside calls.compute*(), which serializes per key
+        int waiters;
+    }
+
+    private static final class Joined<V> {
+        final Call<V> call;
+        final boolean leader;
+
+        Joined(Call<V> call, boolean leader) {
+            this.call = call;
+            this.leader = leader;
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package gr.unipi.meallab.api.client;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+
+/**
+ * What a Transport has stored for a URL (see Transport.lookup()).
+ *
+ * Why?
+ * - The lookup reads the disk; doing it once per call, off the caller's
+ *   thread, and handing the result on means a stale entry is revalidated
+ *   without being read a second time
+ *
+ * Use:
+ * - isFresh(): serve openBody() as is, no request needed
+ * - Otherwise pass it to Transport.get(url, stored) / getAsync(url, stored),
+ *   which revalidate it with a conditional GET
+ */
+public final class StoredResponse {
+
+    private final DiskResponseCache.Entry entry;
+    private final boolean fresh;
+
+    StoredResponse(DiskResponseCache.Entry entry, boolean fresh) {
+        this.entry = entry;
+        this.fresh = fresh;
+    }
+
+    /**
+     * @return true if it may be served without contacting the server
+     */
+    public boolean isFresh() {
+        return fresh;
+    }
+
+    /**
+     * @return a new stream over the stored body
+     */
+    public InputStream openBody() {
+        return new ByteArrayInputStream(entry.getBody());
+    }
+
+    DiskResponseCache.Entry getEntry() {
+        return entry;
+    }
+}
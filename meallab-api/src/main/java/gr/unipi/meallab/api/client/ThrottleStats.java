@@ -0,0 +1,87 @@
+package gr.unipi.meallab.api.client;
+
+/**
+ * Immutable snapshot of UpstreamThrottle counters.
+ *
+ * Counters:
+ * - admitted: calls let through the gate
+ * - totalQueuedNanos / maxQueuedNanos: time calls waited for the rate limiter
+ *   and a concurrency permit before being sent
+ * - failures: admitted calls that failed
+ * - permitsInUse / limit: calls in flight right now vs. the current adaptive cap
+ * - waiting: calls queued for a permit right now
+ * - limitDecreases: how often the adaptive cap was cut (errors or slow calls)
+ */
+public final class ThrottleStats {
+
+    private final long admitted;
+    private final long totalQueuedNanos;
+    private final long maxQueuedNanos;
+    private final long failures;
+    private final int permitsInUse;
+    private final int limit;
+    private final int waiting;
+    private final long limitDecreases;
+
+    ThrottleStats(long admitted, long totalQueuedNanos, long maxQueuedNanos, long failures,
+                  int permitsInUse, int limit, int waiting, long limitDecreases) {
+        this.admitted = admitted;
+        this.totalQueuedNanos = totalQueuedNanos;
+        this.maxQueuedNanos = maxQueuedNanos;
+        this.failures = failures;
+        this.permitsInUse = permitsInUse;
+        this.limit = limit;
+        this.waiting = waiting;
+        this.limitDecreases = limitDecreases;
+    }
+
+    public long getAdmitted() {
+        return admitted;
+    }
+
+    public long getTotalQueuedNanos() {
+        return totalQueuedNanos;
+    }
+
+    public long getMaxQueuedNanos() {
+        return maxQueuedNanos;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    public int getPermitsInUse() {
+        return permitsInUse;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getLimitDecreases() {
+        return limitDecreases;
+    }
+
+    /**
+     * Average time a call waited in the gate.
+     *
+     * @return average queued time in nanoseconds, or 0 if nothing was admitted
+     */
+    public double averageQueuedNanos() {
+        return admitted == 0 ? 0.0 : (double) totalQueuedNanos / admitted;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "admitted=%d, failures=%d, avgQueued=%.1fms, maxQueued=%.1fms, "
+                        + "inUse=%d/%d, waiting=%d, limitDecreases=%d",
+                admitted, failures, averageQueuedNanos() / 1_000_000.0, maxQueuedNanos / 1_000_000.0,
+                permitsInUse, limit, waiting, limitDecreases);
+    }
+}
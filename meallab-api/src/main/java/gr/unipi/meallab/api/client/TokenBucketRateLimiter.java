@@ -0,0 +1,70 @@
+package gr.unipi.meallab.api.client;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token-bucket RateLimiter: a steady rate with room for short bursts.
+ *
+ * - The bucket holds up to burst tokens and refills at permitsPerSecond
+ * - A request takes one token; with tokens left it goes out immediately
+ * - When the bucket is empty the token is borrowed against the future:
+ *   the caller is told to wait until that token would have been refilled,
+ *   so concurrent callers are spaced out evenly instead of stampeding
+ *
+ * Example: new TokenBucketRateLimiter(5, 10) allows 10 requests at once,
+ * then 5 per second.
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    private final double permitsPerNano;
+    private final double burst;
+    private final LongSupplier clock;
+
+    // Guarded by this; may go negative (tokens already promised to waiting callers)
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     * Create a limiter that starts with a full bucket.
+     *
+     * @param permitsPerSecond sustained rate (> 0)
+     * @param burst bucket capacity, i.e. requests allowed back to back (>= 1)
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    /**
+     * Create a limiter with a custom clock (for tests).
+     *
+     * @param permitsPerSecond sustained rate (> 0)
+     * @param burst bucket capacity (>= 1)
+     * @param clock nanosecond time source
+     */
+    TokenBucketRateLimiter(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("permitsPerSecond must be > 0");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be >= 1");
+        }
+        this.permitsPerNano = permitsPerSecond / 1_000_000_000.0;
+        this.burst = burst;
+        this.clock = clock;
+        this.tokens = burst;
+        this.lastRefill = clock.getAsLong();
+    }
+
+    @Override
+    public synchronized long reserve() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - lastRefill) * permitsPerNano);
+        lastRefill = now;
+
+        tokens -= 1;
+        if (tokens >= 0) {
+            return 0L;
+        }
+        return (long) Math.ceil(-tokens / permitsPerNano);
+    }
+}
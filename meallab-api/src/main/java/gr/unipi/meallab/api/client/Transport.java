@@ -0,0 +1,86 @@
+package gr.unipi.meallab.api.client;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * How MealLabClient fetches a URL (GET only; every TheMealDB endpoint is a GET).
+ *
+ * HttpTransport is the real implementation. Others can wrap it (record/replay,
+ * fault injection) or answer without a network at all, as long as they keep
+ * the contract below.
+ *
+ * Contract:
+ * - get() returns the body of a 2xx response; the caller closes the stream
+ * - getAsync() never blocks the caller; cancelling the future should abort
+ *   the request if the implementation can
+ * - Failures are MealLabExceptions with a Kind (NETWORK, TIMEOUT,
+ *   HTTP_STATUS with the status code, ...), so retries, the circuit breaker
+ *   and the throttle treat every transport the same way
+ * - Implementations must be safe to share between threads and clients
+ */
+public interface Transport {
+
+    /**
+     * Perform a GET request and return the response body as a stream.
+     *
+     * @param url the absolute URL to fetch
+     * @return the response body stream (the caller must close it)
+     * @throws gr.unipi.meallab.api.exception.MealLabException if the request fails or the status is not 2xx
+     */
+    InputStream get(String url);
+
+    /**
+     * Perform a non-blocking GET request.
+     *
+     * @param url the absolute URL to fetch
+     * @return future of the response body; fails with MealLabException on error
+     */
+    CompletableFuture<InputStream> getAsync(String url);
+
+    /**
+     * Look up what is stored for a URL. This may read the disk: MealLabClient
+     * calls it once per call, on its executor for async calls, and before its
+     * retries, circuit breaker and throttle, so a fresh hit neither waits for
+     * a permit nor counts as an upstream call.
+     * Transports without a cache return null.
+     *
+     * @param url the absolute URL
+     * @return the stored response (fresh or stale), or null if there is none
+     */
+    default StoredResponse lookup(String url) {
+        return null;
+    }
+
+    /**
+     * get() for a URL already looked up: a stale stored response is revalidated
+     * instead of being looked up again.
+     *
+     * @param url the absolute URL to fetch
+     * @param stored what lookup(url) returned (may be null)
+     * @return the response body stream (the caller must close it)
+     */
+    default InputStream get(String url, StoredResponse stored) {
+        return get(url);
+    }
+
+    /**
+     * getAsync() for a URL already looked up; does no disk I/O on the caller's thread.
+     *
+     * @param url the absolute URL to fetch
+     * @param stored what lookup(url) returned (may be null)
+     * @return future of the response body
+     */
+    default CompletableFuture<InputStream> getAsync(String url, StoredResponse stored) {
+        return getAsync(url);
+    }
+
+    /**
+     * Forget anything stored for a URL, e.g. because its body could not be decoded.
+     * Transports without a cache ignore this.
+     *
+     * @param url the absolute URL
+     */
+    default void invalidateCached(String url) {
+    }
+}
@@ -0,0 +1,219 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Gate every upstream HTTP call passes through before it is sent.
+ *
+ * Two stages, in this order:
+ * 1. RateLimiter: paces request starts (e.g., a token bucket), so bursts
+ *    from bulk lookups or a fast typist stay under the server's rate limit
+ * 2. AdaptiveConcurrencyLimiter: caps calls in flight and adapts the cap to
+ *    observed latency and errors (AIMD)
+ *
+ * Blocking callers (execute) sleep through both stages on their own thread.
+ * Async callers (executeAsync) are scheduled with a delayed executor and a
+ * permit queue instead, so waiting never parks a thread. Cancelling an async
+ * call while it is still waiting removes it from the queue.
+ *
+ * Metrics (see stats()): time spent waiting in the gate, permits in use,
+ * queue length and the current adaptive limit.
+ */
+public class UpstreamThrottle {
+
+    private final RateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queuedNanos = new LongAdder();
+    private final LongAccumulator maxQueuedNanos = new LongAccumulator(Math::max, 0L);
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Create a throttle with no rate limit and a default adaptive concurrency limit.
+     */
+    public UpstreamThrottle() {
+        this(RateLimiter.unlimited(), new AdaptiveConcurrencyLimiter());
+    }
+
+    /**
+     * Create a throttle.
+     *
+     * @param rateLimiter paces request starts (use RateLimiter.unlimited() for none)
+     * @param concurrencyLimiter caps concurrent calls
+     */
+    public UpstreamThrottle(RateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    /**
+     * Run a blocking upstream call once the gate lets it through.
+     *
+     * @param call the call (transient failures shrink the adaptive limit)
+     * @param <T> result type
+     * @return the call's result
+     * @throws MealLabException if interrupted while waiting
+     */
+    public <T> T execute(Supplier<T> call) {
+        long start = System.nanoTime();
+        AdaptiveConcurrencyLimiter.Permit permit;
+        try {
+            long wait = rateLimiter.reserve();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            permit = awaitPermit(concurrencyLimiter.acquireAsync());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MealLabException(MealLabException.Kind.OTHER, "Interrupted while waiting to call the API", e);
+        }
+        recordAdmitted(System.nanoTime() - start);
+
+        T value;
+        try {
+            value = call.get();
+        } catch (RuntimeException | Error e) {
+            failures.increment();
+            permit.release(!RetryPolicy.isTransient(e));
+            throw e;
+        }
+        permit.release(true);
+        return value;
+    }
+
+    /**
+     * Start an async upstream call once the gate lets it through.
+     *
+     * @param call starts the call
+     * @param <T> result type
+     * @return future of the call's result; cancelling it cancels the call,
+     *         or gives up the place in the queue if it has not started yet
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result = new CompletableFuture<>();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> slot = new CompletableFuture<>();
+
+        long wait = rateLimiter.reserve();
+        if (wait > 0) {
+            CompletableFuture.delayedExecutor(wait, TimeUnit.NANOSECONDS)
+                    .execute(() -> enterLimiter(slot));
+        } else {
+            enterLimiter(slot);
+        }
+
+        slot.whenComplete((permit, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+                return;
+            }
+            if (result.isDone()) {
+                permit.abandon();
+                return;
+            }
+            recordAdmitted(System.nanoTime() - start);
+
+            CompletableFuture<T> started;
+            try {
+                started = call.get();
+            } catch (RuntimeException e) {
+                started = CompletableFuture.failedFuture(e);
+            }
+            CompletableFuture<T> upstream = started;
+            upstream.whenComplete((value, callError) -> {
+                if (result.isCancelled()) {
+                    permit.abandon();
+                } else if (callError != null) {
+                    failures.increment();
+                    permit.release(!RetryPolicy.isTransient(callError));
+                    result.completeExceptionally(unwrap(callError));
+                } else {
+                    permit.release(true);
+                    result.complete(value);
+                }
+            });
+            result.whenComplete((value, resultError) -> {
+                if (result.isCancelled()) {
+                    upstream.cancel(true);
+                }
+            });
+        });
+
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                slot.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Snapshot of the gate's counters.
+     *
+     * @return immutable statistics
+     */
+    public ThrottleStats stats() {
+        return new ThrottleStats(
+                admitted.sum(), queuedNanos.sum(), maxQueuedNanos.get(), failures.sum(),
+                concurrencyLimiter.getInFlight(), concurrencyLimiter.getLimit(),
+                concurrencyLimiter.getQueued(), concurrencyLimiter.getDecreases());
+    }
+
+    /**
+     * Ask the limiter for a permit and forward it to slot. If slot was
+     * cancelled meanwhile, the limiter's future is cancelled too (or the
+     * permit handed back if it was already granted).
+     */
+    private void enterLimiter(CompletableFuture<AdaptiveConcurrencyLimiter.Permit> slot) {
+        if (slot.isDone()) {
+            return;
+        }
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> pending = concurrencyLimiter.acquireAsync();
+        pending.whenComplete((permit, error) -> {
+            if (error != null) {
+                slot.completeExceptionally(error);
+            } else if (!slot.complete(permit)) {
+                permit.abandon();
+            }
+        });
+        slot.whenComplete((permit, error) -> {
+            if (slot.isCancelled()) {
+                pending.cancel(true);
+            }
+        });
+    }
+
+    private void recordAdmitted(long waitedNanos) {
+        admitted.increment();
+        queuedNanos.add(waitedNanos);
+        maxQueuedNanos.accumulate(waitedNanos);
+    }
+
+    private static AdaptiveConcurrencyLimiter.Permit awaitPermit(
+            CompletableFuture<AdaptiveConcurrencyLimiter.Permit> pending) throws InterruptedException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            // Leave the queue; a permit granted in the meantime is handed back
+            if (!pending.cancel(true)) {
+                pending.join().abandon();
+            }
+            throw e;
+        } catch (ExecutionException e) {
+            throw new MealLabException(MealLabException.Kind.OTHER, "Could not acquire a concurrency permit", e.getCause());
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+}
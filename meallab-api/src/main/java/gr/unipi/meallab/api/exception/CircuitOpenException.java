@@ -0,0 +1,24 @@
+package gr.unipi.meallab.api.exception;
+
+/**
+ * Thrown instead of calling the API while the client's circuit breaker is open
+ * (the API failed repeatedly and the client is giving it time to recover).
+ * 
+ * The call was never sent, so it fails in microseconds instead of waiting for
+ * connect/read timeouts. Retrying later (after the breaker's open duration)
+ * is the right reaction; retrying immediately will fail the same way.
+ * 
+ * Kind: UNAVAILABLE.
+ */
+public class CircuitOpenException extends MealLabException {
+	private static final long serialVersionUID = 1L;
+
+    /**
+     * Create the exception.
+     * 
+     * @param message error description (e.g., how long the circuit stays open)
+     */
+    public CircuitOpenException(String message) {
+        super(Kind.UNAVAILABLE, message);
+    }
+}
@@ -1,43 +1,191 @@
 package gr.unipi.meallab.api.exception;
 
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.net.http.HttpTimeoutException;
+
 /**
  * Custom runtime exception for MealLab API errors.
- * 
+ *
  * Thrown by MealLabClient when:
  * - API calls fail (network errors, timeouts, HTTP errors)
  * - JSON parsing fails (invalid response format)
  * - Requested meal not found (lookup by ID returns no results)
- * 
+ *
+ * Every exception carries a Kind, so callers can decide what to do without
+ * parsing messages:
+ * - NETWORK, TIMEOUT, HTTP_STATUS (408/429/5xx): transient, worth retrying
+ * - HTTP_STATUS (other 4xx), DECODE: permanent for this request
+ * - NOT_FOUND: the expected "no such meal" answer; created without a stack
+ *   trace because it is a normal outcome, not a bug (cheap to throw often)
+ * - UNAVAILABLE: the client refused to call the API (circuit breaker open)
+ * - OTHER: anything else (interrupts, unexpected failures)
+ *
  * This is an unchecked exception (RuntimeException), so callers don't need
  * to declare it. Use try-catch only if you want to handle API errors gracefully.
- * 
+ *
  * Example usage:
  *   try {
  *       MealDetails meal = client.lookupById("12345");
  *   } catch (MealLabException e) {
- *       System.err.println("Meal not found: " + e.getMessage());
+ *       if (e.getKind() == MealLabException.Kind.NOT_FOUND) {
+ *           System.err.println("Meal not found: " + e.getMessage());
+ *       } else if (e.isTransient()) {
+ *           System.err.println("API temporarily unavailable, try again");
+ *       }
  *   }
  */
 public class MealLabException extends RuntimeException {
 	private static final long serialVersionUID = 1L;
 
     /**
-     * Create an exception with a descriptive message.
-     * 
+     * What went wrong, at the level callers care about.
+     */
+    public enum Kind {
+        /** Connection refused/reset, DNS failure, truncated body. */
+        NETWORK,
+        /** Connect or request timeout. */
+        TIMEOUT,
+        /** The API answered with a non-2xx status (see getStatusCode()). */
+        HTTP_STATUS,
+        /** The body was not valid JSON, had an unexpected shape, or was too large. */
+        DECODE,
+        /** The API answered, but there is no such meal. */
+        NOT_FOUND,
+        /** The client did not call the API (circuit breaker open). */
+        UNAVAILABLE,
+        /** Anything else. */
+        OTHER
+    }
+
+    private final Kind kind;
+    private final int statusCode;
+
+    /**
+     * Create an exception with a descriptive message (kind OTHER).
+     *
      * @param message error description (e.g., "No meal found for id=999")
      */
     public MealLabException(String message) {
-        super(message);
+        this(Kind.OTHER, message);
     }
 
     /**
      * Create an exception with a message and root cause.
-     * Use this when wrapping lower-level exceptions (e.g., IOException from network).
-     * 
+     * Use this when wrapping lower-level exceptions (e.g., IOException from network);
+     * the kind is derived from the cause (timeouts, I/O errors, nested MealLabExceptions).
+     *
      * @param message error description
      * @param cause the underlying exception that triggered this error
      */
     public MealLabException(String message, Throwable cause) {
+        this(kindOf(cause), message, cause);
+    }
+
+    /**
+     * Create an exception of a given kind.
+     *
+     * @param kind what went wrong
+     * @param message error description
+     */
+    public MealLabException(Kind kind, String message) {
+        this(kind, message, null);
+    }
+
+    /**
+     * Create an exception of a given kind with a root cause.
+     *
+     * @param kind what went wrong
+     * @param message error description
+     * @param cause the underlying exception (may be null)
+     */
+    public MealLabException(Kind kind, String message, Throwable cause) {
         super(message, cause);
+        this.kind = kind;
+        this.statusCode = (cause instanceof MealLabException) ? ((MealLabException) cause).statusCode : -1;
+    }
+
+    /**
+     * Stackless constructor for expected outcomes (see notFound()).
+     */
+    private MealLabException(Kind kind, String message, int statusCode, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+        this.kind = kind;
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * "No such meal": an expected answer, so no stack trace is captured.
+     *
+     * @param message error description (e.g., "No meal found for id=999")
+     * @return a NOT_FOUND exception
+     */
+    public static MealLabException notFound(String message) {
+        return new MealLabException(Kind.NOT_FOUND, message, -1, false);
+    }
+
+    /**
+     * The API answered with a non-2xx status.
+     *
+     * @param url the requested URL
+     * @param statusCode the HTTP status
+     * @return an HTTP_STATUS exception
+     */
+    public static MealLabException httpStatus(String url, int statusCode) {
+        return new MealLabException(Kind.HTTP_STATUS, "HTTP " + statusCode + " from " + url, statusCode, true);
+    }
+
+    /**
+     * @return what went wrong
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * @return the HTTP status for HTTP_STATUS errors, otherwise -1
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Whether the same request may succeed if simply tried again later.
+     *
+     * @return true for NETWORK, TIMEOUT and HTTP 408/429/5xx
+     */
+    public boolean isTransient() {
+        switch (kind) {
+            case NETWORK:
+            case TIMEOUT:
+                return true;
+            case HTTP_STATUS:
+                return statusCode == 408 || statusCode == 429 || statusCode >= 500;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Classify a lower-level failure.
+     *
+     * @param cause the failure (may be null)
+     * @return its kind (OTHER if unknown)
+     */
+    public static Kind kindOf(Throwable cause) {
+        if (cause instanceof MealLabException) {
+            return ((MealLabException) cause).kind;
+        }
+        if (cause instanceof HttpTimeoutException || cause instanceof SocketTimeoutException) {
+            return Kind.TIMEOUT;
+        }
+        if (cause instanceof InterruptedIOException) {
+            return Kind.OTHER;
+        }
+        if (cause instanceof IOException) {
+            return Kind.NETWORK;
+        }
+        return Kind.OTHER;
     }
 }
@@ -0,0 +1,109 @@
+package gr.unipi.meallab.api.model;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+
+/**
+ * Outcome of one ID in a bulk lookup (MealLabClient.lookupByIds).
+ *
+ * Bulk lookups never throw for a single bad ID; instead each ID gets a result
+ * that holds either the meal or the error, plus its position in the input.
+ *
+ * Example:
+ *   for (LookupResult r : client.lookupByIds(List.of("52772", "0"))) {
+ *       if (r.isSuccess()) {
+ *           System.out.println(r.getMeal().getStrMeal());
+ *       } else {
+ *           System.out.println(r.getId() + ": " + r.getError().getMessage());
+ *       }
+ *   }
+ */
+public final class LookupResult {
+
+    private final int index;
+    private final String id;
+    private final MealDetails meal;
+    private final MealLabException error;
+
+    private LookupResult(int index, String id, MealDetails meal, MealLabException error) {
+        this.index = index;
+        this.id = id;
+        this.meal = meal;
+        this.error = error;
+    }
+
+    /**
+     * Create a successful result.
+     *
+     * @param index position of the ID in the input collection
+     * @param id the requested meal ID
+     * @param meal the fetched meal
+     * @return the result
+     */
+    public static LookupResult success(int index, String id, MealDetails meal) {
+        return new LookupResult(index, id, meal, null);
+    }
+
+    /**
+     * Create a failed result.
+     *
+     * @param index position of the ID in the input collection
+     * @param id the requested meal ID
+     * @param error why the lookup failed
+     * @return the result
+     */
+    public static LookupResult failure(int index, String id, MealLabException error) {
+        return new LookupResult(index, id, null, error);
+    }
+
+    /**
+     * Copy of this result at a different input position.
+     *
+     * @param newIndex the new position
+     * @return the relocated result
+     */
+    public LookupResult withIndex(int newIndex) {
+        return new LookupResult(newIndex, id, meal, error);
+    }
+
+    /**
+     * @return position of the ID in the input collection (0-based)
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * @return the requested meal ID
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * @return true if the meal was fetched
+     */
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * @return the meal, or null if the lookup failed
+     */
+    public MealDetails getMeal() {
+        return meal;
+    }
+
+    /**
+     * @return the failure, or null if the lookup succeeded
+     */
+    public MealLabException getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return isSuccess()
+                ? "LookupResult[" + index + ", id=" + id + ", meal=" + meal.getStrMeal() + "]"
+                : "LookupResult[" + index + ", id=" + id + ", error=" + error.getMessage() + "]";
+    }
+}
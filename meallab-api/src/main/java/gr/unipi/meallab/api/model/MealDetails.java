@@ -1,7 +1,14 @@
 package gr.unipi.meallab.api.model;
 
-import java.util.LinkedHashMap;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
 /**
  * Full meal details from TheMealDB API.
@@ -16,80 +23,33 @@ import java.util.Map;
  * - Cooking instructions (can span multiple paragraphs)
  * - Ingredients and measures (up to 20 pairs, though not all may be used)
  * 
- * Ingredients are stored with TheMealDB's flat structure (strIngredient1..20, strMeasure1..20).
+ * TheMealDB sends ingredients in a flat structure (strIngredient1..20, strMeasure1..20).
+ * MealDetailsAdapter folds them into two compact parallel arrays holding only the
+ * pairs actually used, so a cached meal does not carry 40 mostly-empty fields.
  * Use getIngredientsWithMeasures() to get a clean Map view.
  */
+@JsonAdapter(MealDetailsAdapter.class)
 public class MealDetails {
 
-    // Basic meal info
-    private String idMeal;
-    private String strMeal;
-    private String strCategory;
-    private String strArea;
-    private String strInstructions;
-    private String strMealThumb;
-
-    // Ingredients & measures (TheMealDB API structure: up to 20 pairs)
-    // Not all 20 may be populated; empty ones should be ignored
-    private String strIngredient1;  
-    private String strMeasure1;
-    
-    private String strIngredient2;  
-    private String strMeasure2;
-    
-    private String strIngredient3;  
-    private String strMeasure3;
-    
-    private String strIngredient4;  
-    private String strMeasure4;
-    
-    private String strIngredient5;  
-    private String strMeasure5;
-    
-    private String strIngredient6;  
-    private String strMeasure6;
-    
-    private String strIngredient7;  
-    private String strMeasure7;
-    
-    private String strIngredient8;  
-    private String strMeasure8;
-    
-    private String strIngredient9;  
-    private String strMeasure9;
-    
-    private String strIngredient10; 
-    private String strMeasure10;
-    
-    private String strIngredient11; 
-    private String strMeasure11;
-    
-    private String strIngredient12; 
-    private String strMeasure12;
-    
-    private String strIngredient13; 
-    private String strMeasure13;
-    
-    private String strIngredient14; 
-    private String strMeasure14;
-    
-    private String strIngredient15; 
-    private String strMeasure15;
-    
-    private String strIngredient16; 
-    private String strMeasure16;
-    
-    private String strIngredient17; 
-    private String strMeasure17;
-    
-    private String strIngredient18; 
-    private String strMeasure18;
-    
-    private String strIngredient19; 
-    private String strMeasure19;
-    
-    private String strIngredient20; 
-    private String strMeasure20;
+    /** TheMealDB exposes at most 20 ingredient/measure pairs per meal. */
+    public static final int MAX_INGREDIENTS = 20;
+
+    private static final String[] NONE = new String[0];
+
+    // Basic meal info (set by MealDetailsAdapter)
+    String idMeal;
+    String strMeal;
+    String strCategory;
+    String strArea;
+    String strInstructions;
+    String strMealThumb;
+
+    // Used ingredient/measure pairs only, trimmed, in API order (same length)
+    private String[] ingredients = NONE;
+    private String[] measures = NONE;
+
+    // Lazily created read-only view over the arrays (cheap to rebuild, so no locking)
+    private transient Map<String, String> ingredientsView;
 
     // Basic getters
     public String getIdMeal() { 
@@ -111,6 +71,35 @@ public class MealDetails {
         return strMealThumb; 
     }
 
+    /**
+     * Get the number of used ingredient/measure pairs.
+     * 
+     * @return number of ingredients (0..20)
+     */
+    public int getIngredientCount() {
+        return ingredients.length;
+    }
+
+    /**
+     * Get an ingredient name by position (API order, blanks already removed).
+     * 
+     * @param index 0-based index, less than getIngredientCount()
+     * @return trimmed ingredient name (never null or blank)
+     */
+    public String getIngredient(int index) {
+        return ingredients[index];
+    }
+
+    /**
+     * Get the measure for the ingredient at the same position.
+     * 
+     * @param index 0-based index, less than getIngredientCount()
+     * @return trimmed measure (empty string if not specified, never null)
+     */
+    public String getMeasure(int index) {
+        return measures[index];
+    }
+
     /**
      * Get ingredients with their measures as a clean Map.
      * 
@@ -124,55 +113,106 @@ public class MealDetails {
      *     "Ginger": ""
      *   }
      * 
-     * @return LinkedHashMap of ingredient -> measure (preserves API order)
+     * The map is an unmodifiable view backed by the decoded arrays; the same
+     * instance is returned on every call, so nothing is rebuilt per call.
+     * 
+     * @return read-only map of ingredient -> measure (preserves API order)
      */
     public Map<String, String> getIngredientsWithMeasures() {
-        Map<String, String> map = new LinkedHashMap<>();
-
-        // Add each ingredient-measure pair, skipping nulls/empty
-        add(map, strIngredient1, strMeasure1);
-        add(map, strIngredient2, strMeasure2);
-        add(map, strIngredient3, strMeasure3);
-        add(map, strIngredient4, strMeasure4);
-        add(map, strIngredient5, strMeasure5);
-        add(map, strIngredient6, strMeasure6);
-        add(map, strIngredient7, strMeasure7);
-        add(map, strIngredient8, strMeasure8);
-        add(map, strIngredient9, strMeasure9);
-        add(map, strIngredient10, strMeasure10);
-        add(map, strIngredient11, strMeasure11);
-        add(map, strIngredient12, strMeasure12);
-        add(map, strIngredient13, strMeasure13);
-        add(map, strIngredient14, strMeasure14);
-        add(map, strIngredient15, strMeasure15);
-        add(map, strIngredient16, strMeasure16);
-        add(map, strIngredient17, strMeasure17);
-        add(map, strIngredient18, strMeasure18);
-        add(map, strIngredient19, strMeasure19);
-        add(map, strIngredient20, strMeasure20);
-
-        return map;
+        Map<String, String> view = ingredientsView;
+        if (view == null) {
+            view = new IngredientsView(ingredients, measures);
+            ingredientsView = view;
+        }
+        return view;
     }
 
     /**
-     * Helper method to safely add an ingredient-measure pair to the map.
-     * Skips null or empty-string ingredients.
-     * Treats null measures as empty string.
+     * Replace the ingredient/measure pairs (used by MealDetailsAdapter).
+     * The arrays are trimmed to count; no further copies are kept.
      * 
-     * @param map the destination map
-     * @param ingredient the ingredient name (may be null)
-     * @param measure the amount/measure (may be null)
+     * @param ingredients ingredient names, first count entries used
+     * @param measures measures, first count entries used
+     * @param count number of used pairs
+     */
+    void setIngredients(String[] ingredients, String[] measures, int count) {
+        if (count == 0) {
+            this.ingredients = NONE;
+            this.measures = NONE;
+        } else {
+            this.ingredients = (ingredients.length == count) ? ingredients : Arrays.copyOf(ingredients, count);
+            this.measures = (measures.length == count) ? measures : Arrays.copyOf(measures, count);
+        }
+        this.ingredientsView = null;
+    }
+
+    /**
+     * Read-only Map over the parallel arrays.
+     * Lookups are a linear scan, which is faster than hashing for at most 20 entries.
      */
-    private static void add(Map<String, String> map, String ingredient, String measure) {
-        if (ingredient == null) {
-            return;
+    private static final class IngredientsView extends AbstractMap<String, String> {
+        private final String[] keys;
+        private final String[] values;
+
+        IngredientsView(String[] keys, String[] values) {
+            this.keys = keys;
+            this.values = values;
         }
-        String ing = ingredient.trim();
-        if (ing.isEmpty()) {
-            return;
+
+        @Override
+        public int size() {
+            return keys.length;
         }
 
-        String meas = (measure == null) ? "" : measure.trim();
-        map.put(ing, meas);
+        @Override
+        public boolean containsKey(Object key) {
+            return indexOf(key) >= 0;
+        }
+
+        @Override
+        public String get(Object key) {
+            int i = indexOf(key);
+            return i >= 0 ? values[i] : null;
+        }
+
+        private int indexOf(Object key) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i].equals(key)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return keys.length;
+                }
+
+                @Override
+                public Iterator<Entry<String, String>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < keys.length;
+                        }
+
+                        @Override
+                        public Entry<String, String> next() {
+                            if (next >= keys.length) {
+                                throw new NoSuchElementException();
+                            }
+                            int i = next++;
+                            return new SimpleImmutableEntry<>(keys[i], values[i]);
+                        }
+                    };
+                }
+            };
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,165 @@
+package gr.unipi.meallab.api.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/**
+ * Streaming Gson adapter for MealDetails.
+ *
+ * Registered on MealDetails with @JsonAdapter, so every Gson instance uses it.
+ *
+ * Reading:
+ * - Basic fields are read directly (no reflection)
+ * - strIngredient1..20 / strMeasure1..20 are folded into two parallel arrays,
+ *   trimmed to the pairs that are actually used (blank ingredients dropped)
+ * - Duplicate ingredients keep their first position, last measure wins
+ *   (same result the old LinkedHashMap-based getIngredientsWithMeasures() gave)
+ * - Unknown fields (strTags, strYoutube, dateModified, ...) are skipped
+ *
+ * Writing:
+ * - Produces TheMealDB's flat JSON shape again (strIngredientN / strMeasureN)
+ */
+public class MealDetailsAdapter extends TypeAdapter<MealDetails> {
+
+    private static final String INGREDIENT_PREFIX = "strIngredient";
+    private static final String MEASURE_PREFIX = "strMeasure";
+
+    @Override
+    public MealDetails read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        MealDetails meal = new MealDetails();
+        String[] rawIngredients = new String[MealDetails.MAX_INGREDIENTS];
+        String[] rawMeasures = new String[MealDetails.MAX_INGREDIENTS];
+
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            switch (name) {
+                case "idMeal" -> meal.idMeal = readString(in);
+                case "strMeal" -> meal.strMeal = readString(in);
+                case "strCategory" -> meal.strCategory = readString(in);
+                case "strArea" -> meal.strArea = readString(in);
+                case "strInstructions" -> meal.strInstructions = readString(in);
+                case "strMealThumb" -> meal.strMealThumb = readString(in);
+                default -> {
+                    int slot;
+                    if ((slot = slot(name, INGREDIENT_PREFIX)) >= 0) {
+                        rawIngredients[slot] = readString(in);
+                    } else if ((slot = slot(name, MEASURE_PREFIX)) >= 0) {
+                        rawMeasures[slot] = readString(in);
+                    } else {
+                        in.skipValue();
+                    }
+                }
+            }
+        }
+        in.endObject();
+
+        compact(meal, rawIngredients, rawMeasures);
+        return meal;
+    }
+
+    @Override
+    public void write(JsonWriter out, MealDetails meal) throws IOException {
+        if (meal == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        out.name("idMeal").value(meal.idMeal);
+        out.name("strMeal").value(meal.strMeal);
+        out.name("strCategory").value(meal.strCategory);
+        out.name("strArea").value(meal.strArea);
+        out.name("strInstructions").value(meal.strInstructions);
+        out.name("strMealThumb").value(meal.strMealThumb);
+
+        int count = meal.getIngredientCount();
+        for (int i = 0; i < count; i++) {
+            out.name(INGREDIENT_PREFIX + (i + 1)).value(meal.getIngredient(i));
+            out.name(MEASURE_PREFIX + (i + 1)).value(meal.getMeasure(i));
+        }
+        out.endObject();
+    }
+
+    /**
+     * Fold the raw 20 slots into compact parallel arrays on the meal.
+     *
+     * @param meal the meal being built
+     * @param rawIngredients ingredient slots (index 0 = strIngredient1), may contain nulls
+     * @param rawMeasures measure slots, may contain nulls
+     */
+    private static void compact(MealDetails meal, String[] rawIngredients, String[] rawMeasures) {
+        String[] ingredients = new String[rawIngredients.length];
+        String[] measures = new String[rawIngredients.length];
+        int count = 0;
+
+        for (int k = 0; k < rawIngredients.length; k++) {
+            if (rawIngredients[k] == null) {
+                continue;
+            }
+            String ing = rawIngredients[k].trim();
+            if (ing.isEmpty()) {
+                continue;
+            }
+            String meas = (rawMeasures[k] == null) ? "" : rawMeasures[k].trim();
+
+            int existing = indexOf(ingredients, count, ing);
+            if (existing >= 0) {
+                measures[existing] = meas;
+            } else {
+                // Ingredient names repeat across the whole catalog; share one instance
+                ingredients[count] = ing.intern();
+                measures[count] = meas;
+                count++;
+            }
+        }
+
+        meal.setIngredients(ingredients, measures, count);
+    }
+
+    private static int indexOf(String[] values, int count, String value) {
+        for (int i = 0; i < count; i++) {
+            if (values[i].equals(value)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the 1-based slot number from a field like "strIngredient7".
+     *
+     * @return 0-based slot index, or -1 if the name does not match or is out of range
+     */
+    private static int slot(String name, String prefix) {
+        if (!name.startsWith(prefix) || name.length() == prefix.length()) {
+            return -1;
+        }
+        int n = 0;
+        for (int i = prefix.length(); i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9' || n > MealDetails.MAX_INGREDIENTS) {
+                return -1;
+            }
+            n = n * 10 + (c - '0');
+        }
+        return (n >= 1 && n <= MealDetails.MAX_INGREDIENTS) ? n - 1 : -1;
+    }
+
+    private static String readString(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        return in.nextString();
+    }
+}
@@ -18,6 +18,25 @@ public class MealListItem {
     private String strMeal;
     private String strMealThumb;
 
+    /**
+     * Empty item, filled in by Gson.
+     */
+    public MealListItem() {
+    }
+
+    /**
+     * Create an item directly (e.g., from a locally stored MealDetails).
+     * 
+     * @param idMeal meal ID
+     * @param strMeal meal name
+     * @param strMealThumb thumbnail URL (may be null)
+     */
+    public MealListItem(String idMeal, String strMeal, String strMealThumb) {
+        this.idMeal = idMeal;
+        this.strMeal = strMeal;
+        this.strMealThumb = strMealThumb;
+    }
+
     /**
      * Get the unique meal ID.
      * @return meal ID (never null in valid API responses)
@@ -0,0 +1,535 @@
+package gr.unipi.meallab.api.stub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * In-process stand-in for TheMealDB, built on com.sun.net.httpserver.
+ *
+ * Why?
+ * - Tests and benchmarks against the live themealdb.com are slow, flaky and
+ *   need a network; against this server they are offline and reproducible
+ * - Latency and errors can be injected on purpose, to exercise retries, the
+ *   circuit breaker and the throttle
+ *
+ * Endpoints (same paths, parameters and JSON shapes as the real API,
+ * including "meals": null for no results):
+ * - search.php?s=  name contains (case-insensitive)
+ * - search.php?f=  name starts with the given letter
+ * - filter.php?i=  meals using the ingredient (case-insensitive, "_" = space)
+ * - filter.php?c= / a=  meals of the category / area (case-insensitive)
+ * - lookup.php?i=  meal by ID
+ * - random.php     one meal, chosen with the server's seeded Random
+ * - list.php?c=list / a=list / i=list  the distinct categories, areas and
+ *   ingredients of the current meals, in order of first appearance
+ * Anything else is answered with 404.
+ *
+ * Data:
+ * - addMeal() / addMeals() take meals in TheMealDB's JSON format (recorded
+ *   responses or synthetic ones); withSampleMeals() loads a few bundled ones
+ * - Meals may be added, replaced or removed while the server runs
+ *
+ * Fault injection (applied to every request, in this order):
+ * 1. Latency: a fixed delay plus uniform random jitter
+ * 2. failNext(n, status): the next n requests fail with that status
+ * 3. Failure rate: each request fails with the given probability
+ * Randomness comes from one seeded Random, so a single-threaded run is repeatable.
+ *
+ * Usage:
+ *   try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start()) {
+ *       MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+ *       ...
+ *   }
+ */
+public class StubMealDbServer implements AutoCloseable {
+
+    /** Path prefix of every endpoint (API version 1, free key "1"). */
+    public static final String API_PATH = "/api/json/v1/1";
+
+    /** Requests handled at once; injected latency occupies a handler thread. */
+    public static final int DEFAULT_THREADS = 16;
+
+    private static final String SAMPLE_RESOURCE = "sample-meals.json";
+
+    // serializeNulls: TheMealDB sends "meals": null, and null strIngredientN fields
+    private final Gson gson = new GsonBuilder().serializeNulls().create();
+
+    // Guarded by "this"
+    private final List<JsonObject> meals = new ArrayList<>();
+    private final Map<String, JsonObject> mealsById = new HashMap<>();
+    private final Random random;
+
+    private volatile long latencyNanos;
+    private volatile long jitterNanos;
+    private volatile double failureRate;
+    private volatile int failureStatus = 503;
+    private final AtomicInteger failNextRemaining = new AtomicInteger();
+    private volatile int failNextStatus = 503;
+
+    private final LongAdder requests = new LongAdder();
+    private final Map<String, LongAdder> requestsByEndpoint = new ConcurrentHashMap<>();
+
+    private final int threads;
+    private HttpServer server;
+    private ExecutorService pool;
+
+    /**
+     * Create an empty server with a fixed seed and default thread count.
+     */
+    public StubMealDbServer() {
+        this(42L, DEFAULT_THREADS);
+    }
+
+    /**
+     * Create an empty server.
+     *
+     * @param seed seed for random.php, latency jitter and the failure rate
+     * @param threads requests handled at once (>= 1)
+     */
+    public StubMealDbServer(long seed, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("threads must be >= 1");
+        }
+        this.random = new Random(seed);
+        this.threads = threads;
+    }
+
+    /**
+     * Create a server preloaded with the bundled sample meals
+     * (e.g., 52772 Teriyaki Chicken Casserole, 52771 Spicy Arrabiata Penne).
+     *
+     * @return a new, not yet started server
+     */
+    public static StubMealDbServer withSampleMeals() {
+        StubMealDbServer stub = new StubMealDbServer();
+        try (InputStream in = StubMealDbServer.class.getResourceAsStream(SAMPLE_RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource " + SAMPLE_RESOURCE);
+            }
+            stub.addMeals(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stub;
+    }
+
+    /**
+     * Add (or replace, by idMeal) one meal.
+     *
+     * @param meal a meal object in TheMealDB's format (must have idMeal)
+     * @return this server, for chaining
+     */
+    public synchronized StubMealDbServer addMeal(JsonObject meal) {
+        JsonElement id = meal.get("idMeal");
+        if (id == null || id.isJsonNull()) {
+            throw new IllegalArgumentException("meal has no idMeal");
+        }
+        JsonObject previous = mealsById.put(id.getAsString(), meal);
+        if (previous != null) {
+            meals.set(meals.indexOf(previous), meal);
+        } else {
+            meals.add(meal);
+        }
+        return this;
+    }
+
+    /**
+     * Remove a meal, as if it had been deleted from TheMealDB.
+     *
+     * @param idMeal the meal ID
+     * @return true if the meal was served until now
+     */
+    public synchronized boolean removeMeal(String idMeal) {
+        JsonObject previous = mealsById.remove(idMeal);
+        return previous != null && meals.removeIf(meal -> meal == previous);
+    }
+
+    /**
+     * Add every meal of a response document: {"meals": [...]}.
+     *
+     * @param json the document (e.g., a recorded search.php response); not closed
+     * @return this server, for chaining
+     */
+    public StubMealDbServer addMeals(Reader json) {
+        JsonElement list = JsonParser.parseReader(json).getAsJsonObject().get("meals");
+        if (list != null && list.isJsonArray()) {
+            for (JsonElement meal : list.getAsJsonArray()) {
+                addMeal(meal.getAsJsonObject());
+            }
+        }
+        return this;
+    }
+
+    /**
+     * @return number of meals served
+     */
+    public synchronized int getMealCount() {
+        return meals.size();
+    }
+
+    /**
+     * Delay every response.
+     *
+     * @param base fixed delay
+     * @param jitter extra uniform random delay in [0, jitter)
+     * @return this server, for chaining
+     */
+    public StubMealDbServer setLatency(Duration base, Duration jitter) {
+        this.latencyNanos = base.toNanos();
+        this.jitterNanos = jitter.toNanos();
+        return this;
+    }
+
+    /**
+     * Fail a fraction of requests at random.
+     *
+     * @param rate probability in [0, 1] that a request fails
+     * @param status HTTP status of the failures (e.g., 503, 429)
+     * @return this server, for chaining
+     */
+    public StubMealDbServer setFailureRate(double rate, int status) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("rate must be in [0, 1]");
+        }
+        this.failureRate = rate;
+        this.failureStatus = status;
+        return this;
+    }
+
+    /**
+     * Fail the next requests, whatever they ask for.
+     *
+     * @param count number of requests to fail
+     * @param status HTTP status to answer with
+     * @return this server, for chaining
+     */
+    public StubMealDbServer failNext(int count, int status) {
+        this.failNextStatus = status;
+        this.failNextRemaining.set(count);
+        return this;
+    }
+
+    /**
+     * Bind to a free port on 127.0.0.1 and start serving.
+     *
+     * @return this server, for chaining
+     * @throws IOException if the server cannot bind
+     */
+    public synchronized StubMealDbServer start() throws IOException {
+        if (server != null) {
+            return this;
+        }
+        // The JDK server writes headers and body separately; without TCP_NODELAY
+        // Nagle + delayed ACK add ~40ms to every response (read once per JVM)
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        AtomicInteger threadIds = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "meallab-stub-" + threadIds.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(pool);
+        server.createContext("/", this::handle);
+        server.start();
+        return this;
+    }
+
+    /**
+     * Base URL to give MealLabClient, e.g. "http://127.0.0.1:54321/api/json/v1/1".
+     *
+     * @return the base URL
+     * @throws IllegalStateException if the server is not started
+     */
+    public synchronized String getBaseUrl() {
+        if (server == null) {
+            throw new IllegalStateException("server not started");
+        }
+        return "http://127.0.0.1:" + server.getAddress().getPort() + API_PATH;
+    }
+
+    /**
+     * @return requests received so far (including failed ones)
+     */
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    /**
+     * @param endpoint e.g. "lookup.php"
+     * @return requests received for that endpoint
+     */
+    public long getRequestCount(String endpoint) {
+        LongAdder count = requestsByEndpoint.get(endpoint);
+        return count == null ? 0 : count.sum();
+    }
+
+    /**
+     * Stop the server immediately (in-flight exchanges are dropped).
+     */
+    @Override
+    public synchronized void close() {
+        if (server != null) {
+            server.stop(0);
+            pool.shutdownNow();
+            server = null;
+        }
+    }
+
+    // --- Request handling ---
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            String path = exchange.getRequestURI().getPath();
+            String endpoint = path.startsWith(API_PATH + "/") ? path.substring(API_PATH.length() + 1) : path;
+            requestsByEndpoint.computeIfAbsent(endpoint, k -> new LongAdder()).increment();
+
+            delay();
+            int injected = injectedFailure();
+            if (injected > 0) {
+                send(exchange, injected, "{\"error\":\"injected failure\"}");
+                return;
+            }
+
+            Map<String, String> params = queryParams(exchange.getRequestURI().getRawQuery());
+            JsonElement result;
+            switch (endpoint) {
+                case "search.php" -> result = params.containsKey("f")
+                        ? searchByFirstLetter(params.get("f"))
+                        : searchByName(params.getOrDefault("s", ""));
+                case "filter.php" -> result = params.containsKey("c") ? filterBy("strCategory", params.get("c"))
+                        : params.containsKey("a") ? filterBy("strArea", params.get("a"))
+                        : filterByIngredient(params.getOrDefault("i", ""));
+                case "lookup.php" -> result = lookup(params.getOrDefault("i", ""));
+                case "random.php" -> result = randomMeal();
+                case "list.php" -> result = list(params);
+                default -> {
+                    send(exchange, 404, "Not Found");
+                    return;
+                }
+            }
+            JsonObject body = new JsonObject();
+            body.add("meals", result);
+            send(exchange, 200, gson.toJson(body));
+        }
+    }
+
+    private void delay() {
+        long nanos = latencyNanos;
+        long jitter = jitterNanos;
+        if (jitter > 0) {
+            nanos += (long) (nextDouble() * jitter);
+        }
+        if (nanos > 0) {
+            try {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * @return status to fail with, or 0 to answer normally
+     */
+    private int injectedFailure() {
+        if (failNextRemaining.getAndUpdate(n -> Math.max(0, n - 1)) > 0) {
+            return failNextStatus;
+        }
+        double rate = failureRate;
+        if (rate > 0 && nextDouble() < rate) {
+            return failureStatus;
+        }
+        return 0;
+    }
+
+    private synchronized JsonElement searchByName(String query) {
+        String q = query.trim().toLowerCase(Locale.ROOT);
+        JsonArray found = new JsonArray();
+        for (JsonObject meal : meals) {
+            if (string(meal, "strMeal").toLowerCase(Locale.ROOT).contains(q)) {
+                found.add(meal);
+            }
+        }
+        return orNull(found);
+    }
+
+    private synchronized JsonElement searchByFirstLetter(String letter) {
+        String f = letter.trim().toLowerCase(Locale.ROOT);
+        if (f.length() != 1) {
+            return JsonNull.INSTANCE;
+        }
+        JsonArray found = new JsonArray();
+        for (JsonObject meal : meals) {
+            if (string(meal, "strMeal").toLowerCase(Locale.ROOT).startsWith(f)) {
+                found.add(meal);
+            }
+        }
+        return orNull(found);
+    }
+
+    private synchronized JsonElement filterByIngredient(String ingredient) {
+        String wanted = ingredient.trim().replace('_', ' ');
+        JsonArray found = new JsonArray();
+        for (JsonObject meal : meals) {
+            for (int i = 1; i <= 20; i++) {
+                if (string(meal, "strIngredient" + i).trim().equalsIgnoreCase(wanted) && !wanted.isEmpty()) {
+                    found.add(listItem(meal));
+                    break;
+                }
+            }
+        }
+        return orNull(found);
+    }
+
+    private synchronized JsonElement filterBy(String field, String value) {
+        String wanted = value.trim();
+        JsonArray found = new JsonArray();
+        for (JsonObject meal : meals) {
+            if (!wanted.isEmpty() && string(meal, field).trim().equalsIgnoreCase(wanted)) {
+                found.add(listItem(meal));
+            }
+        }
+        return orNull(found);
+    }
+
+    private synchronized JsonElement lookup(String id) {
+        JsonObject meal = mealsById.get(id.trim());
+        if (meal == null) {
+            return JsonNull.INSTANCE;
+        }
+        JsonArray one = new JsonArray();
+        one.add(meal);
+        return one;
+    }
+
+    private synchronized JsonElement randomMeal() {
+        if (meals.isEmpty()) {
+            return JsonNull.INSTANCE;
+        }
+        JsonArray one = new JsonArray();
+        one.add(meals.get(random.nextInt(meals.size())));
+        return one;
+    }
+
+    private synchronized JsonElement list(Map<String, String> params) {
+        Set<String> names = new LinkedHashSet<>();
+        String field;
+        if ("list".equals(params.get("c"))) {
+            field = "strCategory";
+            meals.forEach(meal -> names.add(string(meal, "strCategory")));
+        } else if ("list".equals(params.get("a"))) {
+            field = "strArea";
+            meals.forEach(meal -> names.add(string(meal, "strArea")));
+        } else if ("list".equals(params.get("i"))) {
+            field = "strIngredient";
+            for (JsonObject meal : meals) {
+                for (int i = 1; i <= 20; i++) {
+                    names.add(string(meal, "strIngredient" + i).trim());
+                }
+            }
+        } else {
+            return JsonNull.INSTANCE;
+        }
+        names.remove("");
+
+        JsonArray found = new JsonArray();
+        int id = 1;
+        for (String name : names) {
+            JsonObject entry = new JsonObject();
+            if (field.equals("strIngredient")) {
+                entry.addProperty("idIngredient", String.valueOf(id++));
+                entry.addProperty(field, name);
+                entry.add("strDescription", JsonNull.INSTANCE);
+                entry.add("strType", JsonNull.INSTANCE);
+            } else {
+                entry.addProperty(field, name);
+            }
+            found.add(entry);
+        }
+        return orNull(found);
+    }
+
+    private synchronized double nextDouble() {
+        return random.nextDouble();
+    }
+
+    /**
+     * filter.php answers with the short form: name, thumbnail, id.
+     */
+    private static JsonObject listItem(JsonObject meal) {
+        JsonObject item = new JsonObject();
+        item.add("strMeal", meal.get("strMeal"));
+        item.add("strMealThumb", meal.get("strMealThumb"));
+        item.add("idMeal", meal.get("idMeal"));
+        return item;
+    }
+
+    private static JsonElement orNull(JsonArray found) {
+        return found.isEmpty() ? JsonNull.INSTANCE : found;
+    }
+
+    private static String string(JsonObject meal, String field) {
+        JsonElement value = meal.get(field);
+        return (value == null || value.isJsonNull()) ? "" : value.getAsString();
+    }
+
+    private static Map<String, String> queryParams(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty()) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = eq < 0 ? pair : pair.substring(0, eq);
+            String value = eq < 0 ? "" : pair.substring(eq + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static void send(HttpExchange exchange, int status, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type",
+                status == 200 ? "application/json" : "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+}
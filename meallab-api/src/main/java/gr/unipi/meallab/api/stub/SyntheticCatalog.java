@@ -0,0 +1,533 @@
+package gr.unipi.meallab.api.stub;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Seeded generator of fake TheMealDB catalogs, for scale testing.
+ *
+ * The real catalog has only a few hundred meals, which hides how caches,
+ * indexes and storage behave at 10k..10M entries. Meals made here have the
+ * exact lookup.php / search.php JSON shape (all 20 ingredient slots, nulls,
+ * "\r\n" instructions) and roughly realistic distributions:
+ * - Category and area: weighted like the real catalog (lots of Dessert,
+ *   Beef, Chicken; lots of British, American, French, Italian)
+ * - Ingredients: 3..20 per meal, centred around 9; drawn with a Zipf-like
+ *   skew from ~140 common names (salt and onion everywhere, saffron rarely),
+ *   plus the category's main ingredient
+ * - Names: 2..7 words built from the main ingredient, a dish type and an
+ *   optional area, adjective or side ("Greek Lamb Stew with Couscous");
+ *   a few contain accents ("Crème Brûlée", "Jalapeño")
+ * - Instructions: log-normal sentence count, median ~800 characters with a
+ *   tail of several kilobytes
+ *
+ * Determinism:
+ * - Meal i depends only on (seed, i), so any meal can be generated on its
+ *   own, in any order, and the same seed and count always give the same catalog
+ * - IDs are FIRST_ID + i, so they never collide with real TheMealDB IDs
+ *
+ * Usage:
+ *   SyntheticCatalog catalog = new SyntheticCatalog(7);
+ *   catalog.addTo(stub, 50_000);                          (feed a StubMealDbServer)
+ *   catalog.writeTo(Path.of("catalog-1m.json.gz"), 1_000_000);   (stream to a file)
+ *
+ * or from the command line:
+ *   mvn -pl meallab-api exec:java -Dexec.mainClass=gr.unipi.meallab.api.stub.SyntheticCatalog \
+ *     -Dexec.args="1000000 catalog-1m.json.gz"
+ *
+ * Files are {"meals":[...]} documents (gzip-compressed if the name ends in
+ * ".gz"), so StubMealDbServer.addMeals() and Gson read them directly. Writing
+ * streams one meal at a time, so 10M meals need no more heap than 10; expect
+ * ~2.3 KB per meal uncompressed (~22 GB for 10M) and ~250 bytes gzipped.
+ * A StubMealDbServer keeps every meal as a JsonObject (~5 KB of heap each),
+ * so feed it at most a few hundred thousand.
+ */
+public final class SyntheticCatalog {
+
+    /** Seed used by the no-argument constructor. */
+    public static final long DEFAULT_SEED = 42L;
+
+    /** ID of meal 0 (real TheMealDB IDs are 5-digit numbers around 52000-53100). */
+    public static final int FIRST_ID = 100_000;
+
+    private static final String[] INGREDIENT_KEYS = new String[20];
+    private static final String[] MEASURE_KEYS = new String[20];
+
+    static {
+        for (int i = 0; i < 20; i++) {
+            INGREDIENT_KEYS[i] = "strIngredient" + (i + 1);
+            MEASURE_KEYS[i] = "strMeasure" + (i + 1);
+        }
+    }
+
+    // Category, weight (roughly the real catalog's proportions), main ingredients, dish types
+    private static final String[] CATEGORIES = {
+            "Beef", "Breakfast", "Chicken", "Dessert", "Goat", "Lamb", "Miscellaneous",
+            "Pasta", "Pork", "Seafood", "Side", "Starter", "Vegan", "Vegetarian"
+    };
+    private static final double[] CATEGORY_WEIGHTS = {
+            42, 7, 35, 64, 1, 14, 11, 9, 17, 28, 25, 4, 3, 38
+    };
+    private static final String[][] MAIN_INGREDIENTS = {
+            {"Beef", "Minced Beef", "Beef Brisket", "Beef Fillet"},
+            {"Eggs", "Bacon", "Bread", "Oats"},
+            {"Chicken", "Chicken Breast", "Chicken Thighs", "Chicken Legs"},
+            {"Dark Chocolate", "Apples", "Strawberries", "Lemon", "Bananas", "Raspberries", "Vanilla"},
+            {"Goat Meat"},
+            {"Lamb", "Lamb Shoulder", "Lamb Mince"},
+            {"Rice", "Cheese", "Mushrooms"},
+            {"Spaghetti", "Penne Rigate", "Lasagne Sheets", "Fettuccine"},
+            {"Pork", "Pork Chops", "Sausages", "Ham"},
+            {"Salmon", "Prawns", "Cod", "Tuna", "Mussels"},
+            {"Potatoes", "Carrots", "Cabbage", "Green Beans"},
+            {"Mushrooms", "Prawns", "Tomatoes"},
+            {"Tofu", "Chickpeas", "Lentils"},
+            {"Aubergine", "Spinach", "Chickpeas", "Halloumi", "Jalapeño", "Butternut Squash"}
+    };
+    private static final String[] SAVOURY_DISHES = {
+            "Curry", "Stew", "Pie", "Casserole", "Salad", "Soup", "Risotto", "Tagine", "Skewers",
+            "Burger", "Wraps", "Bake", "Gratin", "Stir Fry", "Noodles", "Roast", "Kebabs", "Tacos",
+            "Hotpot", "Traybake", "Fritters", "Pilaf", "Goulash", "Purée", "Pâté", "Sandwich"
+    };
+    private static final String[] DESSERT_DISHES = {
+            "Cake", "Tart", "Pudding", "Crumble", "Pie", "Cheesecake", "Mousse", "Crème Brûlée",
+            "Soufflé", "Muffins", "Cookies", "Pancakes", "Trifle", "Brownies", "Ice Cream", "Flambé"
+    };
+    private static final String[] BREAKFAST_DISHES = {
+            "Omelette", "Porridge", "Muffins", "Pancakes", "Hash", "Frittata", "Toast", "Shakshuka"
+    };
+    private static final String[] ADJECTIVES = {
+            "Spicy", "Classic", "Easy", "Slow Cooked", "Smoky", "Crispy", "Creamy", "Sticky",
+            "Honey Glazed", "Garlic", "Lemon", "Herby", "Rustic", "Quick", "Roasted", "Grilled"
+    };
+
+    private static final String[] AREAS = {
+            "British", "American", "French", "Italian", "Indian", "Mexican", "Canadian", "Chinese",
+            "Japanese", "Thai", "Greek", "Spanish", "Moroccan", "Jamaican", "Malaysian", "Turkish",
+            "Irish", "Croatian", "Polish", "Russian", "Vietnamese", "Dutch", "Egyptian", "Filipino",
+            "Portuguese", "Tunisian", "Ukrainian", "Kenyan", "Unknown"
+    };
+    private static final double[] AREA_WEIGHTS = {
+            50, 40, 30, 30, 20, 16, 13, 13, 10, 10, 10, 8, 8, 7, 6, 6,
+            5, 5, 5, 5, 5, 4, 4, 4, 4, 4, 3, 2, 2
+    };
+
+    // Most common first: drawn with a Zipf-like skew by rank
+    private static final String[] INGREDIENTS = {
+            "Salt", "Onion", "Olive Oil", "Garlic", "Butter", "Eggs", "Water", "Black Pepper",
+            "Sugar", "Plain Flour", "Milk", "Vegetable Oil", "Tomatoes", "Carrots", "Lemon",
+            "Chicken Stock", "Ginger", "Double Cream", "Parsley", "Thyme", "Potatoes", "Red Pepper",
+            "Cumin", "Coriander", "Paprika", "Bay Leaf", "Rice", "Soy Sauce", "Brown Sugar", "Honey",
+            "Chilli Powder", "Cinnamon", "Spring Onions", "Celery", "Mushrooms", "Cheddar Cheese",
+            "Parmesan", "Basil", "Oregano", "Tomato Puree", "Red Onions", "Lime", "Vanilla Extract",
+            "Baking Powder", "Caster Sugar", "Greek Yogurt", "Coconut Milk", "Turmeric", "Garam Masala",
+            "Fish Sauce", "White Wine", "Red Wine", "Beef Stock", "Vegetable Stock", "Peas", "Spinach",
+            "Courgettes", "Aubergine", "Chickpeas", "Kidney Beans", "Cabbage", "Leek", "Bacon",
+            "Sausages", "Minced Beef", "Chicken Breast", "Chicken Thighs", "Lamb Shoulder", "Pork",
+            "Salmon", "Prawns", "Cod", "Tuna", "Mozzarella", "Feta", "Ricotta", "Crème Fraîche",
+            "Gruyère", "Jalapeño", "Dark Chocolate", "Cocoa", "Strawberries", "Apples", "Raspberries",
+            "Bananas", "Almonds", "Walnuts", "Pine Nuts", "Sesame Seeds", "Breadcrumbs", "Noodles",
+            "Spaghetti", "Tortillas", "Puff Pastry", "Shortcrust Pastry", "Yeast", "Cornstarch",
+            "Worcestershire Sauce", "Dijon Mustard", "Mayonnaise", "Balsamic Vinegar", "Rice Vinegar",
+            "Cayenne Pepper", "Nutmeg", "Cloves", "Cardamom", "Star Anise", "Mint", "Dill", "Rosemary",
+            "Sage", "Chives", "Avocado", "Sweetcorn", "Green Beans", "Sweet Potatoes",
+            "Butternut Squash", "Lentils", "Quinoa", "Couscous", "Tofu", "Maple Syrup",
+            "Condensed Milk", "Icing Sugar", "Gelatine", "Single Cream", "Sour Cream", "Halloumi",
+            "Pomegranate", "Harissa", "Tahini", "Miso", "Kimchi", "Chorizo", "Pancetta", "Capers",
+            "Anchovies", "Olives", "Saffron", "Goat Meat"
+    };
+    private static final double ZIPF_EXPONENT = 0.9;
+
+    private static final String[] MEASURES = {
+            "1 tsp", "2 tsp", "1/2 tsp", "1 tbsp", "2 tbsp", "3 tbsp", "1/2 cup", "1 cup", "2 cups",
+            "100g", "200g", "250g", "500g", "1kg", "50ml", "400ml", "1 large", "2 medium", "1 small",
+            "3 cloves", "Pinch", "To taste", "1 can", "Handful", "Dash", "2", "4", "sprinkling"
+    };
+
+    private static final String[] TAGS = {
+            "Meat", "Casserole", "Pasta", "Curry", "Stew", "Soup", "Baking", "Dessert", "Spicy",
+            "Vegetarian", "Speciality", "Cake", "Sweet", "Warming", "BBQ", "Streetfood", "Breakfast",
+            "Fish", "Seafood", "Onthego", "Light", "DinnerParty", "Sidedish", "Pie", "Treat", "Chilli"
+    };
+
+    // {a}, {b}: ingredients of the meal (lower case); {m}: minutes
+    private static final String[] SENTENCES = {
+            "Heat the {a} in a large pan over a medium heat.",
+            "Add the {a} and cook for {m} minutes, stirring occasionally.",
+            "Stir in the {a} and {b}, then season with salt and pepper.",
+            "Bring to the boil, then reduce the heat and simmer for {m} minutes.",
+            "Meanwhile, finely chop the {a} and set aside.",
+            "Transfer to a baking dish and bake for {m} minutes until golden.",
+            "Whisk the {a} with the {b} in a bowl until smooth.",
+            "Leave to rest for {m} minutes before serving.",
+            "Serve hot, scattered with the {a}.",
+            "Fry the {a} until soft and lightly browned, about {m} minutes.",
+            "Pour in the {a} and scrape up any bits stuck to the bottom of the pan.",
+            "Toss the {a} through, check the seasoning and add a squeeze of {b} if you like.",
+            "Cover and cook gently for {m} minutes, adding a splash of water if it gets too thick.",
+            "Blend the {a} and {b} to a smooth paste."
+    };
+
+    private static final String YOUTUBE_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789_-";
+    private static final String THUMB_CHARS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    private static final double[] CATEGORY_CDF = cdf(CATEGORY_WEIGHTS);
+    private static final double[] AREA_CDF = cdf(AREA_WEIGHTS);
+    private static final double[] INGREDIENT_CDF = zipfCdf(INGREDIENTS.length, ZIPF_EXPONENT);
+
+    private final long seed;
+
+    /**
+     * Create a generator with DEFAULT_SEED.
+     */
+    public SyntheticCatalog() {
+        this(DEFAULT_SEED);
+    }
+
+    /**
+     * Create a generator.
+     *
+     * @param seed same seed = same catalog
+     */
+    public SyntheticCatalog(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * @return the seed of this catalog
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @param index meal index (>= 0)
+     * @return the idMeal of that meal
+     */
+    public static String idOf(int index) {
+        return String.valueOf(FIRST_ID + index);
+    }
+
+    /**
+     * Generate one meal, in TheMealDB's full format (as lookup.php returns it).
+     *
+     * @param index meal index (>= 0); the same index always gives the same meal
+     * @return a new JsonObject the caller may modify
+     */
+    public JsonObject meal(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index must be >= 0");
+        }
+        SplittableRandom r = random(index);
+        Outline outline = new Outline(r);
+        List<String> ingredients = outline.ingredients;
+        int count = ingredients.size();
+
+        JsonObject meal = new JsonObject();
+        meal.addProperty("idMeal", idOf(index));
+        meal.addProperty("strMeal", outline.name);
+        meal.add("strDrinkAlternate", JsonNull.INSTANCE);
+        meal.addProperty("strCategory", outline.category);
+        meal.addProperty("strArea", outline.area);
+        meal.addProperty("strInstructions", instructions(r, ingredients));
+        meal.addProperty("strMealThumb", "https://www.themealdb.com/images/media/meals/"
+                + randomChars(r, THUMB_CHARS, 6) + (1_400_000_000L + r.nextInt(300_000_000)) + ".jpg");
+        if (r.nextInt(2) == 0) {
+            meal.add("strTags", JsonNull.INSTANCE);
+        } else {
+            String tag = oneOf(r, TAGS);
+            meal.addProperty("strTags", r.nextInt(3) == 0 ? tag + "," + oneOf(r, TAGS) : tag);
+        }
+        meal.addProperty("strYoutube", r.nextInt(5) == 0 ? ""
+                : "https://www.youtube.com/watch?v=" + randomChars(r, YOUTUBE_CHARS, 11));
+
+        // Unused slots: "" in older meals, null in newer ones, " " measures in some
+        int emptyStyle = r.nextInt(10);
+        for (int i = 0; i < 20; i++) {
+            if (i < count) {
+                meal.addProperty(INGREDIENT_KEYS[i], ingredients.get(i));
+            } else if (emptyStyle < 3) {
+                meal.add(INGREDIENT_KEYS[i], JsonNull.INSTANCE);
+            } else {
+                meal.addProperty(INGREDIENT_KEYS[i], "");
+            }
+        }
+        for (int i = 0; i < 20; i++) {
+            if (i < count) {
+                meal.addProperty(MEASURE_KEYS[i], oneOf(r, MEASURES));
+            } else if (emptyStyle < 3) {
+                meal.add(MEASURE_KEYS[i], JsonNull.INSTANCE);
+            } else {
+                meal.addProperty(MEASURE_KEYS[i], emptyStyle == 9 ? " " : "");
+            }
+        }
+
+        if (r.nextInt(5) < 2) {
+            meal.addProperty("strSource", "https://www.bbcgoodfood.com/recipes/"
+                    + outline.name.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]+", "-"));
+        } else {
+            meal.add("strSource", JsonNull.INSTANCE);
+        }
+        meal.add("strImageSource", JsonNull.INSTANCE);
+        meal.add("strCreativeCommonsConfirmed", JsonNull.INSTANCE);
+        meal.add("dateModified", JsonNull.INSTANCE);
+        return meal;
+    }
+
+    /**
+     * The strMeal of one meal, without generating the rest of it
+     * (a few microseconds instead of a few tens).
+     *
+     * @param index meal index (>= 0)
+     * @return the same name meal(index) has
+     */
+    public String name(int index) {
+        if (index < 0) {
+            throw new IllegalArgumentException("index must be >= 0");
+        }
+        return new Outline(random(index)).name;
+    }
+
+    /**
+     * Add meals 0..count-1 to a stub server.
+     *
+     * @param stub the server (may already be running)
+     * @param count number of meals
+     * @return the stub, for chaining
+     */
+    public StubMealDbServer addTo(StubMealDbServer stub, int count) {
+        for (int i = 0; i < count; i++) {
+            stub.addMeal(meal(i));
+        }
+        return stub;
+    }
+
+    /**
+     * Stream meals 0..count-1 as one {"meals":[...]} document.
+     *
+     * @param out where to write (flushed, not closed)
+     * @param count number of meals
+     * @throws IOException if writing fails
+     */
+    public void writeTo(Writer out, int count) throws IOException {
+        // serializeNulls: keep the null fields TheMealDB sends
+        Gson gson = new GsonBuilder().serializeNulls().create();
+        JsonWriter json = new JsonWriter(out);
+        json.setSerializeNulls(true);
+        json.beginObject().name("meals").beginArray();
+        for (int i = 0; i < count; i++) {
+            gson.toJson(meal(i), json);
+        }
+        json.endArray().endObject();
+        json.flush();
+    }
+
+    /**
+     * Write meals 0..count-1 to a file, gzip-compressed if its name ends in ".gz".
+     * The file is written under a temporary name and moved into place when complete.
+     *
+     * @param file destination (replaced if it exists)
+     * @param count number of meals
+     * @throws IOException if writing fails
+     */
+    public void writeTo(Path file, int count) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream raw = Files.newOutputStream(tmp);
+                 OutputStream maybeGzip = file.getFileName().toString().endsWith(".gz")
+                         ? new GZIPOutputStream(raw, 1 << 16) : raw;
+                 Writer out = new BufferedWriter(new OutputStreamWriter(maybeGzip, StandardCharsets.UTF_8), 1 << 16)) {
+                writeTo(out, count);
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Command line: count file [seed]
+     *
+     * @param args number of meals, output file (".gz" to compress), optional seed
+     * @throws IOException if writing fails
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: SyntheticCatalog <count> <file.json[.gz]> [seed]");
+            return;
+        }
+        int count = Integer.parseInt(args[0]);
+        Path file = Path.of(args[1]);
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+
+        long start = System.nanoTime();
+        new SyntheticCatalog(seed).writeTo(file, count);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Wrote %,d meals (seed %d) to %s: %,d bytes in %.1f s%n",
+                count, seed, file, Files.size(file), seconds);
+    }
+
+    // --- Generation helpers ---
+
+    private SplittableRandom random(int index) {
+        return new SplittableRandom(mix(seed ^ mix(index + 1L)));
+    }
+
+    /**
+     * The first draws of a meal's stream: what the name depends on.
+     */
+    private static final class Outline {
+        final String category;
+        final String area;
+        final List<String> ingredients;
+        final String name;
+
+        Outline(SplittableRandom r) {
+            int c = pick(r, CATEGORY_CDF);
+            category = CATEGORIES[c];
+            area = AREAS[pick(r, AREA_CDF)];
+            String main = oneOf(r, MAIN_INGREDIENTS[c]);
+
+            // Clipped normal around 9 ingredients (the real catalog's average)
+            int count = (int) Math.round(9 + r.nextGaussian() * 3.5);
+            count = Math.max(3, Math.min(20, count));
+            ingredients = new ArrayList<>(count);
+            ingredients.add(main);
+            while (ingredients.size() < count) {
+                String next = INGREDIENTS[pick(r, INGREDIENT_CDF)];
+                if (!ingredients.contains(next)) {
+                    ingredients.add(next);
+                }
+            }
+            name = name(r, category, area, main, ingredients);
+        }
+    }
+
+    private static String name(SplittableRandom r, String category, String area, String main, List<String> ingredients) {
+        String[] dishes = switch (category) {
+            case "Dessert" -> DESSERT_DISHES;
+            case "Breakfast" -> BREAKFAST_DISHES;
+            default -> SAVOURY_DISHES;
+        };
+        String core = main + " " + oneOf(r, dishes);
+        int style = r.nextInt(20);
+        if (style < 7) {
+            return core;
+        }
+        if (style < 12 && !"Unknown".equals(area)) {
+            return area + " " + core;
+        }
+        if (style < 16) {
+            return oneOf(r, ADJECTIVES) + " " + core;
+        }
+        String side = ingredients.size() > 1 ? ingredients.get(1 + r.nextInt(ingredients.size() - 1)) : oneOf(r, INGREDIENTS);
+        return core + " with " + side;
+    }
+
+    private static String instructions(SplittableRandom r, List<String> ingredients) {
+        // Log-normal sentence count: median 12, long tail
+        int sentences = (int) Math.round(Math.exp(Math.log(12) + 0.6 * r.nextGaussian()));
+        sentences = Math.max(2, Math.min(80, sentences));
+        boolean numbered = r.nextInt(10) == 0;
+        String paragraphBreak = r.nextInt(10) < 3 ? "\r\n\r\n" : "\r\n";
+
+        StringBuilder sb = new StringBuilder(sentences * 70);
+        int step = 1;
+        int inParagraph = 0;
+        for (int s = 0; s < sentences; s++) {
+            if (inParagraph == 0 && numbered) {
+                sb.append("STEP ").append(step++).append("\r\n");
+            }
+            String a = oneOf(r, ingredients).toLowerCase(Locale.ROOT);
+            String b = oneOf(r, ingredients).toLowerCase(Locale.ROOT);
+            sb.append(oneOf(r, SENTENCES)
+                    .replace("{a}", a)
+                    .replace("{b}", b)
+                    .replace("{m}", String.valueOf(2 + r.nextInt(40))));
+            inParagraph++;
+            boolean last = s == sentences - 1;
+            if (!last && (inParagraph >= 3 || r.nextInt(2) == 0)) {
+                sb.append(paragraphBreak);
+                inParagraph = 0;
+            } else if (!last) {
+                sb.append(' ');
+            }
+        }
+        return sb.toString();
+    }
+
+    private static String randomChars(SplittableRandom r, String alphabet, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = alphabet.charAt(r.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+
+    private static <T> T oneOf(SplittableRandom r, T[] values) {
+        return values[r.nextInt(values.length)];
+    }
+
+    private static <T> T oneOf(SplittableRandom r, List<T> values) {
+        return values.get(r.nextInt(values.size()));
+    }
+
+    /**
+     * @return index i with probability proportional to the weight behind cdf[i]
+     */
+    private static int pick(SplittableRandom r, double[] cdf) {
+        int i = Arrays.binarySearch(cdf, r.nextDouble());
+        return Math.min(i < 0 ? -i - 1 : i, cdf.length - 1);
+    }
+
+    private static double[] cdf(double[] weights) {
+        double[] cdf = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            cdf[i] = total;
+        }
+        for (int i = 0; i < cdf.length; i++) {
+            cdf[i] /= total;
+        }
+        return cdf;
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] weights = new double[n];
+        for (int rank = 1; rank <= n; rank++) {
+            weights[rank - 1] = 1.0 / Math.pow(rank, exponent);
+        }
+        return cdf(weights);
+    }
+
+    /**
+     * MurmurHash3 finalizer: spreads (seed, index) so neighbouring meals get unrelated streams.
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
@@ -0,0 +1,71 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.CircuitOpenException;
+import gr.unipi.meallab.api.exception.MealLabException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker(3, Duration.ofSeconds(10), now::get);
+
+    @Test
+    void opensAfterConsecutiveTransientFailuresAndFailsFast() {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(MealLabException.class, () -> breaker.execute(this::unavailable));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // The call is not even attempted
+        assertThrows(CircuitOpenException.class, () -> breaker.execute(() -> fail("must not run")));
+        assertEquals(1, breaker.getRejected());
+        assertEquals(1, breaker.getTimesOpened());
+    }
+
+    @Test
+    void notFoundAndSuccessResetTheFailureCount() {
+        assertThrows(MealLabException.class, () -> breaker.execute(this::unavailable));
+        assertThrows(MealLabException.class, () -> breaker.execute(this::unavailable));
+        assertThrows(MealLabException.class, () -> breaker.execute(() -> {
+            throw new MealLabException("No meal found for id=0");
+        }));
+        assertThrows(MealLabException.class, () -> breaker.execute(this::unavailable));
+
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void halfOpenAllowsOneTrialThatDecidesTheState() {
+        for (int i = 0; i < 3; i++) {
+            assertThrows(MealLabException.class, () -> breaker.execute(this::unavailable));
+        }
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        // First call after the open period is the trial; a concurrent one is rejected
+        CompletableFuture<String> trial = new CompletableFuture<>();
+        CompletableFuture<String> running = breaker.executeAsync(() -> trial);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertTrue(breaker.executeAsync(() -> CompletableFuture.completedFuture("x"))
+                .isCompletedExceptionally());
+
+        // Trial fails: open again
+        trial.completeExceptionally(MealLabException.httpStatus("u", 503));
+        assertTrue(running.isCompletedExceptionally());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        // Next trial succeeds: closed
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals("ok", breaker.execute(() -> "ok"));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    private String unavailable() {
+        throw MealLabException.httpStatus("u", 503);
+    }
+}
@@ -0,0 +1,131 @@
+package gr.unipi.meallab.api.client;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.model.MealsResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Allocation benchmark: bytes allocated per decoded MealsResponse.
+ *
+ * Compares the old decode path (readAllBytes -> String -> Gson) with the
+ * streaming JsonReader path MealLabClient uses now, for a filter.php-style
+ * list payload and a search.php-style details payload.
+ *
+ * Uses com.sun.management.ThreadMXBean#getThreadAllocatedBytes, so it needs a
+ * HotSpot-based JVM. Not a unit test; run it with:
+ *   mvn -pl meallab-api test-compile exec:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=gr.unipi.meallab.api.client.DecodeAllocationBenchmark
+ *
+ * Optional args: [meals per payload] [iterations]
+ */
+public class DecodeAllocationBenchmark {
+
+    private static final Gson GSON = new Gson();
+    private static final Type LIST_TYPE = new TypeToken<MealsResponse<MealListItem>>() {}.getType();
+    private static final Type DETAILS_TYPE = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // Keeps results reachable so the JIT cannot drop the decode
+    private static Object sink;
+
+    public static void main(String[] args) {
+        int meals = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        int iterations = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+
+        byte[] listPayload = listPayload(meals);
+        byte[] detailsPayload = detailsPayload(Math.max(1, meals / 20));
+
+        System.out.printf("list payload: %d bytes (%d meals), details payload: %d bytes (%d meals)%n",
+                listPayload.length, meals, detailsPayload.length, Math.max(1, meals / 20));
+
+        for (int round = 0; round < 2; round++) {
+            // Round 0 is warm-up; only the second round is meaningful
+            String label = round == 0 ? "(warm-up) " : "";
+            report(label + "list    / String", measure(listPayload, LIST_TYPE, iterations, false));
+            report(label + "list    / stream", measure(listPayload, LIST_TYPE, iterations, true));
+            report(label + "details / String", measure(detailsPayload, DETAILS_TYPE, iterations, false));
+            report(label + "details / stream", measure(detailsPayload, DETAILS_TYPE, iterations, true));
+        }
+    }
+
+    private static long measure(byte[] payload, Type type, int iterations, boolean streaming) {
+        long tid = Thread.currentThread().getId();
+        long before = THREADS.getThreadAllocatedBytes(tid);
+        for (int i = 0; i < iterations; i++) {
+            InputStream is = new ByteArrayInputStream(payload);
+            sink = streaming ? decodeStreaming(is, type) : decodeViaString(is, type);
+        }
+        return (THREADS.getThreadAllocatedBytes(tid) - before) / iterations;
+    }
+
+    /**
+     * The decode path MealLabClient used before: three copies of the payload.
+     */
+    private static Object decodeViaString(InputStream is, Type type) {
+        try {
+            String json = new String(is.readAllBytes(), StandardCharsets.UTF_8);
+            return GSON.fromJson(json, type);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The streaming path MealLabClient uses now.
+     */
+    private static Object decodeStreaming(InputStream is, Type type) {
+        return GSON.fromJson(new JsonReader(new InputStreamReader(is, StandardCharsets.UTF_8)), type);
+    }
+
+    private static void report(String label, long bytesPerDecode) {
+        System.out.printf("%-28s %,12d bytes allocated per MealsResponse%n", label, bytesPerDecode);
+    }
+
+    private static byte[] listPayload(int n) {
+        StringBuilder sb = new StringBuilder("{\"meals\":[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"strMeal\":\"Synthetic Meal Number ").append(i)
+              .append("\",\"strMealThumb\":\"https://www.themealdb.com/images/media/meals/synthetic").append(i)
+              .append(".jpg\",\"idMeal\":\"").append(52000 + i).append("\"}");
+        }
+        return sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] detailsPayload(int n) {
+        StringBuilder sb = new StringBuilder("{\"meals\":[");
+        for (int i = 0; i < n; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"idMeal\":\"").append(52000 + i)
+              .append("\",\"strMeal\":\"Synthetic Meal ").append(i)
+              .append("\",\"strCategory\":\"Chicken\",\"strArea\":\"Greek\",\"strInstructions\":\"");
+            for (int s = 0; s < 12; s++) {
+                sb.append("Step ").append(s + 1).append(": stir the pot gently for a few minutes.\\r\\n");
+            }
+            sb.append("\",\"strMealThumb\":\"https://www.themealdb.com/images/media/meals/synthetic").append(i).append(".jpg\"");
+            for (int k = 1; k <= 20; k++) {
+                boolean used = k <= 9;
+                sb.append(",\"strIngredient").append(k).append("\":\"").append(used ? "Ingredient " + k : "").append('"');
+                sb.append(",\"strMeasure").append(k).append("\":\"").append(used ? k + " tbsp" : " ").append('"');
+            }
+            sb.append('}');
+        }
+        return sb.append("]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,246 @@
+package gr.unipi.meallab.api.client;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskResponseCacheTest {
+
+    /** Wall clock the tests can move forward. */
+    static class ManualClock extends Clock {
+        final AtomicLong millis = new AtomicLong(1_700_000_000_000L);
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis.get());
+        }
+    }
+
+    @TempDir
+    Path dir;
+
+    private final ManualClock clock = new ManualClock();
+    private final AtomicInteger requests = new AtomicInteger();
+    private final List<String> ifNoneMatch = new CopyOnWriteArrayList<>();
+    private volatile String cacheControl = "max-age=60";
+    private volatile String etag = "\"v1\"";
+    private HttpServer server;
+    private String base;
+
+    @BeforeEach
+    void startServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            String condition = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (condition != null) {
+                ifNoneMatch.add(condition);
+            }
+            if (cacheControl != null) {
+                exchange.getResponseHeaders().add("Cache-Control", cacheControl);
+            }
+            if (etag != null) {
+                exchange.getResponseHeaders().add("ETag", etag);
+            }
+            if (etag != null && etag.equals(condition)) {
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = ("{\"path\":\"" + exchange.getRequestURI().getPath() + "\"}\n").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        base = "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopServer() {
+        server.stop(0);
+    }
+
+    private HttpTransport transport(DiskResponseCache cache) {
+        return new HttpTransport(null, 4, Duration.ofSeconds(2), Duration.ofSeconds(2), cache);
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream body = in) {
+            return new String(body.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    void freshResponsesSurviveARestartWithoutTheNetwork() throws Exception {
+        DiskResponseCache first = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        assertEquals("{\"path\":\"/a\"}\n", read(transport(first).get(base + "/a")));
+        assertEquals("{\"path\":\"/b\"}\n", read(transport(first).getAsync(base + "/b").join()));
+        assertEquals(2, first.getStores());
+
+        // New process: new cache instance over the same directory
+        DiskResponseCache second = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        HttpTransport restarted = transport(second);
+        assertEquals("{\"path\":\"/a\"}\n", read(restarted.get(base + "/a")));
+        assertEquals("{\"path\":\"/b\"}\n", read(restarted.getAsync(base + "/b").join()));
+
+        assertEquals(2, requests.get());
+        assertEquals(2, second.getHits());
+    }
+
+    @Test
+    void staleEntriesAreRevalidatedWithAConditionalGet() throws Exception {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        HttpTransport transport = transport(cache);
+        read(transport.get(base + "/a"));
+
+        clock.millis.addAndGet(Duration.ofSeconds(61).toMillis());
+        assertEquals("{\"path\":\"/a\"}\n", read(transport.get(base + "/a")));
+        assertEquals(List.of("\"v1\""), ifNoneMatch);
+        assertEquals(1, cache.getRevalidations());
+
+        // The 304 renewed the freshness lifetime
+        read(transport.get(base + "/a"));
+        assertEquals(2, requests.get());
+    }
+
+    @Test
+    void noStoreAndNoCacheAreHonoured() throws Exception {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        HttpTransport transport = transport(cache);
+
+        cacheControl = "no-store";
+        read(transport.get(base + "/private"));
+        assertEquals(0, cache.getStores());
+
+        // Stored, but confirmed with the server on every use
+        cacheControl = "no-cache";
+        read(transport.get(base + "/checked"));
+        read(transport.get(base + "/checked"));
+        assertEquals(3, requests.get());
+        assertEquals(1, cache.getRevalidations());
+    }
+
+    @Test
+    void responsesWithoutFreshnessAreNeverServedUnchecked() throws Exception {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        HttpTransport transport = transport(cache);
+
+        // No Cache-Control / Expires / Last-Modified: no heuristic lifetime, only revalidation
+        cacheControl = null;
+        read(transport.get(base + "/validated"));
+        read(transport.get(base + "/validated"));
+        assertEquals(2, requests.get());
+        assertEquals(1, cache.getRevalidations());
+        assertEquals(0, cache.getHits());
+
+        // ... and without a validator either, not stored at all
+        etag = null;
+        read(transport.get(base + "/plain"));
+        read(transport.getAsync(base + "/plain").join());
+        assertEquals(4, requests.get());
+        assertEquals(2, cache.getStores());
+
+        // random.php is never stored, whatever the headers say
+        cacheControl = "max-age=60";
+        read(transport.get(base + "/random.php"));
+        read(transport.get(base + "/random.php"));
+        assertEquals(6, requests.get());
+        assertEquals(2, cache.getStores());
+    }
+
+    @Test
+    void bodiesStreamToATempFileThatIsCommittedOrDeleted() throws Exception {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        try (InputStream body = transport(cache).get(base + "/a")) {
+            assertEquals('{', body.read());
+            assertEquals(1, tempFiles());
+        }
+        assertEquals(0, tempFiles());
+        assertEquals(1, cache.getStores());
+
+        // Limit is 1/8 of 80 bytes: the body is streamed to the caller but not kept
+        DiskResponseCache tiny = new DiskResponseCache(dir.resolve("tiny"), 80, Duration.ofHours(1), clock);
+        assertEquals("{\"path\":\"/too-big-to-keep\"}\n", read(transport(tiny).get(base + "/too-big-to-keep")));
+        assertEquals(0, tiny.getStores());
+        try (Stream<Path> files = Files.list(dir.resolve("tiny"))) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private long tempFiles() throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.toString().endsWith(".tmp")).count();
+        }
+    }
+
+    @Test
+    void sizeIsBoundedByEvictingLeastRecentlyUsed() throws Exception {
+        DiskResponseCache cache = new DiskResponseCache(dir, 2_000, Duration.ofHours(1), clock);
+        HttpTransport transport = transport(cache);
+        for (int i = 0; i < 30; i++) {
+            clock.millis.incrementAndGet();
+            read(transport.get(base + "/meal" + i));
+        }
+
+        assertTrue(cache.getEvictions() > 0);
+        assertTrue(cache.getSizeBytes() <= 2_000, "size " + cache.getSizeBytes());
+        // The newest entry is still there
+        read(transport.get(base + "/meal29"));
+        assertEquals(30, requests.get());
+    }
+
+    @Test
+    void leftoversOfInterruptedWritesAndCorruptEntriesAreIgnored() throws Exception {
+        DiskResponseCache cache = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        read(transport(cache).get(base + "/a"));
+        Files.writeString(dir.resolve("entry-123.tmp"), "half a resp");
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.toString().endsWith(".entry")).forEach(p -> {
+                try {
+                    Files.writeString(p, "garbage");
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+        }
+
+        DiskResponseCache reopened = new DiskResponseCache(dir, 1 << 20, Duration.ofHours(1), clock);
+        // Opening the directory waits for the first use
+        assertTrue(Files.exists(dir.resolve("entry-123.tmp")));
+        assertEquals("{\"path\":\"/a\"}\n", read(transport(reopened).get(base + "/a")));
+        assertFalse(Files.exists(dir.resolve("entry-123.tmp")));
+        assertEquals(2, requests.get());
+    }
+}
@@ -0,0 +1,40 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpTransportTest {
+
+    @Test
+    void permitIsHeldUntilTheBodyIsClosed() throws Exception {
+        try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start()) {
+            HttpTransport transport = new HttpTransport(null, 1, Duration.ofSeconds(5), Duration.ofSeconds(5));
+            String url = stub.getBaseUrl() + "/lookup.php?i=52772";
+
+            InputStream first = transport.get(url);
+            CompletableFuture<byte[]> second = CompletableFuture.supplyAsync(() -> {
+                try (InputStream in = transport.get(url)) {
+                    return in.readAllBytes();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            assertThrows(TimeoutException.class, () -> second.get(300, TimeUnit.MILLISECONDS));
+
+            first.readAllBytes();
+            first.close();
+            first.close();
+            assertTrue(second.get(5, TimeUnit.SECONDS).length > 0);
+        }
+    }
+}
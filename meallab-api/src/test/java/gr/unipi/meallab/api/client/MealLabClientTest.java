@@ -1,14 +1,50 @@
 package gr.unipi.meallab.api.client;
 
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+/**
+ * Runs offline against an in-process StubMealDbServer with the bundled sample meals.
+ */
 public class MealLabClientTest {
 
+    private StubMealDbServer stub;
+    private MealLabClient client;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = StubMealDbServer.withSampleMeals().start();
+        client = new MealLabClient(new HttpTransport(), stub.getBaseUrl() + "/", MealLabClient.DEFAULT_MAX_BODY_BYTES,
+                new UpstreamThrottle(),
+                new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5)),
+                new CircuitBreaker());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
     @Test
     void randomMealHasNameAndId() {
-        MealLabClient client = new MealLabClient();
         var meal = client.randomMeal();
 
         assertNotNull(meal.getIdMeal());
@@ -18,10 +54,143 @@ public class MealLabClientTest {
 
     @Test
     void lookupByIdReturnsIngredientsMap() {
-        MealLabClient client = new MealLabClient();
         var meal = client.lookupById("52772");
 
         assertNotNull(meal.getIngredientsWithMeasures());
         assertFalse(meal.getIngredientsWithMeasures().isEmpty());
+        assertEquals("3/4 cup", meal.getIngredientsWithMeasures().get("soy sauce"));
+    }
+
+    @Test
+    void lookupByIdAsyncCompletesWithMeal() throws Exception {
+        var meal = client.lookupByIdAsync("52772").get(20, TimeUnit.SECONDS);
+
+        assertEquals("52772", meal.getIdMeal());
+    }
+
+    @Test
+    void searchesUseTheConfiguredBaseUrl() {
+        assertEquals(stub.getBaseUrl(), client.getBaseUrl());
+        assertEquals(2, client.searchByIngredient("Chicken").size());
+        assertEquals("Spicy Arrabiata Penne", client.searchByName("arrabiata").get(0).getStrMeal());
+        assertTrue(client.searchByName("no such meal").isEmpty());
+        assertEquals(3, stub.getRequestCount());
+    }
+
+    @Test
+    void listsCategoriesAreasAndIngredients() throws Exception {
+        assertEquals(List.of("Chicken", "Vegetarian", "Side", "Dessert"), client.listCategories());
+        assertEquals("Japanese", client.listAreasAsync(Runnable::run).get(20, TimeUnit.SECONDS).get(0));
+        assertTrue(client.listIngredients().containsAll(List.of("soy sauce", "Chicken", "Lentils")));
+        assertEquals(3, stub.getRequestCount("list.php"));
+    }
+
+    @Test
+    void filtersByCategoryAndArea() {
+        assertEquals(3, client.filterByCategory("chicken").size());
+        assertEquals("52772", client.filterByArea(" Japanese ").get(0).getIdMeal());
+        assertTrue(client.filterByArea("Atlantis").isEmpty());
+    }
+
+    @Test
+    void unknownIdIsNotFound() {
+        MealLabException e = assertThrows(MealLabException.class, () -> client.lookupById("1"));
+
+        assertEquals(MealLabException.Kind.NOT_FOUND, e.getKind());
+    }
+
+    @Test
+    void injectedServerErrorsAreRetried() {
+        stub.failNext(2, 503);
+
+        assertEquals("52771", client.lookupById("52771").getIdMeal());
+        assertEquals(3, stub.getRequestCount("lookup.php"));
+    }
+
+    @Test
+    void freshCacheHitsBypassRetriesBreakerAndThrottle() throws Exception {
+        byte[] stored;
+        try (InputStream body = new HttpTransport().get(stub.getBaseUrl() + "/lookup.php?i=52771")) {
+            stored = body.readAllBytes();
+        }
+        HttpTransport http = new HttpTransport();
+        Transport cached = new Transport() {
+            @Override
+            public InputStream get(String url) {
+                return http.get(url);
+            }
+
+            @Override
+            public CompletableFuture<InputStream> getAsync(String url) {
+                return http.getAsync(url);
+            }
+
+            @Override
+            public StoredResponse lookup(String url) {
+                return url.endsWith("i=52771")
+                        ? new StoredResponse(new DiskResponseCache.Entry(Map.of("url", url, "fresh-until", "0"), stored), true)
+                        : null;
+            }
+        };
+        UpstreamThrottle throttle = new UpstreamThrottle();
+        MealLabClient client = new MealLabClient(cached, stub.getBaseUrl() + "/", MealLabClient.DEFAULT_MAX_BODY_BYTES,
+                throttle, new RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5)),
+                new CircuitBreaker(1, Duration.ofMinutes(1)));
+        stub.failNext(1, 503);
+        assertThrows(MealLabException.class, () -> client.lookupById("52772"));
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+        long admitted = throttle.stats().getAdmitted();
+        long requests = stub.getRequestCount("lookup.php");
+
+        assertEquals("52771", client.lookupById("52771").getIdMeal());
+        assertEquals("52771", client.lookupByIdAsync("52771").get(5, TimeUnit.SECONDS).getIdMeal());
+        assertEquals(admitted, throttle.stats().getAdmitted());
+        assertEquals(requests, stub.getRequestCount("lookup.php"));
+    }
+
+    @Test
+    void asyncCallsLookUpTheResponseCacheOnTheirExecutor(@TempDir Path dir) throws Exception {
+        Path cacheDir = dir.resolve("cache");
+        HttpTransport transport = new HttpTransport(null, 4, Duration.ofSeconds(2), Duration.ofSeconds(5),
+                new DiskResponseCache(cacheDir));
+        MealLabClient cachedClient = new MealLabClient(transport, stub.getBaseUrl());
+        BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+
+        CompletableFuture<MealDetails> meal = cachedClient.lookupByIdAsync("52771", tasks::add);
+        // Returned without opening (or reading) the cache on this thread
+        assertFalse(Files.exists(cacheDir));
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!meal.isDone() && System.nanoTime() < deadline) {
+            Runnable task = tasks.poll(50, TimeUnit.MILLISECONDS);
+            if (task != null) {
+                task.run();
+            }
+        }
+        assertEquals("52771", meal.get().getIdMeal());
+        assertTrue(Files.exists(cacheDir));
+    }
+
+    @Test
+    void responsesWithTheRealApisHeadersAreServedFromDiskByTheNextClient(@TempDir Path dir) {
+        // Like TheMealDB, the stub sends no Cache-Control, Expires, ETag or Last-Modified
+        MealLabClient first = new MealLabClient(HttpTransport.withCache(new DiskResponseCache(dir)), stub.getBaseUrl());
+        assertEquals("52771", first.lookupById("52771").getIdMeal());
+        List<String> categories = first.listCategories();
+        first.randomMeal();
+        long lookups = stub.getRequestCount("lookup.php");
+        long lists = stub.getRequestCount("list.php");
+        long randoms = stub.getRequestCount("random.php");
+
+        // New process: new client, new cache instance over the same directory
+        MealLabClient second = new MealLabClient(HttpTransport.withCache(new DiskResponseCache(dir)), stub.getBaseUrl());
+        assertEquals("52771", second.lookupById("52771").getIdMeal());
+        assertEquals(categories, second.listCategories());
+        second.randomMeal();
+
+        assertEquals(lookups, stub.getRequestCount("lookup.php"));
+        assertEquals(lists, stub.getRequestCount("list.php"));
+        // random.php is never served from disk
+        assertEquals(randoms + 1, stub.getRequestCount("random.php"));
     }
 }
@@ -0,0 +1,94 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RecordReplayTransportTest {
+
+    @TempDir
+    Path dir;
+
+    private static MealLabClient client(Transport transport, String baseUrl) {
+        return new MealLabClient(transport, baseUrl, MealLabClient.DEFAULT_MAX_BODY_BYTES,
+                new UpstreamThrottle(), RetryPolicy.none(), new CircuitBreaker());
+    }
+
+    /**
+     * Record one session against the stub: two lookups, a search and a 503.
+     */
+    private String record(Path file) throws Exception {
+        try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start();
+             RecordingTransport recorder = new RecordingTransport(new HttpTransport(), file)) {
+            stub.setLatency(Duration.ofMillis(40), Duration.ZERO);
+            MealLabClient client = client(recorder, stub.getBaseUrl());
+            client.lookupById("52772");
+            client.lookupByIdAsync("52771").join();
+            client.searchByIngredient("chicken");
+            stub.failNext(1, 503);
+            assertThrows(MealLabException.class, () -> client.lookupById("52795"));
+            assertEquals(4, recorder.getRecorded());
+            return stub.getBaseUrl();
+        }
+    }
+
+    @Test
+    void replaysRecordedResponsesAndFailuresWithoutTheNetwork() throws Exception {
+        Path file = dir.resolve("session.jsonl");
+        String baseUrl = record(file);
+
+        // The stub is gone: everything below comes from the file
+        ReplayTransport replay = new ReplayTransport(file, ReplayTransport.Pacing.AS_FAST_AS_POSSIBLE);
+        MealLabClient client = client(replay, baseUrl);
+
+        long start = System.nanoTime();
+        assertEquals("Teriyaki Chicken Casserole", client.lookupById("52772").getStrMeal());
+        assertEquals("52771", client.lookupByIdAsync("52771").join().getIdMeal());
+        assertEquals(2, client.searchByIngredient("chicken").size());
+        MealLabException failure = assertThrows(MealLabException.class, () -> client.lookupById("52795"));
+        assertTrue(System.nanoTime() - start < Duration.ofMillis(40).toNanos());
+
+        assertEquals(503, failure.getStatusCode());
+        assertEquals(4, replay.getReplayed());
+        assertThrows(MealLabException.class, () -> client.lookupById("53049"));
+        assertEquals(1, replay.getMisses());
+    }
+
+    @Test
+    void recordedPacingKeepsTheLatency() throws Exception {
+        Path file = dir.resolve("session.jsonl");
+        String baseUrl = record(file);
+        MealLabClient client = client(new ReplayTransport(file, ReplayTransport.Pacing.RECORDED), baseUrl);
+
+        long start = System.nanoTime();
+        client.lookupById("52772");
+        client.lookupByIdAsync("52771").join();
+
+        assertTrue(System.nanoTime() - start >= Duration.ofMillis(80).toNanos());
+    }
+
+    @Test
+    void sessionsAppendAndATornLastLineIsSkipped() throws Exception {
+        Path file = dir.resolve("session.jsonl");
+        record(file);
+        record(file);
+        Files.writeString(file, "{\"at\":1,\"url\":\"http://x/", StandardOpenOption.APPEND);
+
+        List<RecordedExchange> exchanges = RecordedExchange.readAll(file);
+
+        assertEquals(8, exchanges.size());
+        assertEquals(1, exchanges.get(0).getSession());
+        assertEquals(2, exchanges.get(7).getSession());
+        assertTrue(exchanges.get(0).getLatencyNanos() >= Duration.ofMillis(40).toNanos());
+        assertTrue(exchanges.get(1).getAtNanos() > exchanges.get(0).getAtNanos());
+    }
+}
@@ -0,0 +1,99 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RetryPolicyTest {
+
+    private static final long MS = 1_000_000L;
+
+    @Test
+    void classifiesTransientFailures() {
+        assertTrue(RetryPolicy.isTransient(new MealLabException("API call failed", new HttpTimeoutException("timeout"))));
+        assertTrue(RetryPolicy.isTransient(new MealLabException("API call failed", new IOException("reset"))));
+        assertTrue(RetryPolicy.isTransient(MealLabException.httpStatus("u", 503)));
+        assertTrue(RetryPolicy.isTransient(MealLabException.httpStatus("u", 429)));
+
+        assertFalse(RetryPolicy.isTransient(MealLabException.httpStatus("u", 404)));
+        assertFalse(RetryPolicy.isTransient(new MealLabException("No meal found for id=0")));
+        assertFalse(RetryPolicy.isTransient(new MealLabException("API call failed",
+                new IllegalStateException("bad json", new IOException("inner")))));
+    }
+
+    @Test
+    void backoffIsJitteredExponentialAndCapped() {
+        AtomicLong now = new AtomicLong();
+        RetryPolicy policy = new RetryPolicy(10, Duration.ofMillis(100), Duration.ofMillis(500),
+                Duration.ofSeconds(60), () -> 0.5, now::get);
+        MealLabException transientError = MealLabException.httpStatus("u", 503);
+
+        assertEquals(50 * MS, policy.nextDelay(1, 0, transientError));
+        assertEquals(100 * MS, policy.nextDelay(2, 0, transientError));
+        assertEquals(200 * MS, policy.nextDelay(3, 0, transientError));
+        assertEquals(250 * MS, policy.nextDelay(4, 0, transientError));
+        assertEquals(250 * MS, policy.nextDelay(9, 0, transientError));
+
+        // Out of attempts, not transient, or past the time budget: give up
+        assertEquals(-1, policy.nextDelay(10, 0, transientError));
+        assertEquals(-1, policy.nextDelay(1, 0, MealLabException.httpStatus("u", 400)));
+        now.set(60_000 * MS);
+        assertEquals(-1, policy.nextDelay(1, 0, transientError));
+    }
+
+    @Test
+    void blockingCallSucceedsAfterTransientFailures() {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = policy.execute(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw MealLabException.httpStatus("u", 502);
+            }
+            return "ok";
+        });
+
+        assertEquals("ok", result);
+        assertEquals(3, attempts.get());
+        assertEquals(2, policy.getRetries());
+    }
+
+    @Test
+    void asyncCallGivesUpWithTheLastFailure() throws Exception {
+        RetryPolicy policy = new RetryPolicy(3, Duration.ofMillis(1), Duration.ofMillis(5), Duration.ofSeconds(5));
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = policy.executeAsync(() -> CompletableFuture.failedFuture(
+                MealLabException.httpStatus("u", 500 + attempts.incrementAndGet())));
+
+        ExecutionException e = assertThrows(ExecutionException.class, () -> result.get(5, TimeUnit.SECONDS));
+        assertEquals(503, ((MealLabException) e.getCause()).getStatusCode());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void cancellingAsyncCallStopsRetries() throws Exception {
+        RetryPolicy policy = new RetryPolicy(5, Duration.ofMillis(50), Duration.ofMillis(50), Duration.ofSeconds(5),
+                () -> 0.99, System::nanoTime);
+        AtomicInteger attempts = new AtomicInteger();
+
+        CompletableFuture<String> result = policy.executeAsync(() -> {
+            attempts.incrementAndGet();
+            return CompletableFuture.failedFuture(MealLabException.httpStatus("u", 503));
+        });
+        result.cancel(true);
+        Thread.sleep(200);
+
+        assertEquals(1, attempts.get());
+    }
+}
@@ -0,0 +1,150 @@
+package gr.unipi.meallab.api.client;
+
+import gr.unipi.meallab.api.exception.MealLabException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, String> flights = new SingleFlight<>();
+
+    @Test
+    void concurrentBlockingCallersShareOneCall() throws Exception {
+        int threads = 8;
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<String>> results = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                results.add(pool.submit(() -> flights.execute("lookup.php?i=52772", () -> {
+                    calls.incrementAndGet();
+                    started.countDown();
+                    await(release);
+                    return "meal";
+                })));
+            }
+            started.await(10, TimeUnit.SECONDS);
+            // Give the other callers time to join the in-flight call
+            Thread.sleep(200);
+            release.countDown();
+
+            for (Future<String> f : results) {
+                assertEquals("meal", f.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, calls.get());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void waitersReceiveTheSameException() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        MealLabException failure = new MealLabException("No meal found for id=0");
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Throwable> leader = pool.submit(() -> catching(() -> flights.execute("k", () -> {
+                await(release);
+                throw failure;
+            })));
+            while (flights.inFlight() == 0) {
+                Thread.sleep(5);
+            }
+            Future<Throwable> follower = pool.submit(() -> catching(() -> flights.execute("k", () -> "unused")));
+            // Give the follower time to join the in-flight call
+            Thread.sleep(200);
+            release.countDown();
+
+            assertSame(failure, leader.get(10, TimeUnit.SECONDS));
+            assertSame(failure, follower.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void asyncCallersShareOneCallAndCancelIndependently() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        CompletableFuture<String> real = new CompletableFuture<>();
+
+        CompletableFuture<String> a = flights.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return real;
+        });
+        CompletableFuture<String> b = flights.executeAsync("k", () -> {
+            calls.incrementAndGet();
+            return real;
+        });
+
+        assertEquals(1, calls.get());
+        a.cancel(true);
+        assertFalse(real.isCancelled(), "b still waits, so the real call must continue");
+
+        real.complete("meal");
+        assertEquals("meal", b.get(1, TimeUnit.SECONDS));
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void cancellingEveryAsyncCallerCancelsTheRealCall() {
+        CompletableFuture<String> real = new CompletableFuture<>();
+        CompletableFuture<String> a = flights.executeAsync("k", () -> real);
+        CompletableFuture<String> b = flights.executeAsync("k", () -> real);
+
+        a.cancel(true);
+        b.cancel(true);
+
+        assertTrue(real.isCancelled());
+        assertEquals(0, flights.inFlight());
+    }
+
+    @Test
+    void differentKeysDoNotShare() {
+        AtomicInteger calls = new AtomicInteger();
+        flights.executeAsync("a", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+        flights.executeAsync("b", () -> {
+            calls.incrementAndGet();
+            return new CompletableFuture<>();
+        });
+
+        assertEquals(2, calls.get());
+        assertEquals(2, flights.inFlight());
+    }
+
+    private static Throwable catching(Runnable r) {
+        try {
+            r.run();
+            return null;
+        } catch (Throwable t) {
+            return t;
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package gr.unipi.meallab.api.client;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Micro-benchmark: old per-call HttpURLConnection vs the shared HttpTransport.
+ *
+ * Starts an in-process stub server on localhost that returns a small
+ * TheMealDB-shaped JSON body, then times N sequential GETs through each path.
+ * The old path disconnects after every call (new TCP connection each time);
+ * the new path reuses pooled keep-alive connections.
+ *
+ * Note: the old path already returned sockets to the JDK keep-alive cache when
+ * the body stream was closed before disconnect(), so single-threaded runs reuse
+ * one connection on both paths. The difference shows up with concurrent callers:
+ * the legacy cache keeps at most http.maxConnections (5) idle sockets per host and
+ * keeps opening new ones, while HttpTransport keeps its pool (and multiplexes
+ * over one connection when the server speaks HTTP/2).
+ *
+ * Loopback connects are almost free, so the stub can charge a simulated
+ * handshake cost (default 30ms, roughly TCP + TLS over a 10ms RTT link) the
+ * first time it sees a new client connection. Pass 0 to measure raw
+ * client overhead only.
+ *
+ * Not a unit test (surefire only runs *Test classes). Run it with:
+ *   mvn -pl meallab-api test-compile exec:java \
+ *     -Dexec.classpathScope=test -Dexec.mainClass=gr.unipi.meallab.api.client.TransportBenchmark
+ *
+ * Optional args: [requests] [warmup] [handshakeMs] [threads]
+ */
+public class TransportBenchmark {
+
+    private static final byte[] BODY = (
+            "{\"meals\":[{\"idMeal\":\"52772\",\"strMeal\":\"Teriyaki Chicken Casserole\","
+            + "\"strMealThumb\":\"https://www.themealdb.com/images/media/meals/wvpsxx1468256321.jpg\"}]}"
+    ).getBytes(StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        int warmup = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+        long handshakeMs = args.length > 2 ? Long.parseLong(args[2]) : 30;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        // Without TCP_NODELAY the JDK server's split header/body writes hit
+        // Nagle + delayed ACK (~40ms per response), which would hide the difference
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        ExecutorService serverPool = Executors.newFixedThreadPool(4);
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        // Remote ports seen so far: a new port means a new TCP connection
+        Set<Integer> connections = ConcurrentHashMap.newKeySet();
+        server.createContext("/", exchange -> {
+            if (connections.add(exchange.getRemoteAddress().getPort()) && handshakeMs > 0) {
+                try {
+                    Thread.sleep(handshakeMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, BODY.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(BODY);
+            }
+        });
+        server.setExecutor(serverPool);
+        server.start();
+
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + "/filter.php?i=chicken";
+        HttpTransport transport = new HttpTransport(null, threads, HttpTransport.DEFAULT_CONNECT_TIMEOUT,
+                HttpTransport.DEFAULT_REQUEST_TIMEOUT);
+        ExecutorService callers = Executors.newFixedThreadPool(threads);
+
+        try {
+            // Warm up both paths (JIT, class loading, first connection)
+            runLegacy(url, warmup);
+            runTransport(transport, url, warmup);
+
+            System.out.println("simulated handshake: " + handshakeMs + " ms per new connection");
+            for (int t : new int[] {1, threads}) {
+                connections.clear();
+                long legacyNanos = runConcurrent(callers, t, requests, () -> runLegacy(url, requests / t));
+                int legacyConnections = connections.size();
+
+                connections.clear();
+                long pooledNanos = runConcurrent(callers, t, requests, () -> runTransport(transport, url, requests / t));
+                int pooledConnections = connections.size();
+
+                System.out.println("--- " + t + " caller thread(s) ---");
+                report("HttpURLConnection + disconnect", legacyNanos, requests, legacyConnections);
+                report("shared HttpTransport", pooledNanos, requests, pooledConnections);
+                System.out.printf("speedup: %.2fx%n", (double) legacyNanos / pooledNanos);
+            }
+        } finally {
+            callers.shutdownNow();
+            server.stop(0);
+            serverPool.shutdownNow();
+        }
+    }
+
+    /**
+     * Split the work across t caller threads and return the wall-clock time.
+     */
+    private static long runConcurrent(ExecutorService callers, int t, int requests, Callable<Long> job) throws Exception {
+        long start = System.nanoTime();
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < t; i++) {
+            futures.add(callers.submit(job));
+        }
+        for (Future<Long> f : futures) {
+            f.get();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * The request path MealLabClient used before HttpTransport.
+     */
+    private static long runLegacy(String url, int n) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            HttpURLConnection conn = (HttpURLConnection) URI.create(url).toURL().openConnection();
+            try {
+                conn.setRequestMethod("GET");
+                conn.setConnectTimeout(8000);
+                conn.setReadTimeout(12000);
+                try (InputStream is = conn.getInputStream()) {
+                    is.readAllBytes();
+                }
+            } finally {
+                conn.disconnect();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long runTransport(HttpTransport transport, String url, int n) throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            try (InputStream is = transport.get(url)) {
+                is.readAllBytes();
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static void report(String label, long nanos, int n, int connections) {
+        // Wall-clock time divided by requests (i.e. inverse throughput)
+        System.out.printf("%-32s %9.1f us/request  (%d requests, %d connections, %.0f ms total)%n",
+                label, nanos / 1000.0 / n, n, connections, nanos / 1_000_000.0);
+    }
+}
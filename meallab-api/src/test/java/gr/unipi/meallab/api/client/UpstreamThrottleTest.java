@@ -0,0 +1,188 @@
+package gr.unipi.meallab.api.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class UpstreamThrottleTest {
+
+    private static final long MS = 1_000_000L;
+
+    private final AtomicLong now = new AtomicLong();
+
+    @Test
+    void tokenBucketAllowsBurstThenSpacesRequests() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, now::get);
+
+        // Full bucket: three requests go out immediately
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+
+        // Empty bucket: each further request waits one more 100 ms slot
+        assertEquals(100 * MS, limiter.reserve());
+        assertEquals(200 * MS, limiter.reserve());
+
+        // After a long pause the bucket is full again (but never above burst)
+        now.addAndGet(10_000 * MS);
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertTrue(limiter.reserve() > 0);
+    }
+
+    @Test
+    void limiterGrowsOnFastCallsAndBacksOffOnFailures() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 8, 0.5, 2.0, now::get);
+
+        // Fast, successful calls: +1/limit each, so a window of 4 raises the limit by ~1
+        for (int i = 0; i < 5; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquireAsync().join();
+            now.addAndGet(10 * MS);
+            permit.release(true);
+        }
+        assertEquals(5, limiter.getLimit());
+
+        // A failure halves it
+        AdaptiveConcurrencyLimiter.Permit failed = limiter.acquireAsync().join();
+        now.addAndGet(10 * MS);
+        failed.release(false);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(1, limiter.getDecreases());
+
+        // A call far slower than the baseline counts as congestion too
+        now.addAndGet(100 * MS);
+        AdaptiveConcurrencyLimiter.Permit slow = limiter.acquireAsync().join();
+        now.addAndGet(500 * MS);
+        slow.release(true);
+        assertEquals(1, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void healthyJitterDoesNotCollapseTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 1, 32, 0.5, 2.0, now::get);
+        Random random = new Random(42);
+
+        // Sequential fast calls (a loopback server): 0.2 - 3 ms, often 10x the fastest
+        for (int i = 0; i < 300; i++) {
+            AdaptiveConcurrencyLimiter.Permit permit = limiter.acquireAsync().join();
+            now.addAndGet(200_000 + random.nextInt(2_800_000));
+            permit.release(true);
+        }
+        assertEquals(0, limiter.getDecreases());
+        assertTrue(limiter.getLimit() >= 8, "limit " + limiter.getLimit());
+
+        // Batches using the whole limit (a remote server): each call takes 40 - 120 ms
+        limiter = new AdaptiveConcurrencyLimiter(8, 1, 32, 0.5, 2.0, now::get);
+        for (int round = 0; round < 100; round++) {
+            List<AdaptiveConcurrencyLimiter.Permit> batch = new ArrayList<>();
+            int size = limiter.getLimit();
+            for (int i = 0; i < size; i++) {
+                batch.add(limiter.acquireAsync().join());
+            }
+            long start = now.get();
+            long[] latencies = random.longs(size, 40 * MS, 120 * MS).sorted().toArray();
+            for (int i = 0; i < size; i++) {
+                now.set(start + latencies[i]);
+                batch.get(i).release(true);
+            }
+        }
+        assertEquals(0, limiter.getDecreases());
+        assertTrue(limiter.getLimit() >= 8, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    void queuedCallerGetsPermitWhenOneIsReleased() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(1, 1, 1);
+
+        AdaptiveConcurrencyLimiter.Permit first = limiter.acquireAsync().join();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> cancelled = limiter.acquireAsync();
+        CompletableFuture<AdaptiveConcurrencyLimiter.Permit> second = limiter.acquireAsync();
+        assertFalse(second.isDone());
+        assertEquals(2, limiter.getQueued());
+
+        // A cancelled waiter is skipped instead of taking the slot
+        cancelled.cancel(true);
+        first.release(true);
+        assertTrue(second.isDone());
+        assertEquals(1, limiter.getInFlight());
+
+        second.join().release(true);
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void asyncCallsNeverExceedTheLimitAndCancelledOnesDoNotLeakPermits() throws Exception {
+        UpstreamThrottle throttle = new UpstreamThrottle(
+                RateLimiter.unlimited(), new AdaptiveConcurrencyLimiter(2, 2, 2));
+
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<CompletableFuture<String>> upstream = new ArrayList<>();
+        List<CompletableFuture<String>> results = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            results.add(throttle.executeAsync(() -> {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                CompletableFuture<String> call = new CompletableFuture<>();
+                synchronized (upstream) {
+                    upstream.add(call);
+                }
+                return call;
+            }));
+        }
+        assertEquals(2, upstream.size());
+        assertEquals(3, throttle.stats().getWaiting());
+
+        // Cancel one queued call: it must never start
+        results.get(2).cancel(true);
+
+        // Complete calls one by one; each completion admits the next live waiter
+        for (int done = 0; done < 4; done++) {
+            CompletableFuture<String> call;
+            synchronized (upstream) {
+                call = upstream.get(done);
+            }
+            running.decrementAndGet();
+            call.complete("ok");
+        }
+
+        for (int i = 0; i < 5; i++) {
+            if (i != 2) {
+                assertEquals("ok", results.get(i).get(5, TimeUnit.SECONDS));
+            }
+        }
+        assertEquals(4, upstream.size());
+        assertEquals(2, maxRunning.get());
+
+        ThrottleStats stats = throttle.stats();
+        assertEquals(4, stats.getAdmitted());
+        assertEquals(0, stats.getPermitsInUse());
+    }
+
+    @Test
+    void blockingCallsWaitForTheRateLimiter() {
+        UpstreamThrottle throttle = new UpstreamThrottle(
+                new TokenBucketRateLimiter(20, 1), new AdaptiveConcurrencyLimiter());
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ok", throttle.execute(() -> "ok"));
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // One immediate call, then two 50 ms slots
+        assertTrue(elapsed >= 90 * MS, "elapsed=" + elapsed / MS + "ms");
+        assertTrue(throttle.stats().getMaxQueuedNanos() >= 40 * MS);
+    }
+}
@@ -0,0 +1,46 @@
+package gr.unipi.meallab.api.exception;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.http.HttpConnectTimeoutException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MealLabExceptionTest {
+
+    @Test
+    void kindIsDerivedFromTheCause() {
+        assertEquals(MealLabException.Kind.TIMEOUT,
+                new MealLabException("API call failed", new HttpConnectTimeoutException("connect")).getKind());
+        assertEquals(MealLabException.Kind.NETWORK,
+                new MealLabException("API call failed", new ConnectException("refused")).getKind());
+        assertEquals(MealLabException.Kind.OTHER,
+                new MealLabException("API call failed", new IllegalStateException()).getKind());
+        assertEquals(MealLabException.Kind.OTHER, new MealLabException("something").getKind());
+    }
+
+    @Test
+    void httpStatusKeepsItsCodeWhenWrapped() {
+        MealLabException unavailable = MealLabException.httpStatus("https://example/x", 503);
+        MealLabException wrapped = new MealLabException("Lookup failed for id=1", unavailable);
+
+        assertEquals(MealLabException.Kind.HTTP_STATUS, wrapped.getKind());
+        assertEquals(503, wrapped.getStatusCode());
+        assertTrue(wrapped.isTransient());
+        assertFalse(MealLabException.httpStatus("https://example/x", 404).isTransient());
+        assertTrue(new MealLabException("API call failed", new IOException("reset")).isTransient());
+    }
+
+    @Test
+    void notFoundIsStacklessAndPermanent() {
+        MealLabException e = MealLabException.notFound("No meal found for id=0");
+
+        assertEquals(MealLabException.Kind.NOT_FOUND, e.getKind());
+        assertEquals("No meal found for id=0", e.getMessage());
+        assertEquals(0, e.getStackTrace().length);
+        assertFalse(e.isTransient());
+        assertEquals(-1, e.getStatusCode());
+    }
+}
@@ -0,0 +1,71 @@
+package gr.unipi.meallab.api.model;
+
+import com.google.gson.Gson;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MealDetailsTest {
+
+    private final Gson gson = new Gson();
+
+    private static final String JSON = "{"
+            + "\"idMeal\":\"52772\",\"strMeal\":\"Teriyaki Chicken Casserole\","
+            + "\"strCategory\":\"Chicken\",\"strArea\":\"Japanese\","
+            + "\"strInstructions\":\"Preheat oven.\",\"strTags\":\"Meat,Casserole\","
+            + "\"strIngredient1\":\" soy sauce \",\"strMeasure1\":\"3/4 cup\","
+            + "\"strIngredient2\":\"\",\"strMeasure2\":\"ignored\","
+            + "\"strIngredient3\":\"water\",\"strMeasure3\":null,"
+            + "\"strIngredient4\":\"soy sauce\",\"strMeasure4\":\" 1 tbsp \","
+            + "\"strIngredient5\":null,\"strMeasure5\":null,"
+            + "\"strIngredient20\":\"peas\",\"strMeasure20\":\"1 cup\","
+            + "\"strIngredient21\":\"not a real slot\""
+            + "}";
+
+    @Test
+    void decodesIngredientsIntoCompactOrderedPairs() {
+        MealDetails meal = gson.fromJson(JSON, MealDetails.class);
+
+        assertEquals("52772", meal.getIdMeal());
+        assertEquals("Japanese", meal.getStrArea());
+        assertEquals(3, meal.getIngredientCount());
+
+        Map<String, String> ing = meal.getIngredientsWithMeasures();
+        assertEquals(List.of("soy sauce", "water", "peas"), List.copyOf(ing.keySet()));
+        // Duplicate ingredient keeps its first position, last measure wins
+        assertEquals("1 tbsp", ing.get("soy sauce"));
+        assertEquals("", ing.get("water"));
+        assertEquals("1 cup", ing.get("peas"));
+    }
+
+    @Test
+    void ingredientsViewIsCachedAndReadOnly() {
+        MealDetails meal = gson.fromJson(JSON, MealDetails.class);
+
+        Map<String, String> view = meal.getIngredientsWithMeasures();
+        assertSame(view, meal.getIngredientsWithMeasures());
+        assertThrows(UnsupportedOperationException.class, () -> view.put("salt", "1 pinch"));
+    }
+
+    @Test
+    void roundTripKeepsTheMealDbShape() {
+        MealDetails meal = gson.fromJson(JSON, MealDetails.class);
+        String json = gson.toJson(meal);
+
+        assertTrue(json.contains("\"strIngredient1\":\"soy sauce\""));
+        MealDetails again = gson.fromJson(json, MealDetails.class);
+        assertEquals(meal.getIngredientsWithMeasures(), again.getIngredientsWithMeasures());
+        assertEquals(meal.getStrMeal(), again.getStrMeal());
+    }
+
+    @Test
+    void mealWithoutIngredientsHasEmptyMap() {
+        MealDetails meal = gson.fromJson("{\"idMeal\":\"1\"}", MealDetails.class);
+
+        assertEquals(0, meal.getIngredientCount());
+        assertTrue(meal.getIngredientsWithMeasures().isEmpty());
+    }
+}
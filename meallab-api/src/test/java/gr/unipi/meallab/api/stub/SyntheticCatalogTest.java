@@ -0,0 +1,85 @@
+package gr.unipi.meallab.api.stub;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealsResponse;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SyntheticCatalogTest {
+
+    private static final Set<String> CATEGORIES = Set.of(
+            "Beef", "Breakfast", "Chicken", "Dessert", "Goat", "Lamb", "Miscellaneous",
+            "Pasta", "Pork", "Seafood", "Side", "Starter", "Vegan", "Vegetarian");
+
+    @Test
+    void sameSeedAndIndexGiveTheSameMealInAnyOrder() {
+        SyntheticCatalog catalog = new SyntheticCatalog(7);
+
+        String later = catalog.meal(999).toString();
+        assertEquals(new SyntheticCatalog(7).meal(999).toString(), later);
+        assertEquals(catalog.meal(999).get("strMeal").getAsString(), catalog.name(999));
+        assertNotEquals(new SyntheticCatalog(8).meal(999).toString(), later);
+        assertEquals(SyntheticCatalog.idOf(999), catalog.meal(999).get("idMeal").getAsString());
+    }
+
+    @Test
+    void writtenCatalogDecodesAsMealDetails() throws Exception {
+        StringWriter out = new StringWriter();
+        new SyntheticCatalog().writeTo(out, 300);
+
+        MealsResponse<MealDetails> response = new Gson().fromJson(out.toString(),
+                new TypeToken<MealsResponse<MealDetails>>() {}.getType());
+        List<MealDetails> meals = response.getMeals();
+
+        assertEquals(300, meals.size());
+        for (MealDetails meal : meals) {
+            assertFalse(meal.getStrMeal().isBlank());
+            assertTrue(CATEGORIES.contains(meal.getStrCategory()), meal.getStrCategory());
+            assertTrue(meal.getIngredientCount() >= 3 && meal.getIngredientCount() <= 20);
+            assertTrue(meal.getStrInstructions().length() > 40);
+        }
+        // Null fields are written, as TheMealDB does
+        assertTrue(out.toString().contains("\"strDrinkAlternate\":null"));
+    }
+
+    @Test
+    void gzipFileLoadsIntoStubServer(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("catalog.json.gz");
+        new SyntheticCatalog().writeTo(file, 1000);
+
+        StubMealDbServer stub = new StubMealDbServer();
+        try (Reader in = new InputStreamReader(new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8)) {
+            stub.addMeals(in);
+        }
+
+        assertEquals(1000, stub.getMealCount());
+    }
+
+    @Test
+    void feedsAStubServerThatTheClientCanQuery() throws Exception {
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        try (StubMealDbServer stub = catalog.addTo(new StubMealDbServer(), 500).start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+
+            assertEquals(catalog.name(42), client.lookupById(SyntheticCatalog.idOf(42)).getStrMeal());
+            // Salt is the most common ingredient by construction
+            assertTrue(client.searchByIngredient("Salt").size() > 100);
+        }
+    }
+}
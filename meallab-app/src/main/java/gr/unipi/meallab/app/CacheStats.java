@@ -0,0 +1,104 @@
+package gr.unipi.meallab.app;
+
+/**
+ * Immutable snapshot of cache counters.
+ *
+ * Returned by LruCache.stats() and exposed by MealLabService so the UI/CLI
+ * (or a test) can see how well the cache is working.
+ *
+ * Counters:
+ * - hits / misses: lookups answered from the cache vs. not
+ * - evictions: entries dropped because the cache was full
+ * - expirations: entries dropped because their TTL ran out
+ * - loadSuccesses / loadFailures: loader calls (network fetches) and their outcome
+ * - totalLoadTimeNanos: time spent in loaders, for the average load penalty
+ */
+public final class CacheStats {
+
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+    private final long loadSuccesses;
+    private final long loadFailures;
+    private final long totalLoadTimeNanos;
+    private final int size;
+
+    CacheStats(long hits, long misses, long evictions, long expirations,
+               long loadSuccesses, long loadFailures, long totalLoadTimeNanos, int size) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.loadSuccesses = loadSuccesses;
+        this.loadFailures = loadFailures;
+        this.totalLoadTimeNanos = totalLoadTimeNanos;
+        this.size = size;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getLoadSuccesses() {
+        return loadSuccesses;
+    }
+
+    public long getLoadFailures() {
+        return loadFailures;
+    }
+
+    public long getTotalLoadTimeNanos() {
+        return totalLoadTimeNanos;
+    }
+
+    /**
+     * Number of entries in the cache when the snapshot was taken.
+     *
+     * @return current entry count
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Fraction of lookups answered from the cache.
+     *
+     * @return hits / (hits + misses), or 0 if there were no lookups
+     */
+    public double hitRate() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * Average time a loader took (successful or not).
+     *
+     * @return average load time in nanoseconds, or 0 if nothing was loaded
+     */
+    public double averageLoadPenaltyNanos() {
+        long loads = loadSuccesses + loadFailures;
+        return loads == 0 ? 0.0 : (double) totalLoadTimeNanos / loads;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+                "size=%d, hits=%d, misses=%d, hitRate=%.1f%%, evictions=%d, expirations=%d, "
+                        + "loads=%d, loadFailures=%d, avgLoad=%.1fms",
+                size, hits, misses, hitRate() * 100, evictions, expirations,
+                loadSuccesses, loadFailures, averageLoadPenaltyNanos() / 1_000_000.0);
+    }
+}
@@ -0,0 +1,284 @@
+package gr.unipi.meallab.app;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Small thread-safe in-memory cache: size-bounded LRU with expire-after-write.
+ *
+ * Used by MealLabService to avoid re-fetching the same meal over and over
+ * (double-clicks in the UI, Favorites lookups in the CLI).
+ *
+ * Behaviour:
+ * - At most maxEntries entries; the least recently used one is evicted first
+ * - Entries expire ttl after they were written (reads do not extend them)
+ * - Expired entries are dropped lazily when they are looked up, or when
+ *   they reach the LRU end
+ * - getOrLoad() runs the loader outside the lock, so a slow network call
+ *   never blocks readers of other keys
+ *
+ * Statistics: hits, misses, evictions, expirations and loader timings are
+ * counted with LongAdders and exposed as an immutable CacheStats snapshot.
+ *
+ * @param <K> key type
+ * @param <V> value type (null values are not cached)
+ */
+public final class LruCache<K, V> {
+
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+
+    // Access-ordered map: iteration starts at the least recently used entry
+    private final LinkedHashMap<K, Entry<V>> map;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder loadSuccesses = new LongAdder();
+    private final LongAdder loadFailures = new LongAdder();
+    private final LongAdder loadTimeNanos = new LongAdder();
+
+    /**
+     * Create a cache.
+     *
+     * @param maxEntries maximum number of entries (must be >= 1)
+     * @param ttl expire-after-write time (must be positive)
+     */
+    public LruCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, System::nanoTime);
+    }
+
+    /**
+     * Create a cache with a custom clock (for tests).
+     *
+     * @param maxEntries maximum number of entries (must be >= 1)
+     * @param ttl expire-after-write time (must be positive)
+     * @param clock nanosecond time source
+     */
+    LruCache(int maxEntries, Duration ttl, LongSupplier clock) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("maxEntries must be >= 1");
+        }
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() <= LruCache.this.maxEntries) {
+                    return false;
+                }
+                if (isExpired(eldest.getValue(), LruCache.this.clock.getAsLong())) {
+                    expirations.increment();
+                } else {
+                    evictions.increment();
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Look up a value, counting a hit or a miss.
+     *
+     * @param key the key
+     * @return cached value, or null if absent or expired
+     */
+    public V get(K key) {
+        V value = peek(key);
+        if (value == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Time since an entry was written, without touching hit/miss counters.
+     * Lets callers apply a shorter "soft" TTL on top of the cache's own one
+     * (see MealLabService's stale-while-revalidate mode).
+     *
+     * @param key the key
+     * @return age in nanoseconds, or -1 if absent or expired
+     */
+    public long ageNanos(K key) {
+        long now = clock.getAsLong();
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry == null || isExpired(entry, now)) {
+                return -1;
+            }
+            return now - entry.writtenAt;
+        }
+    }
+
+    /**
+     * Look up a value, loading and caching it on a miss.
+     *
+     * Concurrent misses for the same key may each call the loader;
+     * the last result written wins.
+     *
+     * @param key the key
+     * @param loader computes the value (exceptions propagate to the caller)
+     * @return cached or freshly loaded value
+     */
+    public V getOrLoad(K key, Function<? super K, ? extends V> loader) {
+        V value = get(key);
+        if (value != null) {
+            return value;
+        }
+
+        long start = clock.getAsLong();
+        try {
+            value = loader.apply(key);
+        } catch (RuntimeException e) {
+            recordLoad(clock.getAsLong() - start, false);
+            throw e;
+        }
+        recordLoad(clock.getAsLong() - start, true);
+
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Insert or replace a value. Null values are ignored.
+     *
+     * @param key the key
+     * @param value the value
+     */
+    public void put(K key, V value) {
+        if (value == null) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, clock.getAsLong());
+        synchronized (map) {
+            map.put(key, entry);
+        }
+    }
+
+    /**
+     * Record the outcome of a load performed outside getOrLoad()
+     * (e.g., an async fetch that completes later).
+     *
+     * @param nanos time the load took
+     * @param success whether it produced a value
+     */
+    public void recordLoad(long nanos, boolean success) {
+        loadTimeNanos.add(nanos);
+        if (success) {
+            loadSuccesses.increment();
+        } else {
+            loadFailures.increment();
+        }
+    }
+
+    /**
+     * Remove one entry.
+     *
+     * @param key the key
+     */
+    public void invalidate(K key) {
+        synchronized (map) {
+            map.remove(key);
+        }
+    }
+
+    /**
+     * Remove all entries (statistics are kept).
+     */
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    /**
+     * Drop every expired entry now instead of waiting for lazy cleanup.
+     *
+     * @return number of entries removed
+     */
+    public int purgeExpired() {
+        long now = clock.getAsLong();
+        int removed = 0;
+        synchronized (map) {
+            Iterator<Entry<V>> it = map.values().iterator();
+            while (it.hasNext()) {
+                if (isExpired(it.next(), now)) {
+                    it.remove();
+                    removed++;
+                }
+            }
+        }
+        expirations.add(removed);
+        return removed;
+    }
+
+    /**
+     * Current number of entries (may include expired ones not yet purged).
+     *
+     * @return entry count
+     */
+    public int size() {
+        synchronized (map) {
+            return map.size();
+        }
+    }
+
+    /**
+     * Snapshot of the counters.
+     *
+     * @return immutable statistics
+     */
+    public CacheStats stats() {
+        return new CacheStats(
+                hits.sum(), misses.sum(), evictions.sum(), expirations.sum(),
+                loadSuccesses.sum(), loadFailures.sum(), loadTimeNanos.sum(), size());
+    }
+
+    /**
+     * Look up without touching hit/miss counters (still refreshes LRU order).
+     */
+    private V peek(K key) {
+        long now = clock.getAsLong();
+        synchronized (map) {
+            Entry<V> entry = map.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (isExpired(entry, now)) {
+                map.remove(key);
+                expirations.increment();
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.writtenAt >= ttlNanos;
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long writtenAt;
+
+        Entry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
@@ -2,11 +2,17 @@ package gr.unipi.meallab.app;
 
 import com.google.gson.Gson;
 import com.google.gson.reflect.TypeToken;
-import gr.unipi.meallab.api.client.MealLabClient;
 import gr.unipi.meallab.api.exception.MealLabException;
 import gr.unipi.meallab.api.model.MealDetails;
 import gr.unipi.meallab.api.model.MealListItem;
-
+import gr.unipi.meallab.app.catalog.CatalogMirror;
+import gr.unipi.meallab.app.catalog.CatalogRefresher;
+import gr.unipi.meallab.app.catalog.CrawlReport;
+import gr.unipi.meallab.app.catalog.RefreshReport;
+import gr.unipi.meallab.app.search.IngredientQuery;
+import gr.unipi.meallab.app.search.SearchHit;
+
+import java.io.IOException;
 import java.lang.reflect.Type;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -18,8 +24,8 @@ import java.util.Scanner;
 
 public class Main {
 
-    // Client from the API module (meallab-api)
-    private static final MealLabClient client = new MealLabClient();
+    // Service layer over the API module (meallab-api); caches meal details
+    private static final MealLabService service = new MealLabService();
 
     // Store only minimal info to keep JSON small: id -> name
     private static final Map<String, String> favorites = new LinkedHashMap<>();
@@ -36,6 +42,8 @@ public class Main {
     public static void main(String[] args) {
         // Load favorites/cooked from disk (if they exist)
         loadLists();
+        // Read the local catalog in the background; searches use the API until it is there
+        service.loadCatalogAsync();
 
         Scanner sc = new Scanner(System.in);
 
@@ -56,6 +64,9 @@ public class Main {
                     case "8" -> handleViewCooked();
                     case "9" -> handleMoveFavoriteToCooked(sc);
                     case "10" -> handleRemoveFromLists(sc);
+                    case "11" -> handleSyncCatalog();
+                    case "12" -> handleSearchText(sc);
+                    case "13" -> handleBrowse(sc);
 
                     case "0" -> {
                         System.out.println("Bye!");
@@ -65,7 +76,13 @@ public class Main {
                 }
             } catch (MealLabException e) {
                 // Domain-specific error from our API client
-                System.out.println("ERROR: " + e.getMessage());
+                if (e.getKind() == MealLabException.Kind.NOT_FOUND) {
+                    System.out.println(e.getMessage());
+                } else if (e.isTransient() || e.getKind() == MealLabException.Kind.UNAVAILABLE) {
+                    System.out.println("ERROR: " + e.getMessage() + " (temporary problem, try again later)");
+                } else {
+                    System.out.println("ERROR: " + e.getMessage());
+                }
             } catch (Exception e) {
                 // Generic safety net for unexpected errors
                 System.out.println("UNEXPECTED ERROR: " + e.getMessage());
@@ -87,15 +104,28 @@ public class Main {
         System.out.println("8) View Cooked");
         System.out.println("9) Move Favorite -> Cooked (by id)");
         System.out.println("10) Remove from Favorites/Cooked (by id)");
+        System.out.println("11) Sync local catalog (offline search)");
+        System.out.println("12) Full-text search (names, instructions; local)");
+        System.out.println("13) Browse by category / area");
         System.out.println("0) Exit");
         System.out.print("Choose: ");
     }
 
     private static void handleSearchByIngredient(Scanner sc) {
-        System.out.print("Ingredient: ");
+        System.out.print("Ingredient (or query, e.g. chicken AND garlic NOT peanut): ");
         String ingredient = sc.nextLine().trim();
 
-        List<MealListItem> meals = client.searchByIngredient(ingredient);
+        List<MealListItem> meals;
+        if (IngredientQuery.isQuery(ingredient)) {
+            try {
+                meals = service.searchByIngredients(ingredient);
+            } catch (IllegalArgumentException e) {
+                System.out.println(e.getMessage());
+                return;
+            }
+        } else {
+            meals = service.searchByIngredient(ingredient);
+        }
         if (meals.isEmpty()) {
             System.out.println("No meals found for ingredient: " + ingredient);
             return;
@@ -115,7 +145,7 @@ public class Main {
         System.out.print("Name: ");
         String name = sc.nextLine().trim();
 
-        List<MealDetails> meals = client.searchByName(name);
+        List<MealDetails> meals = service.searchByName(name);
         if (meals.isEmpty()) {
             System.out.println("No meals found for name: " + name);
             return;
@@ -131,6 +161,57 @@ public class Main {
         System.out.println("Tip: use option 3 and paste an id to see details.");
     }
 
+    private static void handleSearchText(Scanner sc) {
+        System.out.print("Text: ");
+        String text = sc.nextLine().trim();
+
+        List<SearchHit> hits = service.searchText(text, 0, 10);
+        if (hits.isEmpty()) {
+            System.out.println("No known meals match: " + text);
+            System.out.println("Tip: option 11 syncs the whole catalog for local search.");
+            return;
+        }
+
+        System.out.println("Best " + hits.size() + " of " + service.getFullTextIndex().size() + " known meals:");
+        for (int i = 0; i < hits.size(); i++) {
+            MealListItem m = hits.get(i).getMeal();
+            System.out.printf("%d) %s (id=%s, score=%.2f)%n", i + 1, safe(m.getStrMeal()), m.getIdMeal(),
+                    hits.get(i).getScore());
+        }
+
+        System.out.println("Tip: use option 3 and paste an id to see details.");
+    }
+
+    private static void handleBrowse(Scanner sc) {
+        // Lists are fetched once per run (ReferenceDataCache), so repeated browsing is instant
+        System.out.println("Categories: " + String.join(", ", service.getReferenceData().categories()));
+        System.out.print("Category (empty = any): ");
+        String category = sc.nextLine().trim();
+        System.out.println("Areas: " + String.join(", ", service.getReferenceData().areas()));
+        System.out.print("Area (empty = any): ");
+        String area = sc.nextLine().trim();
+
+        if (category.isEmpty() && area.isEmpty()) {
+            System.out.println("Please choose a category, an area or both.");
+            return;
+        }
+
+        List<MealListItem> meals = service.browse(category, area);
+        if (meals.isEmpty()) {
+            System.out.println("No meals found for category '" + category + "', area '" + area + "'");
+            return;
+        }
+
+        System.out.println("Found " + meals.size() + " meals:");
+        int max = Math.min(meals.size(), 10);
+        for (int i = 0; i < max; i++) {
+            MealListItem m = meals.get(i);
+            System.out.printf("%d) %s (id=%s)%n", i + 1, m.getStrMeal(), m.getIdMeal());
+        }
+
+        System.out.println("Tip: use option 3 and paste an id to see details.");
+    }
+
     private static void handleLookupById(Scanner sc) {
         System.out.print("Meal id: ");
         String id = normalizeId(sc.nextLine());
@@ -140,7 +221,7 @@ public class Main {
             return;
         }
 
-        MealDetails meal = client.lookupById(id);
+        MealDetails meal = service.lookupById(id);
         if (!isValidMeal(meal)) {
             System.out.println("Meal not found for id: " + id);
             return;
@@ -150,7 +231,7 @@ public class Main {
     }
 
     private static void handleRandomMeal(Scanner sc) {
-        MealDetails meal = client.randomMeal();
+        MealDetails meal = service.randomMeal();
         if (!isValidMeal(meal)) {
             System.out.println("Could not fetch a random meal at this time.");
             return;
@@ -187,6 +268,43 @@ public class Main {
         }
     }
 
+    private static void handleSyncCatalog() {
+        // What is already stored decides between a crawl and a refresh
+        CatalogMirror mirror = service.loadCatalogAsync().join();
+        if (mirror.isComplete()) {
+            handleRefreshCatalog(mirror);
+            return;
+        }
+        System.out.println("Syncing the catalog into " + mirror.getDirectory() + " ...");
+
+        CrawlReport report = mirror.crawlAsync(shard -> System.out.print(shard + " ")).join();
+        System.out.println();
+        System.out.printf("%d meals stored locally (%d shards fetched, %d already done) in %.1f s%n",
+                report.getMeals(), report.getFetchedShards().size(), report.getSkippedShards().size(),
+                report.getElapsed().toMillis() / 1000.0);
+        if (!report.isComplete()) {
+            System.out.println("Failed shards " + report.getFailedShards().keySet()
+                    + "; run this option again to resume.");
+        } else if (mirror.isComplete()) {
+            System.out.println("Searches are now answered from the local catalog.");
+        }
+    }
+
+    private static void handleRefreshCatalog(CatalogMirror mirror) {
+        System.out.println("Checking the local catalog for new and changed meals ...");
+        try {
+            RefreshReport report = new CatalogRefresher(mirror).refresh();
+            System.out.printf("%d new, %d changed, %d removed (%d IDs probed, %d meals re-checked) in %.1f s%n",
+                    report.getAdded().size(), report.getChanged().size(), report.getRemoved().size(),
+                    report.getProbed(), report.getChecked(), report.getElapsed().toMillis() / 1000.0);
+            if (report.getFailed() > 0) {
+                System.out.println(report.getFailed() + " lookups failed; they are retried on the next check.");
+            }
+        } catch (IOException e) {
+            System.out.println("ERROR: could not update the local catalog: " + e.getMessage());
+        }
+    }
+
     private static void handleAddToFavorites(Scanner sc) {
         addMealToList(sc, favorites, FAVORITES_FILE, "Favorites");
     }
@@ -211,7 +329,7 @@ public class Main {
             return;
         }
 
-        MealDetails meal = client.lookupById(id);
+        MealDetails meal = service.lookupById(id);
         if (!isValidMeal(meal)) {
             System.out.println("Meal not found for id: " + id);
             return;
@@ -489,11 +607,12 @@ public class Main {
     /**
      * Format the instructions string into numbered steps.
      * Cleans up control characters and normalizes line endings.
+     * Package-private so meallab-bench can measure it.
      * 
      * @param s raw instructions string from API
      * @return formatted instructions with numbered steps
      */
-    private static String formatInstructions(String s) {
+    static String formatInstructions(String s) {
         if (s == null) {
             return "";
         }
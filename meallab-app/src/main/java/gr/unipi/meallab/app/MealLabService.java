@@ -1,10 +1,44 @@
 package gr.unipi.meallab.app;
 
+import gr.unipi.meallab.api.client.DiskResponseCache;
+import gr.unipi.meallab.api.client.HttpTransport;
 import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.LookupResult;
 import gr.unipi.meallab.api.model.MealDetails;
 import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.app.catalog.CatalogDelta;
+import gr.unipi.meallab.app.catalog.CatalogMirror;
+import gr.unipi.meallab.app.catalog.CatalogSnapshot;
+import gr.unipi.meallab.app.search.FullTextIndex;
+import gr.unipi.meallab.app.search.FuzzyNameIndex;
+import gr.unipi.meallab.app.search.IngredientIndex;
+import gr.unipi.meallab.app.search.IngredientQuery;
+import gr.unipi.meallab.app.search.IngredientQueryEngine;
+import gr.unipi.meallab.app.search.PrefixCompleter;
+import gr.unipi.meallab.app.search.SearchHit;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * Service layer for API calls.
@@ -12,18 +46,275 @@ import java.util.List;
  * Acts as a thin wrapper around MealLabClient. Encapsulates all API interactions
  * for the app, allowing the UI layer to use a consistent interface.
  * 
- * IMPORTANT: All methods in this class make synchronous network calls.
- * NEVER call these methods on the JavaFX UI thread - always run on a background thread.
+ * Caching:
+ * - Meal details are kept in a size-bounded LRU cache keyed by normalized meal ID,
+ *   with expire-after-write (defaults: 500 meals, 10 minutes)
+ * - lookupById() is answered from the cache when possible; details returned by
+ *   searchByName() and randomMeal() are added to it as well
+ * - Non-empty search results are cached the same way, keyed by endpoint +
+ *   normalized query (default: 100 searches); treat returned lists as read-only
+ * - getDetailCacheStats() reports hits, misses, evictions and load times
+ * 
+ * Stale-while-revalidate:
+ * - Entries have a soft TTL (freshness) and a hard TTL (when they are dropped)
+ * - A detail or search list older than the soft TTL but younger than the hard
+ *   TTL is returned immediately, and a background refresh updates the cache;
+ *   concurrent stale hits for the same key share one refresh
+ * - The async methods accept an optional onRefresh callback, called (on a
+ *   background thread) with the fresher result, so a UI can re-render
+ * - A refresh that finds the meal gone drops it; transient failures keep the stale copy
+ * - Off when soft TTL == hard TTL (the 3- and 5-argument constructors);
+ *   the default constructor uses 10 minutes soft, 24 hours hard
+ * - getStaleServed() / getBackgroundRefreshes() count how often this happens
+ * 
+ * Negative caching:
+ * - IDs the API reported as not found, and searches that returned no meals,
+ *   are remembered in a separate, smaller cache with a short TTL
+ *   (defaults: 200 entries, 2 minutes), so typos and stale favorites do not
+ *   hit the network on every repeat
+ * - Only definite answers are cached (MealLabException kind NOT_FOUND, or an
+ *   empty result); network errors and timeouts are not
+ * - A meal that shows up again (e.g., in a name search) clears its negative entry
+ * - getNegativeCacheStats() reports its counters next to the detail cache's
+ * 
+ * Persistent cache:
+ * - The default constructor's client stores HTTP responses on disk, honouring
+ *   Cache-Control / ETag / Last-Modified (see DiskResponseCache); the in-memory
+ *   caches above sit in front of it
+ * 
+ * Local catalog mirror:
+ * - With a CatalogMirror (the default constructor uses ~/.meallab/catalog),
+ *   meals in the mirror are returned without any network call or cache
+ * - The default constructor does no I/O: loadCatalogAsync() reads the stored
+ *   mirror in the background, and until then calls go to the API as usual
+ * - Once the mirror is complete (every shard crawled), searches and
+ *   randomMeal() are answered from it too; an ID missing from it is still
+ *   looked up remotely (it may be newer than the mirror)
+ * - getMirrorHits() counts answers served from the mirror
+ * 
+ * Ingredient index:
+ * - searchByIngredient() is answered by an in-memory IngredientIndex once it
+ *   is complete, i.e. once the mirror is; until then it calls filter.php?i=
+ * - The index follows every mirror change, and meals fetched remotely
+ *   (lookups, name searches, random meals) are added to it as they arrive
+ * - getIngredientIndex() exposes it (e.g., for size statistics)
+ * 
+ * Multi-ingredient queries:
+ * - searchByIngredients("chicken AND garlic NOT peanut") accepts AND / OR / NOT
+ *   (see IngredientQuery); with a complete mirror it is answered by an
+ *   IngredientQueryEngine (compressed bitmaps), built once per catalog snapshot
+ * - Without one, each ingredient goes through searchByIngredient() (so cached
+ *   lists are reused) and the lists are combined locally; a query that needs
+ *   the whole catalog ("NOT peanut") is then rejected
+ * 
+ * Fuzzy name search:
+ * - When searchByName() finds nothing ("mousaka", "Μουσακάς"), it returns the
+ *   closest names known locally instead (FuzzyNameIndex: accent folding,
+ *   trigrams, edit distance); searchByNameFuzzy() asks the index directly
+ * 
+ * Full-text search:
+ * - searchText("slow cooked lamb", 0, 20) ranks meals by name, category, area
+ *   and instructions (BM25, see FullTextIndex); it never calls the API
+ * - It covers the mirrored catalog plus every meal fetched so far
+ *   (lookups, name searches, random meals)
+ * 
+ * Autocomplete:
+ * - completeNames() / completeIngredients() / completeCategories() /
+ *   completeAreas() suggest the most popular matches for a prefix, without
+ *   any network call or index rebuild (see PrefixCompleter: new terms are
+ *   published in the background, so they are safe to call on every keystroke)
+ * - Popularity is how many of the meals known locally (mirror and fetched
+ *   meals) have a name, ingredient, category or area; each meal ID counts
+ *   once, however often it is fetched or reloaded, and meals removed from
+ *   the mirror stop counting
+ * - loadSuggestionsAsync() adds the full ingredient, category and area lists
+ *   (from the reference data below), so rarely used ones are suggested too
+ * 
+ * Reference data and faceted browsing:
+ * - Category, area and ingredient lists, and the meals of each category and
+ *   area, come from a ReferenceDataCache (loaded lazily, kept for days)
+ *   built on this service's client
+ * - browse("Seafood", "Greek") filters by category and/or area: from a
+ *   complete mirror, else by intersecting the cached filter.php lists
+ * 
+ * Bulk lookups:
+ * - lookupByIds() answers mirrored and cached IDs immediately and fetches the rest through
+ *   MealLabClient.lookupByIds with bounded parallelism; results keep input order
+ * 
+ * IMPORTANT: The plain methods make synchronous network calls.
+ * NEVER call them on the JavaFX UI thread - use the *Async variants instead,
+ * which return immediately with a CompletableFuture (see MealLabClient for
+ * timeout and cancellation semantics).
  * 
  * Example (from MealLabView):
- *   runInBackground(() -> {
- *       List<MealDetails> results = service.searchByName("chicken");
- *       Platform.runLater(() -> updateUI(results));
- *   });
+ *   service.searchByNameAsync("chicken")
+ *          .whenComplete((results, error) -> Platform.runLater(() -> updateUI(results)));
  */
 public class MealLabService {
 
-    private final MealLabClient client = new MealLabClient();
+    /** Default max number of cached meal details. */
+    public static final int DEFAULT_CACHE_SIZE = 500;
+
+    /** Default time a cached meal stays valid (the soft TTL when stale-while-revalidate is on). */
+    public static final Duration DEFAULT_CACHE_TTL = Duration.ofMinutes(10);
+
+    /** Default time a stale meal or search may still be served while it is refreshed. */
+    public static final Duration DEFAULT_STALE_TTL = Duration.ofHours(24);
+
+    /** Default max number of cached (non-empty) search results. */
+    public static final int DEFAULT_SEARCH_CACHE_SIZE = 100;
+
+    /** Max number of closest names searchByName() falls back to when nothing matches exactly. */
+    public static final int FUZZY_NAME_LIMIT = 10;
+
+    /** Default max number of remembered "not found" answers. */
+    public static final int DEFAULT_NEGATIVE_CACHE_SIZE = 200;
+
+    /** Default time a "not found" answer is trusted (short: the catalog does grow). */
+    public static final Duration DEFAULT_NEGATIVE_CACHE_TTL = Duration.ofMinutes(2);
+
+    private final MealLabClient client;
+    private final CatalogMirror mirror;
+
+    // Guarded by "this"; null until loadCatalogAsync() starts reading the default mirror
+    private CompletableFuture<CatalogMirror> catalogLoad;
+    private final LongSupplier clock;
+    private final long softTtlNanos;
+    private final LruCache<String, MealDetails> detailCache;
+
+    // Keys are endpoint + normalized query; values are List<MealListItem> or List<MealDetails>
+    private final LruCache<String, List<?>> searchCache;
+
+    // Keys mirror the API endpoint + normalized query, e.g. "lookup.php?i=52772"
+    private final LruCache<String, Boolean> negativeCache;
+
+    // One background refresh per stale key; later stale hits attach to it
+    private final ConcurrentMap<String, CompletableFuture<?>> refreshing = new ConcurrentHashMap<>();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder backgroundRefreshes = new LongAdder();
+    private final LongAdder mirrorHits = new LongAdder();
+    private final IngredientIndex ingredientIndex = new IngredientIndex();
+    private final FullTextIndex fullTextIndex = new FullTextIndex();
+    private final FuzzyNameIndex fuzzyNameIndex = new FuzzyNameIndex();
+    private final PrefixCompleter nameCompleter = new PrefixCompleter();
+    private final PrefixCompleter ingredientCompleter = new PrefixCompleter();
+    private final PrefixCompleter categoryCompleter = new PrefixCompleter();
+    private final PrefixCompleter areaCompleter = new PrefixCompleter();
+    private final ReferenceDataCache referenceData;
+
+    // Built on first use per snapshot; guarded by engineLock while (re)built
+    private final Object engineLock = new Object();
+    private volatile IngredientQueryEngine queryEngine;
+
+    /**
+     * Create a service with the default client and cache settings.
+     * HTTP responses are also kept on disk (DiskResponseCache.defaultDirectory(),
+     * i.e. ~/.meallab/cache), so meals seen in earlier runs load without the network,
+     * and the catalog mirror is stored in CatalogMirror.defaultDirectory().
+     * Nothing is read from disk here (safe on the JavaFX thread and in static
+     * initializers): call loadCatalogAsync() to read the stored mirror, and
+     * getCatalogMirror().crawlAsync(...) after it to fill it.
+     */
+    public MealLabService() {
+        this(new MealLabClient(HttpTransport.withCache(new DiskResponseCache(DiskResponseCache.defaultDirectory()))));
+    }
+
+    private MealLabService(MealLabClient client) {
+        this(client, new CatalogMirror(client, CatalogMirror.defaultDirectory()),
+                DEFAULT_CACHE_SIZE, DEFAULT_CACHE_TTL, DEFAULT_STALE_TTL,
+                DEFAULT_NEGATIVE_CACHE_SIZE, DEFAULT_NEGATIVE_CACHE_TTL, System::nanoTime);
+        // Not loaded yet: loadCatalogAsync() reads it
+        catalogLoad = null;
+    }
+
+    /**
+     * Create a service with a custom client and cache settings.
+     * 
+     * @param client the API client to delegate to
+     * @param cacheSize max number of cached meal details (>= 1)
+     * @param cacheTtl how long a cached meal stays valid after it was fetched
+     */
+    public MealLabService(MealLabClient client, int cacheSize, Duration cacheTtl) {
+        this(client, cacheSize, cacheTtl, DEFAULT_NEGATIVE_CACHE_SIZE, DEFAULT_NEGATIVE_CACHE_TTL);
+    }
+
+    /**
+     * Create a service with custom positive and negative cache settings.
+     * 
+     * @param client the API client to delegate to
+     * @param cacheSize max number of cached meal details (>= 1)
+     * @param cacheTtl how long a cached meal stays valid after it was fetched
+     * @param negativeCacheSize max number of remembered "not found" answers (>= 1)
+     * @param negativeCacheTtl how long a "not found" answer is trusted
+     */
+    public MealLabService(MealLabClient client, int cacheSize, Duration cacheTtl,
+                          int negativeCacheSize, Duration negativeCacheTtl) {
+        this(client, cacheSize, cacheTtl, cacheTtl, negativeCacheSize, negativeCacheTtl);
+    }
+
+    /**
+     * Create a service in stale-while-revalidate mode.
+     * 
+     * @param client the API client to delegate to
+     * @param cacheSize max number of cached meal details (>= 1)
+     * @param softTtl age after which a cached meal or search is refreshed in the background
+     * @param hardTtl age after which it is no longer served at all (>= softTtl)
+     * @param negativeCacheSize max number of remembered "not found" answers (>= 1)
+     * @param negativeCacheTtl how long a "not found" answer is trusted
+     */
+    public MealLabService(MealLabClient client, int cacheSize, Duration softTtl, Duration hardTtl,
+                          int negativeCacheSize, Duration negativeCacheTtl) {
+        this(client, null, cacheSize, softTtl, hardTtl, negativeCacheSize, negativeCacheTtl);
+    }
+
+    /**
+     * Create a service that answers from a local catalog mirror when it can.
+     * 
+     * @param client the API client to delegate to
+     * @param mirror the local catalog (already loaded; may be null for none)
+     * @param cacheSize max number of cached meal details (>= 1)
+     * @param softTtl age after which a cached meal or search is refreshed in the background
+     * @param hardTtl age after which it is no longer served at all (>= softTtl)
+     * @param negativeCacheSize max number of remembered "not found" answers (>= 1)
+     * @param negativeCacheTtl how long a "not found" answer is trusted
+     */
+    public MealLabService(MealLabClient client, CatalogMirror mirror, int cacheSize, Duration softTtl,
+                          Duration hardTtl, int negativeCacheSize, Duration negativeCacheTtl) {
+        this(client, mirror, cacheSize, softTtl, hardTtl, negativeCacheSize, negativeCacheTtl, System::nanoTime);
+    }
+
+    /**
+     * Create a service with a custom clock (for tests).
+     */
+    MealLabService(MealLabClient client, int cacheSize, Duration softTtl, Duration hardTtl,
+                   int negativeCacheSize, Duration negativeCacheTtl, LongSupplier clock) {
+        this(client, null, cacheSize, softTtl, hardTtl, negativeCacheSize, negativeCacheTtl, clock);
+    }
+
+    /**
+     * Create a service with a mirror and a custom clock (for tests).
+     */
+    MealLabService(MealLabClient client, CatalogMirror mirror, int cacheSize, Duration softTtl, Duration hardTtl,
+                   int negativeCacheSize, Duration negativeCacheTtl, LongSupplier clock) {
+        if (softTtl.compareTo(hardTtl) > 0) {
+            throw new IllegalArgumentException("softTtl must not exceed hardTtl");
+        }
+        this.client = client;
+        this.mirror = mirror;
+        this.catalogLoad = CompletableFuture.completedFuture(mirror);
+        this.referenceData = new ReferenceDataCache(client);
+        this.clock = clock;
+        this.softTtlNanos = softTtl.toNanos();
+        this.detailCache = new LruCache<>(cacheSize, hardTtl, clock);
+        this.searchCache = new LruCache<>(DEFAULT_SEARCH_CACHE_SIZE, hardTtl, clock);
+        this.negativeCache = new LruCache<>(negativeCacheSize, negativeCacheTtl, clock);
+        if (mirror != null) {
+            mirror.addListener(ingredientIndex::apply);
+            mirror.addListener(fullTextIndex::apply);
+            mirror.addListener(fuzzyNameIndex::apply);
+            mirror.addListener(this::suggest);
+        }
+    }
 
     /**
      * Search for meals by ingredient.
@@ -33,29 +324,529 @@ public class MealLabService {
      * @throws gr.unipi.meallab.api.exception.MealLabException if API call fails
      */
     public List<MealListItem> searchByIngredient(String ingredient) {
-        return client.searchByIngredient(ingredient);
+        if (indexComplete()) {
+            return ingredientIndex.search(ingredient);
+        }
+        String key = "filter.php?i=" + normalizeQuery(ingredient);
+        List<MealListItem> cached = cachedSearch(key);
+        if (cached != null) {
+            refreshIfStale(key, searchCache.ageNanos(key),
+                    () -> fetchIngredientSearch(key, ingredient, null), null);
+            return cached;
+        }
+        if (isKnownEmpty(key)) {
+            return Collections.emptyList();
+        }
+        return rememberSearch(key, client.searchByIngredient(ingredient));
+    }
+
+    /**
+     * Async variant of searchByIngredient(String).
+     * 
+     * @param ingredient the ingredient name (e.g., "chicken", "garlic")
+     * @return future list of meals containing this ingredient
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientAsync(String ingredient) {
+        return searchByIngredientAsync(ingredient, null);
+    }
+
+    /**
+     * Async variant of searchByIngredient(String) with a caller-supplied executor.
+     * 
+     * @param ingredient the ingredient name (e.g., "chicken", "garlic")
+     * @param executor executor for decoding and dependent stages
+     * @return future list of meals containing this ingredient
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientAsync(String ingredient, Executor executor) {
+        return searchByIngredientAsync(ingredient, executor, null);
+    }
+
+    /**
+     * Async variant of searchByIngredient(String) that reports background refreshes.
+     * 
+     * @param ingredient the ingredient name (e.g., "chicken", "garlic")
+     * @param executor executor for decoding and dependent stages (null = client default)
+     * @param onRefresh called with fresher results if a stale cached list was returned (may be null)
+     * @return future list of meals containing this ingredient
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientAsync(String ingredient, Executor executor,
+                                                                         Consumer<List<MealListItem>> onRefresh) {
+        if (indexComplete()) {
+            return CompletableFuture.completedFuture(ingredientIndex.search(ingredient));
+        }
+        String key = "filter.php?i=" + normalizeQuery(ingredient);
+        List<MealListItem> cached = cachedSearch(key);
+        if (cached != null) {
+            refreshIfStale(key, searchCache.ageNanos(key),
+                    () -> fetchIngredientSearch(key, ingredient, executor), onRefresh);
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (isKnownEmpty(key)) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return whenDone(clientSearchByIngredient(ingredient, executor), items -> rememberSearch(key, items));
+    }
+
+    /**
+     * Search with a multi-ingredient query, e.g. "chicken AND garlic NOT peanut".
+     * 
+     * @param query the query (see IngredientQuery for the syntax)
+     * @return matching meals in ID order
+     * @throws IllegalArgumentException if the query is malformed, or needs the whole
+     *         catalog while the local mirror is not complete
+     * @throws gr.unipi.meallab.api.exception.MealLabException if an API call fails
+     */
+    public List<MealListItem> searchByIngredients(String query) {
+        IngredientQuery parsed = IngredientQuery.parse(query);
+        IngredientQueryEngine engine = queryEngine();
+        if (engine != null) {
+            return engine.search(parsed);
+        }
+        requireNoCatalog(parsed);
+        Map<String, List<MealListItem>> lists = new LinkedHashMap<>();
+        for (String ingredient : parsed.getIngredients()) {
+            lists.put(ingredient, searchByIngredient(ingredient));
+        }
+        return parsed.evaluate(lists);
+    }
+
+    /**
+     * Async variant of searchByIngredients(String).
+     * 
+     * @param query the query (see IngredientQuery for the syntax)
+     * @return future list of matching meals
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientsAsync(String query) {
+        return searchByIngredientsAsync(query, null);
+    }
+
+    /**
+     * Async variant of searchByIngredients(String); the ingredients of a remote
+     * query are fetched concurrently.
+     * 
+     * @param query the query (see IngredientQuery for the syntax)
+     * @param executor executor for decoding, evaluation and dependent stages (null = common pool)
+     * @return future list of matching meals; fails with IllegalArgumentException
+     *         for a malformed query
+     */
+    public CompletableFuture<List<MealListItem>> searchByIngredientsAsync(String query, Executor executor) {
+        IngredientQuery parsed;
+        try {
+            parsed = IngredientQuery.parse(query);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (mirror != null && mirror.isComplete()) {
+            // Building the engine for a new snapshot may take a while: not on the caller's thread.
+            // The mirror may stop being complete meanwhile, so branch on the engine itself
+            return CompletableFuture.supplyAsync(this::queryEngine,
+                    executor == null ? ForkJoinPool.commonPool() : executor).thenCompose(engine -> engine != null
+                            ? CompletableFuture.completedFuture(engine.search(parsed))
+                            : searchByIngredientsRemoteAsync(parsed, executor));
+        }
+        return searchByIngredientsRemoteAsync(parsed, executor);
+    }
+
+    /**
+     * Evaluate an ingredient query by fetching every ingredient's meal list concurrently.
+     */
+    private CompletableFuture<List<MealListItem>> searchByIngredientsRemoteAsync(IngredientQuery parsed,
+                                                                             Executor executor) {
+        try {
+            requireNoCatalog(parsed);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        Map<String, CompletableFuture<List<MealListItem>>> lists = new LinkedHashMap<>();
+        for (String ingredient : parsed.getIngredients()) {
+            lists.put(ingredient, searchByIngredientAsync(ingredient, executor));
+        }
+        return CompletableFuture.allOf(lists.values().toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            Map<String, List<MealListItem>> done = new LinkedHashMap<>();
+            lists.forEach((ingredient, future) -> done.put(ingredient, future.join()));
+            return parsed.evaluate(done);
+        });
     }
 
     /**
      * Search for meals by name (supports partial matches).
+     * If nothing contains the name as typed, the closest names known locally
+     * are returned instead (see searchByNameFuzzy()).
      * 
      * @param name the meal name or part of it (e.g., "pizza", "teriyaki")
      * @return list of meals matching this name (full MealDetails objects)
      * @throws gr.unipi.meallab.api.exception.MealLabException if API call fails
      */
     public List<MealDetails> searchByName(String name) {
-        return client.searchByName(name);
+        return orFuzzy(name, searchByNameExact(name));
+    }
+
+    private List<MealDetails> searchByNameExact(String name) {
+        CatalogSnapshot local = completeMirror();
+        if (local != null) {
+            return local.searchByName(name);
+        }
+        String key = "search.php?s=" + normalizeQuery(name);
+        List<MealDetails> cached = cachedSearch(key);
+        if (cached != null) {
+            refreshIfStale(key, searchCache.ageNanos(key), () -> fetchNameSearch(key, name, null), null);
+            return cached;
+        }
+        if (isKnownEmpty(key)) {
+            return Collections.emptyList();
+        }
+        return remember(rememberSearch(key, client.searchByName(name)));
+    }
+
+    /**
+     * Async variant of searchByName(String).
+     * 
+     * @param name the meal name or part of it (e.g., "pizza", "teriyaki")
+     * @return future list of meals matching this name
+     */
+    public CompletableFuture<List<MealDetails>> searchByNameAsync(String name) {
+        return searchByNameAsync(name, null);
+    }
+
+    /**
+     * Async variant of searchByName(String) with a caller-supplied executor.
+     * 
+     * @param name the meal name or part of it (e.g., "pizza", "teriyaki")
+     * @param executor executor for decoding and dependent stages
+     * @return future list of meals matching this name
+     */
+    public CompletableFuture<List<MealDetails>> searchByNameAsync(String name, Executor executor) {
+        return searchByNameAsync(name, executor, null);
+    }
+
+    /**
+     * Async variant of searchByName(String) that reports background refreshes.
+     * 
+     * @param name the meal name or part of it (e.g., "pizza", "teriyaki")
+     * @param executor executor for decoding and dependent stages (null = client default)
+     * @param onRefresh called with fresher results if a stale cached list was returned (may be null)
+     * @return future list of meals matching this name
+     */
+    public CompletableFuture<List<MealDetails>> searchByNameAsync(String name, Executor executor,
+                                                                  Consumer<List<MealDetails>> onRefresh) {
+        return thenApply(searchByNameExactAsync(name, executor, onRefresh), meals -> orFuzzy(name, meals));
+    }
+
+    private CompletableFuture<List<MealDetails>> searchByNameExactAsync(String name, Executor executor,
+                                                                        Consumer<List<MealDetails>> onRefresh) {
+        CatalogSnapshot local = completeMirror();
+        if (local != null) {
+            return CompletableFuture.completedFuture(local.searchByName(name));
+        }
+        String key = "search.php?s=" + normalizeQuery(name);
+        List<MealDetails> cached = cachedSearch(key);
+        if (cached != null) {
+            refreshIfStale(key, searchCache.ageNanos(key), () -> fetchNameSearch(key, name, executor), onRefresh);
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (isKnownEmpty(key)) {
+            return CompletableFuture.completedFuture(Collections.emptyList());
+        }
+        return whenDone(clientSearchByName(name, executor), meals -> remember(rememberSearch(key, meals)));
+    }
+
+    /**
+     * Typo-tolerant, accent-insensitive name search over the meals known
+     * locally (mirror and fetched meals), e.g. "mousaka" or "Μουσακάς" for
+     * "Moussaka". Makes no network call.
+     * 
+     * @param name the name as typed
+     * @param limit max number of meals (>= 0)
+     * @return meals, closest names first
+     */
+    public List<MealDetails> searchByNameFuzzy(String name, int limit) {
+        return fuzzyNameIndex.searchMeals(name, limit);
+    }
+
+    /**
+     * Full-text search over the meals known locally (mirror and fetched meals).
+     * Makes no network call, so it may be used on the UI thread.
+     * 
+     * @param query free text, e.g. "slow cooked lamb"
+     * @param offset number of best hits to skip (for paging, >= 0)
+     * @param limit max number of hits (>= 0)
+     * @return hits, best first
+     */
+    public List<SearchHit> searchText(String query, int offset, int limit) {
+        return fullTextIndex.search(query, offset, limit);
+    }
+
+    /**
+     * Suggest meal names for what was typed so far, e.g. "chick" ->
+     * "Chicken Handi", "Teriyaki Chicken Casserole". Makes no network call.
+     * 
+     * @param prefix the start of any word of the name
+     * @param limit max number of suggestions (>= 0)
+     * @return names, most popular first
+     */
+    public List<String> completeNames(String prefix, int limit) {
+        return nameCompleter.complete(prefix, limit);
+    }
+
+    /**
+     * Suggest ingredients for what was typed so far. Makes no network call.
+     * 
+     * @param prefix the start of any word of the ingredient
+     * @param limit max number of suggestions (>= 0)
+     * @return ingredients, most used first
+     */
+    public List<String> completeIngredients(String prefix, int limit) {
+        return ingredientCompleter.complete(prefix, limit);
+    }
+
+    /**
+     * Suggest categories for what was typed so far. Makes no network call.
+     * 
+     * @param prefix the start of any word of the category
+     * @param limit max number of suggestions (>= 0)
+     * @return categories, most used first
+     */
+    public List<String> completeCategories(String prefix, int limit) {
+        return categoryCompleter.complete(prefix, limit);
+    }
+
+    /**
+     * Suggest areas (cuisines) for what was typed so far. Makes no network call.
+     * 
+     * @param prefix the start of any word of the area
+     * @param limit max number of suggestions (>= 0)
+     * @return areas, most used first
+     */
+    public List<String> completeAreas(String prefix, int limit) {
+        return areaCompleter.complete(prefix, limit);
+    }
+
+    /**
+     * Make the full ingredient, category and area lists suggestible, fetching
+     * them in the background if the reference data does not have them yet.
+     * Suggestions are published in the background (see PrefixCompleter).
+     * 
+     * @return future completed once all three lists, and every meal seen
+     *         before this call, are suggested
+     */
+    public CompletableFuture<Void> loadSuggestionsAsync() {
+        return CompletableFuture.allOf(
+                suggestAll(referenceData.ingredientsAsync(), ingredientCompleter),
+                suggestAll(referenceData.categoriesAsync(), categoryCompleter),
+                suggestAll(referenceData.areasAsync(), areaCompleter),
+                nameCompleter.published());
+    }
+
+    private static CompletableFuture<Void> suggestAll(CompletableFuture<List<String>> terms,
+                                                      PrefixCompleter completer) {
+        return terms.thenCompose(list -> {
+            completer.addAll(list);
+            return completer.published();
+        });
+    }
+
+    /**
+     * Meals of a category and/or area (faceted browsing). Answered from the
+     * mirror once it is complete, else from the reference data, which fetches
+     * each category or area list at most once.
+     * 
+     * @param category a category (e.g., "Seafood"), or null / blank for any
+     * @param area an area (e.g., "Greek"), or null / blank for any
+     * @return matching meals (lightweight MealListItem objects)
+     * @throws IllegalArgumentException if both are blank
+     * @throws gr.unipi.meallab.api.exception.MealLabException if API call fails
+     */
+    public List<MealListItem> browse(String category, String area) {
+        CatalogSnapshot local = browsableMirror(category, area);
+        return local != null ? local.filter(category, area) : referenceData.browse(category, area);
+    }
+
+    /**
+     * Async variant of browse(String, String).
+     * 
+     * @param category a category, or null / blank for any
+     * @param area an area, or null / blank for any
+     * @return future list of matching meals
+     * @throws IllegalArgumentException if both are blank
+     */
+    public CompletableFuture<List<MealListItem>> browseAsync(String category, String area) {
+        CatalogSnapshot local = browsableMirror(category, area);
+        return local != null ? CompletableFuture.completedFuture(local.filter(category, area))
+                : referenceData.browseAsync(category, area);
     }
 
     /**
      * Look up a meal by its ID.
+     * Served from the detail cache when the meal was fetched recently, and
+     * from the negative cache when the ID was recently reported as not found.
      * 
      * @param id the meal ID (e.g., "52772")
      * @return full meal details including ingredients and instructions
      * @throws gr.unipi.meallab.api.exception.MealLabException if meal not found or API call fails
      */
     public MealDetails lookupById(String id) {
-        return client.lookupById(id);
+        String key = normalizeId(id);
+        MealDetails local = mirrored(key);
+        if (local != null) {
+            return local;
+        }
+        MealDetails cached = detailCache.get(key);
+        if (cached != null) {
+            refreshDetailIfStale(key, null, null);
+            return cached;
+        }
+        if (isKnownMissing(key)) {
+            throw notFound(key);
+        }
+
+        long start = clock.getAsLong();
+        MealDetails meal;
+        try {
+            meal = client.lookupById(key);
+        } catch (MealLabException e) {
+            detailCache.recordLoad(clock.getAsLong() - start, false);
+            rememberIfNotFound(key, e);
+            throw e;
+        }
+        detailCache.recordLoad(clock.getAsLong() - start, true);
+        detailCache.put(key, meal);
+        index(meal);
+        return meal;
+    }
+
+    /**
+     * Async variant of lookupById(String).
+     * 
+     * @param id the meal ID (e.g., "52772")
+     * @return future meal details; fails with MealLabException if not found
+     */
+    public CompletableFuture<MealDetails> lookupByIdAsync(String id) {
+        return lookupByIdAsync(id, null);
+    }
+
+    /**
+     * Async variant of lookupById(String) with a caller-supplied executor.
+     * 
+     * @param id the meal ID (e.g., "52772")
+     * @param executor executor for decoding and dependent stages
+     * @return future meal details; fails with MealLabException if not found
+     */
+    public CompletableFuture<MealDetails> lookupByIdAsync(String id, Executor executor) {
+        return lookupByIdAsync(id, executor, null);
+    }
+
+    /**
+     * Async variant of lookupById(String) that reports background refreshes.
+     * 
+     * @param id the meal ID (e.g., "52772")
+     * @param executor executor for decoding and dependent stages (null = client default)
+     * @param onRefresh called with fresher details if a stale cached meal was returned (may be null)
+     * @return future meal details; fails with MealLabException if not found
+     */
+    public CompletableFuture<MealDetails> lookupByIdAsync(String id, Executor executor,
+                                                          Consumer<MealDetails> onRefresh) {
+        String key = normalizeId(id);
+        MealDetails local = mirrored(key);
+        if (local != null) {
+            return CompletableFuture.completedFuture(local);
+        }
+        MealDetails cached = detailCache.get(key);
+        if (cached != null) {
+            refreshDetailIfStale(key, executor, onRefresh);
+            return CompletableFuture.completedFuture(cached);
+        }
+        if (isKnownMissing(key)) {
+            return CompletableFuture.failedFuture(notFound(key));
+        }
+
+        long start = clock.getAsLong();
+        CompletableFuture<MealDetails> future = clientLookupById(key, executor);
+        future.whenComplete((meal, error) -> {
+            detailCache.recordLoad(clock.getAsLong() - start, error == null);
+            if (error == null) {
+                detailCache.put(key, meal);
+                index(meal);
+            } else {
+                rememberIfNotFound(key, error);
+            }
+        });
+        return future;
+    }
+
+    /**
+     * Look up many meals by ID (e.g., refreshing every favorite).
+     * 
+     * @param ids meal IDs (duplicates allowed; each gets its own result)
+     * @return one result per ID, in input order; failures are reported per ID
+     */
+    public List<LookupResult> lookupByIds(Collection<String> ids) {
+        return lookupByIdsAsync(ids, MealLabClient.DEFAULT_BULK_CONCURRENCY, null).join();
+    }
+
+    /**
+     * Async bulk lookup that streams each result as soon as it is available.
+     * 
+     * Mirrored and cached meals (and IDs recently reported as not found) are reported first,
+     * on the calling thread; the remaining IDs are fetched with at most
+     * maxConcurrency lookups in flight and cached.
+     * 
+     * @param ids meal IDs (duplicates allowed; each gets its own result)
+     * @param maxConcurrency max lookups in flight (>= 1)
+     * @param onResult called once per ID as it resolves (may be null); getIndex()
+     *                 is the position in the input collection
+     * @return future of all results in input order
+     */
+    public CompletableFuture<List<LookupResult>> lookupByIdsAsync(Collection<String> ids, int maxConcurrency,
+                                                                  Consumer<LookupResult> onResult) {
+        List<String> keys = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            keys.add(normalizeId(id));
+        }
+
+        LookupResult[] results = new LookupResult[keys.size()];
+        List<String> missing = new ArrayList<>();
+        List<Integer> missingIndex = new ArrayList<>();
+
+        for (int i = 0; i < keys.size(); i++) {
+            MealDetails cached = mirrored(keys.get(i));
+            if (cached == null) {
+                cached = detailCache.get(keys.get(i));
+                if (cached != null) {
+                    refreshDetailIfStale(keys.get(i), null, null);
+                }
+            }
+            if (cached != null || isKnownMissing(keys.get(i))) {
+                results[i] = (cached != null)
+                        ? LookupResult.success(i, keys.get(i), cached)
+                        : LookupResult.failure(i, keys.get(i), notFound(keys.get(i)));
+                if (onResult != null) {
+                    onResult.accept(results[i]);
+                }
+            } else {
+                missing.add(keys.get(i));
+                missingIndex.add(i);
+            }
+        }
+
+        if (missing.isEmpty()) {
+            return CompletableFuture.completedFuture(Collections.unmodifiableList(Arrays.asList(results)));
+        }
+
+        // Bulk fetches fill the cache but are not timed as individual loads
+        return client.lookupByIdsAsync(missing, maxConcurrency, fetched -> {
+            if (fetched.isSuccess()) {
+                detailCache.put(fetched.getId(), fetched.getMeal());
+                index(fetched.getMeal());
+            } else {
+                rememberIfNotFound(fetched.getId(), fetched.getError());
+            }
+            // Translate the position within "missing" back to the caller's input position
+            LookupResult result = fetched.withIndex(missingIndex.get(fetched.getIndex()));
+            results[result.getIndex()] = result;
+            if (onResult != null) {
+                onResult.accept(result);
+            }
+        }).thenApply(all -> Collections.unmodifiableList(Arrays.asList(results)));
     }
 
     /**
@@ -65,6 +856,532 @@ public class MealLabService {
      * @throws gr.unipi.meallab.api.exception.MealLabException if API call fails
      */
     public MealDetails randomMeal() {
-        return client.randomMeal();
+        MealDetails local = randomMirrored();
+        return local != null ? local : remember(client.randomMeal());
+    }
+
+    /**
+     * Async variant of randomMeal().
+     * 
+     * @return future random meal with full details
+     */
+    public CompletableFuture<MealDetails> randomMealAsync() {
+        MealDetails local = randomMirrored();
+        return local != null ? CompletableFuture.completedFuture(local)
+                : whenDone(client.randomMealAsync(), this::remember);
+    }
+
+    /**
+     * Async variant of randomMeal() with a caller-supplied executor.
+     * 
+     * @param executor executor for decoding and dependent stages
+     * @return future random meal with full details
+     */
+    public CompletableFuture<MealDetails> randomMealAsync(Executor executor) {
+        MealDetails local = randomMirrored();
+        return local != null ? CompletableFuture.completedFuture(local)
+                : whenDone(client.randomMealAsync(executor), this::remember);
+    }
+
+    /**
+     * Get a snapshot of the meal detail cache counters.
+     * 
+     * @return hits, misses, evictions, expirations and load timings
+     */
+    public CacheStats getDetailCacheStats() {
+        return detailCache.stats();
+    }
+
+    /**
+     * Get a snapshot of the negative cache counters.
+     * Hits are lookups/searches answered "not found" without calling the API.
+     * 
+     * @return hits, misses, evictions and expirations of "not found" answers
+     */
+    public CacheStats getNegativeCacheStats() {
+        return negativeCache.stats();
+    }
+
+    /**
+     * Get a snapshot of the search result cache counters.
+     * 
+     * @return hits, misses, evictions and expirations of cached search lists
+     */
+    public CacheStats getSearchCacheStats() {
+        return searchCache.stats();
+    }
+
+    /**
+     * Number of stale cached meals or searches returned while a refresh was started
+     * (or already running).
+     * 
+     * @return stale results served
+     */
+    public long getStaleServed() {
+        return staleServed.sum();
+    }
+
+    /**
+     * Number of background refreshes started by stale-while-revalidate.
+     * 
+     * @return refreshes started
+     */
+    public long getBackgroundRefreshes() {
+        return backgroundRefreshes.sum();
+    }
+
+    /**
+     * Number of lookups, searches and random meals answered from the local catalog mirror.
+     * 
+     * @return answers served from the mirror
+     */
+    public long getMirrorHits() {
+        return mirrorHits.sum();
+    }
+
+    /**
+     * Get the ingredient index that answers searchByIngredient() locally.
+     * 
+     * @return the index (incomplete, and then not used, until the mirror is complete)
+     */
+    public IngredientIndex getIngredientIndex() {
+        return ingredientIndex;
+    }
+
+    /**
+     * Get the full-text index behind searchText().
+     * 
+     * @return the index
+     */
+    public FullTextIndex getFullTextIndex() {
+        return fullTextIndex;
+    }
+
+    /**
+     * Get the reference data (category, area and ingredient lists) behind
+     * browse() and the suggestions.
+     * 
+     * @return the reference data cache
+     */
+    public ReferenceDataCache getReferenceData() {
+        return referenceData;
+    }
+
+    /**
+     * Read the stored catalog mirror on a background thread (only the first
+     * call does; later ones return the same future). The mirror's listeners
+     * bring the indexes and suggestions up to date as it loads.
+     * Services given a mirror (or none) return a completed future.
+     *
+     * @return future of the loaded mirror (null if this service has none)
+     */
+    public synchronized CompletableFuture<CatalogMirror> loadCatalogAsync() {
+        if (catalogLoad == null) {
+            catalogLoad = CompletableFuture.supplyAsync(mirror::load);
+        }
+        return catalogLoad;
+    }
+
+    /**
+     * Get the local catalog mirror, e.g. to crawl it.
+     * With the default constructor it is empty until loadCatalogAsync() completes.
+     * 
+     * @return the mirror, or null if this service has none
+     */
+    public CatalogMirror getCatalogMirror() {
+        return mirror;
+    }
+
+    /**
+     * Drop all cached meal details, searches and "not found" answers (e.g., to force fresh data).
+     * The catalog mirror is not affected.
+     */
+    public void clearCache() {
+        detailCache.clear();
+        searchCache.clear();
+        negativeCache.clear();
+    }
+
+    // --- Private helpers ---
+
+    /**
+     * A meal from the mirror, if there is a mirror and it has this ID.
+     */
+    private MealDetails mirrored(String id) {
+        if (mirror == null) {
+            return null;
+        }
+        MealDetails meal = mirror.getSnapshot().lookup(id);
+        if (meal != null) {
+            mirrorHits.increment();
+        }
+        return meal;
+    }
+
+    /**
+     * The mirror's snapshot if every shard has been crawled (so searches are
+     * complete), else null. Counts the answer as a mirror hit.
+     */
+    private CatalogSnapshot completeMirror() {
+        if (mirror == null || !mirror.isComplete()) {
+            return null;
+        }
+        mirrorHits.increment();
+        return mirror.getSnapshot();
+    }
+
+    /**
+     * completeMirror() for browse(), after checking that a facet was chosen.
+     */
+    private CatalogSnapshot browsableMirror(String category, String area) {
+        if (normalizeQuery(category).isEmpty() && normalizeQuery(area).isEmpty()) {
+            throw new IllegalArgumentException("Choose a category, an area or both");
+        }
+        return completeMirror();
+    }
+
+    /**
+     * Whether the ingredient index can answer searches; counts the answer as a mirror hit.
+     * Asked of the mirror every time: it stops being complete if a reload loses a shard.
+     */
+    private boolean indexComplete() {
+        // The listener applies each change before the mirror's lock is released,
+        // so a complete mirror means a complete index
+        if (mirror == null || !mirror.isComplete()) {
+            ingredientIndex.markIncomplete();
+            return false;
+        }
+        ingredientIndex.markComplete();
+        mirrorHits.increment();
+        return true;
+    }
+
+    /**
+     * The query engine for the mirror's current snapshot (built if needed), or
+     * null while the mirror is not complete. Counts the answer as a mirror hit.
+     */
+    private IngredientQueryEngine queryEngine() {
+        if (mirror == null || !mirror.isComplete()) {
+            return null;
+        }
+        CatalogSnapshot snapshot = mirror.getSnapshot();
+        IngredientQueryEngine engine = queryEngine;
+        if (engine == null || engine.getSnapshot() != snapshot) {
+            synchronized (engineLock) {
+                engine = queryEngine;
+                if (engine == null || engine.getSnapshot() != snapshot) {
+                    engine = IngredientQueryEngine.of(snapshot);
+                    queryEngine = engine;
+                }
+            }
+        }
+        mirrorHits.increment();
+        return engine;
+    }
+
+    private static void requireNoCatalog(IngredientQuery query) {
+        if (query.needsCatalog()) {
+            throw new IllegalArgumentException("\"" + query.getText()
+                    + "\" needs the local catalog (sync it first), or an ingredient to subtract from");
+        }
+    }
+
+    /**
+     * A random meal from a complete, non-empty mirror, else null.
+     */
+    private MealDetails randomMirrored() {
+        if (mirror == null || !mirror.isComplete()) {
+            return null;
+        }
+        MealDetails meal = mirror.getSnapshot().random(ThreadLocalRandom.current());
+        if (meal != null) {
+            mirrorHits.increment();
+        }
+        return meal;
+    }
+
+    /**
+     * Start (or join) a background refresh of a cached meal past its soft TTL.
+     */
+    private void refreshDetailIfStale(String key, Executor executor, Consumer<MealDetails> onRefresh) {
+        refreshIfStale("lookup.php?i=" + key, detailCache.ageNanos(key), () -> {
+            long start = clock.getAsLong();
+            // Chained stage: the cache is updated before onRefresh sees the meal
+            return clientLookupById(key, executor).whenComplete((meal, error) -> {
+                detailCache.recordLoad(clock.getAsLong() - start, error == null);
+                if (error == null) {
+                    detailCache.put(key, meal);
+                    index(meal);
+                } else if (isNotFound(error)) {
+                    // Gone upstream: stop serving the stale copy
+                    detailCache.invalidate(key);
+                    rememberIfNotFound(key, error);
+                }
+            });
+        }, onRefresh);
+    }
+
+    /**
+     * Stale-while-revalidate: if an entry is past the soft TTL, refresh it in the
+     * background. Only one refresh per key runs at a time; callers that find the
+     * same stale entry meanwhile are attached to it.
+     * 
+     * @param refreshKey endpoint + normalized query
+     * @param ageNanos age of the cached entry (-1 if it vanished meanwhile)
+     * @param fetch starts the refresh; its future must update the cache before completing
+     * @param onRefresh receives the fresh value (may be null; not called on failure)
+     */
+    private <V> void refreshIfStale(String refreshKey, long ageNanos, Supplier<CompletableFuture<V>> fetch,
+                                    Consumer<? super V> onRefresh) {
+        if (ageNanos < softTtlNanos) {
+            return;
+        }
+        staleServed.increment();
+
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        @SuppressWarnings("unchecked")
+        CompletableFuture<V> running = (CompletableFuture<V>) refreshing.putIfAbsent(refreshKey, mine);
+        CompletableFuture<V> refresh = (running != null) ? running : mine;
+        if (onRefresh != null) {
+            refresh.thenAccept(onRefresh);
+        }
+        if (running != null) {
+            return;
+        }
+
+        backgroundRefreshes.increment();
+        CompletableFuture<V> started;
+        try {
+            started = fetch.get();
+        } catch (RuntimeException e) {
+            started = CompletableFuture.failedFuture(e);
+        }
+        started.whenComplete((value, error) -> {
+            refreshing.remove(refreshKey, mine);
+            if (error == null) {
+                mine.complete(value);
+            } else {
+                // The stale copy stays in place; the next stale hit tries again
+                mine.completeExceptionally(error);
+            }
+        });
+    }
+
+    private CompletableFuture<List<MealListItem>> fetchIngredientSearch(String key, String ingredient,
+                                                                        Executor executor) {
+        return clientSearchByIngredient(ingredient, executor).thenApply(items -> rememberSearch(key, items));
+    }
+
+    private CompletableFuture<List<MealDetails>> fetchNameSearch(String key, String name, Executor executor) {
+        return clientSearchByName(name, executor).thenApply(meals -> remember(rememberSearch(key, meals)));
+    }
+
+    private CompletableFuture<MealDetails> clientLookupById(String key, Executor executor) {
+        return (executor == null) ? client.lookupByIdAsync(key) : client.lookupByIdAsync(key, executor);
+    }
+
+    private CompletableFuture<List<MealListItem>> clientSearchByIngredient(String ingredient, Executor executor) {
+        return (executor == null)
+                ? client.searchByIngredientAsync(ingredient)
+                : client.searchByIngredientAsync(ingredient, executor);
+    }
+
+    private CompletableFuture<List<MealDetails>> clientSearchByName(String name, Executor executor) {
+        return (executor == null) ? client.searchByNameAsync(name) : client.searchByNameAsync(name, executor);
+    }
+
+    /**
+     * Look up a cached search list (the cache holds lists of both result types).
+     */
+    @SuppressWarnings("unchecked")
+    private <T> List<T> cachedSearch(String searchKey) {
+        return (List<T>) searchCache.get(searchKey);
+    }
+
+    /**
+     * Cache a search result: non-empty lists in the search cache, empty ones
+     * in the negative cache. An empty refresh also drops the stale list.
+     * 
+     * @param searchKey endpoint + normalized query
+     * @param results the search results
+     * @return the same list, for chaining
+     */
+    private <T> List<T> rememberSearch(String searchKey, List<T> results) {
+        if (results.isEmpty()) {
+            searchCache.invalidate(searchKey);
+            negativeCache.put(searchKey, Boolean.TRUE);
+        } else {
+            searchCache.put(searchKey, results);
+            negativeCache.invalidate(searchKey);
+        }
+        return results;
+    }
+
+    /**
+     * Add a fetched meal to the detail cache.
+     * 
+     * @param meal the meal (ignored if it has no id)
+     * @return the same meal, for chaining
+     */
+    private MealDetails remember(MealDetails meal) {
+        if (meal != null) {
+            String key = normalizeId(meal.getIdMeal());
+            if (!key.isBlank()) {
+                detailCache.put(key, meal);
+                index(meal);
+                negativeCache.invalidate("lookup.php?i=" + key);
+            }
+        }
+        return meal;
+    }
+
+    /**
+     * Add every meal of a search result to the detail cache.
+     * 
+     * @param meals the meals
+     * @return the same list, for chaining
+     */
+    private List<MealDetails> remember(List<MealDetails> meals) {
+        for (MealDetails meal : meals) {
+            remember(meal);
+        }
+        return meals;
+    }
+
+    /**
+     * The meals found by name, or the closest names known locally if there are none.
+     */
+    private List<MealDetails> orFuzzy(String name, List<MealDetails> meals) {
+        return meals.isEmpty() ? fuzzyNameIndex.searchMeals(name, FUZZY_NAME_LIMIT) : meals;
+    }
+
+    /**
+     * Add a fetched meal to the local indexes. The ingredient index only with a
+     * mirror: without one it never becomes complete, so it would only grow.
+     */
+    private void index(MealDetails meal) {
+        fullTextIndex.add(meal);
+        fuzzyNameIndex.add(meal);
+        suggest(meal);
+        if (mirror != null) {
+            ingredientIndex.add(meal);
+        }
+    }
+
+    /**
+     * Count a meal once towards the popularity of its name, ingredients,
+     * category and area; seeing it again only applies what changed.
+     */
+    private void suggest(MealDetails meal) {
+        String id = meal.getIdMeal();
+        if (id == null) {
+            return;
+        }
+        nameCompleter.put(id, Collections.singletonList(meal.getStrMeal()));
+        ingredientCompleter.put(id, meal.getIngredientsWithMeasures().keySet());
+        categoryCompleter.put(id, Collections.singletonList(meal.getStrCategory()));
+        areaCompleter.put(id, Collections.singletonList(meal.getStrArea()));
+    }
+
+    /**
+     * Follow the mirror: count new and changed meals, take back removed ones.
+     */
+    private void suggest(CatalogDelta delta) {
+        delta.getUpserts().forEach(this::suggest);
+        for (String id : delta.getRemovedIds()) {
+            nameCompleter.remove(id);
+            ingredientCompleter.remove(id);
+            categoryCompleter.remove(id);
+            areaCompleter.remove(id);
+        }
+    }
+
+    /**
+     * Whether the API recently said there is no meal with this ID.
+     * Only consulted after a detail cache miss, so its hit rate is meaningful.
+     */
+    private boolean isKnownMissing(String id) {
+        return negativeCache.get("lookup.php?i=" + id) != null;
+    }
+
+    /**
+     * Whether the API recently returned no meals for this search key.
+     */
+    private boolean isKnownEmpty(String searchKey) {
+        return negativeCache.get(searchKey) != null;
+    }
+
+    /**
+     * Remember a failed lookup, if the failure is a definite "not found".
+     * 
+     * @param id normalized meal ID
+     * @param error the failure (CompletionException wrappers are looked through)
+     */
+    private void rememberIfNotFound(String id, Throwable error) {
+        if (isNotFound(error)) {
+            negativeCache.put("lookup.php?i=" + id, Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Whether a failure is a definite "not found" (CompletionException wrappers are looked through).
+     */
+    private static boolean isNotFound(Throwable error) {
+        Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                ? error.getCause()
+                : error;
+        return cause instanceof MealLabException
+                && ((MealLabException) cause).getKind() == MealLabException.Kind.NOT_FOUND;
+    }
+
+    /**
+     * The answer for an ID known to be missing (stackless, cheap to create).
+     */
+    private static MealLabException notFound(String id) {
+        return MealLabException.notFound("No meal found for id=" + id);
+    }
+
+    /**
+     * Run a side effect when the future succeeds, returning the original future
+     * so cancellation still reaches the HTTP exchange.
+     */
+    private static <T> CompletableFuture<T> whenDone(CompletableFuture<T> future, Consumer<T> action) {
+        future.thenAccept(action);
+        return future;
+    }
+
+    /**
+     * Map the future's result; cancelling (or timing out) the returned future
+     * cancels the original one, so cancellation still reaches the HTTP exchange.
+     */
+    private static <T, R> CompletableFuture<R> thenApply(CompletableFuture<T> future, Function<T, R> mapper) {
+        CompletableFuture<R> result = future.thenApply(mapper);
+        result.whenComplete((value, error) -> {
+            if (error != null) {
+                future.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Normalize a meal ID: trim whitespace, handle nulls.
+     * 
+     * @param input the input string (may be null)
+     * @return trimmed string, or empty string if null
+     */
+    private static String normalizeId(String input) {
+        return input == null ? "" : input.trim();
+    }
+
+    /**
+     * Normalize a search query the way MealLabClient does (trim + case-fold),
+     * so "Chicken" and "chicken " share one negative cache entry.
+     * 
+     * @param input the query (may be null)
+     * @return normalized query
+     */
+    private static String normalizeQuery(String input) {
+        return input == null ? "" : input.trim().toLowerCase(Locale.ROOT);
     }
 }
@@ -1,12 +1,18 @@
 package gr.unipi.meallab.app;
 
+import gr.unipi.meallab.api.exception.MealLabException;
 import gr.unipi.meallab.api.model.MealDetails;
 import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.app.catalog.CatalogMirror;
+import gr.unipi.meallab.app.catalog.CatalogRefresher;
+import gr.unipi.meallab.app.search.IngredientQuery;
+import gr.unipi.meallab.app.search.SearchHit;
 import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
+import javafx.geometry.Side;
 import javafx.scene.Parent;
 import javafx.scene.control.*;
 import javafx.scene.image.Image;
@@ -14,15 +20,26 @@ import javafx.scene.image.ImageView;
 import javafx.scene.layout.*;
 import javafx.scene.text.Font;
 
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * JavaFX UI for MealLab application.
  * 
  * KEY FEATURES:
- * - Search meals by ingredient or name
+ * - Search meals by ingredient (or "chicken AND garlic NOT peanut") or name
+ * - Ranked full-text search over names and instructions (local)
+ * - Suggestions while typing a name or ingredient (local, no network call)
+ * - Browse by category and/or area (lists fetched once per run)
  * - Browse search results in table
  * - View full meal details (ingredients, instructions, image)
  * - Manage Favorites and Cooked lists
@@ -32,13 +49,21 @@ import java.util.Map;
  * ARCHITECTURE:
  * - UI logic: button handlers, table selection, dialog management
  * - Data flow: MealLabService → API, MealStorage → disk
- * - Background threads: all network calls run async (no UI freezing)
- * - Synchronization: Platform.runLater() updates UI from background threads
+ * - Async: all network calls use the service's *Async methods (no UI freezing,
+ *   no thread parked per request)
+ * - Synchronization: Platform.runLater() updates UI when a future completes
  * 
  * PERFORMANCE:
  * - Minimal data kept in memory: Favorites/Cooked store only ID + name
  * - Full meal details fetched on-demand from API
- * - No caching: always up-to-date info from server
+ * - Recently fetched details are cached by MealLabService (LRU + TTL),
+ *   so double-clicking the same row does not hit the network again
+ * - Stale cached results are shown at once; when the service's background
+ *   refresh brings fresher data, the table/details are re-rendered if they
+ *   still show the same search or meal
+ * - On first start the local catalog mirror is crawled in the background;
+ *   once complete, searches and lookups are answered without the network,
+ *   and a CatalogRefresher picks up new and changed meals every few hours
  * 
  * STATE MANAGEMENT:
  * - favorites: Map<mealId, mealName> - synced to disk on change
@@ -49,6 +74,15 @@ import java.util.Map;
 
 public class MealLabView {
 
+    // Suggestions shown under a search field
+    private static final int SUGGESTIONS = 8;
+
+    // First entry of the category / area boxes: no filter on that facet
+    private static final String ANY = "(any)";
+
+    // Where the ingredient being typed starts in a query: after "(", a quote or an operator word
+    private static final Pattern QUERY_SEPARATOR = Pattern.compile("(?i)(?:^|\\s)(?:and|or|not)\\s+|[(\"]");
+
     private final MealLabService service = new MealLabService();
     private final MealStorage storage = new MealStorage();
 
@@ -71,11 +105,17 @@ public class MealLabView {
     private final TextField nameField = new TextField();
     private final Button searchNameBtn = new Button("Search name");
 
+    private final TextField textField = new TextField();
+    private final Button searchTextBtn = new Button("Search text");
+
     private final TextField idField = new TextField();
     private final Button lookupBtn = new Button("Lookup id");
 
     private final Button randomBtn = new Button("Random");
 
+    private final ComboBox<String> categoryBox = new ComboBox<>();
+    private final ComboBox<String> areaBox = new ComboBox<>();
+
     // Tables
     private TableView<MealRow> searchTable;
     private TableView<MealRow> favoritesTable;
@@ -97,6 +137,9 @@ public class MealLabView {
     // Current selected details
     private MealDetails currentMeal;
 
+    // Search currently shown in searchRows ("i:" / "n:" + query), for background refreshes
+    private String shownSearch = "";
+
     /**
      * Constructor.
      * Initializes UI components, loads data from disk, and refreshes tables.
@@ -107,6 +150,8 @@ public class MealLabView {
         loadListsFromDisk();
         buildUi();
         refreshListTables();
+        syncCatalogInBackground();
+        loadSuggestionsInBackground();
     }
 
     /**
@@ -150,24 +195,33 @@ public class MealLabView {
      * Contains:
      * - Ingredient search field + button
      * - Name search field + button
+     * - Full-text search field + button (local, ranked)
      * - ID lookup field + button
      * - Random meal button
+     * - Category / area boxes (faceted browsing)
      * 
      * @return the constructed top bar Parent
      */
     private Parent buildTopBar() {
-        ingredientField.setPromptText("Ingredient (e.g. chicken)");
+        ingredientField.setPromptText("Ingredient (e.g. chicken AND garlic)");
         nameField.setPromptText("Name (e.g. Mousaka)");
+        textField.setPromptText("Text (e.g. slow cooked lamb)");
         idField.setPromptText("Meal id");
 
         HBox row1 = new HBox(8, ingredientField, searchIngredientBtn, nameField, searchNameBtn);
         HBox.setHgrow(ingredientField, Priority.ALWAYS);
         HBox.setHgrow(nameField, Priority.ALWAYS);
 
-        HBox row2 = new HBox(8, idField, lookupBtn, randomBtn);
+        HBox row2 = new HBox(8, textField, searchTextBtn, idField, lookupBtn, randomBtn);
+        HBox.setHgrow(textField, Priority.ALWAYS);
         HBox.setHgrow(idField, Priority.ALWAYS);
 
-        VBox box = new VBox(8, row1, row2);
+        categoryBox.setPromptText("Category");
+        areaBox.setPromptText("Area");
+        HBox row3 = new HBox(8, new Label("Browse:"), categoryBox, areaBox);
+        row3.setAlignment(Pos.CENTER_LEFT);
+
+        VBox box = new VBox(8, row1, row2, row3);
         box.setPadding(new Insets(0, 0, 10, 0));
         return box;
     }
@@ -344,7 +398,7 @@ public class MealLabView {
      * @param onPick callback when user double-clicks a row
      * @return configured TableView
      */
-    private TableView<MealRow> buildMealsTable(ObservableList<MealRow> data, java.util.function.Consumer<MealRow> onPick) {
+    private TableView<MealRow> buildMealsTable(ObservableList<MealRow> data, Consumer<MealRow> onPick) {
         TableView<MealRow> table = new TableView<>(data);
 
         // Modern JavaFX resize policy
@@ -393,13 +447,88 @@ public class MealLabView {
     private void wireActions() {
         searchIngredientBtn.setOnAction(e -> runSearchByIngredient());
         searchNameBtn.setOnAction(e -> runSearchByName());
+        searchTextBtn.setOnAction(e -> runSearchText());
         lookupBtn.setOnAction(e -> runLookupById());
         randomBtn.setOnAction(e -> runRandom());
 
         // Enter key shortcuts
         ingredientField.setOnAction(e -> runSearchByIngredient());
         nameField.setOnAction(e -> runSearchByName());
+        textField.setOnAction(e -> runSearchText());
         idField.setOnAction(e -> runLookupById());
+
+        // Facets: browse as soon as either changes; (re)load the lists if they are missing
+        categoryBox.setOnAction(e -> runBrowse());
+        areaBox.setOnAction(e -> runBrowse());
+        categoryBox.setOnShowing(e -> loadFacetsIfMissing());
+        areaBox.setOnShowing(e -> loadFacetsIfMissing());
+
+        // Suggestions while typing (answered locally, so on every keystroke)
+        attachSuggestions(ingredientField, MealLabView::queryTermStart, service::completeIngredients);
+        attachSuggestions(nameField, text -> 0, service::completeNames);
+    }
+
+    /**
+     * Show a popup of completions under a field as the user types;
+     * picking one replaces the part being typed.
+     * 
+     * @param field the search field
+     * @param termStart where the part being completed starts in the field's text
+     * @param complete (prefix, limit) -> suggestions
+     * @return void
+     */
+    private void attachSuggestions(TextField field, ToIntFunction<String> termStart,
+                                   BiFunction<String, Integer, List<String>> complete) {
+        ContextMenu menu = new ContextMenu();
+        boolean[] picking = {false};
+        field.textProperty().addListener((obs, old, text) -> {
+            if (picking[0] || text == null || !field.isFocused()) {
+                menu.hide();
+                return;
+            }
+            int start = termStart.applyAsInt(text);
+            List<String> suggestions = complete.apply(text.substring(start), SUGGESTIONS);
+            if (suggestions.isEmpty()) {
+                menu.hide();
+                return;
+            }
+            List<MenuItem> items = new ArrayList<>();
+            for (String suggestion : suggestions) {
+                MenuItem item = new MenuItem(suggestion);
+                item.setOnAction(e -> {
+                    picking[0] = true;
+                    field.setText(text.substring(0, start) + suggestion);
+                    picking[0] = false;
+                    field.positionCaret(field.getLength());
+                });
+                items.add(item);
+            }
+            menu.getItems().setAll(items);
+            if (!menu.isShowing()) {
+                menu.show(field, Side.BOTTOM, 0, 0);
+            }
+        });
+        field.focusedProperty().addListener((obs, old, focused) -> {
+            if (!focused) {
+                menu.hide();
+            }
+        });
+    }
+
+    /**
+     * Start of the ingredient being typed in an ingredient query,
+     * e.g. 12 ("gar") in "chicken AND gar".
+     * 
+     * @param text the field's text
+     * @return index into text
+     */
+    private static int queryTermStart(String text) {
+        Matcher m = QUERY_SEPARATOR.matcher(text);
+        int start = 0;
+        while (m.find()) {
+            start = m.end();
+        }
+        return start;
     }
 
     /**
@@ -416,15 +545,17 @@ public class MealLabView {
             return;
         }
 
-        runInBackground(() -> {
-            List<MealListItem> meals = service.searchByIngredient(ingredient);
-            Platform.runLater(() -> {
-                searchRows.clear();
-                for (MealListItem m : meals) {
-                    searchRows.add(new MealRow(safe(m.getIdMeal()), safe(m.getStrMeal())));
-                }
-            });
-        });
+        if (IngredientQuery.isQuery(ingredient)) {
+            shownSearch = "q:" + ingredient;
+            onUiThread(service.searchByIngredientsAsync(ingredient), this::showIngredientResults);
+            return;
+        }
+
+        String search = "i:" + ingredient;
+        shownSearch = search;
+        onUiThread(service.searchByIngredientAsync(ingredient, null,
+                        refreshed -> onRefresh(search, () -> showIngredientResults(refreshed))),
+                this::showIngredientResults);
     }
 
     /**
@@ -441,14 +572,86 @@ public class MealLabView {
             return;
         }
 
-        runInBackground(() -> {
-            List<MealDetails> meals = service.searchByName(name);
-            Platform.runLater(() -> {
-                searchRows.clear();
-                for (MealDetails m : meals) {
-                    searchRows.add(new MealRow(safe(m.getIdMeal()), safe(m.getStrMeal())));
-                }
-            });
+        String search = "n:" + name;
+        shownSearch = search;
+        onUiThread(service.searchByNameAsync(name, null,
+                        refreshed -> onRefresh(search, () -> showNameResults(refreshed))),
+                this::showNameResults);
+    }
+
+    /**
+     * Full-text search over the meals known locally, best first.
+     * Runs on the UI thread: it makes no network call and takes milliseconds.
+     * 
+     * @return void
+     */
+    private void runSearchText() {
+        String text = textField.getText().trim();
+        if (text.isBlank()) {
+            alert("Please type some text.");
+            return;
+        }
+
+        shownSearch = "t:" + text;
+        List<MealListItem> meals = new ArrayList<>();
+        for (SearchHit hit : service.searchText(text, 0, 100)) {
+            meals.add(hit.getMeal());
+        }
+        if (meals.isEmpty()) {
+            alert("No known meals match. Syncing the catalog makes every meal searchable.");
+        }
+        showIngredientResults(meals);
+    }
+
+    /**
+     * Browse the chosen category and/or area (async).
+     * The lists behind it are cached for the whole run, so changing a facet
+     * back and forth does not hit the network again.
+     * 
+     * @return void
+     */
+    private void runBrowse() {
+        String category = facet(categoryBox);
+        String area = facet(areaBox);
+        if (category.isEmpty() && area.isEmpty()) {
+            return;
+        }
+
+        shownSearch = "b:" + category + "/" + area;
+        onUiThread(service.browseAsync(category, area), this::showIngredientResults);
+    }
+
+    private static String facet(ComboBox<String> box) {
+        String value = box.getValue();
+        return (value == null || value.equals(ANY)) ? "" : value;
+    }
+
+    private void showIngredientResults(List<MealListItem> meals) {
+        searchRows.clear();
+        for (MealListItem m : meals) {
+            searchRows.add(new MealRow(safe(m.getIdMeal()), safe(m.getStrMeal())));
+        }
+    }
+
+    private void showNameResults(List<MealDetails> meals) {
+        searchRows.clear();
+        for (MealDetails m : meals) {
+            searchRows.add(new MealRow(safe(m.getIdMeal()), safe(m.getStrMeal())));
+        }
+    }
+
+    /**
+     * Re-render search results refreshed in the background, unless the user
+     * has started another search since.
+     * 
+     * @param search the search the refresh belongs to
+     * @param render UI update to run
+     */
+    private void onRefresh(String search, Runnable render) {
+        Platform.runLater(() -> {
+            if (search.equals(shownSearch)) {
+                render.run();
+            }
         });
     }
 
@@ -469,15 +672,12 @@ public class MealLabView {
 
     /**
      * Fetch and display a random meal (async).
-     * Uses runInBackground to avoid blocking UI.
+     * Uses the async service call to avoid blocking UI.
      * 
      * @return void
      */
     private void runRandom() {
-        runInBackground(() -> {
-            MealDetails meal = service.randomMeal();
-            Platform.runLater(() -> setDetails(meal));
-        });
+        onUiThread(service.randomMealAsync(), this::setDetails);
     }
 
     /*
@@ -507,10 +707,12 @@ public class MealLabView {
             return;
         }
 
-        runInBackground(() -> {
-            MealDetails meal = service.lookupById(norm);
-            Platform.runLater(() -> setDetails(meal));
-        });
+        onUiThread(service.lookupByIdAsync(norm, null, refreshed -> Platform.runLater(() -> {
+            // Only if the user is still looking at this meal
+            if (currentMeal != null && norm.equals(normalizeId(currentMeal.getIdMeal()))) {
+                setDetails(refreshed);
+            }
+        })), this::setDetails);
     }
 
     /**
@@ -734,11 +936,94 @@ public class MealLabView {
     /*
      * STARTUP & HELPERS:
      * - loadListsFromDisk() ~> restore favorites/cooked on startup
-     * - runInBackground() ~> spawn daemon thread for API calls
+     * - onUiThread() ~> deliver an async API result to the UI thread
      * - alert() ~> show dialog box to user
      * - Utility methods: normalizeId, isValidMeal, safe, formatInstructions
      */
 
+    /**
+     * Read the stored catalog mirror, then fill (or finish filling) it, all in
+     * the background. Searches keep using the API until it is complete; a
+     * failed or interrupted crawl is resumed on the next start.
+     * 
+     * @return void
+     */
+    private void syncCatalogInBackground() {
+        service.loadCatalogAsync().whenComplete((mirror, error) -> {
+            if (error != null) {
+                System.out.println("Warning: could not load the catalog: " + error.getMessage());
+            } else if (mirror != null) {
+                syncCatalog(mirror);
+            }
+        });
+    }
+
+    /**
+     * Refresh a complete mirror, else resume its crawl; both run in the background.
+     * 
+     * @param mirror the loaded mirror
+     * @return void
+     */
+    private void syncCatalog(CatalogMirror mirror) {
+        if (mirror.isComplete()) {
+            new CatalogRefresher(mirror).start();
+            return;
+        }
+        mirror.crawlAsync(null).whenComplete((report, error) -> {
+            if (error != null) {
+                System.out.println("Warning: catalog sync failed: " + error.getMessage());
+            } else if (!report.isComplete()) {
+                System.out.println("Warning: catalog sync incomplete, will resume: " + report);
+            } else {
+                new CatalogRefresher(mirror).start();
+            }
+        });
+    }
+
+    /**
+     * Fetch the ingredient, category and area lists once, so that suggestions
+     * cover them before any meal using them has been seen.
+     * Suggestions still work (from known meals) if this fails.
+     * 
+     * @return void
+     */
+    private void loadSuggestionsInBackground() {
+        service.loadSuggestionsAsync().whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.out.println("Warning: could not load suggestion lists: " + error.getMessage());
+            }
+        });
+        loadFacetsIfMissing();
+    }
+
+    /**
+     * Fill the category and area boxes from the reference data, unless they
+     * already are (e.g. retry when a box is opened after a failed start).
+     * 
+     * @return void
+     */
+    private void loadFacetsIfMissing() {
+        if (categoryBox.getItems().isEmpty()) {
+            fillFacet(categoryBox, service.getReferenceData().categoriesAsync());
+        }
+        if (areaBox.getItems().isEmpty()) {
+            fillFacet(areaBox, service.getReferenceData().areasAsync());
+        }
+    }
+
+    private void fillFacet(ComboBox<String> box, CompletableFuture<List<String>> names) {
+        names.whenComplete((list, error) -> {
+            if (error == null) {
+                Platform.runLater(() -> {
+                    List<String> items = new ArrayList<>();
+                    items.add(ANY);
+                    items.addAll(list);
+                    box.getItems().setAll(items);
+                });
+            }
+        });
+    }
+
     /**
      * Load saved favorites and cooked lists from disk on startup.
      * If files don't exist or are corrupted, starts with empty lists.
@@ -754,26 +1039,33 @@ public class MealLabView {
     }
 
     /**
-     * Run a task on a daemon background thread.
+     * Deliver the result of an async API call to the JavaFX UI thread.
      * 
-     * Use this for any long-running operation (network calls, file I/O)
-     * to avoid blocking the JavaFX UI thread.
+     * The network call itself does not occupy any thread while in flight,
+     * so many requests can be outstanding at once.
      * 
-     * If the task throws an exception, shows error alert on UI thread.
+     * If the future fails, shows error alert on UI thread.
      * 
-     * @param job the runnable task to execute
+     * @param future the pending API call
+     * @param onSuccess UI update to run with the result
      * @return void
      */
-    private void runInBackground(Runnable job) {
-        Thread t = new Thread(() -> {
-            try {
-                job.run();
-            } catch (Exception e) {
-                Platform.runLater(() -> alert("Error: " + e.getMessage()));
+    private <T> void onUiThread(CompletableFuture<T> future, Consumer<T> onSuccess) {
+        future.whenComplete((value, error) -> Platform.runLater(() -> {
+            if (error != null) {
+                Throwable cause = (error instanceof CompletionException && error.getCause() != null)
+                        ? error.getCause()
+                        : error;
+                boolean temporary = cause instanceof MealLabException
+                        && (((MealLabException) cause).isTransient()
+                            || ((MealLabException) cause).getKind() == MealLabException.Kind.UNAVAILABLE);
+                alert(temporary
+                        ? "The meal service is temporarily unavailable, please try again.\n(" + cause.getMessage() + ")"
+                        : "Error: " + cause.getMessage());
+            } else {
+                onSuccess.accept(value);
             }
-        });
-        t.setDaemon(true);
-        t.start();
+        }));
     }
 
     /**
@@ -831,10 +1123,12 @@ public class MealLabView {
      *   Input: "Step 1\nStep 2\nStep 3"
      *   Output: "1) Step 1\n\n2) Step 2\n\n3) Step 3"
      * 
+     * Package-private so meallab-bench can measure it.
+     * 
      * @param s the raw instruction text from API (may be null)
      * @return formatted instruction text with numbered steps
      */
-    private static String formatInstructions(String s) {
+    static String formatInstructions(String s) {
         if (s == null) {
             return "";
         }
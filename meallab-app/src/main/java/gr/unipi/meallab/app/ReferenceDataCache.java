@@ -0,0 +1,311 @@
+package gr.unipi.meallab.app;
+
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.model.MealListItem;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Long-lived cache of TheMealDB reference data: the category, area and
+ * ingredient lists (list.php) and the meals of each category and area
+ * (filter.php?c= / filter.php?a=).
+ *
+ * Why?
+ * - This data almost never changes, but faceted browsing asks for it again
+ *   and again (every facet change, every start of a suggestion popup)
+ *
+ * Loading:
+ * - Lazy: nothing is fetched until it is first asked for; each list is then
+ *   fetched once and kept for a long TTL (default: 7 days)
+ * - Concurrent requests for the same list share one fetch
+ * - A failed fetch is not kept, so the next call retries; after the TTL the
+ *   list is fetched again, and the old copy is served if that fails
+ *
+ * Sharing:
+ * - Each MealLabService owns one, built on the service's own client, so
+ *   reference data goes through the same transport, response cache,
+ *   throttle and circuit breaker as every other call
+ *
+ * Faceted browsing:
+ * - browse("Seafood", "Greek") intersects the two cached lists locally, so
+ *   changing one facet costs at most one new fetch
+ *
+ * Returned lists are unmodifiable.
+ */
+public final class ReferenceDataCache {
+
+    /** Default time a list is kept before it is fetched again. */
+    public static final Duration DEFAULT_TTL = Duration.ofDays(7);
+
+    /**
+     * One cached list: the (possibly still running) fetch and when it started.
+     */
+    private static final class Entry {
+        final CompletableFuture<?> future;
+        final long loadedAt;
+
+        Entry(CompletableFuture<?> future, long loadedAt) {
+            this.future = future;
+            this.loadedAt = loadedAt;
+        }
+    }
+
+    private final MealLabClient client;
+    private final long ttlNanos;
+    private final LongSupplier clock;
+    private final Executor executor = ForkJoinPool.commonPool();
+
+    // Guarded by "this"
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final LongAdder fetches = new LongAdder();
+
+    /**
+     * Create a cache with the default TTL.
+     *
+     * @param client the API client to fetch through
+     */
+    public ReferenceDataCache(MealLabClient client) {
+        this(client, DEFAULT_TTL);
+    }
+
+    /**
+     * Create a cache.
+     *
+     * @param client the API client to fetch through
+     * @param ttl how long a fetched list is kept (must be positive)
+     */
+    public ReferenceDataCache(MealLabClient client, Duration ttl) {
+        this(client, ttl, System::nanoTime);
+    }
+
+    /**
+     * Create a cache with a custom clock (for tests).
+     */
+    ReferenceDataCache(MealLabClient client, Duration ttl, LongSupplier clock) {
+        if (ttl.isNegative() || ttl.isZero()) {
+            throw new IllegalArgumentException("ttl must be positive");
+        }
+        this.client = client;
+        this.ttlNanos = ttl.toNanos();
+        this.clock = clock;
+    }
+
+    /**
+     * @return category names, e.g. "Beef", "Dessert"
+     * @throws gr.unipi.meallab.api.exception.MealLabException if the first fetch fails
+     */
+    public List<String> categories() {
+        return await(categoriesAsync());
+    }
+
+    /**
+     * Async variant of categories().
+     *
+     * @return future list of category names
+     */
+    public CompletableFuture<List<String>> categoriesAsync() {
+        return get("list.php?c", () -> client.listCategoriesAsync(executor));
+    }
+
+    /**
+     * @return area (cuisine) names, e.g. "Greek", "Japanese"
+     * @throws gr.unipi.meallab.api.exception.MealLabException if the first fetch fails
+     */
+    public List<String> areas() {
+        return await(areasAsync());
+    }
+
+    /**
+     * Async variant of areas().
+     *
+     * @return future list of area names
+     */
+    public CompletableFuture<List<String>> areasAsync() {
+        return get("list.php?a", () -> client.listAreasAsync(executor));
+    }
+
+    /**
+     * @return ingredient names, e.g. "Chicken", "Soy Sauce"
+     * @throws gr.unipi.meallab.api.exception.MealLabException if the first fetch fails
+     */
+    public List<String> ingredients() {
+        return await(ingredientsAsync());
+    }
+
+    /**
+     * Async variant of ingredients().
+     *
+     * @return future list of ingredient names
+     */
+    public CompletableFuture<List<String>> ingredientsAsync() {
+        return get("list.php?i", () -> client.listIngredientsAsync(executor));
+    }
+
+    /**
+     * @param category a category (case-insensitive)
+     * @return meals in it (id + name + thumbnail), empty if none
+     * @throws gr.unipi.meallab.api.exception.MealLabException if the first fetch fails
+     */
+    public List<MealListItem> mealsInCategory(String category) {
+        return await(mealsInCategoryAsync(category));
+    }
+
+    /**
+     * Async variant of mealsInCategory(String).
+     *
+     * @param category a category (case-insensitive)
+     * @return future list of meals in it
+     */
+    public CompletableFuture<List<MealListItem>> mealsInCategoryAsync(String category) {
+        return get("filter.php?c=" + normalize(category), () -> client.filterByCategoryAsync(category, executor));
+    }
+
+    /**
+     * @param area an area (case-insensitive)
+     * @return meals from it (id + name + thumbnail), empty if none
+     * @throws gr.unipi.meallab.api.exception.MealLabException if the first fetch fails
+     */
+    public List<MealListItem> mealsInArea(String area) {
+        return await(mealsInAreaAsync(area));
+    }
+
+    /**
+     * Async variant of mealsInArea(String).
+     *
+     * @param area an area (case-insensitive)
+     * @return future list of meals from it
+     */
+    public CompletableFuture<List<MealListItem>> mealsInAreaAsync(String area) {
+        return get("filter.php?a=" + normalize(area), () -> client.filterByAreaAsync(area, executor));
+    }
+
+    /**
+     * Meals matching every given facet.
+     *
+     * @param category a category, or null / blank for any
+     * @param area an area, or null / blank for any
+     * @return matching meals, in the category list's order
+     * @throws IllegalArgumentException if both facets are blank
+     * @throws gr.unipi.meallab.api.exception.MealLabException if a first fetch fails
+     */
+    public List<MealListItem> browse(String category, String area) {
+        return await(browseAsync(category, area));
+    }
+
+    /**
+     * Async variant of browse(String, String).
+     *
+     * @param category a category, or null / blank for any
+     * @param area an area, or null / blank for any
+     * @return future list of matching meals
+     * @throws IllegalArgumentException if both facets are blank
+     */
+    public CompletableFuture<List<MealListItem>> browseAsync(String category, String area) {
+        boolean byCategory = !normalize(category).isEmpty();
+        boolean byArea = !normalize(area).isEmpty();
+        if (!byCategory && !byArea) {
+            throw new IllegalArgumentException("Choose a category, an area or both");
+        }
+        if (!byArea) {
+            return mealsInCategoryAsync(category);
+        }
+        if (!byCategory) {
+            return mealsInAreaAsync(area);
+        }
+        return mealsInCategoryAsync(category).thenCombine(mealsInAreaAsync(area), ReferenceDataCache::intersect);
+    }
+
+    /**
+     * @return number of fetches started so far (each list once per TTL, unless a fetch failed)
+     */
+    public long getFetches() {
+        return fetches.sum();
+    }
+
+    /**
+     * Forget every list; the next call for each fetches it again.
+     */
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    // --- Private helpers ---
+
+    /**
+     * The cached fetch for this key, or a new one if there is none or it is older than the TTL.
+     */
+    @SuppressWarnings("unchecked")
+    private synchronized <T> CompletableFuture<List<T>> get(String key, Supplier<CompletableFuture<List<T>>> fetch) {
+        long now = clock.getAsLong();
+        Entry old = entries.get(key);
+        if (old != null && (!old.future.isDone() || now - old.loadedAt < ttlNanos)) {
+            return (CompletableFuture<List<T>>) old.future;
+        }
+        fetches.increment();
+        CompletableFuture<List<T>> future = fetch.get().thenApply(Collections::unmodifiableList);
+        if (old != null) {
+            // Only successful fetches stay cached, so the old copy is a good fallback
+            CompletableFuture<List<T>> previous = (CompletableFuture<List<T>>) old.future;
+            future = future.exceptionallyCompose(error -> previous);
+        }
+        Entry entry = new Entry(future, now);
+        entries.put(key, entry);
+        future.whenComplete((ignored, error) -> {
+            if (error != null) {
+                forget(key, entry);
+            }
+        });
+        return future;
+    }
+
+    private synchronized void forget(String key, Entry entry) {
+        entries.remove(key, entry);
+    }
+
+    private static List<MealListItem> intersect(List<MealListItem> first, List<MealListItem> second) {
+        Set<String> ids = new HashSet<>();
+        for (MealListItem item : second) {
+            ids.add(item.getIdMeal());
+        }
+        List<MealListItem> out = new ArrayList<>();
+        for (MealListItem item : first) {
+            if (ids.contains(item.getIdMeal())) {
+                out.add(item);
+            }
+        }
+        return Collections.unmodifiableList(out);
+    }
+
+    /**
+     * Wait for a fetch; a failure is rethrown as it was raised (usually a MealLabException).
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private static String normalize(String input) {
+        return input == null ? "" : input.trim().toLowerCase(Locale.ROOT);
+    }
+}
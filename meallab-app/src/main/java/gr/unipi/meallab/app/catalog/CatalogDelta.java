@@ -0,0 +1,54 @@
+package gr.unipi.meallab.app.catalog;
+
+import gr.unipi.meallab.api.model.MealDetails;
+
+import java.util.List;
+
+/**
+ * One batch of changes to the mirrored catalog: new or changed meals, and
+ * IDs of meals that are gone.
+ *
+ * CatalogMirror.applyDelta() applies a batch all-or-nothing: readers see the
+ * catalog either before or after it, and a crash part-way through is
+ * completed (or discarded, if the batch was never journaled) on the next load().
+ */
+public final class CatalogDelta {
+
+    private final List<MealDetails> upserts;
+    private final List<String> removedIds;
+
+    /**
+     * @param upserts meals to add, or to replace the meal with the same ID
+     * @param removedIds IDs of meals to drop
+     */
+    public CatalogDelta(List<MealDetails> upserts, List<String> removedIds) {
+        this.upserts = List.copyOf(upserts);
+        this.removedIds = List.copyOf(removedIds);
+    }
+
+    /**
+     * @return meals to add or replace
+     */
+    public List<MealDetails> getUpserts() {
+        return upserts;
+    }
+
+    /**
+     * @return IDs of meals to drop
+     */
+    public List<String> getRemovedIds() {
+        return removedIds;
+    }
+
+    /**
+     * @return true if the batch changes nothing
+     */
+    public boolean isEmpty() {
+        return upserts.isEmpty() && removedIds.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "CatalogDelta[upserts=" + upserts.size() + ", removed=" + removedIds + "]";
+    }
+}
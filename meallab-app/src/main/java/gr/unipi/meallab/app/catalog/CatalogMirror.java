@@ -0,0 +1,520 @@
+package gr.unipi.meallab.app.catalog;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealsResponse;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Local copy of the whole TheMealDB catalog, so lookups and searches need no network.
+ *
+ * TheMealDB has no "list everything" endpoint, but search.php?f=<letter>
+ * returns every meal whose name starts with that letter; the 26 letters and
+ * 10 digits (36 shards) together cover the catalog.
+ *
+ * Crawling:
+ * - crawl() / crawlAsync() fetch the shards in parallel, at most
+ *   maxConcurrency in flight, through the normal MealLabClient (so retries,
+ *   the circuit breaker and the throttle apply)
+ * - Each shard is stored as soon as it arrives, then checkpointed; a crawl
+ *   interrupted by a crash, a failed shard or the user is resumed by the next
+ *   crawl() call, which fetches only the shards still missing
+ * - Once a crawl has stored all 36 shards, the next crawl() starts a full
+ *   refresh; until a shard is re-fetched, its previous copy keeps being served
+ * - Concurrent crawl() calls share one running crawl
+ *
+ * Incremental changes:
+ * - applyDelta() applies a CatalogDelta (new, changed and removed meals, as
+ *   found by CatalogRefresher) without re-crawling anything
+ * - The batch is first appended to journal.jsonl and forced to disk; from then
+ *   on it counts as applied: the new snapshot is published and the affected
+ *   shard files are rewritten, after which the journal is deleted
+ * - If the process dies before the shard files are rewritten, load() replays
+ *   the journal; a batch whose journal line was not fully written never happened
+ *
+ * Storage (under dir, default ~/.meallab/catalog):
+ * - shards/<letter>.json: the shard's meals as {"meals":[...]}; shards/_.json
+ *   holds meals found by a delta whose name starts with neither a letter nor a digit
+ * - checkpoint.json: the running crawl, {"startedAt":..., "done":["a","b",...]}
+ * - journal.jsonl: delta batches not yet folded into the shard files, one per line
+ * Shard files and the checkpoint are written to a temporary file and atomically
+ * moved into place.
+ *
+ * Reading:
+ * - getSnapshot() returns an immutable CatalogSnapshot; each stored shard
+ *   publishes a new one, so readers never see a half-applied shard
+ * - isComplete() tells whether every shard has been stored at least once,
+ *   i.e. whether an empty search result can be trusted
+ * - addListener() receives every change as a CatalogDelta, in order (e.g., to
+ *   keep an index of the catalog in step with it)
+ *
+ * Usage:
+ *   CatalogMirror mirror = new CatalogMirror(client, CatalogMirror.defaultDirectory()).load();
+ *   if (!mirror.isComplete()) {
+ *       mirror.crawlAsync(shard -> System.out.println("stored " + shard));
+ *   }
+ *   mirror.getSnapshot().searchByName("chicken");
+ */
+public class CatalogMirror {
+
+    /** Default number of shards fetched at once (kept low: TheMealDB is a free API). */
+    public static final int DEFAULT_CONCURRENCY = 4;
+
+    private static final Type DETAILS_TYPE = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
+
+    // File name of the shard holding meals that no search.php?f= letter lists
+    private static final String OTHER_SHARD_FILE = "_";
+
+    private final Gson gson = new Gson();
+    private final MealLabClient client;
+    private final Path dir;
+    private final Path shardDir;
+    private final Path checkpointFile;
+    private final Path journalFile;
+    private final int maxConcurrency;
+    private final Executor executor;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.EMPTY;
+    private final List<Consumer<CatalogDelta>> listeners = new CopyOnWriteArrayList<>();
+
+    // Guarded by "this"
+    private final Set<String> storedShards = new LinkedHashSet<>();
+    private Checkpoint checkpoint = new Checkpoint();
+    private final Set<String> journaledShards = new HashSet<>();
+    private CompletableFuture<CrawlReport> running;
+
+    /**
+     * Create a mirror with the default concurrency. Call load() to read what is on disk.
+     *
+     * @param client client used for crawling
+     * @param dir directory of the stored catalog (created on first store)
+     */
+    public CatalogMirror(MealLabClient client, Path dir) {
+        this(client, dir, DEFAULT_CONCURRENCY, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Create a mirror.
+     *
+     * @param client client used for crawling
+     * @param dir directory of the stored catalog (created on first store)
+     * @param maxConcurrency max shards fetched at once (>= 1)
+     * @param executor executor that decodes and stores shards
+     */
+    public CatalogMirror(MealLabClient client, Path dir, int maxConcurrency, Executor executor) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be >= 1");
+        }
+        this.client = client;
+        this.dir = dir;
+        this.shardDir = dir.resolve("shards");
+        this.checkpointFile = dir.resolve("checkpoint.json");
+        this.journalFile = dir.resolve("journal.jsonl");
+        this.maxConcurrency = maxConcurrency;
+        this.executor = executor;
+    }
+
+    /**
+     * @return ~/.meallab/catalog
+     */
+    public static Path defaultDirectory() {
+        return Path.of(System.getProperty("user.home"), ".meallab", "catalog");
+    }
+
+    /**
+     * Read the stored shards and checkpoint, and replay the journal if a delta
+     * was interrupted. Unreadable files are logged and treated as missing
+     * (the next crawl fetches them again).
+     *
+     * @return this mirror, for chaining
+     */
+    public synchronized CatalogMirror load() {
+        List<MealDetails> meals = new ArrayList<>();
+        storedShards.clear();
+        for (char c : CatalogSnapshot.SHARDS.toCharArray()) {
+            String shard = String.valueOf(c);
+            if (readShard(shardFile(shard), meals)) {
+                storedShards.add(shard);
+            }
+        }
+        readShard(shardFile(""), meals);
+
+        checkpoint = new Checkpoint();
+        if (Files.exists(checkpointFile)) {
+            try (Reader in = Files.newBufferedReader(checkpointFile, StandardCharsets.UTF_8)) {
+                Checkpoint loaded = gson.fromJson(in, Checkpoint.class);
+                if (loaded != null && loaded.done != null) {
+                    checkpoint = loaded;
+                    // A shard whose file is gone or unreadable must be fetched again
+                    checkpoint.done.retainAll(storedShards);
+                }
+            } catch (Exception e) {
+                System.out.println("Warning: could not load " + checkpointFile + ": " + e.getMessage());
+            }
+        }
+
+        setSnapshot(CatalogSnapshot.of(meals));
+        journaledShards.clear();
+        replayJournal();
+        return this;
+    }
+
+    private boolean readShard(Path file, List<MealDetails> meals) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (Reader in = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            MealsResponse<MealDetails> stored = gson.fromJson(in, DETAILS_TYPE);
+            if (stored != null && stored.getMeals() != null) {
+                meals.addAll(stored.getMeals());
+            }
+            return true;
+        } catch (Exception e) {
+            System.out.println("Warning: could not load " + file + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return the current catalog (never null; empty before anything is stored)
+     */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Be told about every change to the catalog. The listener first receives
+     * the current catalog as one delta (all meals upserted), then each later
+     * change as it is published. Calls are made in order, with the mirror
+     * locked, on whichever thread made the change: keep them short.
+     *
+     * @param listener receives the changes
+     */
+    public synchronized void addListener(Consumer<CatalogDelta> listener) {
+        listener.accept(CatalogSnapshot.EMPTY.changesTo(snapshot));
+        listeners.add(listener);
+    }
+
+    /**
+     * @return true once every shard has been stored at least once
+     */
+    public synchronized boolean isComplete() {
+        return storedShards.size() == CatalogSnapshot.SHARDS.length();
+    }
+
+    /**
+     * @return the directory the catalog is stored in
+     */
+    public Path getDirectory() {
+        return dir;
+    }
+
+    /**
+     * Crawl (or resume crawling) and wait for the result.
+     *
+     * @return what was fetched, skipped and failed
+     */
+    public CrawlReport crawl() {
+        return crawlAsync(null).join();
+    }
+
+    /**
+     * Crawl (or resume crawling) in the background.
+     *
+     * @param onShard called with each shard letter after it is stored (may be null);
+     *                runs on the executor, so keep it short
+     * @return future report; joins the running crawl if there is one
+     *         (onShard is then not registered)
+     */
+    public synchronized CompletableFuture<CrawlReport> crawlAsync(Consumer<String> onShard) {
+        if (running != null && !running.isDone()) {
+            return running;
+        }
+        if (checkpoint.done.size() == CatalogSnapshot.SHARDS.length()) {
+            // The previous crawl finished: this one is a full refresh
+            checkpoint = new Checkpoint();
+        }
+        if (checkpoint.startedAt == 0) {
+            checkpoint.startedAt = System.currentTimeMillis();
+        }
+
+        List<String> todo = new ArrayList<>();
+        List<String> skipped = new ArrayList<>();
+        for (char c : CatalogSnapshot.SHARDS.toCharArray()) {
+            String shard = String.valueOf(c);
+            (checkpoint.done.contains(shard) ? skipped : todo).add(shard);
+        }
+
+        long start = System.nanoTime();
+        List<String> fetched = Collections.synchronizedList(new ArrayList<>());
+        Map<String, Throwable> failed = new ConcurrentHashMap<>();
+        AtomicInteger next = new AtomicInteger();
+
+        int workers = Math.min(maxConcurrency, todo.size());
+        CompletableFuture<?>[] all = new CompletableFuture<?>[workers];
+        for (int w = 0; w < workers; w++) {
+            all[w] = crawlNext(todo, next, fetched, failed, onShard);
+        }
+        running = CompletableFuture.allOf(all).thenApply(v -> new CrawlReport(fetched, skipped, failed,
+                snapshot.size(), Duration.ofNanos(System.nanoTime() - start)));
+        return running;
+    }
+
+    /**
+     * Apply a batch of changes all-or-nothing (see the class comment).
+     *
+     * @param delta the changes; an empty batch is ignored
+     * @throws IOException if the batch could not be journaled (nothing was applied);
+     *         failing to rewrite the shard files afterwards is only logged, since
+     *         the journal still holds the batch
+     */
+    public synchronized void applyDelta(CatalogDelta delta) throws IOException {
+        if (delta.isEmpty()) {
+            return;
+        }
+        Files.createDirectories(dir);
+        byte[] line = (gson.toJson(new JournalEntry(delta)) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        publish(delta);
+        try {
+            compact();
+        } catch (IOException e) {
+            System.out.println("Warning: could not update " + shardDir + ", kept in " + journalFile
+                    + ": " + e.getMessage());
+        }
+    }
+
+    // --- Delta internals ---
+
+    /**
+     * Swap in a snapshot with the batch applied and remember which shard files it touches.
+     */
+    private void publish(CatalogDelta delta) {
+        CatalogSnapshot before = snapshot;
+        for (String id : delta.getRemovedIds()) {
+            MealDetails old = before.lookup(id);
+            if (old != null) {
+                journaledShards.add(CatalogSnapshot.shardOf(old));
+            }
+        }
+        for (MealDetails meal : delta.getUpserts()) {
+            MealDetails old = before.lookup(meal.getIdMeal());
+            if (old != null) {
+                journaledShards.add(CatalogSnapshot.shardOf(old));
+            }
+            journaledShards.add(CatalogSnapshot.shardOf(meal));
+        }
+        setSnapshot(before.withDelta(delta));
+    }
+
+    /**
+     * Rewrite the shard files touched by journaled batches, then drop the journal.
+     */
+    private void compact() throws IOException {
+        if (!journaledShards.isEmpty()) {
+            Files.createDirectories(shardDir);
+            Map<String, List<MealDetails>> byShard = new HashMap<>();
+            for (String shard : journaledShards) {
+                byShard.put(shard, new ArrayList<>());
+            }
+            for (MealDetails meal : snapshot.getMeals()) {
+                List<MealDetails> list = byShard.get(CatalogSnapshot.shardOf(meal));
+                if (list != null) {
+                    list.add(meal);
+                }
+            }
+            for (Map.Entry<String, List<MealDetails>> e : byShard.entrySet()) {
+                writeAtomically(shardFile(e.getKey()), gson.toJson(Map.of("meals", e.getValue())));
+            }
+            journaledShards.clear();
+        }
+        Files.deleteIfExists(journalFile);
+    }
+
+    /**
+     * Re-apply journaled batches after a crash; a torn last line is skipped.
+     */
+    private void replayJournal() {
+        if (!Files.exists(journalFile)) {
+            return;
+        }
+        try (BufferedReader in = Files.newBufferedReader(journalFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                JournalEntry entry;
+                try {
+                    entry = gson.fromJson(line, JournalEntry.class);
+                } catch (RuntimeException e) {
+                    break;
+                }
+                if (entry != null) {
+                    publish(entry.toDelta());
+                }
+            }
+            compact();
+        } catch (IOException e) {
+            System.out.println("Warning: could not replay " + journalFile + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Publish a new snapshot and tell the listeners what changed. Called with the lock held.
+     */
+    private void setSnapshot(CatalogSnapshot next) {
+        CatalogSnapshot before = snapshot;
+        snapshot = next;
+        if (!listeners.isEmpty()) {
+            CatalogDelta delta = before.changesTo(next);
+            if (!delta.isEmpty()) {
+                for (Consumer<CatalogDelta> listener : listeners) {
+                    listener.accept(delta);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the client used for crawling (CatalogRefresher uses it too)
+     */
+    MealLabClient getClient() {
+        return client;
+    }
+
+    // --- Crawl internals ---
+
+    /**
+     * One worker: fetch the next unclaimed shard, store it, repeat until none is left.
+     */
+    private CompletableFuture<Void> crawlNext(List<String> todo, AtomicInteger next, List<String> fetched,
+                                              Map<String, Throwable> failed, Consumer<String> onShard) {
+        int i = next.getAndIncrement();
+        if (i >= todo.size()) {
+            return CompletableFuture.completedFuture(null);
+        }
+        String shard = todo.get(i);
+        CompletableFuture<List<MealDetails>> fetch;
+        try {
+            fetch = client.searchByFirstLetterAsync(shard, executor);
+        } catch (RuntimeException e) {
+            fetch = CompletableFuture.failedFuture(e);
+        }
+        return fetch.handle((meals, error) -> {
+            if (error != null) {
+                failed.put(shard, unwrap(error));
+                return null;
+            }
+            try {
+                store(shard, meals);
+                fetched.add(shard);
+                if (onShard != null) {
+                    onShard.accept(shard);
+                }
+            } catch (IOException | RuntimeException e) {
+                failed.put(shard, e);
+            }
+            return null;
+        }).thenCompose(v -> crawlNext(todo, next, fetched, failed, onShard));
+    }
+
+    /**
+     * Persist a shard, then publish it and checkpoint it.
+     * A crash between the two writes only means the shard is fetched again.
+     * Holds the lock throughout, so a delta cannot rewrite the same file meanwhile.
+     */
+    private void store(String shard, List<MealDetails> meals) throws IOException {
+        synchronized (this) {
+            Files.createDirectories(shardDir);
+            writeAtomically(shardFile(shard), gson.toJson(Map.of("meals", meals)));
+            // Stored first, so listeners see isComplete() once the last shard arrives
+            storedShards.add(shard);
+            setSnapshot(snapshot.withShard(shard, meals));
+            checkpoint.done.add(shard);
+            writeAtomically(checkpointFile, gson.toJson(checkpoint));
+        }
+    }
+
+    private Path shardFile(String shard) {
+        return shardDir.resolve((shard.isEmpty() ? OTHER_SHARD_FILE : shard) + ".json");
+    }
+
+    static void writeAtomically(Path target, String content) throws IOException {
+        Path temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        try {
+            Files.writeString(temp, content, StandardCharsets.UTF_8);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return (error instanceof CompletionException && error.getCause() != null) ? error.getCause() : error;
+    }
+
+    /**
+     * One line of journal.jsonl (Gson-mapped).
+     */
+    private static final class JournalEntry {
+        List<MealDetails> upserts;
+        List<String> removed;
+
+        JournalEntry(CatalogDelta delta) {
+            this.upserts = delta.getUpserts();
+            this.removed = delta.getRemovedIds();
+        }
+
+        CatalogDelta toDelta() {
+            return new CatalogDelta(upserts == null ? List.of() : upserts, removed == null ? List.of() : removed);
+        }
+    }
+
+    /**
+     * checkpoint.json: the crawl in progress (Gson-mapped).
+     */
+    private static final class Checkpoint {
+        long startedAt;
+        Set<String> done = new LinkedHashSet<>();
+    }
+}
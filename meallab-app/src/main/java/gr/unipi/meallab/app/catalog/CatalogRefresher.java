@@ -0,0 +1,310 @@
+package gr.unipi.meallab.app.catalog;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.LookupResult;
+import gr.unipi.meallab.api.model.MealDetails;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a complete CatalogMirror up to date without re-crawling it.
+ *
+ * A full crawl costs 36 large responses; most of the time nothing changed.
+ * Each refresh() instead costs a few small lookup.php calls:
+ * 1. New meals: TheMealDB hands out increasing IDs, so the IDs just above the
+ *    highest known one are looked up, probeWindow at a time, until a whole
+ *    window finds nothing (gaps shorter than the window are skipped over)
+ * 2. Changed and removed meals: the next sampleSize known meals, in ID order,
+ *    are looked up again; a meal whose content hash differs is replaced, a
+ *    meal the API no longer knows is dropped. The position is kept in
+ *    refresh.json, so successive runs walk the whole catalog round-robin
+ * 3. Everything found is applied as one CatalogDelta (all-or-nothing)
+ *
+ * Scheduling:
+ * - start() runs refresh() in the background every interval, each delay
+ *   randomized by +-jitter, so many clients do not hit the API in lockstep
+ * - Failures are logged and the next run is scheduled as usual
+ * - The background thread is a daemon; close() stops it
+ *
+ * Usage:
+ *   CatalogRefresher refresher = new CatalogRefresher(mirror).start();
+ *   ...
+ *   refresher.close();
+ */
+public class CatalogRefresher implements AutoCloseable {
+
+    /** Default time between background refreshes. */
+    public static final Duration DEFAULT_INTERVAL = Duration.ofHours(6);
+
+    /** Default random spread of each delay, as a fraction of the interval. */
+    public static final double DEFAULT_JITTER = 0.2;
+
+    /** Default number of IDs probed at once above the highest known one. */
+    public static final int DEFAULT_PROBE_WINDOW = 10;
+
+    /** Default number of known meals re-checked per refresh. */
+    public static final int DEFAULT_SAMPLE_SIZE = 25;
+
+    private final Gson gson = new Gson();
+    private final CatalogMirror mirror;
+    private final MealLabClient client;
+    private final Duration interval;
+    private final double jitter;
+    private final int probeWindow;
+    private final int sampleSize;
+    private final Path stateFile;
+
+    // One refresh at a time (scheduled or not)
+    private final Object refreshLock = new Object();
+
+    // Guarded by "this"
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Create a refresher with the default schedule and sizes.
+     *
+     * @param mirror the mirror to keep up to date (its client is used)
+     */
+    public CatalogRefresher(CatalogMirror mirror) {
+        this(mirror, DEFAULT_INTERVAL, DEFAULT_JITTER, DEFAULT_PROBE_WINDOW, DEFAULT_SAMPLE_SIZE);
+    }
+
+    /**
+     * Create a refresher.
+     *
+     * @param mirror the mirror to keep up to date (its client is used)
+     * @param interval average time between background refreshes (> 0)
+     * @param jitter random spread of each delay, as a fraction of interval (0 <= jitter < 1)
+     * @param probeWindow IDs probed at once above the highest known one (>= 1)
+     * @param sampleSize known meals re-checked per refresh (>= 0)
+     */
+    public CatalogRefresher(CatalogMirror mirror, Duration interval, double jitter, int probeWindow,
+                            int sampleSize) {
+        if (interval.isZero() || interval.isNegative()) {
+            throw new IllegalArgumentException("interval must be positive");
+        }
+        if (jitter < 0 || jitter >= 1) {
+            throw new IllegalArgumentException("jitter must be in [0, 1)");
+        }
+        if (probeWindow < 1 || sampleSize < 0) {
+            throw new IllegalArgumentException("probeWindow must be >= 1 and sampleSize >= 0");
+        }
+        this.mirror = mirror;
+        this.client = mirror.getClient();
+        this.interval = interval;
+        this.jitter = jitter;
+        this.probeWindow = probeWindow;
+        this.sampleSize = sampleSize;
+        this.stateFile = mirror.getDirectory().resolve("refresh.json");
+    }
+
+    /**
+     * Look for new, changed and removed meals and apply them to the mirror.
+     * Does nothing while the mirror is empty (crawl it first).
+     *
+     * @return what was probed, checked and changed
+     * @throws IOException if the changes could not be journaled (the mirror is unchanged)
+     */
+    public RefreshReport refresh() throws IOException {
+        synchronized (refreshLock) {
+            long start = System.nanoTime();
+            CatalogSnapshot snapshot = mirror.getSnapshot();
+            List<MealDetails> upserts = new ArrayList<>();
+            List<String> added = new ArrayList<>();
+            List<String> changed = new ArrayList<>();
+            List<String> removed = new ArrayList<>();
+            int failed = 0;
+            int probed = 0;
+            if (snapshot.size() == 0) {
+                return new RefreshReport(0, 0, added, changed, removed, 0, Duration.ZERO);
+            }
+
+            // 1. Probe above the highest known ID until a whole window is empty
+            long highest = snapshot.highestId();
+            boolean found = highest >= 0;
+            while (found) {
+                List<String> ids = new ArrayList<>(probeWindow);
+                for (int i = 1; i <= probeWindow; i++) {
+                    ids.add(Long.toString(highest + i));
+                }
+                probed += ids.size();
+                found = false;
+                for (LookupResult result : client.lookupByIds(ids, MealLabClient.DEFAULT_BULK_CONCURRENCY)) {
+                    if (result.isSuccess()) {
+                        upserts.add(result.getMeal());
+                        added.add(result.getId());
+                        highest = Math.max(highest, Long.parseLong(result.getId()));
+                        found = true;
+                    } else if (result.getError().getKind() != MealLabException.Kind.NOT_FOUND) {
+                        failed++;
+                    }
+                }
+            }
+
+            // 2. Re-check the next slice of known meals
+            List<MealDetails> meals = snapshot.getMeals();
+            State state = loadState();
+            int from = (int) (state.cursor % meals.size());
+            int count = Math.min(sampleSize, meals.size());
+            List<String> sample = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                sample.add(meals.get((from + i) % meals.size()).getIdMeal());
+            }
+            for (LookupResult result : client.lookupByIds(sample, MealLabClient.DEFAULT_BULK_CONCURRENCY)) {
+                if (result.isSuccess()) {
+                    MealDetails known = snapshot.lookup(result.getId());
+                    if (contentHash(result.getMeal()) != contentHash(known)) {
+                        upserts.add(result.getMeal());
+                        changed.add(result.getId());
+                    }
+                } else if (result.getError().getKind() == MealLabException.Kind.NOT_FOUND) {
+                    removed.add(result.getId());
+                } else {
+                    failed++;
+                }
+            }
+
+            // 3. Apply everything at once, then move the sample forward
+            mirror.applyDelta(new CatalogDelta(upserts, removed));
+            state.cursor = (from + count) % meals.size();
+            state.lastRun = System.currentTimeMillis();
+            saveState(state);
+            return new RefreshReport(probed, count, added, changed, removed, failed,
+                    Duration.ofNanos(System.nanoTime() - start));
+        }
+    }
+
+    /**
+     * Run refresh() in the background every interval (+-jitter), first after one delay.
+     * Calling it again while running has no effect.
+     *
+     * @return this refresher, for chaining
+     */
+    public synchronized CatalogRefresher start() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "meallab-catalog-refresh");
+                t.setDaemon(true);
+                return t;
+            });
+            scheduleNext();
+        }
+        return this;
+    }
+
+    /**
+     * Stop the background refreshes (a running one is interrupted).
+     */
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * @return the delay before the next background refresh: interval, randomized by +-jitter
+     */
+    Duration nextDelay() {
+        double factor = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis((long) (interval.toMillis() * factor));
+    }
+
+    /**
+     * Hash of everything a meal shows (not its identity), to compare a stored
+     * copy with a freshly fetched one. 64-bit FNV-1a over the fields, each
+     * followed by a separator so that ("ab", "c") and ("a", "bc") differ.
+     *
+     * @param meal the meal (null hashes to 0)
+     * @return the content hash
+     */
+    static long contentHash(MealDetails meal) {
+        if (meal == null) {
+            return 0;
+        }
+        long h = 0xcbf29ce484222325L;
+        h = mix(h, meal.getIdMeal());
+        h = mix(h, meal.getStrMeal());
+        h = mix(h, meal.getStrCategory());
+        h = mix(h, meal.getStrArea());
+        h = mix(h, meal.getStrInstructions());
+        h = mix(h, meal.getStrMealThumb());
+        for (int i = 0; i < meal.getIngredientCount(); i++) {
+            h = mix(h, meal.getIngredient(i));
+            h = mix(h, meal.getMeasure(i));
+        }
+        return h;
+    }
+
+    private static long mix(long h, String s) {
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                h = (h ^ s.charAt(i)) * 0x100000001b3L;
+            }
+        }
+        // Separator; null and "" are told apart
+        return (h ^ (s == null ? 0x10000 : 0x10001)) * 0x100000001b3L;
+    }
+
+    private void scheduleNext() {
+        if (scheduler != null) {
+            scheduler.schedule(this::runScheduled, nextDelay().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void runScheduled() {
+        try {
+            RefreshReport report = refresh();
+            if (report.hasChanges() || report.getFailed() > 0) {
+                System.out.println("Catalog refresh: " + report);
+            }
+        } catch (Exception e) {
+            System.out.println("Warning: catalog refresh failed: " + e.getMessage());
+        } finally {
+            synchronized (this) {
+                scheduleNext();
+            }
+        }
+    }
+
+    private State loadState() {
+        if (Files.exists(stateFile)) {
+            try (Reader in = Files.newBufferedReader(stateFile, StandardCharsets.UTF_8)) {
+                State loaded = gson.fromJson(in, State.class);
+                if (loaded != null) {
+                    return loaded;
+                }
+            } catch (Exception e) {
+                System.out.println("Warning: could not load " + stateFile + ": " + e.getMessage());
+            }
+        }
+        return new State();
+    }
+
+    private void saveState(State state) throws IOException {
+        Files.createDirectories(stateFile.getParent());
+        CatalogMirror.writeAtomically(stateFile, gson.toJson(state));
+    }
+
+    /**
+     * refresh.json: where the rotating sample continues (Gson-mapped).
+     */
+    private static final class State {
+        long cursor;
+        long lastRun;
+    }
+}
@@ -0,0 +1,283 @@
+package gr.unipi.meallab.app.catalog;
+
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Immutable, in-memory view of the mirrored catalog.
+ *
+ * CatalogMirror publishes a new snapshot after every change (a crawled shard
+ * or a CatalogDelta batch) by swapping one reference, so readers always see a
+ * whole catalog: either before or after a change, never half of it.
+ *
+ * Queries follow TheMealDB's semantics, so local and remote answers match:
+ * - lookup(id): exact ID
+ * - searchByName(q): name contains q, case-insensitive
+ * - searchByIngredient(i): some ingredient equals i, case-insensitive ("_" = space)
+ * - searchByFirstLetter(f): name starts with f
+ * Results are in ID order. Name and ingredient searches scan every meal
+ * (names are pre-lowercased); fine for the real catalog's few hundred meals.
+ */
+public final class CatalogSnapshot {
+
+    /** Letters and digits TheMealDB accepts in search.php?f= (one shard each). */
+    public static final String SHARDS = "abcdefghijklmnopqrstuvwxyz0123456789";
+
+    /** A snapshot with no meals. */
+    public static final CatalogSnapshot EMPTY = new CatalogSnapshot(new MealDetails[0]);
+
+    // Numeric IDs as numbers ("999" < "52772"), anything else after them
+    private static final Comparator<MealDetails> BY_ID = Comparator
+            .comparingInt((MealDetails m) -> m.getIdMeal().length())
+            .thenComparing(MealDetails::getIdMeal);
+
+    private final MealDetails[] meals;
+    private final String[] lowerNames;
+    private final Map<String, MealDetails> byId;
+
+    private CatalogSnapshot(MealDetails[] sortedMeals) {
+        this.meals = sortedMeals;
+        this.lowerNames = new String[sortedMeals.length];
+        this.byId = new HashMap<>(sortedMeals.length * 4 / 3 + 1);
+        for (int i = 0; i < sortedMeals.length; i++) {
+            lowerNames[i] = lower(sortedMeals[i].getStrMeal());
+            byId.put(sortedMeals[i].getIdMeal(), sortedMeals[i]);
+        }
+    }
+
+    /**
+     * Build a snapshot from meals; for duplicate IDs the last one wins.
+     *
+     * @param meals the meals (those without an ID are skipped)
+     * @return a new snapshot
+     */
+    public static CatalogSnapshot of(Collection<MealDetails> meals) {
+        Map<String, MealDetails> unique = new HashMap<>();
+        for (MealDetails meal : meals) {
+            if (meal != null && meal.getIdMeal() != null && !meal.getIdMeal().isBlank()) {
+                unique.put(meal.getIdMeal(), meal);
+            }
+        }
+        MealDetails[] sorted = unique.values().toArray(new MealDetails[0]);
+        Arrays.sort(sorted, BY_ID);
+        return new CatalogSnapshot(sorted);
+    }
+
+    /**
+     * The shard (search.php?f= letter) a meal is listed under.
+     *
+     * @param meal the meal
+     * @return its lower-case first letter or digit, or "" if it starts with anything else
+     */
+    public static String shardOf(MealDetails meal) {
+        String name = lower(meal.getStrMeal());
+        if (name.isEmpty() || SHARDS.indexOf(name.charAt(0)) < 0) {
+            return "";
+        }
+        return name.substring(0, 1);
+    }
+
+    /**
+     * A copy with one shard replaced by a fresh crawl of it.
+     * Meals of that shard that are not in the new list are dropped;
+     * meals of the list replace any meal with the same ID (e.g., a renamed one).
+     *
+     * @param shard the shard letter
+     * @param shardMeals everything search.php?f=shard returned
+     * @return the new snapshot (this one is unchanged)
+     */
+    public CatalogSnapshot withShard(String shard, List<MealDetails> shardMeals) {
+        List<MealDetails> merged = new ArrayList<>(meals.length + shardMeals.size());
+        for (MealDetails meal : meals) {
+            if (!shard.equals(shardOf(meal))) {
+                merged.add(meal);
+            }
+        }
+        merged.addAll(shardMeals);
+        return of(merged);
+    }
+
+    /**
+     * A copy with a delta batch applied: removed IDs are dropped,
+     * then each upserted meal is added or replaces the meal with its ID.
+     *
+     * @param delta the batch
+     * @return the new snapshot (this one is unchanged)
+     */
+    public CatalogSnapshot withDelta(CatalogDelta delta) {
+        Map<String, MealDetails> merged = new HashMap<>(byId);
+        for (String id : delta.getRemovedIds()) {
+            merged.remove(id);
+        }
+        for (MealDetails meal : delta.getUpserts()) {
+            merged.put(meal.getIdMeal(), meal);
+        }
+        return of(merged.values());
+    }
+
+    /**
+     * What changed from this snapshot to a later one. Meals are compared by
+     * identity: snapshots derived from each other share unchanged meal objects.
+     *
+     * @param next the later snapshot
+     * @return meals new or replaced in next, and IDs no longer in it
+     */
+    public CatalogDelta changesTo(CatalogSnapshot next) {
+        List<MealDetails> upserts = new ArrayList<>();
+        for (MealDetails meal : next.meals) {
+            if (byId.get(meal.getIdMeal()) != meal) {
+                upserts.add(meal);
+            }
+        }
+        List<String> removed = new ArrayList<>();
+        for (MealDetails meal : meals) {
+            if (!next.byId.containsKey(meal.getIdMeal())) {
+                removed.add(meal.getIdMeal());
+            }
+        }
+        return new CatalogDelta(upserts, removed);
+    }
+
+    /**
+     * @return the highest numeric meal ID, or -1 if there is none
+     */
+    public long highestId() {
+        // Sorted by length, then text: the last all-digit ID is the highest
+        for (int i = meals.length - 1; i >= 0; i--) {
+            String id = meals[i].getIdMeal();
+            if (id.length() <= 18 && id.chars().allMatch(c -> c >= '0' && c <= '9')) {
+                return Long.parseLong(id);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of meals
+     */
+    public int size() {
+        return meals.length;
+    }
+
+    /**
+     * @return every meal, in ID order (read-only)
+     */
+    public List<MealDetails> getMeals() {
+        return Collections.unmodifiableList(Arrays.asList(meals));
+    }
+
+    /**
+     * @param id meal ID (trimmed by the caller)
+     * @return the meal, or null if it is not in the snapshot
+     */
+    public MealDetails lookup(String id) {
+        return id == null ? null : byId.get(id);
+    }
+
+    /**
+     * @param query part of the name (case-insensitive)
+     * @return matching meals in ID order (empty if none)
+     */
+    public List<MealDetails> searchByName(String query) {
+        String q = lower(query).trim();
+        List<MealDetails> found = new ArrayList<>();
+        for (int i = 0; i < meals.length; i++) {
+            if (lowerNames[i].contains(q)) {
+                found.add(meals[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param letter first letter or digit of the name
+     * @return matching meals in ID order (empty if none or if letter is not one character)
+     */
+    public List<MealDetails> searchByFirstLetter(String letter) {
+        String f = lower(letter).trim();
+        List<MealDetails> found = new ArrayList<>();
+        if (f.length() != 1) {
+            return found;
+        }
+        for (int i = 0; i < meals.length; i++) {
+            if (lowerNames[i].startsWith(f)) {
+                found.add(meals[i]);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param ingredient ingredient name (case-insensitive, "_" = space, as in filter.php)
+     * @return meals using it, as list items in ID order (empty if none)
+     */
+    public List<MealListItem> searchByIngredient(String ingredient) {
+        String wanted = ingredient == null ? "" : ingredient.trim().replace('_', ' ');
+        List<MealListItem> found = new ArrayList<>();
+        if (wanted.isEmpty()) {
+            return found;
+        }
+        for (MealDetails meal : meals) {
+            for (int k = 0; k < meal.getIngredientCount(); k++) {
+                if (meal.getIngredient(k).equalsIgnoreCase(wanted)) {
+                    found.add(toListItem(meal));
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Meals matching every given facet, as filter.php?c= / filter.php?a= would find them.
+     *
+     * @param category category (case-insensitive), or null / blank for any
+     * @param area area (case-insensitive), or null / blank for any
+     * @return matching meals, as list items in ID order (every meal if both are blank)
+     */
+    public List<MealListItem> filter(String category, String area) {
+        String c = lower(category).trim();
+        String a = lower(area).trim();
+        List<MealListItem> found = new ArrayList<>();
+        for (MealDetails meal : meals) {
+            if ((c.isEmpty() || lower(meal.getStrCategory()).trim().equals(c))
+                    && (a.isEmpty() || lower(meal.getStrArea()).trim().equals(a))) {
+                found.add(toListItem(meal));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param random source of randomness
+     * @return a random meal, or null if the snapshot is empty
+     */
+    public MealDetails random(Random random) {
+        return meals.length == 0 ? null : meals[random.nextInt(meals.length)];
+    }
+
+    /**
+     * The short form filter.php returns.
+     *
+     * @param meal a full meal
+     * @return its id, name and thumbnail
+     */
+    static MealListItem toListItem(MealDetails meal) {
+        return new MealListItem(meal.getIdMeal(), meal.getStrMeal(), meal.getStrMealThumb());
+    }
+
+    private static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+}
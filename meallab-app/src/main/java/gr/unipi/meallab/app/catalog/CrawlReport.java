@@ -0,0 +1,77 @@
+package gr.unipi.meallab.app.catalog;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of one CatalogMirror crawl.
+ *
+ * A crawl that had failed shards can simply be run again: shards that were
+ * stored are checkpointed and skipped, only the failed ones are fetched.
+ */
+public final class CrawlReport {
+
+    private final List<String> fetched;
+    private final List<String> skipped;
+    private final Map<String, Throwable> failed;
+    private final int meals;
+    private final Duration elapsed;
+
+    CrawlReport(List<String> fetched, List<String> skipped, Map<String, Throwable> failed, int meals,
+                Duration elapsed) {
+        this.fetched = List.copyOf(fetched);
+        this.skipped = List.copyOf(skipped);
+        this.failed = Map.copyOf(failed);
+        this.meals = meals;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return shards fetched and stored by this crawl
+     */
+    public List<String> getFetchedShards() {
+        return fetched;
+    }
+
+    /**
+     * @return shards already stored by an earlier, interrupted run of the same crawl
+     */
+    public List<String> getSkippedShards() {
+        return skipped;
+    }
+
+    /**
+     * @return shards that could not be fetched, with the failure
+     */
+    public Map<String, Throwable> getFailedShards() {
+        return failed;
+    }
+
+    /**
+     * @return true if no shard failed (the crawl is finished)
+     */
+    public boolean isComplete() {
+        return failed.isEmpty();
+    }
+
+    /**
+     * @return meals in the mirror after the crawl
+     */
+    public int getMeals() {
+        return meals;
+    }
+
+    /**
+     * @return wall-clock time of the crawl
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("CrawlReport[fetched=%d, skipped=%d, failed=%s, meals=%d, elapsed=%dms]",
+                fetched.size(), skipped.size(), failed.keySet(), meals, elapsed.toMillis());
+    }
+}
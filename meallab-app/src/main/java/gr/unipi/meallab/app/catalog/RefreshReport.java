@@ -0,0 +1,94 @@
+package gr.unipi.meallab.app.catalog;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Outcome of one CatalogRefresher run.
+ *
+ * Failed lookups (network errors, HTTP errors) are only counted: the meals
+ * they concern are left as they are and get another chance on a later run.
+ */
+public final class RefreshReport {
+
+    private final int probed;
+    private final int checked;
+    private final List<String> added;
+    private final List<String> changed;
+    private final List<String> removed;
+    private final int failed;
+    private final Duration elapsed;
+
+    RefreshReport(int probed, int checked, List<String> added, List<String> changed, List<String> removed,
+                  int failed, Duration elapsed) {
+        this.probed = probed;
+        this.checked = checked;
+        this.added = List.copyOf(added);
+        this.changed = List.copyOf(changed);
+        this.removed = List.copyOf(removed);
+        this.failed = failed;
+        this.elapsed = elapsed;
+    }
+
+    /**
+     * @return IDs above the highest known one that were looked up
+     */
+    public int getProbed() {
+        return probed;
+    }
+
+    /**
+     * @return known meals re-checked as part of the rotating sample
+     */
+    public int getChecked() {
+        return checked;
+    }
+
+    /**
+     * @return IDs of new meals found by probing
+     */
+    public List<String> getAdded() {
+        return added;
+    }
+
+    /**
+     * @return IDs of sampled meals whose content changed
+     */
+    public List<String> getChanged() {
+        return changed;
+    }
+
+    /**
+     * @return IDs of sampled meals the API no longer knows
+     */
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return lookups that failed for another reason than "no such meal"
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    /**
+     * @return true if the run changed the mirror
+     */
+    public boolean hasChanges() {
+        return !added.isEmpty() || !changed.isEmpty() || !removed.isEmpty();
+    }
+
+    /**
+     * @return wall-clock time of the run
+     */
+    public Duration getElapsed() {
+        return elapsed;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("RefreshReport[probed=%d, checked=%d, added=%d, changed=%d, removed=%d, failed=%d, elapsed=%dms]",
+                probed, checked, added.size(), changed.size(), removed.size(), failed, elapsed.toMillis());
+    }
+}
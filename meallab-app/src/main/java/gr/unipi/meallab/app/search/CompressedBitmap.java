@@ -0,0 +1,541 @@
+package gr.unipi.meallab.app.search;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of non-negative ints (meal ordinals), in the style of Roaring bitmaps.
+ *
+ * Layout:
+ * - Values are split by their high 16 bits into chunks of 65536; only
+ *   non-empty chunks are stored, in key order
+ * - A chunk with at most 4096 values is a sorted char[] (2 bytes per value);
+ *   a denser one is a 65536-bit long[1024] (8 KB, any cardinality)
+ * So a rare ingredient costs a few bytes per meal, and one used by most meals
+ * costs about one bit per meal.
+ *
+ * Operations:
+ * - and / or / andNot build a new bitmap chunk by chunk, choosing the
+ *   merge, filter or word-wise loop that suits the two containers
+ * - andCardinality counts an intersection without building it
+ * - Results never share containers with their inputs, so any bitmap can be
+ *   modified with add() afterwards
+ *
+ * Not thread-safe while being modified; safe to read from many threads once
+ * published (e.g., through a volatile or final field).
+ */
+public final class CompressedBitmap {
+
+    private static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] keys;
+    private Object[] containers;
+    private int[] cards;
+    private int size;
+
+    /**
+     * Create an empty bitmap.
+     */
+    public CompressedBitmap() {
+        this(4);
+    }
+
+    private CompressedBitmap(int capacity) {
+        keys = new char[Math.max(1, capacity)];
+        containers = new Object[keys.length];
+        cards = new int[keys.length];
+    }
+
+    /**
+     * Create a bitmap holding 0..n-1.
+     *
+     * @param n number of values (>= 0)
+     * @return a new bitmap
+     */
+    public static CompressedBitmap range(int n) {
+        CompressedBitmap r = new CompressedBitmap((n >>> 16) + 1);
+        for (int start = 0; start < n; start += 1 << 16) {
+            int count = Math.min(1 << 16, n - start);
+            long[] bits = new long[WORDS];
+            Arrays.fill(bits, 0, count >>> 6, -1L);
+            if ((count & 63) != 0) {
+                bits[count >>> 6] = (1L << count) - 1;
+            }
+            r.append((char) (start >>> 16), count <= ARRAY_MAX ? toArray(bits, count) : bits, count);
+        }
+        return r;
+    }
+
+    /**
+     * Add a value. Adding values in increasing order is the fast path.
+     *
+     * @param value the value (>= 0)
+     */
+    public void add(int value) {
+        if (value < 0) {
+            throw new IllegalArgumentException("value must be >= 0");
+        }
+        char key = (char) (value >>> 16);
+        char low = (char) value;
+        int i;
+        if (size > 0 && keys[size - 1] == key) {
+            i = size - 1;
+        } else if (size == 0 || keys[size - 1] < key) {
+            append(key, new char[4], 0);
+            i = size - 1;
+        } else {
+            i = Arrays.binarySearch(keys, 0, size, key);
+            if (i < 0) {
+                i = -i - 1;
+                insert(i, key, new char[4], 0);
+            }
+        }
+
+        if (containers[i] instanceof long[] bits) {
+            long bit = 1L << low;
+            if ((bits[low >>> 6] & bit) == 0) {
+                bits[low >>> 6] |= bit;
+                cards[i]++;
+            }
+            return;
+        }
+        char[] arr = (char[]) containers[i];
+        int n = cards[i];
+        int pos = n;
+        if (n > 0 && arr[n - 1] >= low) {
+            pos = Arrays.binarySearch(arr, 0, n, low);
+            if (pos >= 0) {
+                return;
+            }
+            pos = -pos - 1;
+        }
+        if (n == ARRAY_MAX) {
+            long[] bits = toBits(arr, n);
+            bits[low >>> 6] |= 1L << low;
+            containers[i] = bits;
+            cards[i] = n + 1;
+            return;
+        }
+        if (n == arr.length) {
+            arr = Arrays.copyOf(arr, Math.min(ARRAY_MAX, n * 2));
+            containers[i] = arr;
+        }
+        System.arraycopy(arr, pos, arr, pos + 1, n - pos);
+        arr[pos] = low;
+        cards[i] = n + 1;
+    }
+
+    /**
+     * @param value the value
+     * @return true if the bitmap holds it
+     */
+    public boolean contains(int value) {
+        if (value < 0) {
+            return false;
+        }
+        int i = Arrays.binarySearch(keys, 0, size, (char) (value >>> 16));
+        if (i < 0) {
+            return false;
+        }
+        char low = (char) value;
+        if (containers[i] instanceof long[] bits) {
+            return (bits[low >>> 6] & (1L << low)) != 0;
+        }
+        return Arrays.binarySearch((char[]) containers[i], 0, cards[i], low) >= 0;
+    }
+
+    /**
+     * @return number of values
+     */
+    public int cardinality() {
+        int total = 0;
+        for (int i = 0; i < size; i++) {
+            total += cards[i];
+        }
+        return total;
+    }
+
+    /**
+     * @return true if there are no values
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Call an action for every value, in increasing order.
+     *
+     * @param action the action
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            int high = keys[i] << 16;
+            if (containers[i] instanceof long[] bits) {
+                for (int w = 0; w < WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        action.accept(high | (w << 6) | Long.numberOfTrailingZeros(word));
+                        word &= word - 1;
+                    }
+                }
+            } else {
+                char[] arr = (char[]) containers[i];
+                for (int k = 0; k < cards[i]; k++) {
+                    action.accept(high | arr[k]);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return every value, in increasing order
+     */
+    public int[] toArray() {
+        int[] out = new int[cardinality()];
+        int[] n = {0};
+        forEach(v -> out[n[0]++] = v);
+        return out;
+    }
+
+    /**
+     * @return approximate memory used by the containers, in bytes
+     */
+    public long sizeInBytes() {
+        long bytes = size * 16L;
+        for (int i = 0; i < size; i++) {
+            bytes += (containers[i] instanceof long[]) ? WORDS * 8L : ((char[]) containers[i]).length * 2L;
+        }
+        return bytes;
+    }
+
+    /**
+     * @return values in both a and b
+     */
+    public static CompressedBitmap and(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap r = new CompressedBitmap(Math.min(a.size, b.size));
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                andContainers(r, a.keys[i], a.containers[i], a.cards[i], b.containers[j], b.cards[j]);
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return values in a or b (or both)
+     */
+    public static CompressedBitmap or(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap r = new CompressedBitmap(a.size + b.size);
+        int i = 0;
+        int j = 0;
+        while (i < a.size || j < b.size) {
+            if (j == b.size || (i < a.size && a.keys[i] < b.keys[j])) {
+                r.append(a.keys[i], copy(a.containers[i]), a.cards[i]);
+                i++;
+            } else if (i == a.size || a.keys[i] > b.keys[j]) {
+                r.append(b.keys[j], copy(b.containers[j]), b.cards[j]);
+                j++;
+            } else {
+                orContainers(r, a.keys[i], a.containers[i], a.cards[i], b.containers[j], b.cards[j]);
+                i++;
+                j++;
+            }
+        }
+        return r;
+    }
+
+    /**
+     * @return values in a but not in b
+     */
+    public static CompressedBitmap andNot(CompressedBitmap a, CompressedBitmap b) {
+        CompressedBitmap r = new CompressedBitmap(a.size);
+        int j = 0;
+        for (int i = 0; i < a.size; i++) {
+            while (j < b.size && b.keys[j] < a.keys[i]) {
+                j++;
+            }
+            if (j < b.size && b.keys[j] == a.keys[i]) {
+                andNotContainers(r, a.keys[i], a.containers[i], a.cards[i], b.containers[j], b.cards[j]);
+            } else {
+                r.append(a.keys[i], copy(a.containers[i]), a.cards[i]);
+            }
+        }
+        return r;
+    }
+
+    /**
+     * Size of the intersection, without building it.
+     *
+     * @return number of values in both a and b
+     */
+    public static int andCardinality(CompressedBitmap a, CompressedBitmap b) {
+        int total = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.size && j < b.size) {
+            if (a.keys[i] < b.keys[j]) {
+                i++;
+            } else if (a.keys[i] > b.keys[j]) {
+                j++;
+            } else {
+                total += andCount(a.containers[i], a.cards[i], b.containers[j], b.cards[j]);
+                i++;
+                j++;
+            }
+        }
+        return total;
+    }
+
+    // --- Container operations ---
+
+    private static void andContainers(CompressedBitmap r, char key, Object c1, int n1, Object c2, int n2) {
+        if (c1 instanceof char[] a1 && c2 instanceof char[] a2) {
+            char[] out = new char[Math.min(n1, n2)];
+            int n = intersect(a1, n1, a2, n2, out);
+            r.appendIfNotEmpty(key, out, n);
+        } else if (c1 instanceof char[] a1) {
+            r.appendIfNotEmpty(key, out(a1, n1, (long[]) c2, true), -1);
+        } else if (c2 instanceof char[] a2) {
+            r.appendIfNotEmpty(key, out(a2, n2, (long[]) c1, true), -1);
+        } else {
+            long[] b1 = (long[]) c1;
+            long[] b2 = (long[]) c2;
+            long[] bits = new long[WORDS];
+            int n = 0;
+            for (int w = 0; w < WORDS; w++) {
+                bits[w] = b1[w] & b2[w];
+                n += Long.bitCount(bits[w]);
+            }
+            r.appendIfNotEmpty(key, n <= ARRAY_MAX ? toArray(bits, n) : bits, n);
+        }
+    }
+
+    private static void orContainers(CompressedBitmap r, char key, Object c1, int n1, Object c2, int n2) {
+        if (c1 instanceof char[] a1 && c2 instanceof char[] a2 && n1 + n2 <= ARRAY_MAX) {
+            char[] out = new char[n1 + n2];
+            int n = 0;
+            int i = 0;
+            int j = 0;
+            while (i < n1 && j < n2) {
+                if (a1[i] < a2[j]) {
+                    out[n++] = a1[i++];
+                } else if (a1[i] > a2[j]) {
+                    out[n++] = a2[j++];
+                } else {
+                    out[n++] = a1[i++];
+                    j++;
+                }
+            }
+            while (i < n1) {
+                out[n++] = a1[i++];
+            }
+            while (j < n2) {
+                out[n++] = a2[j++];
+            }
+            r.append(key, out, n);
+            return;
+        }
+        long[] bits = (c1 instanceof long[] b1) ? b1.clone() : toBits((char[]) c1, n1);
+        if (c2 instanceof long[] b2) {
+            for (int w = 0; w < WORDS; w++) {
+                bits[w] |= b2[w];
+            }
+        } else {
+            char[] a2 = (char[]) c2;
+            for (int k = 0; k < n2; k++) {
+                bits[a2[k] >>> 6] |= 1L << a2[k];
+            }
+        }
+        int n = 0;
+        for (long word : bits) {
+            n += Long.bitCount(word);
+        }
+        r.append(key, n <= ARRAY_MAX ? toArray(bits, n) : bits, n);
+    }
+
+    private static void andNotContainers(CompressedBitmap r, char key, Object c1, int n1, Object c2, int n2) {
+        if (c1 instanceof char[] a1 && c2 instanceof char[] a2) {
+            char[] out = new char[n1];
+            int n = 0;
+            int j = 0;
+            for (int i = 0; i < n1; i++) {
+                while (j < n2 && a2[j] < a1[i]) {
+                    j++;
+                }
+                if (j == n2 || a2[j] != a1[i]) {
+                    out[n++] = a1[i];
+                }
+            }
+            r.appendIfNotEmpty(key, out, n);
+        } else if (c1 instanceof char[] a1) {
+            r.appendIfNotEmpty(key, out(a1, n1, (long[]) c2, false), -1);
+        } else {
+            long[] bits = ((long[]) c1).clone();
+            if (c2 instanceof long[] b2) {
+                for (int w = 0; w < WORDS; w++) {
+                    bits[w] &= ~b2[w];
+                }
+            } else {
+                char[] a2 = (char[]) c2;
+                for (int k = 0; k < n2; k++) {
+                    bits[a2[k] >>> 6] &= ~(1L << a2[k]);
+                }
+            }
+            int n = 0;
+            for (long word : bits) {
+                n += Long.bitCount(word);
+            }
+            r.appendIfNotEmpty(key, n <= ARRAY_MAX ? toArray(bits, n) : bits, n);
+        }
+    }
+
+    private static int andCount(Object c1, int n1, Object c2, int n2) {
+        if (c1 instanceof char[] a1 && c2 instanceof char[] a2) {
+            return intersect(a1, n1, a2, n2, null);
+        }
+        if (c1 instanceof char[] || c2 instanceof char[]) {
+            char[] arr = (c1 instanceof char[] a1) ? a1 : (char[]) c2;
+            int n = (c1 instanceof char[]) ? n1 : n2;
+            long[] bits = (c1 instanceof long[] b1) ? b1 : (long[]) c2;
+            int count = 0;
+            for (int k = 0; k < n; k++) {
+                if ((bits[arr[k] >>> 6] & (1L << arr[k])) != 0) {
+                    count++;
+                }
+            }
+            return count;
+        }
+        long[] b1 = (long[]) c1;
+        long[] b2 = (long[]) c2;
+        int count = 0;
+        for (int w = 0; w < WORDS; w++) {
+            count += Long.bitCount(b1[w] & b2[w]);
+        }
+        return count;
+    }
+
+    /**
+     * Intersect two sorted arrays into out (or just count, if out is null).
+     * Gallops through the larger one when the sizes are very different.
+     */
+    private static int intersect(char[] a1, int n1, char[] a2, int n2, char[] out) {
+        if (n1 > n2) {
+            return intersect(a2, n2, a1, n1, out);
+        }
+        int n = 0;
+        if (n1 * 32 < n2) {
+            int from = 0;
+            for (int i = 0; i < n1 && from < n2; i++) {
+                int pos = Arrays.binarySearch(a2, from, n2, a1[i]);
+                if (pos >= 0) {
+                    if (out != null) {
+                        out[n] = a1[i];
+                    }
+                    n++;
+                    from = pos + 1;
+                } else {
+                    from = -pos - 1;
+                }
+            }
+            return n;
+        }
+        int i = 0;
+        int j = 0;
+        while (i < n1 && j < n2) {
+            if (a1[i] < a2[j]) {
+                i++;
+            } else if (a1[i] > a2[j]) {
+                j++;
+            } else {
+                if (out != null) {
+                    out[n] = a1[i];
+                }
+                n++;
+                i++;
+                j++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * The values of a sorted array that are (keep = true) or are not (keep = false) in a bitmap container.
+     */
+    private static char[] out(char[] arr, int n, long[] bits, boolean keep) {
+        char[] out = new char[n];
+        int m = 0;
+        for (int k = 0; k < n; k++) {
+            boolean in = (bits[arr[k] >>> 6] & (1L << arr[k])) != 0;
+            if (in == keep) {
+                out[m++] = arr[k];
+            }
+        }
+        return Arrays.copyOf(out, m);
+    }
+
+    private static long[] toBits(char[] arr, int n) {
+        long[] bits = new long[WORDS];
+        for (int k = 0; k < n; k++) {
+            bits[arr[k] >>> 6] |= 1L << arr[k];
+        }
+        return bits;
+    }
+
+    private static char[] toArray(long[] bits, int n) {
+        char[] out = new char[n];
+        int m = 0;
+        for (int w = 0; w < WORDS; w++) {
+            long word = bits[w];
+            while (word != 0) {
+                out[m++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                word &= word - 1;
+            }
+        }
+        return out;
+    }
+
+    private static Object copy(Object container) {
+        return (container instanceof long[] bits) ? bits.clone() : ((char[]) container).clone();
+    }
+
+    // --- Chunk list ---
+
+    /**
+     * Append a result container unless it is empty; card -1 means "the array's length".
+     */
+    private void appendIfNotEmpty(char key, Object container, int card) {
+        int n = (card >= 0) ? card : ((char[]) container).length;
+        if (n > 0) {
+            append(key, container, n);
+        }
+    }
+
+    private void append(char key, Object container, int card) {
+        insert(size, key, container, card);
+    }
+
+    private void insert(int i, char key, Object container, int card) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            containers = Arrays.copyOf(containers, capacity);
+            cards = Arrays.copyOf(cards, capacity);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(containers, i, containers, i + 1, size - i);
+        System.arraycopy(cards, i, cards, i + 1, size - i);
+        keys[i] = key;
+        containers[i] = container;
+        cards[i] = card;
+        size++;
+    }
+}
@@ -0,0 +1,522 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.app.catalog.CatalogDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local full-text search over meal names, categories, areas and instructions,
+ * ranked with BM25.
+ *
+ * Why?
+ * - search.php?s= only matches a substring of the name, unranked, and the
+ *   instructions cannot be searched remotely at all
+ *
+ * Text:
+ * - tokenize() splits on anything but letters and digits, lowercases, drops
+ *   one-letter words and common English stop words, and strips plural
+ *   endings ("tomatoes" -> "tomato", "cherries" -> "cherry", "eggs" -> "egg")
+ * - Fields are weighted by repeating their terms: a word in the name counts
+ *   3 times, in the category or area 2 times, in the instructions once
+ *
+ * Data:
+ * - Each meal gets an ordinal; each term a posting list of (ordinal, weighted
+ *   term frequency), appended in ordinal order
+ * - A replaced or removed meal's ordinal is only marked dead; once dead
+ *   ordinals outnumber live ones, the postings are rebuilt without them
+ *
+ * Ranking (query terms are OR-ed):
+ *   score = sum over query terms of idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * len / avgLen))
+ *   idf = ln(1 + (N - df + 0.5) / (df + 0.5))
+ * where N and df count live meals. Scores are accumulated per ordinal, one
+ * posting list at a time; the best offset + limit are kept in a bounded
+ * min-heap, so ranking a page costs O(matches * log(page end)).
+ *
+ * Updates:
+ * - add() / addAll() index meals as their details arrive; adding a meal with
+ *   the same text again is a no-op, changed text replaces the old entry
+ * - apply() takes a CatalogDelta, so the index can follow
+ *   CatalogMirror.addListener()
+ *
+ * Thread-safe: searches share a read lock, updates take the write lock.
+ */
+public class FullTextIndex {
+
+    /** BM25 term frequency saturation. */
+    public static final double K1 = 1.2;
+
+    /** BM25 document length normalization (0 = none, 1 = full). */
+    public static final double B = 0.75;
+
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int AREA_WEIGHT = 2;
+    private static final int INSTRUCTIONS_WEIGHT = 1;
+
+    // Rebuild the postings once this many ordinals are dead (and more than are live)
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+            "an", "and", "are", "as", "at", "be", "by", "for", "from", "if", "in", "into", "is", "it",
+            "its", "of", "on", "or", "so", "than", "that", "the", "then", "this", "to", "until", "up",
+            "with");
+
+    /**
+     * Posting list of one term.
+     */
+    private static final class Postings {
+        int[] ordinals = new int[2];
+        int[] tfs = new int[2];
+        int size;
+        int live;
+
+        void add(int ordinal, int tf) {
+            if (size == ordinals.length) {
+                ordinals = Arrays.copyOf(ordinals, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            ordinals[size] = ordinal;
+            tfs[size] = tf;
+            size++;
+            live++;
+        }
+    }
+
+    /**
+     * An indexed meal; the text fields are kept to detect changes and to re-tokenize on removal.
+     */
+    private static final class Doc {
+        final MealListItem item;
+        final String name;
+        final String category;
+        final String area;
+        final String instructions;
+        final int length;
+
+        Doc(MealDetails meal, int length) {
+            this.item = new MealListItem(meal.getIdMeal(), meal.getStrMeal(), meal.getStrMealThumb());
+            this.name = meal.getStrMeal();
+            this.category = meal.getStrCategory();
+            this.area = meal.getStrArea();
+            this.instructions = meal.getStrInstructions();
+            this.length = length;
+        }
+
+        boolean sameText(MealDetails meal) {
+            return Objects.equals(name, meal.getStrMeal()) && Objects.equals(category, meal.getStrCategory())
+                    && Objects.equals(area, meal.getStrArea())
+                    && Objects.equals(instructions, meal.getStrInstructions())
+                    && Objects.equals(item.getStrMealThumb(), meal.getStrMealThumb());
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All guarded by lock
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private Doc[] docs = new Doc[16];
+    // Length of each ordinal's document, -1 once dead; scoring reads only this and the postings
+    private int[] lengths = new int[16];
+    private int next;
+    private int live;
+    private long totalLength;
+
+    /**
+     * Split text into index terms (see the class comment).
+     *
+     * @param text any text (may be null)
+     * @return the terms in order, duplicates included
+     */
+    public static List<String> tokenize(String text) {
+        if (text == null) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        StringBuilder word = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = (i < text.length()) ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                String term = word.toString().toLowerCase(Locale.ROOT);
+                word.setLength(0);
+                if (term.length() > 1 && !STOP_WORDS.contains(term)) {
+                    terms.add(stem(term));
+                }
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Strip a plural ending; both documents and queries go through this,
+     * so it only has to be consistent, not linguistically right.
+     */
+    private static String stem(String term) {
+        int n = term.length();
+        if (n > 4 && term.endsWith("ies")) {
+            return term.substring(0, n - 3) + "y";
+        }
+        if (n > 4 && term.endsWith("oes")) {
+            return term.substring(0, n - 2);
+        }
+        if (n > 3 && term.endsWith("s") && !term.endsWith("ss") && !term.endsWith("us") && !term.endsWith("is")) {
+            return term.substring(0, n - 1);
+        }
+        return term;
+    }
+
+    /**
+     * Index a meal, replacing an earlier entry with the same ID if its text changed.
+     *
+     * @param meal the meal (ignored if null or without an ID)
+     */
+    public void add(MealDetails meal) {
+        if (meal == null || meal.getIdMeal() == null) {
+            return;
+        }
+        Map<String, int[]> tfs = termFrequencies(meal.getStrMeal(), meal.getStrCategory(), meal.getStrArea(),
+                meal.getStrInstructions());
+        int length = 0;
+        for (int[] tf : tfs.values()) {
+            length += tf[0];
+        }
+
+        lock.writeLock().lock();
+        try {
+            Integer old = ordinalsById.get(meal.getIdMeal());
+            if (old != null) {
+                if (docs[old].sameText(meal)) {
+                    return;
+                }
+                unindex(old);
+            }
+            insert(new Doc(meal, length), tfs);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index several meals.
+     *
+     * @param meals the meals
+     */
+    public void addAll(Collection<MealDetails> meals) {
+        for (MealDetails meal : meals) {
+            add(meal);
+        }
+    }
+
+    /**
+     * Remove a meal.
+     *
+     * @param id the meal ID
+     */
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a catalog change: index the upserts, remove the removed IDs.
+     *
+     * @param delta the change (e.g., from CatalogMirror.addListener())
+     */
+    public void apply(CatalogDelta delta) {
+        addAll(delta.getUpserts());
+        for (String id : delta.getRemovedIds()) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Best matches first.
+     *
+     * @param query free text (tokenized like the meals)
+     * @param offset number of best hits to skip (for paging, >= 0)
+     * @param limit max number of hits to return (>= 0)
+     * @return hits ranked by BM25 score, ties in the order the meals were added
+     */
+    public List<SearchHit> search(String query, int offset, int limit) {
+        if (offset < 0 || limit < 0) {
+            throw new IllegalArgumentException("offset and limit must be >= 0");
+        }
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        if (terms.isEmpty() || limit == 0) {
+            return Collections.emptyList();
+        }
+
+        lock.readLock().lock();
+        try {
+            if (live == 0) {
+                return Collections.emptyList();
+            }
+            float[] scores = score(terms);
+            TopK top = new TopK((int) Math.min((long) offset + limit, live));
+            for (int ordinal = 0; ordinal < next; ordinal++) {
+                if (scores[ordinal] > 0) {
+                    top.offer(ordinal, scores[ordinal]);
+                }
+            }
+            int[] ranked = top.drain();
+            List<SearchHit> hits = new ArrayList<>(Math.max(0, ranked.length - offset));
+            for (int i = offset; i < ranked.length; i++) {
+                hits.add(new SearchHit(docs[ranked[i]].item, scores[ranked[i]]));
+            }
+            return hits;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param query free text
+     * @param limit max number of hits
+     * @return the first page of hits
+     */
+    public List<SearchHit> search(String query, int limit) {
+        return search(query, 0, limit);
+    }
+
+    /**
+     * @return number of indexed meals
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return number of distinct terms with a posting list (including terms
+     *         only used by removed meals, until the next compaction)
+     */
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return postings.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Internals (callers hold the lock) ---
+
+    /**
+     * Term -> {weighted frequency}, in order of first appearance.
+     */
+    private static Map<String, int[]> termFrequencies(String name, String category, String area,
+                                                      String instructions) {
+        Map<String, int[]> tfs = new LinkedHashMap<>();
+        count(tfs, name, NAME_WEIGHT);
+        count(tfs, category, CATEGORY_WEIGHT);
+        count(tfs, area, AREA_WEIGHT);
+        count(tfs, instructions, INSTRUCTIONS_WEIGHT);
+        return tfs;
+    }
+
+    private static Map<String, int[]> termFrequencies(Doc doc) {
+        return termFrequencies(doc.name, doc.category, doc.area, doc.instructions);
+    }
+
+    private static void count(Map<String, int[]> tfs, String text, int weight) {
+        for (String term : tokenize(text)) {
+            tfs.computeIfAbsent(term, t -> new int[1])[0] += weight;
+        }
+    }
+
+    private void insert(Doc doc, Map<String, int[]> tfs) {
+        int ordinal = next++;
+        if (ordinal == docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+            lengths = Arrays.copyOf(lengths, docs.length);
+        }
+        for (Map.Entry<String, int[]> e : tfs.entrySet()) {
+            postings.computeIfAbsent(e.getKey(), t -> new Postings()).add(ordinal, e.getValue()[0]);
+        }
+        docs[ordinal] = doc;
+        lengths[ordinal] = doc.length;
+        ordinalsById.put(doc.item.getIdMeal(), ordinal);
+        live++;
+        totalLength += doc.length;
+    }
+
+    private void unindex(int ordinal) {
+        Doc doc = docs[ordinal];
+        for (String term : termFrequencies(doc).keySet()) {
+            postings.get(term).live--;
+        }
+        docs[ordinal] = null;
+        lengths[ordinal] = -1;
+        ordinalsById.remove(doc.item.getIdMeal());
+        live--;
+        totalLength -= doc.length;
+    }
+
+    /**
+     * Rebuild the postings without dead ordinals once they dominate.
+     */
+    private void compactIfNeeded() {
+        int dead = next - live;
+        if (dead < MIN_DEAD_TO_COMPACT || dead <= live) {
+            return;
+        }
+        Doc[] old = docs;
+        int oldNext = next;
+        postings.clear();
+        ordinalsById.clear();
+        docs = new Doc[Math.max(16, live)];
+        lengths = new int[docs.length];
+        next = 0;
+        live = 0;
+        totalLength = 0;
+        for (int ordinal = 0; ordinal < oldNext; ordinal++) {
+            Doc doc = old[ordinal];
+            if (doc != null) {
+                insert(doc, termFrequencies(doc));
+            }
+        }
+    }
+
+    /**
+     * BM25 score of every ordinal (0 = no query term, or dead).
+     */
+    private float[] score(Set<String> terms) {
+        float[] scores = new float[next];
+        double avgLength = (double) totalLength / live;
+        float base = (float) (K1 * (1 - B));
+        float perLength = (float) (K1 * B / avgLength);
+        for (String term : terms) {
+            Postings p = postings.get(term);
+            if (p == null || p.live == 0) {
+                continue;
+            }
+            float idf = (float) Math.log(1 + (live - p.live + 0.5) / (p.live + 0.5));
+            float weight = idf * (float) (K1 + 1);
+            int[] ordinals = p.ordinals;
+            int[] tfs = p.tfs;
+            for (int i = 0; i < p.size; i++) {
+                int length = lengths[ordinals[i]];
+                if (length >= 0) {
+                    int tf = tfs[i];
+                    scores[ordinals[i]] += weight * tf / (tf + base + perLength * length);
+                }
+            }
+        }
+        return scores;
+    }
+
+    /**
+     * Bounded min-heap of (score, ordinal): keeps the k best seen so far.
+     * On equal scores the lower ordinal wins.
+     */
+    private static final class TopK {
+        final int[] ordinals;
+        final float[] scores;
+        int size;
+
+        TopK(int k) {
+            ordinals = new int[k];
+            scores = new float[k];
+        }
+
+        void offer(int ordinal, float score) {
+            if (ordinals.length == 0) {
+                return;
+            }
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                up(size++);
+            } else if (worse(ordinals[0], scores[0], ordinal, score)) {
+                ordinals[0] = ordinal;
+                scores[0] = score;
+                down(0);
+            }
+        }
+
+        /**
+         * @return the ordinals, best first (empties the heap)
+         */
+        int[] drain() {
+            int[] out = new int[size];
+            for (int i = size - 1; i >= 0; i--) {
+                out[i] = ordinals[0];
+                size--;
+                ordinals[0] = ordinals[size];
+                scores[0] = scores[size];
+                down(0);
+            }
+            return out;
+        }
+
+        /** Whether (o1, s1) ranks below (o2, s2). */
+        private static boolean worse(int o1, float s1, int o2, float s2) {
+            return s1 < s2 || (s1 == s2 && o1 > o2);
+        }
+
+        private void up(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!worse(ordinals[i], scores[i], ordinals[parent], scores[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void down(int i) {
+            while (true) {
+                int smallest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (worse(ordinals[child], scores[child], ordinals[smallest], scores[smallest])) {
+                        smallest = child;
+                    }
+                }
+                if (smallest == i) {
+                    return;
+                }
+                swap(i, smallest);
+                i = smallest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            int o = ordinals[i];
+            ordinals[i] = ordinals[j];
+            ordinals[j] = o;
+            float s = scores[i];
+            scores[i] = scores[j];
+            scores[j] = s;
+        }
+    }
+}
@@ -0,0 +1,425 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.app.catalog.CatalogDelta;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant, accent-insensitive meal name search.
+ *
+ * Why?
+ * - search.php?s= wants the exact spelling: "mousaka" and "Μουσακάς" find
+ *   nothing, although "Moussaka" is in the catalog
+ *
+ * Normalization (fold()):
+ * - Unicode NFKD, then combining marks are dropped ("crème brûlée" -> "creme brulee")
+ * - Lowercase; Greek letters are transliterated ("Μουσακάς" -> "mousakas")
+ * - Anything but letters and digits becomes a single space
+ *
+ * Search:
+ * 1. Candidates: meals sharing the most character trigrams with the query
+ *    (names padded with spaces, so word starts and ends count too)
+ * 2. Re-rank: edit distance between the query and the closest part of the
+ *    name (so "teriyaki" matches "Teriyaki Chicken Casserole" exactly),
+ *    then trigram overlap, then the shorter name
+ * 3. Keep matches within maxEdits(query length): 1 edit up to 4 characters,
+ *    2 up to 8, 3 beyond
+ * Hits carry score = 1 - edits / query length (1 = exact).
+ *
+ * Updates work like FullTextIndex: add() replaces a meal with the same ID,
+ * apply() follows CatalogMirror deltas, dead entries are dropped by a
+ * periodic rebuild. Thread-safe (read/write lock).
+ */
+public class FuzzyNameIndex {
+
+    // Trigram candidates re-ranked by edit distance, at least
+    private static final int MIN_CANDIDATES = 64;
+
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    // Fewest edits, then most shared trigrams, then the shortest name
+    private static final Comparator<Match> BEST_FIRST = Comparator.<Match>comparingInt(m -> m.edits)
+            .thenComparingInt(m -> -m.shared)
+            .thenComparingInt(m -> m.entry.folded.length())
+            .thenComparingInt(m -> m.ordinal);
+
+    private static final String[] GREEK = new String[0x3ca];
+
+    static {
+        String[][] letters = {
+                {"α", "a"}, {"β", "v"}, {"γ", "g"}, {"δ", "d"}, {"ε", "e"}, {"ζ", "z"}, {"η", "i"},
+                {"θ", "th"}, {"ι", "i"}, {"κ", "k"}, {"λ", "l"}, {"μ", "m"}, {"ν", "n"}, {"ξ", "x"},
+                {"ο", "o"}, {"π", "p"}, {"ρ", "r"}, {"ς", "s"}, {"σ", "s"}, {"τ", "t"}, {"υ", "y"},
+                {"φ", "f"}, {"χ", "ch"}, {"ψ", "ps"}, {"ω", "o"}
+        };
+        for (String[] letter : letters) {
+            GREEK[letter[0].charAt(0)] = letter[1];
+        }
+    }
+
+    /**
+     * One indexed name.
+     */
+    private static final class Entry {
+        final MealDetails meal;
+        final MealListItem item;
+        final String folded;
+
+        Entry(MealDetails meal, String folded) {
+            this.meal = meal;
+            this.item = new MealListItem(meal.getIdMeal(), meal.getStrMeal(), meal.getStrMealThumb());
+            this.folded = folded;
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All guarded by lock
+    private final Map<String, int[]> postings = new HashMap<>();
+    private final Map<String, Integer> ordinalsById = new HashMap<>();
+    private Entry[] entries = new Entry[16];
+    private int next;
+    private int live;
+
+    /**
+     * Fold a name or query for comparison (see the class comment).
+     *
+     * @param text any text (may be null)
+     * @return the folded text, words separated by single spaces
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFKD).toLowerCase(Locale.ROOT);
+        StringBuilder sb = new StringBuilder(decomposed.length());
+        boolean space = true;
+        for (int i = 0; i < decomposed.length(); i++) {
+            char c = decomposed.charAt(i);
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (c == 'ο' && i + 1 < decomposed.length() && decomposed.charAt(i + 1) == 'υ') {
+                sb.append("ou");
+                i++;
+                space = false;
+            } else if (c < GREEK.length && GREEK[c] != null) {
+                sb.append(GREEK[c]);
+                space = false;
+            } else if (Character.isLetterOrDigit(c)) {
+                sb.append(c);
+                space = false;
+            } else if (!space) {
+                sb.append(' ');
+                space = true;
+            }
+        }
+        int end = sb.length();
+        return (end > 0 && sb.charAt(end - 1) == ' ') ? sb.substring(0, end - 1) : sb.toString();
+    }
+
+    /**
+     * @param queryLength folded query length
+     * @return edits a match may be away from the query
+     */
+    static int maxEdits(int queryLength) {
+        return (queryLength <= 4) ? 1 : (queryLength <= 8) ? 2 : 3;
+    }
+
+    /**
+     * Index a meal's name, replacing an earlier entry with the same ID.
+     *
+     * @param meal the meal (ignored if null or without an ID)
+     */
+    public void add(MealDetails meal) {
+        if (meal == null || meal.getIdMeal() == null) {
+            return;
+        }
+        String folded = fold(meal.getStrMeal());
+        lock.writeLock().lock();
+        try {
+            Integer old = ordinalsById.get(meal.getIdMeal());
+            if (old != null) {
+                if (entries[old].meal == meal) {
+                    return;
+                }
+                unindex(old);
+            }
+            insert(new Entry(meal, folded));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Index several meals.
+     *
+     * @param meals the meals
+     */
+    public void addAll(Collection<MealDetails> meals) {
+        for (MealDetails meal : meals) {
+            add(meal);
+        }
+    }
+
+    /**
+     * Remove a meal.
+     *
+     * @param id the meal ID
+     */
+    public void remove(String id) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinalsById.get(id);
+            if (ordinal != null) {
+                unindex(ordinal);
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply a catalog change: index the upserts, remove the removed IDs.
+     *
+     * @param delta the change (e.g., from CatalogMirror.addListener())
+     */
+    public void apply(CatalogDelta delta) {
+        addAll(delta.getUpserts());
+        for (String id : delta.getRemovedIds()) {
+            remove(id);
+        }
+    }
+
+    /**
+     * Closest names first.
+     *
+     * @param query a name, possibly misspelled or accented
+     * @param limit max number of hits (>= 0)
+     * @return hits, best first; score 1 means the name contains the query exactly
+     */
+    public List<SearchHit> search(String query, int limit) {
+        int length = fold(query).length();
+        List<SearchHit> hits = new ArrayList<>();
+        for (Match match : match(query, limit)) {
+            hits.add(new SearchHit(match.entry.item, 1.0 - (double) match.edits / length));
+        }
+        return hits;
+    }
+
+    /**
+     * Like search(), but returning the full meals.
+     *
+     * @param query a name, possibly misspelled or accented
+     * @param limit max number of meals (>= 0)
+     * @return meals, closest names first
+     */
+    public List<MealDetails> searchMeals(String query, int limit) {
+        List<MealDetails> meals = new ArrayList<>();
+        for (Match match : match(query, limit)) {
+            meals.add(match.entry.meal);
+        }
+        return meals;
+    }
+
+    /**
+     * @return number of indexed meals
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // --- Matching ---
+
+    /**
+     * A candidate that survived the edit distance check.
+     */
+    private static final class Match {
+        final int ordinal;
+        final Entry entry;
+        final int edits;
+        final int shared;
+
+        Match(int ordinal, Entry entry, int edits, int shared) {
+            this.ordinal = ordinal;
+            this.entry = entry;
+            this.edits = edits;
+            this.shared = shared;
+        }
+    }
+
+    private List<Match> match(String query, int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("limit must be >= 0");
+        }
+        String q = fold(query);
+        if (q.isEmpty() || limit == 0) {
+            return Collections.emptyList();
+        }
+        int allowed = maxEdits(q.length());
+
+        lock.readLock().lock();
+        try {
+            // 1. Shared trigram counts per ordinal
+            int[] shared = new int[next];
+            Set<String> grams = trigrams(q);
+            for (String gram : grams) {
+                int[] list = postings.get(gram);
+                if (list != null) {
+                    for (int i = 1; i <= list[0]; i++) {
+                        shared[list[i]]++;
+                    }
+                }
+            }
+
+            // 2. Candidates: the most shared trigrams, at least minShared (each edit
+            //    destroys at most 3 of the query's trigrams); a histogram of the
+            //    counts gives the cut-off without sorting
+            int minShared = Math.max(1, grams.size() - 3 * allowed);
+            int maxCandidates = Math.max(MIN_CANDIDATES, limit * 4);
+            int[] histogram = new int[grams.size() + 1];
+            for (int ordinal = 0; ordinal < next; ordinal++) {
+                if (entries[ordinal] != null) {
+                    histogram[shared[ordinal]]++;
+                }
+            }
+            int cutoff = grams.size();
+            int taken = histogram[cutoff];
+            while (cutoff > minShared && taken + histogram[cutoff - 1] <= maxCandidates) {
+                cutoff--;
+                taken += histogram[cutoff];
+            }
+            // The first count that did not fit whole fills the remaining places, lowest ordinals first
+            int partial = (cutoff > minShared) ? cutoff - 1 : -1;
+            int room = maxCandidates - taken;
+            List<Integer> candidates = new ArrayList<>();
+            for (int ordinal = 0; ordinal < next; ordinal++) {
+                if (entries[ordinal] != null
+                        && (shared[ordinal] >= cutoff || (shared[ordinal] == partial && room-- > 0))) {
+                    candidates.add(ordinal);
+                }
+            }
+
+            // 3. Re-rank by edit distance
+            List<Match> ranked = new ArrayList<>();
+            for (int ordinal : candidates) {
+                int edits = substringDistance(q, entries[ordinal].folded);
+                if (edits <= allowed) {
+                    ranked.add(new Match(ordinal, entries[ordinal], edits, shared[ordinal]));
+                }
+            }
+            ranked.sort(BEST_FIRST);
+            return ranked.subList(0, Math.min(limit, ranked.size()));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Trigrams of " " + text + " ".
+     */
+    static Set<String> trigrams(String folded) {
+        String padded = " " + folded + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Fewest edits (insert, delete, substitute) turning the query into some
+     * substring of the text (Sellers' algorithm: free start and end in text).
+     */
+    static int substringDistance(String query, String text) {
+        int m = query.length();
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int i = 0; i <= m; i++) {
+            prev[i] = i;
+        }
+        int best = m;
+        for (int j = 1; j <= text.length() && best > 0; j++) {
+            char t = text.charAt(j - 1);
+            cur[0] = 0;
+            for (int i = 1; i <= m; i++) {
+                int cost = (query.charAt(i - 1) == t) ? 0 : 1;
+                cur[i] = Math.min(Math.min(cur[i - 1] + 1, prev[i] + 1), prev[i - 1] + cost);
+            }
+            best = Math.min(best, cur[m]);
+            int[] swap = prev;
+            prev = cur;
+            cur = swap;
+        }
+        return best;
+    }
+
+    // --- Internals (callers hold the write lock) ---
+
+    private void insert(Entry entry) {
+        int ordinal = next++;
+        if (ordinal == entries.length) {
+            entries = Arrays.copyOf(entries, entries.length * 2);
+        }
+        for (String gram : trigrams(entry.folded)) {
+            // list[0] is the size, the ordinals follow
+            int[] list = postings.get(gram);
+            if (list == null) {
+                list = new int[4];
+            } else if (list[0] + 1 == list.length) {
+                list = Arrays.copyOf(list, list.length * 2);
+            }
+            list[++list[0]] = ordinal;
+            postings.put(gram, list);
+        }
+        entries[ordinal] = entry;
+        ordinalsById.put(entry.item.getIdMeal(), ordinal);
+        live++;
+    }
+
+    private void unindex(int ordinal) {
+        ordinalsById.remove(entries[ordinal].item.getIdMeal());
+        entries[ordinal] = null;
+        live--;
+    }
+
+    private void compactIfNeeded() {
+        int dead = next - live;
+        if (dead < MIN_DEAD_TO_COMPACT || dead <= live) {
+            return;
+        }
+        Entry[] old = entries;
+        int oldNext = next;
+        postings.clear();
+        ordinalsById.clear();
+        entries = new Entry[Math.max(16, live)];
+        next = 0;
+        live = 0;
+        for (int ordinal = 0; ordinal < oldNext; ordinal++) {
+            if (old[ordinal] != null) {
+                insert(old[ordinal]);
+            }
+        }
+    }
+}
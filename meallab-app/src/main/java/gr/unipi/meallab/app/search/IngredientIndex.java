@@ -0,0 +1,209 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.app.catalog.CatalogDelta;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory inverted index: normalized ingredient name -> meals using it.
+ *
+ * Why?
+ * - filter.php?i= costs a network round trip per query, and scanning every
+ *   meal's ingredients (CatalogSnapshot.searchByIngredient) grows with the
+ *   catalog; a posting list answers in time proportional to the result
+ *
+ * Semantics match filter.php?i=, so local and remote answers agree:
+ * - exact ingredient name, case-insensitive, "_" = space (extra spaces ignored)
+ * - results are MealListItems (id, name, thumbnail) in ID order
+ *
+ * Updates:
+ * - add() / addAll() index meals from any source (the mirror, the detail
+ *   cache, a file); adding a meal again replaces its previous entry
+ * - apply() takes a CatalogDelta, so the index can follow
+ *   CatalogMirror.addListener()
+ * - Readers never block. Writers are serialized; a meal that is being
+ *   replaced may briefly be missing from its ingredients' lists
+ *
+ * Completeness:
+ * - search() only knows the meals it was given; an empty answer is
+ *   trustworthy only after markComplete(), i.e. once the owner knows every
+ *   meal of the catalog has been added, and until markIncomplete().
+ *   isComplete() tells callers whether to fall back to the API
+ */
+public class IngredientIndex {
+
+    // Numeric IDs as numbers ("999" < "52772"), anything else after them (as CatalogSnapshot)
+    private static final Comparator<String> BY_ID = Comparator.comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    private final Map<String, ConcurrentSkipListMap<String, MealListItem>> postings = new ConcurrentHashMap<>();
+
+    // Normalized ingredients of each indexed meal, to unindex it on replace/remove; written under "this"
+    private final Map<String, String[]> ingredientsById = new ConcurrentHashMap<>();
+
+    private volatile boolean complete;
+
+    /**
+     * Normalize an ingredient name the way filter.php?i= compares them.
+     *
+     * @param ingredient raw name (may be null)
+     * @return trimmed, lower-case, "_" as space, runs of spaces collapsed ("" for null)
+     */
+    public static String normalize(String ingredient) {
+        if (ingredient == null) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder(ingredient.length());
+        boolean space = false;
+        for (int i = 0; i < ingredient.length(); i++) {
+            char c = ingredient.charAt(i);
+            if (c == '_' || Character.isWhitespace(c)) {
+                space = sb.length() > 0;
+            } else {
+                if (space) {
+                    sb.append(' ');
+                    space = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Index a meal, replacing its previous entry if it was indexed before.
+     *
+     * @param meal the meal (ignored if null or without an ID)
+     */
+    public synchronized void add(MealDetails meal) {
+        if (meal == null || meal.getIdMeal() == null || meal.getIdMeal().isBlank()) {
+            return;
+        }
+        String id = meal.getIdMeal();
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < meal.getIngredientCount(); i++) {
+            String key = normalize(meal.getIngredient(i));
+            if (!key.isEmpty()) {
+                keys.add(key);
+            }
+        }
+        String[] previous = ingredientsById.put(id, keys.toArray(new String[0]));
+        if (previous != null) {
+            for (String key : previous) {
+                if (!keys.contains(key)) {
+                    unpost(key, id);
+                }
+            }
+        }
+        MealListItem item = new MealListItem(id, meal.getStrMeal(), meal.getStrMealThumb());
+        for (String key : keys) {
+            postings.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>(BY_ID)).put(id, item);
+        }
+    }
+
+    /**
+     * Index many meals.
+     *
+     * @param meals the meals
+     */
+    public synchronized void addAll(Collection<MealDetails> meals) {
+        for (MealDetails meal : meals) {
+            add(meal);
+        }
+    }
+
+    /**
+     * Drop a meal from the index.
+     *
+     * @param id the meal ID
+     */
+    public synchronized void remove(String id) {
+        String[] previous = ingredientsById.remove(id);
+        if (previous != null) {
+            for (String key : previous) {
+                unpost(key, id);
+            }
+        }
+    }
+
+    /**
+     * Apply a batch of catalog changes.
+     *
+     * @param delta the changes
+     */
+    public synchronized void apply(CatalogDelta delta) {
+        for (String id : delta.getRemovedIds()) {
+            remove(id);
+        }
+        addAll(delta.getUpserts());
+    }
+
+    /**
+     * Declare that every meal of the catalog has been added, so empty
+     * answers are definite. Keep the index updated afterwards.
+     */
+    public void markComplete() {
+        complete = true;
+    }
+
+    /**
+     * Declare that some meals of the catalog may be missing (e.g., its
+     * source lost part of the catalog), so callers fall back to the API again.
+     */
+    public void markIncomplete() {
+        complete = false;
+    }
+
+    /**
+     * @return true if markComplete() was called, and markIncomplete() not since
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Meals using an ingredient.
+     *
+     * @param ingredient ingredient name (case-insensitive, "_" = space)
+     * @return matching meals in ID order (empty if none)
+     */
+    public List<MealListItem> search(String ingredient) {
+        ConcurrentSkipListMap<String, MealListItem> posting = postings.get(normalize(ingredient));
+        return posting == null ? new ArrayList<>() : new ArrayList<>(posting.values());
+    }
+
+    /**
+     * @return number of indexed meals
+     */
+    public int size() {
+        return ingredientsById.size();
+    }
+
+    /**
+     * @return number of distinct (normalized) ingredients
+     */
+    public int ingredientCount() {
+        return postings.size();
+    }
+
+    private void unpost(String key, String id) {
+        ConcurrentSkipListMap<String, MealListItem> posting = postings.get(key);
+        if (posting != null) {
+            posting.remove(id);
+            if (posting.isEmpty()) {
+                postings.remove(key);
+            }
+        }
+    }
+}
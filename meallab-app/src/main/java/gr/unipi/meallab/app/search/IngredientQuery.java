@@ -0,0 +1,399 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.model.MealListItem;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A parsed multi-ingredient query, e.g. "chicken AND garlic NOT peanut".
+ *
+ * Syntax:
+ * - An ingredient is one or more words ("olive oil"); quote it if it
+ *   contains an operator word ("\"salt and pepper\"")
+ * - AND, OR and NOT (any case) combine ingredients; "a NOT b" means
+ *   "a AND NOT b"; a query may start with NOT ("NOT peanut")
+ * - AND binds tighter than OR; parentheses group:
+ *   "(beef OR lamb) AND garlic NOT (peanut OR cashew nuts)"
+ * Ingredients are compared as IngredientIndex.normalize() does, so the
+ * single-ingredient query "Soy_Sauce" means the same as filter.php?i=Soy_Sauce.
+ *
+ * IngredientQueryEngine evaluates queries over the local catalog;
+ * MealLabService.searchByIngredients() falls back to one filter.php?i=
+ * call per ingredient while the catalog is not available.
+ */
+public final class IngredientQuery {
+
+    /**
+     * A node of the parsed query.
+     */
+    abstract static class Node {
+    }
+
+    /** One ingredient (normalized). */
+    static final class Term extends Node {
+        final String ingredient;
+
+        Term(String ingredient) {
+            this.ingredient = ingredient;
+        }
+
+        @Override
+        public String toString() {
+            return "\"" + ingredient + "\"";
+        }
+    }
+
+    /** Meals matching every child (NOT children are subtracted). */
+    static final class And extends Node {
+        final List<Node> children;
+
+        And(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " AND ");
+        }
+    }
+
+    /** Meals matching any child. */
+    static final class Or extends Node {
+        final List<Node> children;
+
+        Or(List<Node> children) {
+            this.children = children;
+        }
+
+        @Override
+        public String toString() {
+            return join(children, " OR ");
+        }
+    }
+
+    /** Meals not matching the child. */
+    static final class Not extends Node {
+        final Node child;
+
+        Not(Node child) {
+            this.child = child;
+        }
+
+        @Override
+        public String toString() {
+            return "NOT " + child;
+        }
+    }
+
+    // Numeric IDs as numbers ("999" < "52772"), as CatalogSnapshot orders them
+    private static final Comparator<String> BY_ID = Comparator.comparingInt(String::length)
+            .thenComparing(Comparator.naturalOrder());
+
+    private final String text;
+    private final Node root;
+
+    private IngredientQuery(String text, Node root) {
+        this.text = text;
+        this.root = root;
+    }
+
+    /**
+     * Parse a query.
+     *
+     * @param text the query
+     * @return the parsed query
+     * @throws IllegalArgumentException if the query is empty or malformed
+     *         (the message says what was expected where)
+     */
+    public static IngredientQuery parse(String text) {
+        Parser parser = new Parser(tokenize(text == null ? "" : text));
+        Node root = parser.or();
+        if (parser.pos < parser.tokens.size()) {
+            throw new IllegalArgumentException("Unexpected '" + parser.tokens.get(parser.pos) + "' in query: " + text);
+        }
+        return new IngredientQuery(text, root);
+    }
+
+    /**
+     * Whether the input uses the query syntax (an operator word or a parenthesis),
+     * as opposed to being a single ingredient name.
+     *
+     * @param input user input (may be null)
+     * @return true if it should be parsed as a query
+     */
+    public static boolean isQuery(String input) {
+        if (input == null) {
+            return false;
+        }
+        for (String token : tokenize(input)) {
+            if (token.equals("(") || token.equals(")") || operator(token) != null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the distinct ingredients the query mentions (normalized), in order of appearance
+     */
+    public Set<String> getIngredients() {
+        Set<String> out = new LinkedHashSet<>();
+        collect(root, out);
+        return out;
+    }
+
+    /**
+     * Whether evaluating the query needs the list of all meals: a NOT with
+     * nothing to subtract from ("NOT peanut", "chicken OR NOT garlic").
+     *
+     * @return true if only IngredientQueryEngine can answer it
+     */
+    public boolean needsCatalog() {
+        return needsCatalog(root);
+    }
+
+    /**
+     * Evaluate the query over per-ingredient result lists, e.g. one
+     * filter.php?i= answer per ingredient.
+     *
+     * @param lists meals of each ingredient of getIngredients() (normalized name -> meals)
+     * @return matching meals in ID order
+     * @throws IllegalArgumentException if needsCatalog() is true
+     */
+    public List<MealListItem> evaluate(Map<String, List<MealListItem>> lists) {
+        if (needsCatalog()) {
+            throw new IllegalArgumentException("NOT needs an ingredient to subtract from: " + text);
+        }
+        List<MealListItem> out = new ArrayList<>(evaluate(root, lists).values());
+        out.sort(Comparator.comparing(MealListItem::getIdMeal, BY_ID));
+        return out;
+    }
+
+    /**
+     * @return the text the query was parsed from
+     */
+    public String getText() {
+        return text;
+    }
+
+    Node root() {
+        return root;
+    }
+
+    /**
+     * @return the query with explicit grouping, e.g. ("chicken" AND "garlic" AND NOT "peanut")
+     */
+    @Override
+    public String toString() {
+        return root.toString();
+    }
+
+    // --- Evaluation over result lists ---
+
+    private static boolean needsCatalog(Node node) {
+        if (node instanceof Term) {
+            return false;
+        }
+        if (node instanceof Not) {
+            return true;
+        }
+        if (node instanceof Or or) {
+            return or.children.stream().anyMatch(IngredientQuery::needsCatalog);
+        }
+        boolean positive = false;
+        for (Node child : ((And) node).children) {
+            Node inner = (child instanceof Not not) ? not.child : child;
+            positive |= !(child instanceof Not);
+            if (needsCatalog(inner)) {
+                return true;
+            }
+        }
+        return !positive;
+    }
+
+    private static Map<String, MealListItem> evaluate(Node node, Map<String, List<MealListItem>> lists) {
+        if (node instanceof Term term) {
+            Map<String, MealListItem> out = new LinkedHashMap<>();
+            for (MealListItem item : lists.getOrDefault(term.ingredient, List.of())) {
+                out.put(item.getIdMeal(), item);
+            }
+            return out;
+        }
+        if (node instanceof Or or) {
+            Map<String, MealListItem> out = new LinkedHashMap<>();
+            for (Node child : or.children) {
+                out.putAll(evaluate(child, lists));
+            }
+            return out;
+        }
+        Map<String, MealListItem> out = null;
+        for (Node child : ((And) node).children) {
+            if (!(child instanceof Not)) {
+                Map<String, MealListItem> matches = evaluate(child, lists);
+                if (out == null) {
+                    out = matches;
+                } else {
+                    out.keySet().retainAll(matches.keySet());
+                }
+            }
+        }
+        for (Node child : ((And) node).children) {
+            if (child instanceof Not not) {
+                out.keySet().removeAll(evaluate(not.child, lists).keySet());
+            }
+        }
+        return out;
+    }
+
+    // --- Parsing ---
+
+    private static void collect(Node node, Set<String> out) {
+        if (node instanceof Term term) {
+            out.add(term.ingredient);
+        } else if (node instanceof Not not) {
+            collect(not.child, out);
+        } else {
+            for (Node child : (node instanceof And and) ? and.children : ((Or) node).children) {
+                collect(child, out);
+            }
+        }
+    }
+
+    private static String join(List<Node> children, String separator) {
+        StringBuilder sb = new StringBuilder("(");
+        for (int i = 0; i < children.size(); i++) {
+            if (i > 0) {
+                sb.append(separator);
+            }
+            sb.append(children.get(i));
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Split into "(", ")", words and quoted strings (kept with their leading quote).
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < text.length()) {
+            char c = text.charAt(i);
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (c == '(' || c == ')') {
+                tokens.add(String.valueOf(c));
+                i++;
+            } else if (c == '"') {
+                int end = text.indexOf('"', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed quote in query: " + text);
+                }
+                tokens.add(text.substring(i, end));
+                i = end + 1;
+            } else {
+                int start = i;
+                while (i < text.length() && !Character.isWhitespace(text.charAt(i))
+                        && "()\"".indexOf(text.charAt(i)) < 0) {
+                    i++;
+                }
+                tokens.add(text.substring(start, i));
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * @return "AND", "OR" or "NOT" if the token is that operator word, else null
+     */
+    private static String operator(String token) {
+        String upper = token.toUpperCase(Locale.ROOT);
+        return (upper.equals("AND") || upper.equals("OR") || upper.equals("NOT")) ? upper : null;
+    }
+
+    /**
+     * Recursive descent: or := and (OR and)*; and := unary ((AND [NOT] | NOT) unary)*;
+     * unary := NOT unary | "(" or ")" | ingredient.
+     */
+    private static final class Parser {
+        final List<String> tokens;
+        int pos;
+
+        Parser(List<String> tokens) {
+            this.tokens = tokens;
+        }
+
+        Node or() {
+            List<Node> children = new ArrayList<>();
+            children.add(and());
+            while (accept("OR")) {
+                children.add(and());
+            }
+            return children.size() == 1 ? children.get(0) : new Or(children);
+        }
+
+        Node and() {
+            List<Node> children = new ArrayList<>();
+            children.add(unary());
+            while (true) {
+                if (accept("AND")) {
+                    children.add(unary());
+                } else if (peekOperator("NOT")) {
+                    children.add(unary());
+                } else {
+                    break;
+                }
+            }
+            return children.size() == 1 ? children.get(0) : new And(children);
+        }
+
+        Node unary() {
+            if (accept("NOT")) {
+                return new Not(unary());
+            }
+            if (pos < tokens.size() && tokens.get(pos).equals("(")) {
+                pos++;
+                Node inner = or();
+                if (pos >= tokens.size() || !tokens.get(pos).equals(")")) {
+                    throw new IllegalArgumentException("Missing ')' in query");
+                }
+                pos++;
+                return inner;
+            }
+            StringBuilder name = new StringBuilder();
+            while (pos < tokens.size()) {
+                String token = tokens.get(pos);
+                if (token.equals("(") || token.equals(")") || operator(token) != null) {
+                    break;
+                }
+                name.append(name.length() > 0 ? " " : "").append(token.startsWith("\"") ? token.substring(1) : token);
+                pos++;
+            }
+            String ingredient = IngredientIndex.normalize(name.toString());
+            if (ingredient.isEmpty()) {
+                throw new IllegalArgumentException(pos < tokens.size()
+                        ? "Expected an ingredient before '" + tokens.get(pos) + "'"
+                        : "Expected an ingredient at the end of the query");
+            }
+            return new Term(ingredient);
+        }
+
+        boolean accept(String op) {
+            if (peekOperator(op)) {
+                pos++;
+                return true;
+            }
+            return false;
+        }
+
+        boolean peekOperator(String op) {
+            return pos < tokens.size() && op.equals(operator(tokens.get(pos)));
+        }
+    }
+}
@@ -0,0 +1,233 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.app.catalog.CatalogSnapshot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Evaluates IngredientQuery expressions (AND / OR / NOT) over a whole catalog.
+ *
+ * Data:
+ * - Every meal gets a dense ordinal (0, 1, 2, ... in the order added;
+ *   of(snapshot) adds in ID order, so results come out in ID order)
+ * - Each ingredient's posting list is a CompressedBitmap of ordinals;
+ *   "all" holds every ordinal, for NOT
+ *
+ * Planning:
+ * - An AND intersects its positive children smallest first (by cardinality,
+ *   estimated for sub-expressions) and stops as soon as the result is empty;
+ *   then it subtracts its NOT children, largest first
+ * - An AND without positive children starts from all meals
+ * - count() never creates MealListItems, and the last intersection of a
+ *   plain AND is only counted (CompressedBitmap.andCardinality)
+ *
+ * Built once (add() everything, then query); immutable afterwards by
+ * convention, so it can be shared between threads once published.
+ * MealLabService builds one per catalog snapshot, on first use.
+ */
+public final class IngredientQueryEngine {
+
+    private static final CompressedBitmap EMPTY = new CompressedBitmap();
+
+    private final CatalogSnapshot snapshot;
+    private final List<MealListItem> items = new ArrayList<>();
+    private final Map<String, CompressedBitmap> postings = new HashMap<>();
+    private final CompressedBitmap all = new CompressedBitmap();
+
+    // Raw ingredient spelling -> normalized form; most meals share the same spellings
+    private final Map<String, String> normalized = new HashMap<>();
+
+    /**
+     * Create an empty engine; fill it with add().
+     */
+    public IngredientQueryEngine() {
+        this(null);
+    }
+
+    private IngredientQueryEngine(CatalogSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Build an engine over a catalog snapshot.
+     *
+     * @param snapshot the catalog
+     * @return the engine (getSnapshot() returns the snapshot)
+     */
+    public static IngredientQueryEngine of(CatalogSnapshot snapshot) {
+        IngredientQueryEngine engine = new IngredientQueryEngine(snapshot);
+        for (MealDetails meal : snapshot.getMeals()) {
+            engine.add(meal);
+        }
+        return engine;
+    }
+
+    /**
+     * Add a meal under the next ordinal.
+     *
+     * @param meal the meal
+     */
+    public void add(MealDetails meal) {
+        int ordinal = items.size();
+        items.add(new MealListItem(meal.getIdMeal(), meal.getStrMeal(), meal.getStrMealThumb()));
+        all.add(ordinal);
+        for (int i = 0; i < meal.getIngredientCount(); i++) {
+            String key = normalized.computeIfAbsent(meal.getIngredient(i), IngredientIndex::normalize);
+            if (!key.isEmpty()) {
+                postings.computeIfAbsent(key, k -> new CompressedBitmap()).add(ordinal);
+            }
+        }
+    }
+
+    /**
+     * @return the snapshot this engine was built from (null if built with add())
+     */
+    public CatalogSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return number of meals
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * @param query a query (see IngredientQuery)
+     * @return matching meals, in the order they were added
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public List<MealListItem> search(String query) {
+        return search(IngredientQuery.parse(query));
+    }
+
+    /**
+     * @param query a parsed query
+     * @return matching meals, in the order they were added
+     */
+    public List<MealListItem> search(IngredientQuery query) {
+        CompressedBitmap result = evaluate(query.root());
+        List<MealListItem> out = new ArrayList<>(result.cardinality());
+        result.forEach(ordinal -> out.add(items.get(ordinal)));
+        return out;
+    }
+
+    /**
+     * @param query a query (see IngredientQuery)
+     * @return number of matching meals
+     * @throws IllegalArgumentException if the query is malformed
+     */
+    public int count(String query) {
+        return count(IngredientQuery.parse(query));
+    }
+
+    /**
+     * @param query a parsed query
+     * @return number of matching meals (no result list is built)
+     */
+    public int count(IngredientQuery query) {
+        IngredientQuery.Node root = query.root();
+        if (root instanceof IngredientQuery.And and && and.children.size() >= 2
+                && and.children.stream().noneMatch(c -> c instanceof IngredientQuery.Not)) {
+            List<IngredientQuery.Node> ordered = bySize(and.children);
+            CompressedBitmap acc = evaluate(ordered.get(0));
+            for (int i = 1; i < ordered.size() - 1 && !acc.isEmpty(); i++) {
+                acc = CompressedBitmap.and(acc, evaluate(ordered.get(i)));
+            }
+            return acc.isEmpty() ? 0 : CompressedBitmap.andCardinality(acc, evaluate(ordered.get(ordered.size() - 1)));
+        }
+        return evaluate(root).cardinality();
+    }
+
+    // --- Evaluation ---
+
+    /**
+     * @return the node's matches; may be a posting list itself, so never modify it
+     */
+    CompressedBitmap evaluate(IngredientQuery.Node node) {
+        if (node instanceof IngredientQuery.Term term) {
+            return postings.getOrDefault(term.ingredient, EMPTY);
+        }
+        if (node instanceof IngredientQuery.Not not) {
+            return CompressedBitmap.andNot(all, evaluate(not.child));
+        }
+        if (node instanceof IngredientQuery.Or or) {
+            List<IngredientQuery.Node> ordered = bySize(or.children);
+            CompressedBitmap acc = evaluate(ordered.get(0));
+            for (int i = 1; i < ordered.size(); i++) {
+                acc = CompressedBitmap.or(acc, evaluate(ordered.get(i)));
+            }
+            return acc;
+        }
+
+        List<IngredientQuery.Node> positive = new ArrayList<>();
+        List<IngredientQuery.Node> negative = new ArrayList<>();
+        for (IngredientQuery.Node child : ((IngredientQuery.And) node).children) {
+            if (child instanceof IngredientQuery.Not not) {
+                negative.add(not.child);
+            } else {
+                positive.add(child);
+            }
+        }
+        CompressedBitmap acc = all;
+        boolean first = true;
+        for (IngredientQuery.Node child : bySize(positive)) {
+            acc = first ? evaluate(child) : CompressedBitmap.and(acc, evaluate(child));
+            first = false;
+            if (acc.isEmpty()) {
+                return acc;
+            }
+        }
+        List<IngredientQuery.Node> subtract = bySize(negative);
+        for (int i = subtract.size() - 1; i >= 0 && !acc.isEmpty(); i--) {
+            acc = CompressedBitmap.andNot(acc, evaluate(subtract.get(i)));
+        }
+        return acc;
+    }
+
+    /**
+     * Children ordered by estimated result size, smallest first.
+     */
+    private List<IngredientQuery.Node> bySize(List<IngredientQuery.Node> nodes) {
+        List<IngredientQuery.Node> ordered = new ArrayList<>(nodes);
+        Map<IngredientQuery.Node, Integer> estimates = new HashMap<>();
+        for (IngredientQuery.Node node : nodes) {
+            estimates.put(node, estimate(node));
+        }
+        ordered.sort(Comparator.comparing(estimates::get));
+        return ordered;
+    }
+
+    /**
+     * Upper bound of a node's result size, without evaluating it.
+     */
+    private int estimate(IngredientQuery.Node node) {
+        if (node instanceof IngredientQuery.Term term) {
+            return postings.getOrDefault(term.ingredient, EMPTY).cardinality();
+        }
+        if (node instanceof IngredientQuery.Not not) {
+            return items.size() - (not.child instanceof IngredientQuery.Term ? estimate(not.child) : 0);
+        }
+        if (node instanceof IngredientQuery.Or or) {
+            long sum = 0;
+            for (IngredientQuery.Node child : or.children) {
+                sum += estimate(child);
+            }
+            return (int) Math.min(sum, items.size());
+        }
+        int min = items.size();
+        for (IngredientQuery.Node child : ((IngredientQuery.And) node).children) {
+            if (!(child instanceof IngredientQuery.Not)) {
+                min = Math.min(min, estimate(child));
+            }
+        }
+        return min;
+    }
+}
@@ -0,0 +1,416 @@
+package gr.unipi.meallab.app.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prefix autocomplete: the most popular terms starting with what was typed.
+ *
+ * Terms:
+ * - add(term, weight) adds to a term's popularity (weight 0 just makes it
+ *   known, e.g. a name from list.php?i=list); the first spelling seen is
+ *   the one suggested
+ * - put(source, terms) counts a source (e.g., a meal ID) once towards each
+ *   of its terms: putting it again only moves its weight from the terms it
+ *   no longer has to the new ones, and remove(source) takes it back, so
+ *   popularity counts sources, not how often each was seen
+ * - Matching ignores case and accents (FuzzyNameIndex.fold), and works from
+ *   the start of any word: "chick" suggests "Teriyaki Chicken Casserole"
+ *
+ * Structure (rebuilt in the background after a change):
+ * - A sorted array of keys (the folded term and each of its word-suffixes),
+ *   each pointing to its term; the keys with a given prefix are one range,
+ *   found by two binary searches
+ * - A rebuild sorts only the keys of terms added since the last one and
+ *   merges them in, so learning a few terms costs O(keys), not a full sort
+ * - A sparse table over the range's weights answers "most popular key in
+ *   [lo, hi)" in O(1); the top k come from a small heap of sub-ranges,
+ *   O(k log k) however many keys share the prefix
+ *
+ * Rebuilds:
+ * - A change schedules one rebuild on the executor (by default on the
+ *   common pool, DEBOUNCE_MILLIS after the change); changes made until it
+ *   runs, or while it runs, are folded into it or its next pass, so a burst
+ *   of add() calls (e.g., a catalog shard) costs a few rebuilds, not one each
+ * - complete() never rebuilds: it reads the last published snapshot, so a
+ *   keystroke on the UI thread never pays for a rebuild; terms added a
+ *   moment ago may be missing until it is published
+ * - published() tells when every change made so far is visible
+ *
+ * Thread-safe: updates are synchronized, rebuilds copy what they need under
+ * the lock and sort / merge outside it, lookups read an immutable snapshot
+ * through a volatile field.
+ */
+public class PrefixCompleter {
+
+    /** Default delay between a change and the rebuild that publishes it. */
+    public static final long DEBOUNCE_MILLIS = 20;
+
+    /**
+     * Immutable lookup structure.
+     */
+    private static final class Snapshot {
+        final String[] keys;
+        final int[] termOf;
+        final long[] weights;
+        final String[] terms;
+        // table[j][i] = position of the highest weight in keys[i .. i + 2^j)
+        final int[][] table;
+
+        Snapshot(String[] keys, int[] termOf, long[] weights, String[] terms) {
+            this.keys = keys;
+            this.termOf = termOf;
+            this.weights = weights;
+            this.terms = terms;
+            int n = keys.length;
+            int levels = 1;
+            while ((1 << levels) <= n) {
+                levels++;
+            }
+            table = new int[levels][];
+            table[0] = new int[n];
+            for (int i = 0; i < n; i++) {
+                table[0][i] = i;
+            }
+            for (int j = 1; j < levels; j++) {
+                int half = 1 << (j - 1);
+                table[j] = new int[n - (1 << j) + 1];
+                for (int i = 0; i < table[j].length; i++) {
+                    table[j][i] = better(table[j - 1][i], table[j - 1][i + half]);
+                }
+            }
+        }
+
+        /** The higher weight; on a tie the earlier key (alphabetical order). */
+        int better(int a, int b) {
+            return weights[b] > weights[a] ? b : a;
+        }
+
+        /** Position of the highest weight in [lo, hi), hi > lo. */
+        int best(int lo, int hi) {
+            int j = 31 - Integer.numberOfLeadingZeros(hi - lo);
+            return better(table[j][lo], table[j][hi - (1 << j)]);
+        }
+
+        /** First position whose key is >= key. */
+        int lowerBound(String key) {
+            int lo = 0;
+            int hi = keys.length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (keys[mid].compareTo(key) < 0) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
+            }
+            return lo;
+        }
+    }
+
+    /**
+     * What a rebuild needs, copied from the mutable state.
+     */
+    private static final class Changes {
+        // Every term, in id order
+        final String[] terms;
+        // Folded forms of the terms the old snapshot does not have yet
+        final List<String> added;
+        // Current weight of every term
+        final long[] weights;
+
+        Changes(String[] terms, List<String> added, long[] weights) {
+            this.terms = terms;
+            this.added = added;
+            this.weights = weights;
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(new String[0], new int[0], new long[0], new String[0]);
+
+    // Folded term -> index into terms / folded / weights; guarded by "this"
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> terms = new ArrayList<>();
+    private final List<String> folded = new ArrayList<>();
+    private long[] weights = new long[16];
+    // Source -> ids of the terms it counts towards; guarded by "this"
+    private final Map<String, Set<Integer>> sources = new HashMap<>();
+    // Changed since the last snapshot / a rebuild is scheduled or running; guarded by "this"
+    private boolean dirty;
+    private boolean rebuilding;
+    private CompletableFuture<Void> published = CompletableFuture.completedFuture(null);
+
+    private final Executor executor;
+    private volatile Snapshot snapshot = EMPTY;
+
+    /**
+     * Create a completer that rebuilds on the common pool, DEBOUNCE_MILLIS after a change.
+     */
+    public PrefixCompleter() {
+        this(CompletableFuture.delayedExecutor(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * Create a completer.
+     *
+     * @param executor executor that runs the rebuilds
+     */
+    public PrefixCompleter(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Add to a term's popularity.
+     *
+     * @param term the term as it should be suggested (ignored if blank)
+     * @param weight popularity to add (>= 0; 0 only makes the term known)
+     */
+    public synchronized void add(String term, long weight) {
+        learn(term, weight);
+        scheduleRebuild();
+    }
+
+    /**
+     * Count a source once towards each of its terms, replacing what it
+     * counted towards before.
+     *
+     * @param source what the terms come from (e.g., a meal ID)
+     * @param terms its terms (blank ones and repeats ignored)
+     */
+    public synchronized void put(String source, Collection<String> terms) {
+        Set<Integer> now = new HashSet<>();
+        for (String term : terms) {
+            Integer id = learn(term, 0);
+            if (id != null) {
+                now.add(id);
+            }
+        }
+        Set<Integer> before = sources.put(source, now);
+        reweigh(before == null ? Set.of() : before, now);
+        scheduleRebuild();
+    }
+
+    /**
+     * Take back what a source counted towards (the terms stay known).
+     *
+     * @param source the source given to put()
+     */
+    public synchronized void remove(String source) {
+        Set<Integer> before = sources.remove(source);
+        if (before != null) {
+            reweigh(before, Set.of());
+            scheduleRebuild();
+        }
+    }
+
+    private void reweigh(Set<Integer> before, Set<Integer> now) {
+        for (Integer id : before) {
+            if (!now.contains(id)) {
+                weights[id]--;
+                dirty = true;
+            }
+        }
+        for (Integer id : now) {
+            if (!before.contains(id)) {
+                weights[id]++;
+                dirty = true;
+            }
+        }
+    }
+
+    /**
+     * @return the term's id, or null if it is blank
+     */
+    private Integer learn(String term, long weight) {
+        if (weight < 0) {
+            throw new IllegalArgumentException("weight must be >= 0");
+        }
+        String key = FuzzyNameIndex.fold(term);
+        if (key.isEmpty()) {
+            return null;
+        }
+        Integer id = ids.get(key);
+        if (id == null) {
+            id = terms.size();
+            ids.put(key, id);
+            terms.add(term.trim());
+            folded.add(key);
+            if (id == weights.length) {
+                weights = Arrays.copyOf(weights, id * 2);
+            }
+            dirty = true;
+        }
+        if (weight > 0) {
+            weights[id] += weight;
+            dirty = true;
+        }
+        return id;
+    }
+
+    /**
+     * Make several terms known (weight 0).
+     *
+     * @param terms the terms
+     */
+    public synchronized void addAll(Collection<String> terms) {
+        for (String term : terms) {
+            learn(term, 0);
+        }
+        scheduleRebuild();
+    }
+
+    /**
+     * @return future that completes once every change made before this call
+     *         is visible to complete()
+     */
+    public synchronized CompletableFuture<Void> published() {
+        return published;
+    }
+
+    /**
+     * @return number of distinct terms
+     */
+    public synchronized int size() {
+        return terms.size();
+    }
+
+    /**
+     * The most popular terms with a word starting with the prefix.
+     *
+     * @param prefix what was typed so far
+     * @param limit max number of suggestions (>= 0)
+     * @return suggestions, most popular first (alphabetical among equals);
+     *         empty for a blank prefix
+     */
+    public List<String> complete(String prefix, int limit) {
+        String key = FuzzyNameIndex.fold(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Snapshot s = snapshot;
+        int lo = s.lowerBound(key);
+        int hi = s.lowerBound(key + Character.MAX_VALUE);
+        if (lo >= hi) {
+            return Collections.emptyList();
+        }
+
+        // {lo, hi, best position}: pop the best range, then split it around that position
+        PriorityQueue<int[]> ranges = new PriorityQueue<>((a, b) -> {
+            int byWeight = Long.compare(s.weights[b[2]], s.weights[a[2]]);
+            return byWeight != 0 ? byWeight : Integer.compare(a[2], b[2]);
+        });
+        ranges.add(new int[] {lo, hi, s.best(lo, hi)});
+        Set<String> out = new LinkedHashSet<>();
+        while (!ranges.isEmpty() && out.size() < limit) {
+            int[] range = ranges.poll();
+            int at = range[2];
+            out.add(s.terms[s.termOf[at]]);
+            if (range[0] < at) {
+                ranges.add(new int[] {range[0], at, s.best(range[0], at)});
+            }
+            if (at + 1 < range[1]) {
+                ranges.add(new int[] {at + 1, range[1], s.best(at + 1, range[1])});
+            }
+        }
+        return new ArrayList<>(out);
+    }
+
+    private void scheduleRebuild() {
+        if (dirty && !rebuilding) {
+            rebuilding = true;
+            published = new CompletableFuture<>();
+            executor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Publish snapshots until one includes every change; only one runs at a time.
+     */
+    private void rebuild() {
+        while (true) {
+            Snapshot old = snapshot;
+            Changes changes = takeChanges(old);
+            if (changes == null) {
+                return;
+            }
+            snapshot = build(old, changes);
+        }
+    }
+
+    /**
+     * Copy what a rebuild needs under the lock, so the sort and merge run
+     * outside it and add() never waits for them.
+     *
+     * @return the changes since old, or null (and published() completed) if there are none
+     */
+    private Changes takeChanges(Snapshot old) {
+        CompletableFuture<Void> done;
+        synchronized (this) {
+            if (dirty) {
+                dirty = false;
+                String[] all = terms.toArray(new String[0]);
+                return new Changes(all, new ArrayList<>(folded.subList(old.terms.length, all.length)),
+                        Arrays.copyOf(weights, all.length));
+            }
+            rebuilding = false;
+            done = published;
+        }
+        done.complete(null);
+        return null;
+    }
+
+    /**
+     * Merge the keys of the terms added since the old snapshot into its
+     * sorted keys; a term has one key per word it contains.
+     */
+    private static Snapshot build(Snapshot old, Changes changes) {
+        List<String> keyList = new ArrayList<>();
+        List<Integer> termList = new ArrayList<>();
+        for (int t = old.terms.length; t < changes.terms.length; t++) {
+            String key = changes.added.get(t - old.terms.length);
+            for (int i = 0; i < key.length(); i++) {
+                if (i == 0 || key.charAt(i - 1) == ' ') {
+                    keyList.add(key.substring(i));
+                    termList.add(t);
+                }
+            }
+        }
+        Integer[] order = new Integer[keyList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> keyList.get(a).compareTo(keyList.get(b)));
+
+        int n = old.keys.length + order.length;
+        String[] keys = new String[n];
+        int[] termOf = new int[n];
+        int a = 0;
+        int b = 0;
+        for (int i = 0; i < n; i++) {
+            if (b == order.length || (a < old.keys.length && old.keys[a].compareTo(keyList.get(order[b])) <= 0)) {
+                keys[i] = old.keys[a];
+                termOf[i] = old.termOf[a++];
+            } else {
+                keys[i] = keyList.get(order[b]);
+                termOf[i] = termList.get(order[b++]);
+            }
+        }
+        long[] w = new long[n];
+        for (int i = 0; i < n; i++) {
+            w[i] = changes.weights[termOf[i]];
+        }
+        return new Snapshot(keys, termOf, w, changes.terms);
+    }
+}
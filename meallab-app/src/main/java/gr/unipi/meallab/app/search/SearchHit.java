@@ -0,0 +1,41 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.model.MealListItem;
+
+/**
+ * One ranked search result: a meal and its relevance score.
+ * Higher scores are better; scores are only comparable within one query.
+ */
+public final class SearchHit {
+
+    private final MealListItem meal;
+    private final double score;
+
+    /**
+     * @param meal the matching meal
+     * @param score its relevance for the query
+     */
+    public SearchHit(MealListItem meal, double score) {
+        this.meal = meal;
+        this.score = score;
+    }
+
+    /**
+     * @return the matching meal (id, name, thumbnail)
+     */
+    public MealListItem getMeal() {
+        return meal;
+    }
+
+    /**
+     * @return the relevance score (higher = better)
+     */
+    public double getScore() {
+        return score;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s (id=%s, score=%.3f)", meal.getStrMeal(), meal.getIdMeal(), score);
+    }
+}
@@ -0,0 +1,111 @@
+package gr.unipi.meallab.app;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LruCacheTest {
+
+    private final AtomicLong now = new AtomicLong();
+    private final LruCache<String, String> cache = new LruCache<>(3, Duration.ofSeconds(10), now::get);
+
+    @Test
+    void evictsLeastRecentlyUsedEntry() {
+        cache.put("a", "A");
+        cache.put("b", "B");
+        cache.put("c", "C");
+        cache.get("a");          // a is now most recently used
+        cache.put("d", "D");     // evicts b
+
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals("D", cache.get("d"));
+        assertEquals(1, cache.stats().getEvictions());
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    void entriesExpireAfterWrite() {
+        cache.put("a", "A");
+        now.addAndGet(Duration.ofSeconds(9).toNanos());
+        assertEquals("A", cache.get("a"));
+
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get("a"));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getExpirations());
+        assertEquals(0, stats.getSize());
+    }
+
+    @Test
+    void getOrLoadRecordsLoadsAndFailures() {
+        assertEquals("A!", cache.getOrLoad("a", k -> "A!"));
+        assertEquals("A!", cache.getOrLoad("a", k -> fail("should be cached")));
+        assertThrows(IllegalStateException.class,
+                () -> cache.getOrLoad("b", k -> { throw new IllegalStateException("boom"); }));
+
+        CacheStats stats = cache.stats();
+        assertEquals(1, stats.getLoadSuccesses());
+        assertEquals(1, stats.getLoadFailures());
+        assertEquals(1, stats.getHits());
+        assertEquals(2, stats.getMisses());
+        assertNull(cache.get("b"));
+    }
+
+    @Test
+    void concurrentAccessKeepsBoundAndCountsEveryLookup() throws Exception {
+        LruCache<Integer, Integer> shared = new LruCache<>(64, Duration.ofMinutes(1));
+        int threads = 8;
+        int opsPerThread = 5_000;
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                int seed = t;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < opsPerThread; i++) {
+                        int key = (i * 31 + seed) % 128;
+                        Integer value = shared.getOrLoad(key, k -> {
+                            loads.incrementAndGet();
+                            return k * 2;
+                        });
+                        assertEquals(key * 2, value.intValue());
+                        assertTrue(shared.size() <= 64);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        CacheStats stats = shared.stats();
+        assertEquals((long) threads * opsPerThread, stats.getHits() + stats.getMisses());
+        assertEquals(loads.get(), stats.getLoadSuccesses());
+        assertEquals(stats.getMisses(), stats.getLoadSuccesses());
+        assertTrue(stats.getSize() <= 64);
+        assertTrue(stats.getEvictions() > 0);
+    }
+}
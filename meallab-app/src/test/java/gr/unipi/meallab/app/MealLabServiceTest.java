@@ -0,0 +1,306 @@
+package gr.unipi.meallab.app;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.client.DiskResponseCache;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.client.Transport;
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.LookupResult;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.app.catalog.CatalogMirror;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MealLabServiceTest {
+
+    /**
+     * Offline stand-in for the API: counts lookups instead of calling TheMealDB.
+     */
+    static class FakeClient extends MealLabClient {
+        final AtomicInteger lookups = new AtomicInteger();
+        final AtomicInteger searches = new AtomicInteger();
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        volatile String version = "";
+        final ExecutorService delayed = Executors.newCachedThreadPool(r -> {
+            Thread t = new Thread(r);
+            t.setDaemon(true);
+            return t;
+        });
+
+        @Override
+        public MealDetails lookupById(String idMeal) {
+            lookups.incrementAndGet();
+            if (idMeal.startsWith("0")) {
+                throw MealLabException.notFound("No meal found for id=" + idMeal);
+            }
+            if (idMeal.equals("503")) {
+                throw MealLabException.httpStatus("lookup.php?i=503", 503);
+            }
+            return meal(idMeal, "Meal " + idMeal + version);
+        }
+
+        @Override
+        public List<MealListItem> searchByIngredient(String ingredient) {
+            searches.incrementAndGet();
+            return ingredient.trim().equalsIgnoreCase("chicken")
+                    ? List.of(new Gson().fromJson("{\"idMeal\":\"52795\"}", MealListItem.class))
+                    : List.of();
+        }
+
+        @Override
+        public CompletableFuture<List<MealListItem>> searchByIngredientAsync(String ingredient, Executor executor) {
+            return CompletableFuture.supplyAsync(() -> searchByIngredient(ingredient), delayed);
+        }
+
+        @Override
+        public CompletableFuture<MealDetails> lookupByIdAsync(String idMeal, Executor executor) {
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            // Later ids finish first, to prove results are re-ordered by input position
+            long delayMs = 50 - Math.min(45, Long.parseLong(idMeal) % 50);
+            return CompletableFuture.supplyAsync(() -> {
+                try {
+                    Thread.sleep(delayMs);
+                    return lookupById(idMeal);
+                } catch (InterruptedException e) {
+                    throw new MealLabException("interrupted");
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }, delayed);
+        }
+    }
+
+    static MealDetails meal(String id, String name) {
+        return new Gson().fromJson("{\"idMeal\":\"" + id + "\",\"strMeal\":\"" + name + "\"}", MealDetails.class);
+    }
+
+    private final FakeClient client = new FakeClient();
+    private final MealLabService service = new MealLabService(client, 100, Duration.ofMinutes(5));
+
+    @Test
+    void repeatedLookupIsServedFromCache() {
+        MealDetails first = service.lookupById("52772");
+        MealDetails second = service.lookupById(" 52772 ");
+
+        assertSame(first, second);
+        assertEquals(1, client.lookups.get());
+
+        CacheStats stats = service.getDetailCacheStats();
+        assertEquals(1, stats.getHits());
+        assertEquals(1, stats.getMisses());
+        assertEquals(1, stats.getLoadSuccesses());
+    }
+
+    @Test
+    void notFoundIsAnsweredFromTheNegativeCache() {
+        MealLabException first = assertThrows(MealLabException.class, () -> service.lookupById("0"));
+        MealLabException second = assertThrows(MealLabException.class, () -> service.lookupById(" 0 "));
+        CompletionException asyncFailure = assertThrows(CompletionException.class,
+                () -> service.lookupByIdAsync("0").join());
+        MealLabException async = (MealLabException) asyncFailure.getCause();
+
+        assertEquals(MealLabException.Kind.NOT_FOUND, first.getKind());
+        assertEquals(MealLabException.Kind.NOT_FOUND, second.getKind());
+        assertEquals(MealLabException.Kind.NOT_FOUND, async.getKind());
+        assertEquals(1, client.lookups.get());
+        assertEquals(1, service.getDetailCacheStats().getLoadFailures());
+        assertEquals(2, service.getNegativeCacheStats().getHits());
+    }
+
+    @Test
+    void transientFailureIsNotCached() {
+        assertThrows(MealLabException.class, () -> service.lookupById("503"));
+        assertThrows(MealLabException.class, () -> service.lookupById("503"));
+
+        assertEquals(2, client.lookups.get());
+        assertEquals(2, service.getDetailCacheStats().getLoadFailures());
+        assertEquals(0, service.getNegativeCacheStats().getSize());
+    }
+
+    @Test
+    void emptySearchIsAnsweredFromTheNegativeCache() {
+        assertTrue(service.searchByIngredient("unobtainium").isEmpty());
+        assertTrue(service.searchByIngredient("Unobtainium ").isEmpty());
+        assertEquals(1, service.searchByIngredient("chicken").size());
+        assertEquals(1, service.searchByIngredient("chicken").size());
+
+        // One call per query: the non-empty result is in the search cache
+        assertEquals(2, client.searches.get());
+        assertEquals(1, service.getNegativeCacheStats().getHits());
+        assertEquals(1, service.getSearchCacheStats().getHits());
+    }
+
+    @Test
+    void staleMealIsServedAtOnceAndRefreshedInTheBackground() throws Exception {
+        AtomicLong now = new AtomicLong();
+        MealLabService swr = new MealLabService(client, 100, Duration.ofMinutes(1), Duration.ofHours(1),
+                10, Duration.ofMinutes(2), now::get);
+        swr.lookupById("52772");
+        now.addAndGet(Duration.ofMinutes(2).toNanos());
+        client.version = " v2";
+
+        CompletableFuture<MealDetails> refreshed = new CompletableFuture<>();
+        MealDetails stale = swr.lookupByIdAsync("52772", null, refreshed::complete).getNow(null);
+        MealDetails alsoStale = swr.lookupById("52772");
+
+        assertEquals("Meal 52772", stale.getStrMeal());
+        assertEquals("Meal 52772", alsoStale.getStrMeal());
+        assertEquals("Meal 52772 v2", refreshed.get(5, TimeUnit.SECONDS).getStrMeal());
+        // The cache was updated before the callback ran, and is fresh again
+        assertEquals("Meal 52772 v2", swr.lookupById("52772").getStrMeal());
+
+        assertEquals(2, swr.getStaleServed());
+        assertEquals(1, swr.getBackgroundRefreshes());
+        assertEquals(2, client.lookups.get());
+    }
+
+    @Test
+    void staleSearchIsRefreshedButExpiredOneIsRefetched() throws Exception {
+        AtomicLong now = new AtomicLong();
+        MealLabService swr = new MealLabService(client, 100, Duration.ofMinutes(1), Duration.ofHours(1),
+                10, Duration.ofMinutes(2), now::get);
+        assertEquals(1, swr.searchByIngredient("chicken").size());
+
+        now.addAndGet(Duration.ofMinutes(5).toNanos());
+        CompletableFuture<List<MealListItem>> refreshed = new CompletableFuture<>();
+        assertEquals(1, swr.searchByIngredientAsync("Chicken", null, refreshed::complete).getNow(null).size());
+        assertEquals(1, refreshed.get(5, TimeUnit.SECONDS).size());
+        assertEquals(2, client.searches.get());
+
+        // Past the hard TTL nothing stale is served: the call waits for the network
+        now.addAndGet(Duration.ofHours(2).toNanos());
+        swr.searchByIngredient("chicken");
+        assertEquals(3, client.searches.get());
+        assertEquals(1, swr.getStaleServed());
+    }
+
+    @Test
+    void concurrentLookupsShareTheCache() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        String id = String.valueOf(52700 + (i % 20));
+                        assertEquals(id, service.lookupById(id).getIdMeal());
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get(30, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        // 20 distinct ids; racing misses may load an id more than once, but never per call
+        assertTrue(client.lookups.get() >= 20);
+        assertTrue(client.lookups.get() <= 20 * threads);
+        CacheStats stats = service.getDetailCacheStats();
+        assertEquals(threads * 1_000L, stats.getHits() + stats.getMisses());
+    }
+
+    @Test
+    void bulkLookupKeepsInputOrderAndReportsFailures() {
+        service.lookupById("52710");   // cached before the bulk call
+        List<String> ids = List.of("52701", "0", "52710", "52705", "52702", "52703");
+        List<LookupResult> streamed = new CopyOnWriteArrayList<>();
+
+        List<LookupResult> results = service.lookupByIdsAsync(ids, 2, streamed::add).join();
+
+        assertEquals(ids.size(), results.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i, results.get(i).getIndex());
+            assertEquals(ids.get(i), results.get(i).getId());
+        }
+        assertFalse(results.get(1).isSuccess());
+        assertNotNull(results.get(1).getError());
+        assertEquals("52705", results.get(3).getMeal().getIdMeal());
+
+        assertEquals(ids.size(), streamed.size());
+        assertTrue(client.maxInFlight.get() <= 2);
+        // 1 sync lookup + 5 uncached ids
+        assertEquals(6, client.lookups.get());
+        // Successful bulk results are cached
+        assertSame(results.get(0).getMeal(), service.lookupById("52701"));
+    }
+
+    @Test
+    void defaultServiceReadsNothingFromDiskUntilTheCatalogIsLoaded(@TempDir Path home) throws Exception {
+        String previousHome = System.getProperty("user.home");
+        System.setProperty("user.home", home.toString());
+        try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start()) {
+            // A catalog stored by an earlier run
+            MealLabClient stubClient = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            new CatalogMirror(stubClient, CatalogMirror.defaultDirectory()).load().crawl();
+
+            MealLabService service = new MealLabService();
+            assertFalse(Files.exists(DiskResponseCache.defaultDirectory()));
+            assertEquals(0, service.getCatalogMirror().getSnapshot().size());
+
+            CatalogMirror mirror = service.loadCatalogAsync().get(20, TimeUnit.SECONDS);
+            assertSame(service.loadCatalogAsync(), service.loadCatalogAsync());
+            assertTrue(mirror.isComplete());
+            assertEquals("52771", service.lookupById("52771").getIdMeal());
+            assertEquals(1, service.getMirrorHits());
+        } finally {
+            System.setProperty("user.home", previousHome);
+        }
+    }
+
+    @Test
+    void cancellingANameSearchAbortsTheExchange() throws Exception {
+        CompletableFuture<CompletableFuture<InputStream>> exchange = new CompletableFuture<>();
+        Transport hanging = new Transport() {
+            @Override
+            public InputStream get(String url) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public CompletableFuture<InputStream> getAsync(String url) {
+                CompletableFuture<InputStream> response = new CompletableFuture<>();
+                exchange.complete(response);
+                return response;
+            }
+        };
+        MealLabService service = new MealLabService(new MealLabClient(hanging, "http://127.0.0.1:9/"), 100,
+                Duration.ofMinutes(5));
+
+        CompletableFuture<List<MealDetails>> search = service.searchByNameAsync("chicken");
+        CompletableFuture<InputStream> response = exchange.get(5, TimeUnit.SECONDS);
+        assertTrue(search.cancel(true));
+
+        assertTrue(response.isCancelled());
+    }
+}
@@ -0,0 +1,89 @@
+package gr.unipi.meallab.app;
+
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.exception.MealLabException;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ReferenceDataCacheTest {
+
+    private StubMealDbServer stub;
+    private MealLabClient client;
+    private final AtomicLong now = new AtomicLong();
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = StubMealDbServer.withSampleMeals().start();
+        client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    private static List<String> ids(List<MealListItem> meals) {
+        return meals.stream().map(MealListItem::getIdMeal).toList();
+    }
+
+    @Test
+    void loadsLazilyOnceAndBrowsesLocally() throws Exception {
+        ReferenceDataCache cache = new ReferenceDataCache(client, Duration.ofDays(7), now::get);
+        assertEquals(0, stub.getRequestCount());
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(List.of("Chicken", "Vegetarian", "Side", "Dessert"), cache.categories());
+            assertEquals(List.of("52772", "52795", "52940"), ids(cache.mealsInCategory("Chicken")));
+            assertEquals(List.of("52795"), ids(cache.browse("chicken", "indian")));
+            assertEquals(List.of(), cache.browse("Dessert", "Indian"));
+        }
+        assertEquals(List.of("52771"), ids(cache.browseAsync(null, "Italian").get(20, TimeUnit.SECONDS)));
+        assertEquals(1, stub.getRequestCount("list.php"));
+        assertEquals(4, stub.getRequestCount("filter.php"));
+        assertEquals(5, cache.getFetches());
+        assertThrows(IllegalArgumentException.class, () -> cache.browse(" ", null));
+        assertThrows(UnsupportedOperationException.class, () -> cache.categories().add("Pizza"));
+    }
+
+    @Test
+    void refetchesAfterTtlAndKeepsOldCopyOnFailure() {
+        ReferenceDataCache cache = new ReferenceDataCache(client, Duration.ofDays(7), now::get);
+
+        stub.failNext(10, 400);
+        assertThrows(MealLabException.class, cache::areas);
+        stub.failNext(0, 400);
+        assertEquals("Japanese", cache.areas().get(0));
+
+        now.addAndGet(Duration.ofDays(8).toNanos());
+        stub.failNext(10, 400);
+        assertEquals("Japanese", cache.areas().get(0));
+        stub.failNext(0, 400);
+
+        now.addAndGet(Duration.ofDays(8).toNanos());
+        cache.areas();
+        assertEquals(4, cache.getFetches());
+    }
+
+    @Test
+    void serviceSharesTheCacheForBrowsingAndSuggestions() throws Exception {
+        MealLabService service = new MealLabService(client, 100, Duration.ofMinutes(5));
+
+        service.loadSuggestionsAsync().get(20, TimeUnit.SECONDS);
+        assertEquals(List.of("Chicken"), service.getReferenceData().categories().subList(0, 1));
+        assertEquals(List.of("52977"), ids(service.browse("side", null)));
+        assertEquals(List.of("52977"), ids(service.browseAsync("Side", "").get(20, TimeUnit.SECONDS)));
+        assertEquals(3, stub.getRequestCount("list.php"));
+        assertEquals(1, stub.getRequestCount("filter.php"));
+    }
+}
@@ -0,0 +1,121 @@
+package gr.unipi.meallab.app.catalog;
+
+import gr.unipi.meallab.api.client.CircuitBreaker;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.client.RetryPolicy;
+import gr.unipi.meallab.api.client.UpstreamThrottle;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.MealLabService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Crawls an in-process StubMealDbServer holding the sample meals plus synthetic ones.
+ */
+public class CatalogMirrorTest {
+
+    @TempDir
+    Path dir;
+
+    private StubMealDbServer stub;
+    private MealLabClient client;
+
+    @BeforeEach
+    void startStub() throws Exception {
+        stub = new SyntheticCatalog(3).addTo(StubMealDbServer.withSampleMeals(), 400).start();
+        // One attempt only, so injected failures reach the crawl
+        client = new MealLabClient(new HttpTransport(), stub.getBaseUrl(), MealLabClient.DEFAULT_MAX_BODY_BYTES,
+                new UpstreamThrottle(), new RetryPolicy(1, Duration.ofMillis(1), Duration.ofMillis(1), Duration.ofSeconds(5)),
+                new CircuitBreaker());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void crawlStoresEveryShardAndReloadsFromDisk() {
+        CatalogMirror mirror = new CatalogMirror(client, dir).load();
+        assertFalse(mirror.isComplete());
+
+        CrawlReport report = mirror.crawl();
+
+        assertTrue(report.isComplete());
+        assertEquals(36, report.getFetchedShards().size());
+        assertEquals(36, stub.getRequestCount("search.php"));
+        assertTrue(mirror.isComplete());
+        assertEquals(stub.getMealCount(), mirror.getSnapshot().size());
+        assertEquals("Teriyaki Chicken Casserole", mirror.getSnapshot().lookup("52772").getStrMeal());
+        assertTrue(Files.exists(dir.resolve("shards").resolve("t.json")));
+
+        CatalogMirror reloaded = new CatalogMirror(client, dir).load();
+        assertTrue(reloaded.isComplete());
+        assertEquals(stub.getMealCount(), reloaded.getSnapshot().size());
+        assertEquals("3/4 cup", reloaded.getSnapshot().lookup("52772").getIngredientsWithMeasures().get("soy sauce"));
+        assertEquals(36, stub.getRequestCount("search.php"));
+    }
+
+    @Test
+    void failedShardsAreFetchedOnTheNextCrawl() {
+        CatalogMirror mirror = new CatalogMirror(client, dir, 1, ForkJoinPool.commonPool()).load();
+        stub.failNext(3, 400);
+
+        CrawlReport first = mirror.crawl();
+        assertEquals(3, first.getFailedShards().size());
+        assertFalse(mirror.isComplete());
+
+        // A fresh process resumes from the checkpoint
+        CrawlReport second = new CatalogMirror(client, dir, 1, ForkJoinPool.commonPool()).load().crawl();
+        assertTrue(second.isComplete());
+        assertEquals(first.getFailedShards().keySet(), Set.copyOf(second.getFetchedShards()));
+        assertEquals(33, second.getSkippedShards().size());
+        assertEquals(stub.getMealCount(), second.getMeals());
+    }
+
+    @Test
+    void snapshotQueriesMatchTheApi() {
+        CatalogMirror mirror = new CatalogMirror(client, dir).load();
+        mirror.crawl();
+        CatalogSnapshot local = mirror.getSnapshot();
+
+        assertEquals(client.searchByName("arrabiata").size(), local.searchByName("ARRABIATA").size());
+        assertEquals(client.searchByIngredient("salt").size(), local.searchByIngredient("Salt").size());
+        assertEquals(client.searchByFirstLetter("b").size(), local.searchByFirstLetter("b").size());
+        assertTrue(local.searchByName("no such meal").isEmpty());
+        assertNull(local.lookup("1"));
+    }
+
+    @Test
+    void serviceAnswersFromTheMirrorOnceComplete() {
+        CatalogMirror mirror = new CatalogMirror(client, dir).load();
+        MealLabService service = new MealLabService(client, mirror, 100, Duration.ofMinutes(10),
+                Duration.ofMinutes(10), 100, Duration.ofMinutes(2));
+
+        // Incomplete mirror: searches still go to the API
+        assertFalse(service.searchByName("chicken").isEmpty());
+        long remote = stub.getRequestCount();
+        mirror.crawl();
+        long afterCrawl = stub.getRequestCount();
+
+        assertFalse(service.searchByName("chicken").isEmpty());
+        assertFalse(service.searchByIngredient("salt").isEmpty());
+        assertEquals("52771", service.lookupById("52771").getIdMeal());
+        assertNotNull(service.randomMeal());
+        assertEquals(1, remote);
+        assertEquals(afterCrawl, stub.getRequestCount());
+        assertEquals(4, service.getMirrorHits());
+    }
+}
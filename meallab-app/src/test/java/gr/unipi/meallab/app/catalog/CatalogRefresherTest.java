@@ -0,0 +1,128 @@
+package gr.unipi.meallab.app.catalog;
+
+import com.google.gson.JsonObject;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Crawls a stub catalog once, then changes the stub behind the mirror's back.
+ */
+public class CatalogRefresherTest {
+
+    @TempDir
+    Path dir;
+
+    private final SyntheticCatalog synthetic = new SyntheticCatalog(3);
+    private StubMealDbServer stub;
+    private CatalogMirror mirror;
+
+    @BeforeEach
+    void crawlStub() throws Exception {
+        stub = synthetic.addTo(new StubMealDbServer(), 300).start();
+        mirror = new CatalogMirror(new MealLabClient(new HttpTransport(), stub.getBaseUrl()), dir).load();
+        assertTrue(mirror.crawl().isComplete());
+    }
+
+    @AfterEach
+    void stopStub() {
+        stub.close();
+    }
+
+    @Test
+    void newMealsAboveTheHighestIdAreProbed() throws Exception {
+        // 303..309 do not exist: a gap shorter than the probe window
+        for (int i : new int[] {300, 301, 302, 310}) {
+            stub.addMeal(synthetic.meal(i));
+        }
+
+        RefreshReport report = new CatalogRefresher(mirror, Duration.ofHours(1), 0, 10, 0).refresh();
+
+        assertEquals(List.of(SyntheticCatalog.idOf(300), SyntheticCatalog.idOf(301), SyntheticCatalog.idOf(302),
+                SyntheticCatalog.idOf(310)), report.getAdded());
+        assertEquals(30, report.getProbed());
+        assertEquals(304, mirror.getSnapshot().size());
+        assertEquals(synthetic.name(310), mirror.getSnapshot().lookup(SyntheticCatalog.idOf(310)).getStrMeal());
+        assertEquals(36, stub.getRequestCount("search.php"));
+        assertEquals(304, new CatalogMirror(null, dir).load().getSnapshot().size());
+    }
+
+    @Test
+    void changedAndRemovedMealsAreAppliedAndSurviveReload() throws Exception {
+        JsonObject renamed = synthetic.meal(5);
+        renamed.addProperty("strMeal", "Zucchini Surprise");
+        stub.addMeal(renamed);
+        stub.removeMeal(SyntheticCatalog.idOf(7));
+
+        RefreshReport report = new CatalogRefresher(mirror, Duration.ofHours(1), 0, 10, 1000).refresh();
+
+        assertEquals(300, report.getChecked());
+        assertEquals(List.of(SyntheticCatalog.idOf(5)), report.getChanged());
+        assertEquals(List.of(SyntheticCatalog.idOf(7)), report.getRemoved());
+        assertTrue(report.getAdded().isEmpty());
+
+        for (CatalogSnapshot snapshot : List.of(mirror.getSnapshot(), new CatalogMirror(null, dir).load().getSnapshot())) {
+            assertEquals(299, snapshot.size());
+            assertNull(snapshot.lookup(SyntheticCatalog.idOf(7)));
+            assertEquals("Zucchini Surprise", snapshot.lookup(SyntheticCatalog.idOf(5)).getStrMeal());
+        }
+        assertFalse(Files.exists(dir.resolve("journal.jsonl")));
+    }
+
+    @Test
+    void sampleRotatesThroughTheCatalog() throws Exception {
+        JsonObject changed = synthetic.meal(250);
+        changed.addProperty("strInstructions", "Just order takeaway.");
+        stub.addMeal(changed);
+        CatalogRefresher refresher = new CatalogRefresher(mirror, Duration.ofHours(1), 0, 10, 100);
+
+        assertTrue(refresher.refresh().getChanged().isEmpty());
+        assertTrue(refresher.refresh().getChanged().isEmpty());
+        // The position is kept on disk, so a new refresher continues where the last one stopped
+        RefreshReport third = new CatalogRefresher(mirror, Duration.ofHours(1), 0, 10, 100).refresh();
+
+        assertEquals(List.of(SyntheticCatalog.idOf(250)), third.getChanged());
+        assertEquals("Just order takeaway.",
+                mirror.getSnapshot().lookup(SyntheticCatalog.idOf(250)).getStrInstructions());
+    }
+
+    @Test
+    void interruptedDeltaIsReplayedOnLoad() throws Exception {
+        JsonObject added = synthetic.meal(1000);
+        String removedId = SyntheticCatalog.idOf(0);
+        // A journaled batch whose shard files were never rewritten, then a torn line
+        Files.writeString(dir.resolve("journal.jsonl"),
+                "{\"upserts\":[" + added + "],\"removed\":[\"" + removedId + "\"]}\n{\"upserts\":[{\"idMe",
+                StandardCharsets.UTF_8);
+
+        CatalogSnapshot snapshot = new CatalogMirror(null, dir).load().getSnapshot();
+
+        assertEquals(300, snapshot.size());
+        assertNull(snapshot.lookup(removedId));
+        assertEquals(synthetic.name(1000), snapshot.lookup(SyntheticCatalog.idOf(1000)).getStrMeal());
+        assertFalse(Files.exists(dir.resolve("journal.jsonl")));
+        assertEquals(300, new CatalogMirror(null, dir).load().getSnapshot().size());
+    }
+
+    @Test
+    void delaysStayWithinTheJitter() {
+        CatalogRefresher refresher = new CatalogRefresher(mirror, Duration.ofMinutes(10), 0.25, 10, 10);
+        for (int i = 0; i < 1000; i++) {
+            long millis = refresher.nextDelay().toMillis();
+            assertTrue(millis >= 450_000 && millis <= 750_000, "delay " + millis);
+        }
+    }
+}
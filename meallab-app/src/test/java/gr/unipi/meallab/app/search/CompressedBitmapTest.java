@@ -0,0 +1,86 @@
+package gr.unipi.meallab.app.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressedBitmapTest {
+
+    /**
+     * Values spread over a few 65536-wide chunks; density decides whether
+     * a chunk ends up as a sorted array or as a bitset.
+     */
+    private static BitSet random(Random random, int chunks, double density) {
+        BitSet bits = new BitSet();
+        for (int i = 0; i < chunks * 65536; i++) {
+            if (random.nextDouble() < density) {
+                bits.set(i);
+            }
+        }
+        return bits;
+    }
+
+    private static CompressedBitmap of(BitSet bits) {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        bits.stream().forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private static void assertSame(BitSet expected, CompressedBitmap actual) {
+        assertArrayEquals(expected.stream().toArray(), actual.toArray());
+        assertEquals(expected.cardinality(), actual.cardinality());
+    }
+
+    @Test
+    void setOperationsAgreeWithBitSet() {
+        Random random = new Random(42);
+        double[] densities = {0.0005, 0.02, 0.3};
+        for (double da : densities) {
+            for (double db : densities) {
+                BitSet a = random(random, 3, da);
+                BitSet b = random(random, 3, db);
+                CompressedBitmap ca = of(a);
+                CompressedBitmap cb = of(b);
+
+                BitSet and = (BitSet) a.clone();
+                and.and(b);
+                BitSet or = (BitSet) a.clone();
+                or.or(b);
+                BitSet andNot = (BitSet) a.clone();
+                andNot.andNot(b);
+
+                String which = da + " / " + db;
+                assertSame(and, CompressedBitmap.and(ca, cb));
+                assertSame(or, CompressedBitmap.or(ca, cb));
+                assertSame(andNot, CompressedBitmap.andNot(ca, cb));
+                assertEquals(and.cardinality(), CompressedBitmap.andCardinality(ca, cb), which);
+                assertSame(a, ca);
+            }
+        }
+    }
+
+    @Test
+    void addsOutOfOrderAndIgnoresDuplicates() {
+        CompressedBitmap bitmap = new CompressedBitmap();
+        for (int value : new int[] {70000, 5, 5, 65535, 0, 70000, 200000}) {
+            bitmap.add(value);
+        }
+        assertArrayEquals(new int[] {0, 5, 65535, 70000, 200000}, bitmap.toArray());
+        assertTrue(bitmap.contains(65535));
+        assertFalse(bitmap.contains(65536));
+
+        // Crossing the array/bitset threshold and back keeps every value
+        CompressedBitmap dense = new CompressedBitmap();
+        for (int i = 0; i < 10000; i++) {
+            dense.add(i * 3);
+        }
+        assertEquals(10000, dense.cardinality());
+        CompressedBitmap sparse = CompressedBitmap.and(dense, CompressedBitmap.range(300));
+        assertArrayEquals(java.util.stream.IntStream.range(0, 100).map(i -> i * 3).toArray(), sparse.toArray());
+        assertEquals(100000, CompressedBitmap.range(100000).cardinality());
+        assertTrue(new CompressedBitmap().isEmpty());
+    }
+}
@@ -0,0 +1,91 @@
+package gr.unipi.meallab.app.search;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.app.catalog.CatalogDelta;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FullTextIndexTest {
+
+    private final Gson gson = new Gson();
+
+    private MealDetails meal(String id, String name, String category, String instructions) {
+        JsonObject json = new JsonObject();
+        json.addProperty("idMeal", id);
+        json.addProperty("strMeal", name);
+        json.addProperty("strCategory", category);
+        json.addProperty("strArea", "British");
+        json.addProperty("strInstructions", instructions);
+        return gson.fromJson(json, MealDetails.class);
+    }
+
+    private static List<String> ids(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.getMeal().getIdMeal()).toList();
+    }
+
+    private FullTextIndex index() {
+        FullTextIndex index = new FullTextIndex();
+        index.add(meal("1", "Lamb Tagine", "Lamb", "Brown the lamb, add the apricots and simmer for two hours."));
+        index.add(meal("2", "Roast Chicken", "Chicken", "Roast the chicken. Serve with roast potatoes."));
+        index.add(meal("3", "Shepherd's Pie", "Lamb", "Fry the minced lamb with onions, top with mashed potatoes and bake."));
+        index.add(meal("4", "Apple Crumble", "Dessert", "Slice the apples, cover with crumble and bake until golden."));
+        return index;
+    }
+
+    @Test
+    void tokenizesWordsAndFoldsPlurals() {
+        assertEquals(List.of("roast", "potato", "cherry", "egg", "glass", "20"),
+                FullTextIndex.tokenize("Roast the Potatoes, cherries & eggs in a glass (20)"));
+        assertTrue(FullTextIndex.tokenize(null).isEmpty());
+        assertTrue(FullTextIndex.tokenize("and the of").isEmpty());
+    }
+
+    @Test
+    void ranksNameMatchesAboveInstructionMatches() {
+        FullTextIndex index = index();
+
+        assertEquals(List.of("1", "3"), ids(index.search("lamb", 10)));
+        assertEquals("2", ids(index.search("roasted chicken with potatoes", 10)).get(0));
+        assertEquals(List.of("3", "4"), ids(index.search("bake", 10)).stream().sorted().toList());
+        assertTrue(index.search("sushi", 10).isEmpty());
+        assertTrue(index.search("the", 10).isEmpty());
+
+        List<SearchHit> all = index.search("potatoes bake lamb apples", 10);
+        for (int i = 1; i < all.size(); i++) {
+            assertTrue(all.get(i - 1).getScore() >= all.get(i).getScore());
+        }
+        assertEquals(ids(all).subList(1, 3), ids(index.search("potatoes bake lamb apples", 1, 2)));
+        assertTrue(index.search("lamb", 5, 10).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> index.search("lamb", -1, 10));
+    }
+
+    @Test
+    void followsReplacementsAndRemovals() {
+        FullTextIndex index = index();
+
+        index.add(meal("1", "Lamb Tagine", "Lamb", "Brown the lamb, add the apricots and simmer for two hours."));
+        assertEquals(4, index.size());
+
+        index.add(meal("1", "Vegetable Tagine", "Vegetarian", "Simmer the chickpeas with apricots."));
+        assertEquals(List.of("3"), ids(index.search("lamb", 10)));
+        assertEquals(List.of("1"), ids(index.search("chickpeas", 10)));
+
+        index.apply(new CatalogDelta(List.of(), List.of("3", "4")));
+        assertTrue(index.search("lamb bake", 10).isEmpty());
+        assertEquals(2, index.size());
+
+        // Enough churn to trigger a rebuild; the survivors stay searchable
+        for (int round = 0; round < 3000; round++) {
+            index.add(meal("9", "Crumble " + round, "Dessert", "Bake round " + round + "."));
+        }
+        assertEquals(3, index.size());
+        assertEquals(List.of("9"), ids(index.search("crumble 2999", 1)));
+        assertEquals(List.of("1"), ids(index.search("chickpeas", 10)));
+        assertTrue(index.search("1500", 10).isEmpty());
+    }
+}
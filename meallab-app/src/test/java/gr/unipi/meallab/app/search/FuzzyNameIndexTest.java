@@ -0,0 +1,93 @@
+package gr.unipi.meallab.app.search;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.app.MealLabService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FuzzyNameIndexTest {
+
+    private final Gson gson = new Gson();
+
+    private JsonObject json(String id, String name) {
+        JsonObject json = new JsonObject();
+        json.addProperty("idMeal", id);
+        json.addProperty("strMeal", name);
+        return json;
+    }
+
+    private MealDetails meal(String id, String name) {
+        return gson.fromJson(json(id, name), MealDetails.class);
+    }
+
+    private static List<String> names(List<SearchHit> hits) {
+        return hits.stream().map(hit -> hit.getMeal().getStrMeal()).toList();
+    }
+
+    private FuzzyNameIndex index() {
+        FuzzyNameIndex index = new FuzzyNameIndex();
+        index.add(meal("1", "Moussaka"));
+        index.add(meal("2", "Teriyaki Chicken Casserole"));
+        index.add(meal("3", "Crème Brûlée"));
+        index.add(meal("4", "Mousse au Chocolat"));
+        index.add(meal("5", "Chicken Handi"));
+        return index;
+    }
+
+    @Test
+    void foldsAccentsCaseAndGreek() {
+        assertEquals("creme brulee", FuzzyNameIndex.fold("  Crème-Brûlée! "));
+        assertEquals("mousakas", FuzzyNameIndex.fold("Μουσακάς"));
+        assertEquals("spanakopita", FuzzyNameIndex.fold("ΣΠΑΝΑΚΌΠΙΤΑ"));
+        assertEquals("", FuzzyNameIndex.fold(null));
+        assertEquals(2, FuzzyNameIndex.substringDistance("kitten", "the sitting cat"));
+        assertEquals(0, FuzzyNameIndex.substringDistance("teriyaki", "teriyaki chicken casserole"));
+    }
+
+    @Test
+    void toleratesTyposAccentsAndScripts() {
+        FuzzyNameIndex index = index();
+
+        for (String query : List.of("mousaka", "moussaka", "MOUSSAKA", "Μουσακάς", "musaka")) {
+            assertEquals("Moussaka", names(index.search(query, 1)).get(0), query);
+        }
+        assertEquals(List.of("Crème Brûlée"), names(index.search("creme brulee", 5)));
+        assertEquals("Teriyaki Chicken Casserole", names(index.search("teriyaki", 5)).get(0));
+        assertEquals(1.0, index.search("teriyaki", 1).get(0).getScore());
+        assertTrue(index.search("teriyaki", 1).get(0).getScore() > index.search("teryaki", 1).get(0).getScore());
+        assertEquals(List.of("Chicken Handi", "Teriyaki Chicken Casserole"), names(index.search("chiken", 5)));
+        assertTrue(index.search("lasagne", 5).isEmpty());
+        assertTrue(index.search("", 5).isEmpty());
+
+        index.remove("1");
+        assertFalse(names(index.search("moussaka", 5)).contains("Moussaka"));
+        index.add(meal("4", "Chocolate Mousse"));
+        assertEquals(List.of("Chocolate Mousse"), names(index.search("mouse", 5)));
+    }
+
+    @Test
+    void serviceFallsBackWhenTheApiFindsNothing() throws Exception {
+        try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start()) {
+            stub.addMeal(json("53100", "Moussaka"));
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            MealLabService service = new MealLabService(client, 100, Duration.ofMinutes(5));
+
+            assertTrue(service.searchByName("mousaka").isEmpty());
+            service.lookupById("53100");
+
+            assertEquals("Moussaka", service.searchByName("mousaka").get(0).getStrMeal());
+            assertEquals("Moussaka", service.searchByNameAsync("Μουσακάς").get().get(0).getStrMeal());
+            assertEquals("Moussaka", service.searchByName("moussaka").get(0).getStrMeal());
+            assertEquals(List.of(), service.searchByNameFuzzy("pizza", 5));
+        }
+    }
+}
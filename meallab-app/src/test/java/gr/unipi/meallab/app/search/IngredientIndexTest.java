@@ -0,0 +1,123 @@
+package gr.unipi.meallab.app.search;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.catalog.CatalogDelta;
+import gr.unipi.meallab.app.MealLabService;
+import gr.unipi.meallab.app.catalog.CatalogMirror;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngredientIndexTest {
+
+    private final Gson gson = new Gson();
+
+    private MealDetails meal(String id, String name, String... ingredients) {
+        JsonObject json = new JsonObject();
+        json.addProperty("idMeal", id);
+        json.addProperty("strMeal", name);
+        for (int i = 0; i < ingredients.length; i++) {
+            json.addProperty("strIngredient" + (i + 1), ingredients[i]);
+            json.addProperty("strMeasure" + (i + 1), "1");
+        }
+        return gson.fromJson(json, MealDetails.class);
+    }
+
+    private static List<String> ids(List<MealListItem> items) {
+        return items.stream().map(MealListItem::getIdMeal).toList();
+    }
+
+    @Test
+    void matchesLikeFilterPhpInIdOrder() {
+        IngredientIndex index = new IngredientIndex();
+        index.add(meal("52772", "Teriyaki Chicken Casserole", "soy sauce", "Chicken Breasts"));
+        index.add(meal("999", "Toast", "Bread", "Soy Sauce"));
+        index.add(meal("52771", "Spicy Arrabiata Penne", "penne rigate"));
+
+        assertEquals(List.of("999", "52772"), ids(index.search("Soy_Sauce")));
+        assertEquals(List.of("999", "52772"), ids(index.search("  soy   sauce ")));
+        assertEquals("Toast", index.search("bread").get(0).getStrMeal());
+        assertTrue(index.search("soy").isEmpty());
+        assertTrue(index.search(null).isEmpty());
+        assertEquals(3, index.size());
+        assertFalse(index.isComplete());
+    }
+
+    @Test
+    void replacedAndRemovedMealsLeaveTheirOldIngredients() {
+        IngredientIndex index = new IngredientIndex();
+        index.add(meal("1", "Stew", "Beef", "Carrots"));
+        index.add(meal("2", "Soup", "Carrots"));
+
+        index.add(meal("1", "Vegan Stew", "Tofu", "Carrots"));
+        assertTrue(index.search("beef").isEmpty());
+        assertEquals("Vegan Stew", index.search("carrots").get(0).getStrMeal());
+
+        index.apply(new CatalogDelta(List.of(), List.of("2")));
+        assertEquals(List.of("1"), ids(index.search("carrots")));
+        index.remove("1");
+        assertEquals(0, index.ingredientCount());
+    }
+
+    @Test
+    void followsTheMirrorAndAgreesWithTheApi(@TempDir Path dir) throws Exception {
+        try (StubMealDbServer stub = new SyntheticCatalog(5).addTo(StubMealDbServer.withSampleMeals(), 300).start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            CatalogMirror mirror = new CatalogMirror(client, dir).load();
+            IngredientIndex index = new IngredientIndex();
+            mirror.addListener(index::apply);
+            mirror.crawl();
+
+            assertEquals(stub.getMealCount(), index.size());
+            for (String ingredient : List.of("Salt", "soy_sauce", "Olive Oil", "garlic", "no such thing")) {
+                assertEquals(ids(client.searchByIngredient(ingredient)), ids(index.search(ingredient)), ingredient);
+            }
+
+            String gone = index.search("salt").get(0).getIdMeal();
+            mirror.applyDelta(new CatalogDelta(List.of(meal("1", "Plain Rice", "Rice", "Salt")), List.of(gone)));
+            assertEquals("1", index.search("salt").get(0).getIdMeal());
+            assertFalse(ids(index.search("salt")).contains(gone));
+        }
+    }
+
+    @Test
+    void serviceStopsUsingTheIndexWhenTheMirrorStopsBeingComplete(@TempDir Path dir) throws Exception {
+        try (StubMealDbServer stub = new SyntheticCatalog(5).addTo(StubMealDbServer.withSampleMeals(), 300).start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            CatalogMirror mirror = new CatalogMirror(client, dir).load();
+            mirror.crawl();
+            MealLabService service = new MealLabService(client, mirror, 100, Duration.ofMinutes(5),
+                    Duration.ofMinutes(5), 100, Duration.ofMinutes(5));
+
+            // Complete: answered by the index
+            long filters = stub.getRequestCount("filter.php");
+            List<String> expected = ids(service.searchByIngredient("Salt"));
+            assertEquals(filters, stub.getRequestCount("filter.php"));
+            assertTrue(service.getIngredientIndex().isComplete());
+
+            // A reload loses a shard: the index is no longer trusted, the API answers
+            Files.delete(dir.resolve("shards").resolve("a.json"));
+            mirror.load();
+            assertFalse(mirror.isComplete());
+            assertEquals(expected, ids(service.searchByIngredient("Salt")));
+            assertEquals(ids(service.searchByIngredientAsync("Garlic").get(20, TimeUnit.SECONDS)),
+                    ids(client.searchByIngredient("Garlic")));
+            assertEquals(filters + 3, stub.getRequestCount("filter.php"));
+            assertFalse(service.getIngredientIndex().isComplete());
+        }
+    }
+}
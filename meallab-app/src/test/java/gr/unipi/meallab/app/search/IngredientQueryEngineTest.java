@@ -0,0 +1,139 @@
+package gr.unipi.meallab.app.search;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.MealLabService;
+import gr.unipi.meallab.app.catalog.CatalogMirror;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IngredientQueryEngineTest {
+
+    private final Gson gson = new Gson();
+
+    private MealDetails meal(String id, String... ingredients) {
+        JsonObject json = new JsonObject();
+        json.addProperty("idMeal", id);
+        json.addProperty("strMeal", "Meal " + id);
+        for (int i = 0; i < ingredients.length; i++) {
+            json.addProperty("strIngredient" + (i + 1), ingredients[i]);
+        }
+        return gson.fromJson(json, MealDetails.class);
+    }
+
+    private static List<String> ids(List<MealListItem> items) {
+        return items.stream().map(MealListItem::getIdMeal).toList();
+    }
+
+    private IngredientQueryEngine engine() {
+        IngredientQueryEngine engine = new IngredientQueryEngine();
+        engine.add(meal("1", "Chicken", "Garlic"));
+        engine.add(meal("2", "Chicken", "Garlic", "Peanuts"));
+        engine.add(meal("3", "Beef", "Garlic"));
+        engine.add(meal("4", "Lamb", "Olive Oil"));
+        engine.add(meal("5", "Chicken"));
+        return engine;
+    }
+
+    @Test
+    void parsesOperatorsWithPrecedence() {
+        assertEquals("(\"chicken\" AND \"garlic\" AND NOT \"peanuts\")",
+                IngredientQuery.parse("Chicken and garlic NOT peanuts").toString());
+        assertEquals("(\"beef\" OR (\"lamb\" AND \"olive oil\"))",
+                IngredientQuery.parse("beef OR lamb AND Olive_Oil").toString());
+        assertEquals("((\"beef\" OR \"lamb\") AND \"salt and pepper\")",
+                IngredientQuery.parse("(beef OR lamb) AND \"salt and pepper\"").toString());
+
+        assertTrue(IngredientQuery.isQuery("chicken AND garlic"));
+        assertFalse(IngredientQuery.isQuery("Olive Oil"));
+        assertTrue(IngredientQuery.parse("NOT peanuts").needsCatalog());
+        assertFalse(IngredientQuery.parse("chicken NOT peanuts").needsCatalog());
+        for (String bad : List.of("", "chicken AND", "(beef OR lamb", "OR garlic", "\"open")) {
+            assertThrows(IllegalArgumentException.class, () -> IngredientQuery.parse(bad), bad);
+        }
+    }
+
+    @Test
+    void evaluatesAndCountsOverTheCatalog() {
+        IngredientQueryEngine engine = engine();
+
+        assertEquals(List.of("1"), ids(engine.search("chicken AND garlic NOT peanuts")));
+        assertEquals(List.of("1", "2", "3", "4"), ids(engine.search("garlic OR olive oil")));
+        assertEquals(List.of("4", "5"), ids(engine.search("NOT garlic")));
+        assertEquals(List.of("3", "4"), ids(engine.search("(beef OR lamb) NOT peanuts")));
+        assertTrue(engine.search("chicken AND truffle").isEmpty());
+
+        assertEquals(2, engine.count("chicken AND garlic"));
+        assertEquals(0, engine.count("chicken garlic"), "two words are one ingredient name");
+        assertEquals(3, engine.count("garlic AND (chicken OR beef)"));
+        assertEquals(0, engine.count("peanuts AND beef"));
+    }
+
+    @Test
+    void serviceAnswersLocallyAndRemotelyAlike(@TempDir Path dir) throws Exception {
+        try (StubMealDbServer stub = new SyntheticCatalog(9).addTo(StubMealDbServer.withSampleMeals(), 300).start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            List<String> queries = List.of("Salt AND Garlic", "salt OR soy_sauce NOT olive oil",
+                    "(Onion OR Garlic) AND Butter NOT Salt", "no such thing OR Salt");
+
+            MealLabService remote = new MealLabService(client, 100, Duration.ofMinutes(5));
+            CatalogMirror mirror = new CatalogMirror(client, dir).load();
+            mirror.crawl();
+            MealLabService local = new MealLabService(client, mirror, 100, Duration.ofMinutes(5),
+                    Duration.ofMinutes(5), 100, Duration.ofMinutes(5));
+
+            for (String query : queries) {
+                List<String> expected = ids(remote.searchByIngredients(query));
+                assertEquals(expected, ids(local.searchByIngredients(query)), query);
+                assertEquals(expected, ids(remote.searchByIngredientsAsync(query).get()), query);
+            }
+            assertThrows(IllegalArgumentException.class, () -> remote.searchByIngredients("NOT salt"));
+            assertFalse(local.searchByIngredients("NOT salt").isEmpty());
+        }
+    }
+
+    @Test
+    void asyncSearchFallsBackIfTheMirrorStopsBeingComplete(@TempDir Path dir) throws Exception {
+        try (StubMealDbServer stub = new SyntheticCatalog(9).addTo(StubMealDbServer.withSampleMeals(), 300).start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            CatalogMirror mirror = new CatalogMirror(client, dir).load();
+            mirror.crawl();
+            MealLabService local = new MealLabService(client, mirror, 100, Duration.ofMinutes(5),
+                    Duration.ofMinutes(5), 100, Duration.ofMinutes(5));
+            List<String> expected = ids(local.searchByIngredients("Salt AND Garlic"));
+
+            // Queue the async search while the mirror is complete, then lose a shard before it runs
+            BlockingQueue<Runnable> tasks = new LinkedBlockingQueue<>();
+            CompletableFuture<List<MealListItem>> result = local.searchByIngredientsAsync("Salt AND Garlic", tasks::add);
+            Files.delete(dir.resolve("shards").resolve("a.json"));
+            mirror.load();
+            assertFalse(mirror.isComplete());
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(20);
+            while (!result.isDone() && System.nanoTime() < deadline) {
+                Runnable task = tasks.poll(50, TimeUnit.MILLISECONDS);
+                if (task != null) {
+                    task.run();
+                }
+            }
+            assertEquals(expected, ids(result.get()));
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package gr.unipi.meallab.app.search;
+
+import gr.unipi.meallab.api.client.HttpTransport;
+import gr.unipi.meallab.api.client.MealLabClient;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+import gr.unipi.meallab.app.MealLabService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PrefixCompleterTest {
+
+    @Test
+    void ranksByPopularityFromAnyWordStart() throws Exception {
+        PrefixCompleter completer = new PrefixCompleter();
+        completer.add("Chicken Handi", 3);
+        completer.add("Teriyaki Chicken Casserole", 5);
+        completer.add("Chickpea Curry", 1);
+        completer.add("Crème Brûlée", 2);
+        completer.add("Cheesecake", 0);
+        completer.published().get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of("Teriyaki Chicken Casserole", "Chicken Handi", "Chickpea Curry"),
+                completer.complete("chick", 10));
+        assertEquals(List.of("Teriyaki Chicken Casserole", "Chicken Handi"), completer.complete("CHICKEN", 10));
+        assertEquals(List.of("Teriyaki Chicken Casserole"), completer.complete("chick", 1));
+        assertEquals(List.of("Crème Brûlée"), completer.complete("brul", 10));
+        assertEquals(List.of("Teriyaki Chicken Casserole", "Chicken Handi", "Crème Brûlée", "Chickpea Curry",
+                "Cheesecake"), completer.complete("c", 10));
+        assertTrue(completer.complete("pizza", 10).isEmpty());
+        assertTrue(completer.complete(" ", 10).isEmpty());
+
+        // Weights add up; the first spelling is kept
+        completer.add("chickpea curry", 10);
+        completer.published().get(5, TimeUnit.SECONDS);
+        assertEquals("Chickpea Curry", completer.complete("chick", 1).get(0));
+        assertEquals(5, completer.size());
+        assertThrows(IllegalArgumentException.class, () -> completer.add("Soup", -1));
+    }
+
+    @Test
+    void completeOnlyReadsWhatTheUpdaterPublished() throws Exception {
+        BlockingQueue<Runnable> rebuilds = new LinkedBlockingQueue<>();
+        PrefixCompleter completer = new PrefixCompleter(rebuilds::add);
+        completer.add("Chicken Handi", 1);
+        completer.addAll(List.of("Chickpea", "Chicory"));
+        CompletableFuture<Void> published = completer.published();
+
+        // Nothing is built on the reader's side, and a burst schedules one rebuild
+        assertTrue(completer.complete("chic", 10).isEmpty());
+        assertEquals(1, rebuilds.size());
+        assertFalse(published.isDone());
+
+        rebuilds.take().run();
+        assertTrue(published.isDone());
+        assertEquals(List.of("Chicken Handi", "Chickpea", "Chicory"), completer.complete("chic", 10));
+        assertTrue(rebuilds.isEmpty());
+    }
+
+    @Test
+    void serviceSuggestsFromListsAndSeenMeals() throws Exception {
+        try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            MealLabService service = new MealLabService(client, 100, Duration.ofMinutes(5));
+
+            service.loadSuggestionsAsync().get(20, TimeUnit.SECONDS);
+            service.loadSuggestionsAsync().get(20, TimeUnit.SECONDS);
+            assertEquals(3, stub.getRequestCount("list.php"));
+            assertEquals(List.of("Dessert"), service.completeCategories("des", 5));
+            assertEquals(List.of("Turkish"), service.completeAreas("tu", 5));
+            assertTrue(service.completeNames("chick", 5).isEmpty());
+
+            // Seen meals add names and make their ingredients more popular
+            service.searchByName("chicken");
+            service.lookupById("52977");
+            service.loadSuggestionsAsync().get(20, TimeUnit.SECONDS);
+            assertEquals("Onion", service.completeIngredients("oni", 5).get(0));
+            assertTrue(service.completeNames("chick", 5).contains("Chicken Handi"));
+            assertEquals(List.of("Corba"), service.completeNames("cor", 5));
+        }
+    }
+
+    @Test
+    void sourcesCountOnceTowardsTheirTerms() throws Exception {
+        PrefixCompleter completer = new PrefixCompleter();
+        completer.put("1", List.of("Chicken", "Onion"));
+        completer.put("2", List.of("Chickpea", "Onion", "onion"));
+        completer.put("3", List.of("Chickpea"));
+        completer.published().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("Chickpea", "Chicken"), completer.complete("chick", 10));
+
+        // Seen again: no change; changed: its weight moves to the new terms
+        completer.put("3", List.of("Chickpea"));
+        completer.put("2", List.of("Onion"));
+        completer.published().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("Chicken", "Chickpea"), completer.complete("chick", 10));
+
+        // Removed: no longer counts, the terms stay known
+        completer.remove("1");
+        completer.remove("unknown");
+        completer.published().get(5, TimeUnit.SECONDS);
+        assertEquals(List.of("Chickpea", "Chicken"), completer.complete("chick", 10));
+        assertEquals(3, completer.size());
+    }
+
+    @Test
+    void refetchingAMealDoesNotChangeTheRanking() throws Exception {
+        try (StubMealDbServer stub = StubMealDbServer.withSampleMeals().start()) {
+            MealLabClient client = new MealLabClient(new HttpTransport(), stub.getBaseUrl());
+            MealLabService service = new MealLabService(client, 100, Duration.ofMinutes(5));
+
+            service.searchByName("chicken");
+            service.loadSuggestionsAsync().get(20, TimeUnit.SECONDS);
+            List<String> names = service.completeNames("chick", 10);
+            List<String> ingredients = service.completeIngredients("s", 10);
+            assertEquals(3, names.size());
+
+            // The same meals again, from other searches
+            service.searchByName("handi");
+            service.searchByName("chicken handi");
+            service.searchByName("casserole");
+            service.loadSuggestionsAsync().get(20, TimeUnit.SECONDS);
+            assertEquals(names, service.completeNames("chick", 10));
+            assertEquals(ingredients, service.completeIngredients("s", 10));
+        }
+    }
+}
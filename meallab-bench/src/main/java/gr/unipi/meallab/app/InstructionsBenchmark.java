@@ -0,0 +1,67 @@
+package gr.unipi.meallab.app;
+
+import com.google.gson.JsonObject;
+import gr.unipi.meallab.bench.SampleMeals;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The two instruction formatters: Main (CLI) and MealLabView (details pane).
+ *
+ * Lives in gr.unipi.meallab.app because both formatters are package-private.
+ * Only the static method is called, so the JavaFX toolkit is never started.
+ *
+ * Inputs are real strInstructions values from the bundled sample meals:
+ * "short" is the shortest one, "long" the longest one repeated 4 times
+ * (some real recipes are several kilobytes).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class InstructionsBenchmark {
+
+    @Param({"short", "long"})
+    String size;
+
+    private String instructions;
+
+    @Setup
+    public void setUp() {
+        String shortest = null;
+        String longest = "";
+        for (JsonObject meal : SampleMeals.meals()) {
+            String text = meal.get("strInstructions").getAsString();
+            if (shortest == null || text.length() < shortest.length()) {
+                shortest = text;
+            }
+            if (text.length() > longest.length()) {
+                longest = text;
+            }
+        }
+        instructions = "short".equals(size) ? shortest : String.join("\r\n", longest, longest, longest, longest);
+    }
+
+    @Benchmark
+    public String cli() {
+        return Main.formatInstructions(instructions);
+    }
+
+    @Benchmark
+    public String gui() {
+        return MealLabView.formatInstructions(instructions);
+    }
+}
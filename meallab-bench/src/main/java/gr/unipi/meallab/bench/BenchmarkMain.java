@@ -0,0 +1,36 @@
+package gr.unipi.meallab.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of benchmarks.jar.
+ *
+ * Same command line as the stock JMH main (e.g. a benchmark regex, -f, -wi,
+ * -i, -p size=10000, -rf json), but always attaches the GC profiler so every
+ * result also reports gc.alloc.rate and gc.alloc.rate.norm (bytes per operation).
+ *
+ * Usage:
+ *   java -jar meallab-bench/target/benchmarks.jar                  (everything)
+ *   java -jar meallab-bench/target/benchmarks.jar Decode           (one class)
+ *   java -jar meallab-bench/target/benchmarks.jar -lp              (list profilers)
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build();
+        try {
+            new Runner(options).run();
+        } catch (RunnerException e) {
+            System.out.println("Benchmark run failed: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.model.MealsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStreamReader;
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gson decode of TheMealDB responses, the way MealLabClient does it:
+ * a streaming JsonReader over the response bytes into MealsResponse<T>.
+ *
+ * - details: search.php / lookup.php bodies (MealDetailsAdapter, 20 ingredient slots per meal)
+ * - list: filter.php bodies (three fields per meal)
+ *
+ * meals = 1 is a lookup, 25 a typical search, 300 a large filter result.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DecodeBenchmark {
+
+    private static final Type DETAILS_TYPE = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
+    private static final Type LIST_TYPE = new TypeToken<MealsResponse<MealListItem>>() {}.getType();
+
+    @Param({"1", "25", "300"})
+    int meals;
+
+    private final Gson gson = new Gson();
+
+    private byte[] detailsPayload;
+    private byte[] listPayload;
+
+    @Setup
+    public void setUp() {
+        detailsPayload = SampleMeals.detailsPayload(meals);
+        listPayload = SampleMeals.listPayload(meals);
+    }
+
+    @Benchmark
+    public MealsResponse<MealDetails> details() {
+        return decode(detailsPayload, DETAILS_TYPE);
+    }
+
+    @Benchmark
+    public MealsResponse<MealListItem> list() {
+        return decode(listPayload, LIST_TYPE);
+    }
+
+    private <T> MealsResponse<T> decode(byte[] payload, Type type) {
+        JsonReader reader = new JsonReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+        return gson.fromJson(reader, type);
+    }
+}
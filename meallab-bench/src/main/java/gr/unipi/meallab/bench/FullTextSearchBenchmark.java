@@ -0,0 +1,79 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.search.FullTextIndex;
+import gr.unipi.meallab.app.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BM25 search over a synthetic catalog (FullTextIndex).
+ *
+ * - firstPage / eleventhPage: hits 1-20 and 201-220 of the same query
+ * - add: indexing one more meal, as when its details are fetched
+ * The synthetic instructions reuse a small vocabulary, so posting lists are
+ * long: a pessimistic case for a real catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class FullTextSearchBenchmark {
+
+    @Param({"100000"})
+    public int meals;
+
+    @Param({"slow cooked lamb stew", "garlic onion simmer", "dessert chocolate"})
+    public String query;
+
+    private FullTextIndex index;
+    private MealDetails extra;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Gson gson = new Gson();
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        List<MealDetails> all = new ArrayList<>(meals);
+        for (int i = 0; i < meals; i++) {
+            all.add(gson.fromJson(catalog.meal(i), MealDetails.class));
+        }
+        index = new FullTextIndex();
+        index.addAll(all);
+        extra = gson.fromJson(catalog.meal(meals), MealDetails.class);
+    }
+
+    @Benchmark
+    public List<SearchHit> firstPage() {
+        return index.search(query, 0, 20);
+    }
+
+    @Benchmark
+    public List<SearchHit> eleventhPage() {
+        return index.search(query, 200, 20);
+    }
+
+    @Benchmark
+    public int add() {
+        // Same text every time after the first call: measures the unchanged-meal check
+        index.add(extra);
+        return index.size();
+    }
+}
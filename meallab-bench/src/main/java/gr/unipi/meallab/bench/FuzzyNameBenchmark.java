@@ -0,0 +1,59 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.search.FuzzyNameIndex;
+import gr.unipi.meallab.app.search.SearchHit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Typo-tolerant name search over a synthetic catalog (FuzzyNameIndex):
+ * a misspelled common word, a misspelled multi-word name, a Greek query
+ * and a query with no match at all.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class FuzzyNameBenchmark {
+
+    @Param({"300", "100000"})
+    public int meals;
+
+    @Param({"chiken", "slow cookd lamb stew", "\u039c\u03bf\u03c5\u03c3\u03b1\u03ba\u03ac\u03c2", "zzqx"})
+    public String query;
+
+    private FuzzyNameIndex index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Gson gson = new Gson();
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        index = new FuzzyNameIndex();
+        for (int i = 0; i < meals; i++) {
+            index.add(gson.fromJson(catalog.meal(i), MealDetails.class));
+        }
+    }
+
+    @Benchmark
+    public List<SearchHit> search() {
+        return index.search(query, 10);
+    }
+}
@@ -0,0 +1,71 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.search.IngredientQuery;
+import gr.unipi.meallab.app.search.IngredientQueryEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-ingredient queries over a synthetic catalog (IngredientQueryEngine).
+ *
+ * - search: the matching meals as a list
+ * - count: only their number (no list is built)
+ * The queries range from a selective AND with a NOT to a plain NOT that
+ * matches most of the catalog.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+@State(Scope.Benchmark)
+public class IngredientQueryBenchmark {
+
+    @Param({"1000000"})
+    public int meals;
+
+    @Param({"Chicken AND Garlic NOT Peanuts", "Goat Meat AND Garlic", "Garlic AND Salt",
+            "(Beef OR Lamb) AND Onion NOT Butter", "NOT Garlic"})
+    public String query;
+
+    private IngredientQueryEngine engine;
+    private IngredientQuery parsed;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Gson gson = new Gson();
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        engine = new IngredientQueryEngine();
+        for (int i = 0; i < meals; i++) {
+            engine.add(gson.fromJson(catalog.meal(i), MealDetails.class));
+        }
+        parsed = IngredientQuery.parse(query);
+    }
+
+    @Benchmark
+    public List<MealListItem> search() {
+        return engine.search(parsed);
+    }
+
+    @Benchmark
+    public int count() {
+        return engine.count(parsed);
+    }
+}
@@ -0,0 +1,88 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealListItem;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.catalog.CatalogSnapshot;
+import gr.unipi.meallab.app.search.IngredientIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local searchByIngredient over a synthetic catalog: the IngredientIndex
+ * posting lists against a scan of every meal (CatalogSnapshot).
+ *
+ * - indexCommon / scanCommon: "Garlic", used by a large share of the meals
+ * - indexRare / scanRare: "Goat Meat", the main ingredient of one rare category
+ * - add: re-indexing one meal, as when a delta or a remote lookup arrives
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Thread)
+public class IngredientSearchBenchmark {
+
+    @Param({"300", "100000"})
+    public int meals;
+
+    private CatalogSnapshot snapshot;
+    private IngredientIndex index;
+    private MealDetails sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Gson gson = new Gson();
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        List<MealDetails> all = new ArrayList<>(meals);
+        for (int i = 0; i < meals; i++) {
+            all.add(gson.fromJson(catalog.meal(i), MealDetails.class));
+        }
+        snapshot = CatalogSnapshot.of(all);
+        index = new IngredientIndex();
+        index.addAll(all);
+        sample = all.get(meals / 2);
+    }
+
+    @Benchmark
+    public List<MealListItem> indexCommon() {
+        return index.search("Garlic");
+    }
+
+    @Benchmark
+    public List<MealListItem> scanCommon() {
+        return snapshot.searchByIngredient("Garlic");
+    }
+
+    @Benchmark
+    public List<MealListItem> indexRare() {
+        return index.search("Goat Meat");
+    }
+
+    @Benchmark
+    public List<MealListItem> scanRare() {
+        return snapshot.searchByIngredient("Goat Meat");
+    }
+
+    @Benchmark
+    public int add() {
+        index.add(sample);
+        return index.size();
+    }
+}
@@ -0,0 +1,72 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import com.google.gson.reflect.TypeToken;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.model.MealsResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MealDetails.getIngredientsWithMeasures(), as the CLI and the details pane use it.
+ *
+ * The map view is created on the first call and kept by the meal, so both
+ * benchmarks measure the steady state the UI sees after a meal is shown once.
+ *
+ * - iterate: walking every ingredient/measure pair of an already viewed meal
+ * - lookup: one get() by ingredient name (linear over at most 20 pairs)
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MealModelBenchmark {
+
+    private static final Type DETAILS_TYPE = new TypeToken<MealsResponse<MealDetails>>() {}.getType();
+
+    private final Gson gson = new Gson();
+
+    private List<MealDetails> viewed;
+
+    @Setup
+    public void setUp() {
+        String json = new String(SampleMeals.detailsPayload(SampleMeals.meals().size()), StandardCharsets.UTF_8);
+        MealsResponse<MealDetails> response = gson.fromJson(json, DETAILS_TYPE);
+        viewed = response.getMeals();
+        for (MealDetails meal : viewed) {
+            meal.getIngredientsWithMeasures();
+        }
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (MealDetails meal : viewed) {
+            for (Map.Entry<String, String> e : meal.getIngredientsWithMeasures().entrySet()) {
+                bh.consume(e.getKey());
+                bh.consume(e.getValue());
+            }
+        }
+    }
+
+    @Benchmark
+    public String lookup() {
+        return viewed.get(0).getIngredientsWithMeasures().get("soy sauce");
+    }
+}
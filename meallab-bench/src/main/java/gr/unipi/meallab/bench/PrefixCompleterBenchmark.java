@@ -0,0 +1,60 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.Gson;
+import gr.unipi.meallab.api.model.MealDetails;
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.search.PrefixCompleter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keystroke autocomplete over the names of a synthetic catalog (PrefixCompleter):
+ * a one-letter prefix (the widest range), a common word, a longer prefix
+ * and one that matches nothing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PrefixCompleterBenchmark {
+
+    @Param({"300", "100000"})
+    public int meals;
+
+    @Param({"c", "chick", "slow cooked l", "zzqx"})
+    public String prefix;
+
+    private PrefixCompleter completer;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Gson gson = new Gson();
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        completer = new PrefixCompleter();
+        for (int i = 0; i < meals; i++) {
+            MealDetails meal = gson.fromJson(catalog.meal(i), MealDetails.class);
+            completer.add(meal.getStrMeal(), 1 + i % 7);
+        }
+        completer.published().join();
+    }
+
+    @Benchmark
+    public List<String> complete() {
+        return completer.complete(prefix, 8);
+    }
+}
@@ -0,0 +1,94 @@
+package gr.unipi.meallab.bench;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import gr.unipi.meallab.api.stub.StubMealDbServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Realistic benchmark payloads built from the sample meals bundled with
+ * StubMealDbServer (real TheMealDB records, with all 20 ingredient slots,
+ * nulls and "\r\n" instructions), repeated with fresh ids up to the wanted size.
+ */
+public final class SampleMeals {
+
+    private static final String RESOURCE = "sample-meals.json";
+
+    private static final List<JsonObject> MEALS = load();
+
+    private SampleMeals() {
+    }
+
+    /**
+     * @return the bundled meals (do not modify)
+     */
+    public static List<JsonObject> meals() {
+        return MEALS;
+    }
+
+    /**
+     * A search.php / lookup.php style body: {"meals":[{full details}, ...]}.
+     *
+     * @param count meals in the payload
+     * @return UTF-8 JSON
+     */
+    public static byte[] detailsPayload(int count) {
+        JsonArray meals = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            JsonObject meal = MEALS.get(i % MEALS.size()).deepCopy();
+            meal.addProperty("idMeal", String.valueOf(60000 + i));
+            meals.add(meal);
+        }
+        return wrap(meals);
+    }
+
+    /**
+     * A filter.php style body: {"meals":[{"strMeal","strMealThumb","idMeal"}, ...]}.
+     *
+     * @param count meals in the payload
+     * @return UTF-8 JSON
+     */
+    public static byte[] listPayload(int count) {
+        JsonArray meals = new JsonArray();
+        for (int i = 0; i < count; i++) {
+            JsonObject source = MEALS.get(i % MEALS.size());
+            JsonObject item = new JsonObject();
+            item.add("strMeal", source.get("strMeal"));
+            item.add("strMealThumb", source.get("strMealThumb"));
+            item.addProperty("idMeal", String.valueOf(60000 + i));
+            meals.add(item);
+        }
+        return wrap(meals);
+    }
+
+    private static byte[] wrap(JsonArray meals) {
+        JsonObject root = new JsonObject();
+        root.add("meals", meals);
+        return root.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<JsonObject> load() {
+        try (InputStream in = StubMealDbServer.class.getResourceAsStream(RESOURCE)) {
+            if (in == null) {
+                throw new IllegalStateException("Missing resource " + RESOURCE);
+            }
+            JsonObject root = JsonParser.parseReader(new InputStreamReader(in, StandardCharsets.UTF_8)).getAsJsonObject();
+            List<JsonObject> meals = new ArrayList<>();
+            for (JsonElement meal : root.getAsJsonArray("meals")) {
+                meals.add(meal.getAsJsonObject());
+            }
+            return List.copyOf(meals);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
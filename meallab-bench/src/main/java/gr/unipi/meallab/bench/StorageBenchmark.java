@@ -0,0 +1,80 @@
+package gr.unipi.meallab.bench;
+
+import gr.unipi.meallab.api.stub.SyntheticCatalog;
+import gr.unipi.meallab.app.MealStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * MealStorage save/load of the Favorites list at 10, 10k and 1M entries,
+ * in a temporary directory (the real ~/.meallab is never touched).
+ *
+ * Entries are meal id -> name pairs from a SyntheticCatalog, so names have
+ * realistic lengths and accents. 1M entries is far beyond any real list; it shows how the whole-file JSON
+ * format scales (the 1M run needs the 2 GB heap set by @Fork).
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+@State(Scope.Benchmark)
+public class StorageBenchmark {
+
+    @Param({"10", "10000", "1000000"})
+    int entries;
+
+    private Path dir;
+    private MealStorage storage;
+    private Map<String, String> favorites;
+
+    @Setup
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("meallab-bench");
+        storage = new MealStorage(dir);
+        SyntheticCatalog catalog = new SyntheticCatalog();
+        favorites = new LinkedHashMap<>();
+        for (int i = 0; i < entries; i++) {
+            favorites.put(SyntheticCatalog.idOf(i), catalog.name(i));
+        }
+        // load() needs a file to read
+        storage.saveFavorites(favorites);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Path save() {
+        storage.saveFavorites(favorites);
+        return storage.getFavoritesFile();
+    }
+
+    @Benchmark
+    public Map<String, String> load() {
+        return storage.loadFavorites();
+    }
+}